@@ -2,19 +2,39 @@ package org.sf.xrime;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
+import org.sf.xrime.algorithms.MST.boruvka.ComponentEdgeTest;
+import org.sf.xrime.algorithms.MST.boruvka.LocalKruskalTest;
+import org.sf.xrime.algorithms.bsp.BSPEngineTest;
+import org.sf.xrime.algorithms.kcore.undirected.LocalElementRemovalTest;
+import org.sf.xrime.algorithms.partitions.connected.strongly.LocalSCCTest;
+import org.sf.xrime.algorithms.partitions.connected.weakly.alg_2.LocalLabelMergeTest;
+import org.sf.xrime.model.csr.CSRGraphTest;
 import org.sf.xrime.model.edge.EdgeTest;
 import org.sf.xrime.model.label.LabelsTest;
 import org.sf.xrime.model.vertex.AdjVertexTest;
+import org.sf.xrime.model.vertex.CompactAdjVertexTest;
+import org.sf.xrime.model.vertex.IdAdjVertexTest;
 import org.sf.xrime.model.vertex.VertexTest;
 import org.sf.xrime.utils.SequenceTempDirMgrTest;
+import org.sf.xrime.utils.SortedArraySetTest;
 
 
 @RunWith(Suite.class)@Suite.SuiteClasses({  
 	EdgeTest.class,  
 	LabelsTest.class,  
 	AdjVertexTest.class,    
+	IdAdjVertexTest.class,
+	CompactAdjVertexTest.class,
 	VertexTest.class,  
-	SequenceTempDirMgrTest.class})
+	SequenceTempDirMgrTest.class,
+	SortedArraySetTest.class,
+	CSRGraphTest.class,
+	LocalSCCTest.class,
+	LocalElementRemovalTest.class,
+	LocalLabelMergeTest.class,
+	ComponentEdgeTest.class,
+	LocalKruskalTest.class,
+	BSPEngineTest.class})
 	
 public class AllTests {
 	// why on earth I need this class, I have no idea! }
@@ -19,6 +19,11 @@ package org.sf.xrime.algorithms.BC;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.util.GenericOptionsParser;
+import org.sf.xrime.algorithms.BC.batch.MultiSourceBCAlgorithm;
+import org.sf.xrime.algorithms.BC.batch.MultiSourceLabel;
+import org.sf.xrime.algorithms.BC.local.LocalBCAlgorithm;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -33,6 +38,10 @@ import java.util.HashSet;
  * v: the specified vertex
  * the BC of the specified vertex is printed in the console 
  * 
+ * the BC of all vertexes is computed at once, and written into out:
+ * by MultiSourceBCAlgorithm, with batches of -w sources (32 by default)
+ * or by LocalBCAlgorithm in the memory of this machine, with -local
+ * 
  */
 
 public class BCRunner {  
@@ -45,26 +54,34 @@ public class BCRunner {
   public static void runBC(String[] args) {
     try {            
         Configuration conf = new Configuration();
-        String[] otherArgs = new GenericOptionsParser(conf, args).getRemainingArgs();
-        if (otherArgs.length != 4) {
-            System.err.println("Usage:  <in> <mediate> <out> <vertex>");
+        String[] remainingArgs = new GenericOptionsParser(conf, args).getRemainingArgs();
+        List<String> otherArgs=new ArrayList<String>();
+        boolean local=false;
+        int width=32;
+        for(int i=0;i<remainingArgs.length;i++)
+        {
+          if("-local".equals(remainingArgs[i]))
+            local=true;
+          else if("-w".equals(remainingArgs[i]) && i+1<remainingArgs.length)
+            width=Integer.parseInt(remainingArgs[++i]);
+          else
+            otherArgs.add(remainingArgs[i]);
+        }
+        if (otherArgs.size() != 4) {
+            System.err.println("Usage:  [-local | -w <batch width>] <in> <mediate> <out> <vertex>");
             System.exit(1);
         }
        
         Set<String> vertexes=new HashSet<String>();
-        String src=otherArgs[0];         //src file
-        String mediate=otherArgs[1];                //mediate result
-        String out=otherArgs[2];         //out
-        String v=otherArgs[3];                       //specified vertex
+        String src=otherArgs.get(0);         //src file
+        String mediate=otherArgs.get(1);                //mediate result
+        String out=otherArgs.get(2);         //out
+        String v=otherArgs.get(3);                       //specified vertex
         
-        BCAlgorithm job=new BCAlgorithm(v);
         Pajek2LabeledAdjBiSetVertexTransformer transformer = 
           new Pajek2LabeledAdjBiSetVertexTransformer(src,mediate);
         transformer.execute();
         
-        job.setSrcPath(new Path(mediate));
-        job.setDestPath(new Path(out));
-        
         vertexes=new BCVertexGeter(src).getBCVertex();
         if(!vertexes.contains(v))
         {
@@ -72,12 +89,38 @@ public class BCRunner {
           System.exit(1);
         }
 
-        for(String item:vertexes)
+        if(local)
         {
-          job.addInitVertex(item);
+          LocalBCAlgorithm job=new LocalBCAlgorithm();
+          job.setConf(conf);
+          job.setSrcPath(new Path(mediate));
+          job.setDestPath(new Path(out));
           job.execute();
-          bc+=job.getBCvertex();
-          job.setBCvertex(0);
+          double value=job.getBC(v);
+          if(value<0)
+          {
+            // Not in the results.
+            System.err.println("No BC of vertex "+v);
+            System.exit(1);
+          }
+          bc=(float)value;
+        }
+        else
+        {
+          MultiSourceBCAlgorithm job=new MultiSourceBCAlgorithm();
+          job.setConf(conf);
+          job.setSrcPath(new Path(mediate));
+          job.setDestPath(new Path(out));
+          job.setBatchWidth(width);
+          job.execute();
+          MultiSourceLabel label=job.getLabel(v);
+          if(label==null)
+          {
+            // Not in the results.
+            System.err.println("No BC of vertex "+v);
+            System.exit(1);
+          }
+          bc=(float)label.getBC();
         }
         
         System.out.println("the bc of vertex   "+v+"   is   "+bc);
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+/**
+ * Betweenness and closeness centrality by MapReduce, with the sources run in batches.
+ * It takes the same input as BCAlgorithm, i.e., LabeledAdjBiSetVertex, and writes it
+ * with the betweenness of each vertex set into its BCLabel, and both centralities in
+ * its MultiSourceLabel.
+ * <p>
+ * For each batch of sources, MultiSourceForwardStep is run level by level until no 
+ * vertex is reached, then MultiSourceBackwardStep from the farthest level down to 1.
+ * So the number of jobs is about twice the diameter per batch, instead of twice the
+ * diameter per source. A wider batch means fewer jobs, but larger labels and messages.
+ * <p>
+ * execute() runs all vertexes (or the specified sources) as sources. Drivers which 
+ * choose sources on the fly can call begin(), runBatch() and end() instead.
+ */
+public class MultiSourceBCAlgorithm extends GraphAlgorithm {
+  /**
+   * Maximal number of sources in a batch.
+   */
+  private int batchWidth=32;
+  /**
+   * Sources, null for all vertexes.
+   */
+  private List<String> sources=null;
+  
+  private FileSystem client=null;
+  private SequenceTempDirMgr tempDirs=null;
+  /**
+   * Output of the last step.
+   */
+  private Path resultPath=null;
+  /**
+   * Number of sources run since begin().
+   */
+  private long sourceCount=0;
+  
+  public int getBatchWidth() {
+    return batchWidth;
+  }
+
+  public void setBatchWidth(int batchWidth) {
+    if(batchWidth<1) {
+      throw new IllegalArgumentException("Batch width should be positive");
+    }
+    this.batchWidth = batchWidth;
+  }
+
+  public List<String> getSources() {
+    return sources;
+  }
+
+  public void setSources(List<String> sources) {
+    this.sources = sources;
+  }
+  
+  public long getSourceCount() {
+    return sourceCount;
+  }
+  
+  /**
+   * The output of the last step, i.e., the current results.
+   * @return
+   */
+  public Path getResultPath() {
+    return resultPath;
+  }
+  
+  public Path getSrcPath() {
+    Graph src=context.getSource();
+    if(src==null) {
+      return null;
+    }
+    
+    try {
+      return src.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setSrcPath(Path srcPath) {
+    Graph src=context.getSource();
+    if(src==null) {
+      src=new Graph(Graph.defaultGraph());
+      context.setSource(src);
+    }
+    src.setPath(srcPath);
+  }
+  
+  public Path getDestPath() {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      return null;
+    }
+    
+    try {
+      return dest.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setDestPath(Path destPath) {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      dest=new Graph(Graph.defaultGraph());
+      context.setDestination(dest);
+    }
+    dest.setPath(destPath);
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-w".equals(params[i])) {
+          setBatchWidth(Integer.parseInt(params[++i]));
+        } else if (params[i] != null) {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters left: " +
+                         other_args.size() + " instead of 2.");
+    }
+    setSrcPath(new Path(other_args.get(0)));
+    setDestPath(new Path(other_args.get(1)));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    begin();
+    List<String> all=sources!=null ? sources : getVertexIds();
+    for(int i=0; i<all.size(); i+=batchWidth) {
+      runBatch(all.subList(i, Math.min(all.size(), i+batchWidth)));
+    }
+    end();
+  }
+  
+  /**
+   * Ids of all vertexes in the source graph.
+   * @return
+   * @throws ProcessorExecutionException
+   */
+  public List<String> getVertexIds() throws ProcessorExecutionException {
+    List<String> ids=new ArrayList<String>();
+    try {
+      FileSystem fs=getSrcPath().getFileSystem(context);
+      Text key=new Text();
+      for(Path file : SequenceFiles.listDataFiles(fs, getSrcPath())) {
+        SequenceFile.Reader reader=new SequenceFile.Reader(fs, file, context);
+        try {
+          while(reader.next(key)) {
+            ids.add(key.toString());
+          }
+        } finally {
+          reader.close();
+        }
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    return ids;
+  }
+  
+  /**
+   * Start from the source graph, clearing former results in it.
+   * @throws ProcessorExecutionException
+   */
+  public void begin() throws ProcessorExecutionException {
+    try {
+      client=FileSystem.get(context);
+      tempDirs=new SequenceTempDirMgr(getDestPath().toString()+"_", context);
+      tempDirs.setSeqNum(0);
+      resultPath=null;
+      sourceCount=0;
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Run a batch of sources, and add their dependencies to the current results.
+   * @param batch sources, at most batchWidth of them.
+   * @throws ProcessorExecutionException
+   */
+  public void runBatch(List<String> batch) throws ProcessorExecutionException {
+    if(batch.size()>batchWidth) {
+      throw new ProcessorExecutionException("Batch wider than " + batchWidth);
+    }
+    try {
+      MultiSourceForwardStep forward=new MultiSourceForwardStep();
+      forward.setConf(context);
+      forward.setMapperNum(getMapperNum());
+      forward.setReducerNum(getReducerNum());
+      forward.setSources(new ArrayList<String>(batch));
+      forward.setClear(resultPath==null);
+      
+      int level=0;
+      while(true) {
+        forward.setLevel(level);
+        step(forward);
+        if(forward.getFrontierSize()==0) {
+          break;
+        }
+        level++;
+      }
+      
+      // The farthest vertexes are at the last level.
+      MultiSourceBackwardStep backward=new MultiSourceBackwardStep();
+      backward.setConf(context);
+      backward.setMapperNum(getMapperNum());
+      backward.setReducerNum(getReducerNum());
+      backward.setWidth(batch.size());
+      for(level=level-1; level>0; level--) {
+        backward.setLevel(level);
+        step(backward);
+      }
+      sourceCount+=batch.size();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Run a step on the current results, and keep its output as the new results.
+   * @param step
+   * @throws ProcessorExecutionException
+   * @throws IOException
+   */
+  private void step(GraphAlgorithm step) throws ProcessorExecutionException, IOException {
+    Graph src=new Graph(Graph.defaultGraph());
+    src.setPath(resultPath==null ? getSrcPath() : resultPath);
+    Graph dest=new Graph(Graph.defaultGraph());
+    dest.setPath(tempDirs.getTempDir());
+    step.setSource(src);
+    step.setDestination(dest);
+    step.execute();
+    
+    if(resultPath!=null) {
+      client.delete(resultPath, true);
+    }
+    try {
+      resultPath=dest.getPath();
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Move the current results into the destination path.
+   * @throws ProcessorExecutionException
+   */
+  public void end() throws ProcessorExecutionException {
+    if(resultPath==null) {
+      throw new ProcessorExecutionException("No batch has been run.");
+    }
+    try {
+      if(!client.rename(resultPath, getDestPath())) {
+        throw new ProcessorExecutionException("Can not move results into " + getDestPath());
+      }
+      resultPath=getDestPath();
+      tempDirs.deleteAll();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Get the current label of a vertex, by scanning the current results.
+   * @param id id of the vertex.
+   * @return null if the vertex is not found.
+   * @throws ProcessorExecutionException
+   */
+  public MultiSourceLabel getLabel(String id) throws ProcessorExecutionException {
+    if(resultPath==null) {
+      return null;
+    }
+    try {
+      Text key=new Text();
+      LabeledAdjBiSetVertex vertex=new LabeledAdjBiSetVertex();
+      for(Path file : SequenceFiles.listDataFiles(client, resultPath)) {
+        SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+        try {
+          while(reader.next(key, vertex)) {
+            if(key.toString().equals(id)) {
+              return (MultiSourceLabel) vertex.getLabel(MultiSourceLabel.multiSourceLabelKey);
+            }
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      return null;
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new MultiSourceBCAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BC.BCLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+/**
+ * One level of dependency accumulation for a batch of sources at once, after 
+ * MultiSourceForwardStep. For each source, vertexes at the level next to the current
+ * one send (1+dependency)/(number of shortest paths) to their backward vertexes, and
+ * the vertexes at the current level take the sum multiplied by their own numbers of
+ * shortest paths as their dependencies, which are added to their betweenness. Levels
+ * are processed from the farthest one down to 1.
+ */
+public class MultiSourceBackwardStep extends GraphAlgorithm {
+  /**
+   * The current level, vertexes at this level get their dependencies.
+   */
+  private int level=0;
+  /**
+   * Number of sources in the batch.
+   */
+  private int width=0;
+  
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public void setWidth(int width) {
+    this.width = width;
+  }
+
+  /**
+   * Send parts of dependencies.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase 
+    implements Mapper<Text, LabeledAdjBiSetVertex, Text, ObjectWritable> {
+    private int level;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      level=job.getInt(MultiSourceForwardStep.levelKey, 0);
+    }
+
+    @Override
+    public void map(Text key, LabeledAdjBiSetVertex value,
+        OutputCollector<Text, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      MultiSourceLabel label=(MultiSourceLabel) value.getLabel(MultiSourceLabel.multiSourceLabelKey);
+      if(label!=null) {
+        MultiSourceMessage message=new MultiSourceMessage();
+        for(int slot=0; slot<label.getWidth(); slot++) {
+          if(label.getDistance(slot)==level+1) {
+            message.add(slot, (1+label.getDependency(slot))/label.getNumber(slot));
+          }
+        }
+        if(message.size()>0) {
+          ObjectWritable outputValue=new ObjectWritable(message);
+          Text outputKey=new Text();
+          for(AdjVertexEdge edge : value.getBackwardVertexes()) {
+            outputKey.set(edge.getOpposite());
+            output.collect(outputKey, outputValue);
+          }
+        }
+      }
+      
+      output.collect(key, new ObjectWritable(value));
+    }
+  }
+  
+  /**
+   * Accumulate dependencies of vertexes at the current level.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+    implements Reducer<Text, ObjectWritable, Text, LabeledAdjBiSetVertex> {
+    private int level;
+    private double[] sums;
+    private boolean[] present;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      level=job.getInt(MultiSourceForwardStep.levelKey, 0);
+      int width=job.getInt(MultiSourceForwardStep.widthKey, 0);
+      sums=new double[width];
+      present=new boolean[width];
+    }
+
+    @Override
+    public void reduce(Text key, Iterator<ObjectWritable> values,
+        OutputCollector<Text, LabeledAdjBiSetVertex> output, Reporter reporter)
+        throws IOException {
+      Arrays.fill(sums, 0);
+      Arrays.fill(present, false);
+      LabeledAdjBiSetVertex vertex=null;
+      while(values.hasNext()) {
+        Object value=values.next().get();
+        if(value instanceof MultiSourceMessage) {
+          ((MultiSourceMessage) value).addTo(sums, present);
+        } else {
+          vertex=(LabeledAdjBiSetVertex) value;
+        }
+      }
+      
+      if(vertex==null) {
+        return;
+      }
+      
+      MultiSourceLabel label=(MultiSourceLabel) vertex.getLabel(MultiSourceLabel.multiSourceLabelKey);
+      if(label!=null) {
+        boolean changed=false;
+        for(int slot=0; slot<label.getWidth(); slot++) {
+          // Messages from a vertex at the next level of the source come from its 
+          // predecessors, i.e., its backward vertexes at this level.
+          if(present[slot] && label.getDistance(slot)==level) {
+            double dependency=label.getNumber(slot)*sums[slot];
+            label.setDependency(slot, dependency);
+            if(level>0) {
+              label.addBC(dependency);
+              changed=true;
+            }
+          }
+        }
+        if(changed) {
+          BCLabel bcLabel=(BCLabel) vertex.getLabel(BCLabel.bcLabelPathsKey);
+          bcLabel.setBC((float) label.getBC());
+        }
+      }
+      output.collect(key, vertex);
+    }
+  }
+  
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf jobConf = new JobConf(context, MultiSourceBackwardStep.class);
+      jobConf.setJobName("MultiSourceBFS-backward-" + level);
+      
+      jobConf.setInt(MultiSourceForwardStep.levelKey, level);
+      jobConf.setInt(MultiSourceForwardStep.widthKey, width);
+      
+      jobConf.setMapperClass(MapClass.class);
+      jobConf.setCombinerClass(MultiSourceCombiner.class);
+      jobConf.setReducerClass(ReduceClass.class);
+      
+      jobConf.setMapOutputValueClass(ObjectWritable.class);
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjBiSetVertex.class);
+      
+      jobConf.setNumMapTasks(getMapperNum());
+      jobConf.setNumReduceTasks(getReducerNum());
+      
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);
+      jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+
+/**
+ * Combiner of multi-source BFS steps. Messages to the same vertex are summed up slot
+ * by slot, vertexes are passed through.
+ */
+public class MultiSourceCombiner extends GraphAlgorithmMapReduceBase 
+  implements Reducer<Text, ObjectWritable, Text, ObjectWritable> {
+  private double[] sums;
+  private boolean[] present;
+  
+  @Override
+  public void configure(JobConf job) {
+    super.configure(job);
+    int width=job.getInt(MultiSourceForwardStep.widthKey, 0);
+    sums=new double[width];
+    present=new boolean[width];
+  }
+
+  @Override
+  public void reduce(Text key, Iterator<ObjectWritable> values,
+      OutputCollector<Text, ObjectWritable> output, Reporter reporter)
+      throws IOException {
+    boolean combined=false;
+    while(values.hasNext()) {
+      ObjectWritable value=values.next();
+      if(value.get() instanceof MultiSourceMessage) {
+        if(!combined) {
+          Arrays.fill(sums, 0);
+          Arrays.fill(present, false);
+          combined=true;
+        }
+        ((MultiSourceMessage) value.get()).addTo(sums, present);
+      } else {
+        output.collect(key, value);
+      }
+    }
+    
+    if(combined) {
+      output.collect(key, new ObjectWritable(MultiSourceMessage.fromSums(sums, present)));
+    }
+  }
+}
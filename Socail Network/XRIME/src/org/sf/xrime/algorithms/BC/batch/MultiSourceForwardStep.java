@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.StringUtils;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BC.BCLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.MRConsoleReader;
+
+/**
+ * One level of BFS from a batch of sources at once, along forward vertexes. Vertexes 
+ * at the current level of any source send the numbers of their shortest paths from
+ * the source to their forward vertexes, and the vertexes not reached from the source
+ * yet get the next level and the sum of the numbers. So the graph is shuffled once 
+ * per level for all sources of the batch.
+ * <p>
+ * Level 0 starts a new batch: the sources are marked, and the labels of other batches
+ * are cleared.
+ */
+public class MultiSourceForwardStep extends GraphAlgorithm {
+  static final public String levelKey = "xrime.algorithm.BC.multiSource.level";
+  static final public String widthKey = "xrime.algorithm.BC.multiSource.width";
+  static final public String sourcesKey = "xrime.algorithm.BC.multiSource.sources";
+  static final public String clearKey = "xrime.algorithm.BC.multiSource.clear";
+  static final public String counterGroup = "MultiSourceBFS";
+  static final public String frontierCounter = "Frontier Size";
+  
+  /**
+   * The current level, vertexes at this level send messages.
+   */
+  private int level=0;
+  /**
+   * Sources of the batch, the index of each source is its slot.
+   */
+  private List<String> sources=null;
+  /**
+   * Whether to clear the results accumulated by former batches, at level 0.
+   */
+  private boolean clear=false;
+  
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  public List<String> getSources() {
+    return sources;
+  }
+
+  public void setSources(List<String> sources) {
+    this.sources = sources;
+  }
+
+  public boolean isClear() {
+    return clear;
+  }
+
+  public void setClear(boolean clear) {
+    this.clear = clear;
+  }
+  
+  /**
+   * Number of vertexes reached for the first time from any source, i.e., number of 
+   * (vertex, source) pairs at the next level, by the last execution.
+   * @return
+   * @throws ProcessorExecutionException
+   */
+  public long getFrontierSize() throws ProcessorExecutionException {
+    long size=MRConsoleReader.getRecordNum(runningJob, counterGroup, frontierCounter);
+    return size<0 ? 0 : size;
+  }
+
+  /**
+   * Send numbers of shortest paths.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase 
+    implements Mapper<Text, LabeledAdjBiSetVertex, Text, ObjectWritable> {
+    private int level;
+    private int width;
+    private boolean clear;
+    private Map<String, Integer> slots=new HashMap<String, Integer>();
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      level=job.getInt(levelKey, 0);
+      width=job.getInt(widthKey, 0);
+      clear=job.getBoolean(clearKey, false);
+      String sources=job.get(sourcesKey);
+      if(sources!=null) {
+        // Ids are escaped, since they may contain commas.
+        String[] ids=StringUtils.split(sources);
+        for(int slot=0; slot<ids.length; slot++) {
+          slots.put(StringUtils.unEscapeString(ids[slot]), slot);
+        }
+      }
+    }
+
+    @Override
+    public void map(Text key, LabeledAdjBiSetVertex value,
+        OutputCollector<Text, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      MultiSourceLabel label=(MultiSourceLabel) value.getLabel(MultiSourceLabel.multiSourceLabelKey);
+      if(level==0) {
+        // Start the batch.
+        if(label==null) {
+          label=new MultiSourceLabel(width);
+        }
+        label.startBatch(width);
+        if(clear) {
+          label.clearResults();
+        }
+        Integer slot=slots.get(value.getId());
+        if(slot!=null) {
+          label.setSource(slot);
+        }
+        value.setLabel(MultiSourceLabel.multiSourceLabelKey, label);
+        
+        Writable bcLabel=value.getLabel(BCLabel.bcLabelPathsKey);
+        if(!(bcLabel instanceof BCLabel)) {
+          // Also replaces labels of BCApproximation.
+          bcLabel=new BCLabel();
+          value.setLabel(BCLabel.bcLabelPathsKey, bcLabel);
+        }
+        ((BCLabel) bcLabel).setBC((float) label.getBC());
+      }
+      
+      if(label!=null) {
+        MultiSourceMessage message=new MultiSourceMessage();
+        for(int slot=0; slot<label.getWidth(); slot++) {
+          if(label.getDistance(slot)==level) {
+            message.add(slot, label.getNumber(slot));
+          }
+        }
+        if(message.size()>0) {
+          ObjectWritable outputValue=new ObjectWritable(message);
+          Text outputKey=new Text();
+          for(AdjVertexEdge edge : value.getForwardVertexes()) {
+            outputKey.set(edge.getOpposite());
+            output.collect(outputKey, outputValue);
+          }
+        }
+      }
+      
+      output.collect(key, new ObjectWritable(value));
+    }
+  }
+  
+  /**
+   * Mark vertexes reached for the first time.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+    implements Reducer<Text, ObjectWritable, Text, LabeledAdjBiSetVertex> {
+    private int level;
+    private double[] sums;
+    private boolean[] present;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      level=job.getInt(levelKey, 0);
+      int width=job.getInt(widthKey, 0);
+      sums=new double[width];
+      present=new boolean[width];
+    }
+
+    @Override
+    public void reduce(Text key, Iterator<ObjectWritable> values,
+        OutputCollector<Text, LabeledAdjBiSetVertex> output, Reporter reporter)
+        throws IOException {
+      Arrays.fill(sums, 0);
+      Arrays.fill(present, false);
+      LabeledAdjBiSetVertex vertex=null;
+      while(values.hasNext()) {
+        Object value=values.next().get();
+        if(value instanceof MultiSourceMessage) {
+          ((MultiSourceMessage) value).addTo(sums, present);
+        } else {
+          vertex=(LabeledAdjBiSetVertex) value;
+        }
+      }
+      
+      if(vertex==null) {
+        // Messages to vertexes not in the graph.
+        return;
+      }
+      
+      MultiSourceLabel label=(MultiSourceLabel) vertex.getLabel(MultiSourceLabel.multiSourceLabelKey);
+      if(label!=null) {
+        for(int slot=0; slot<label.getWidth(); slot++) {
+          if(present[slot] && label.getDistance(slot)<0) {
+            label.setReached(slot, level+1, sums[slot]);
+            reporter.incrCounter(counterGroup, frontierCounter, 1);
+          }
+        }
+      }
+      output.collect(key, vertex);
+    }
+  }
+  
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf jobConf = new JobConf(context, MultiSourceForwardStep.class);
+      jobConf.setJobName("MultiSourceBFS-forward-" + level);
+      
+      if(sources==null || sources.isEmpty()) {
+        throw new ProcessorExecutionException("No sources specified.");
+      }
+      jobConf.setInt(levelKey, level);
+      jobConf.setInt(widthKey, sources.size());
+      if(level==0) {
+        String[] ids=new String[sources.size()];
+        for(int slot=0; slot<ids.length; slot++) {
+          ids[slot]=StringUtils.escapeString(sources.get(slot));
+        }
+        jobConf.set(sourcesKey, StringUtils.arrayToString(ids));
+        jobConf.setBoolean(clearKey, clear);
+      }
+      
+      jobConf.setMapperClass(MapClass.class);
+      jobConf.setCombinerClass(MultiSourceCombiner.class);
+      jobConf.setReducerClass(ReduceClass.class);
+      
+      jobConf.setMapOutputValueClass(ObjectWritable.class);
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjBiSetVertex.class);
+      
+      jobConf.setNumMapTasks(getMapperNum());
+      jobConf.setNumReduceTasks(getReducerNum());
+      
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);
+      jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Label for multi-source BFS. For each source of the current batch, identified by its
+ * slot in the batch, it keeps the distance from the source, the number of shortest 
+ * paths from the source, and the dependency of the source on this vertex. It also 
+ * keeps the results accumulated over all batches.
+ * <p>
+ * Only the slots of sources which reached this vertex are written.
+ */
+public class MultiSourceLabel implements Cloneable, Writable {
+  static final public String multiSourceLabelKey = "xrime.algorithm.BC.multiSource.label";
+  
+  /**
+   * Distance from the source of each slot, -1 if not reached.
+   */
+  private int[] distances;
+  /**
+   * Number of shortest paths from the source of each slot.
+   */
+  private double[] numbers;
+  /**
+   * Dependency of the source of each slot on this vertex.
+   */
+  private double[] dependencies;
+  
+  /**
+   * Betweenness accumulated over batches.
+   */
+  private double bc;
+  /**
+   * Sum of distances from the sources which reached this vertex.
+   */
+  private double farness;
+  /**
+   * Number of sources which reached this vertex, this vertex excluded.
+   */
+  private long reached;
+  
+  static {
+    // Register the factory.
+    WritableFactories.setFactory
+          (MultiSourceLabel.class,
+           new WritableFactory() {
+               public Writable newInstance() { return new MultiSourceLabel(); }
+           });
+  }
+  
+  public MultiSourceLabel() {
+    this(0);
+  }
+  
+  public MultiSourceLabel(int width) {
+    distances=new int[width];
+    numbers=new double[width];
+    dependencies=new double[width];
+    Arrays.fill(distances, -1);
+  }
+  
+  public MultiSourceLabel(MultiSourceLabel label) {
+    distances=label.distances.clone();
+    numbers=label.numbers.clone();
+    dependencies=label.dependencies.clone();
+    bc=label.bc;
+    farness=label.farness;
+    reached=label.reached;
+  }
+  
+  /**
+   * Start a new batch, keep the accumulated results.
+   * @param width number of sources in the batch.
+   */
+  public void startBatch(int width) {
+    if(distances.length!=width) {
+      distances=new int[width];
+      numbers=new double[width];
+      dependencies=new double[width];
+    }
+    Arrays.fill(distances, -1);
+    Arrays.fill(numbers, 0);
+    Arrays.fill(dependencies, 0);
+  }
+  
+  /**
+   * Clear the accumulated results.
+   */
+  public void clearResults() {
+    bc=0;
+    farness=0;
+    reached=0;
+  }
+  
+  public int getWidth() {
+    return distances.length;
+  }
+  
+  public int getDistance(int slot) {
+    return distances[slot];
+  }
+  
+  public double getNumber(int slot) {
+    return numbers[slot];
+  }
+  
+  public double getDependency(int slot) {
+    return dependencies[slot];
+  }
+  
+  public void setDependency(int slot, double dependency) {
+    dependencies[slot]=dependency;
+  }
+  
+  /**
+   * Mark this vertex as the source of a slot.
+   * @param slot
+   */
+  public void setSource(int slot) {
+    distances[slot]=0;
+    numbers[slot]=1;
+  }
+  
+  /**
+   * Mark this vertex as reached from the source of a slot.
+   * @param slot
+   * @param distance
+   * @param number number of shortest paths.
+   */
+  public void setReached(int slot, int distance, double number) {
+    distances[slot]=distance;
+    numbers[slot]=number;
+    farness+=distance;
+    reached++;
+  }
+  
+  public double getBC() {
+    return bc;
+  }
+  
+  public void addBC(double dependency) {
+    bc+=dependency;
+  }
+  
+  public double getFarness() {
+    return farness;
+  }
+  
+  public long getReached() {
+    return reached;
+  }
+  
+  /**
+   * Closeness centrality, i.e., the number of sources reaching this vertex divided by 
+   * the sum of their distances. For undirected graphs, it is the closeness of this 
+   * vertex to all vertexes reached from it.
+   * @return 0 if no source reached this vertex.
+   */
+  public double getCloseness() {
+    return farness>0 ? reached/farness : 0;
+  }
+  
+  public String toString() {
+    return "<" + bc + ", " + getCloseness() + ">";
+  }
+  
+  public Object clone() {
+    return new MultiSourceLabel(this);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    bc=in.readDouble();
+    farness=in.readDouble();
+    reached=WritableUtils.readVLong(in);
+    
+    int width=WritableUtils.readVInt(in);
+    startBatch(width);
+    int size=WritableUtils.readVInt(in);
+    for(int ii=0; ii<size; ii++) {
+      int slot=WritableUtils.readVInt(in);
+      distances[slot]=WritableUtils.readVInt(in);
+      numbers[slot]=in.readDouble();
+      dependencies[slot]=in.readDouble();
+    }
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeDouble(bc);
+    out.writeDouble(farness);
+    WritableUtils.writeVLong(out, reached);
+    
+    WritableUtils.writeVInt(out, distances.length);
+    int size=0;
+    for(int distance : distances) {
+      if(distance>=0) {
+        size++;
+      }
+    }
+    WritableUtils.writeVInt(out, size);
+    for(int slot=0; slot<distances.length; slot++) {
+      if(distances[slot]>=0) {
+        WritableUtils.writeVInt(out, slot);
+        WritableUtils.writeVInt(out, distances[slot]);
+        out.writeDouble(numbers[slot]);
+        out.writeDouble(dependencies[slot]);
+      }
+    }
+  }
+}
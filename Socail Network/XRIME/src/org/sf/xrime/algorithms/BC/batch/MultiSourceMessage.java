@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Message of multi-source BFS, a value for each of some slots. In forward steps the
+ * values are numbers of shortest paths, in backward steps they are parts of 
+ * dependencies.
+ */
+public class MultiSourceMessage implements Writable {
+  private int size;
+  private int[] slots;
+  private double[] values;
+  
+  static {
+    // Register the factory.
+    WritableFactories.setFactory
+          (MultiSourceMessage.class,
+           new WritableFactory() {
+               public Writable newInstance() { return new MultiSourceMessage(); }
+           });
+  }
+  
+  public MultiSourceMessage() {
+    size=0;
+    slots=new int[4];
+    values=new double[4];
+  }
+  
+  public int size() {
+    return size;
+  }
+  
+  public void add(int slot, double value) {
+    if(size==slots.length) {
+      slots=Arrays.copyOf(slots, size*2);
+      values=Arrays.copyOf(values, size*2);
+    }
+    slots[size]=slot;
+    values[size]=value;
+    size++;
+  }
+  
+  /**
+   * Add the values of this message to sums.
+   * @param sums sum of values of each slot.
+   * @param present whether each slot has a value.
+   */
+  public void addTo(double[] sums, boolean[] present) {
+    for(int i=0; i<size; i++) {
+      sums[slots[i]]+=values[i];
+      present[slots[i]]=true;
+    }
+  }
+  
+  /**
+   * Create a message from sums.
+   * @param sums sum of values of each slot.
+   * @param present whether each slot has a value.
+   * @return
+   */
+  public static MultiSourceMessage fromSums(double[] sums, boolean[] present) {
+    MultiSourceMessage message=new MultiSourceMessage();
+    for(int slot=0; slot<sums.length; slot++) {
+      if(present[slot]) {
+        message.add(slot, sums[slot]);
+      }
+    }
+    return message;
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    size=WritableUtils.readVInt(in);
+    if(slots.length<size) {
+      slots=new int[size];
+      values=new double[size];
+    }
+    for(int i=0; i<size; i++) {
+      slots[i]=WritableUtils.readVInt(in);
+      values[i]=in.readDouble();
+    }
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    WritableUtils.writeVInt(out, size);
+    for(int i=0; i<size; i++) {
+      WritableUtils.writeVInt(out, slots[i]);
+      out.writeDouble(values[i]);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.batch;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.TextOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+/**
+ * Extract the vertexes with the largest betweenness from the output of 
+ * MultiSourceBCAlgorithm, as text lines of id and betweenness, in decreasing order of
+ * betweenness. The betweenness is multiplied by a scale, e.g., to extrapolate sums
+ * over sampled sources.
+ * <p>
+ * Each mapper keeps its own top k vertexes and emits them when it is closed, and a 
+ * single reducer gets them sorted by decreasing betweenness.
+ */
+public class TopBCStep extends GraphAlgorithm {
+  static final public String topKey = "xrime.algorithm.BC.top.k";
+  static final public String scaleKey = "xrime.algorithm.BC.top.scale";
+  
+  /**
+   * Number of vertexes to extract.
+   */
+  private int k=10;
+  /**
+   * Scale of betweenness.
+   */
+  private double scale=1;
+  
+  public int getK() {
+    return k;
+  }
+
+  public void setK(int k) {
+    if(k<1) {
+      throw new IllegalArgumentException("k should be positive");
+    }
+    this.k = k;
+  }
+
+  public double getScale() {
+    return scale;
+  }
+
+  public void setScale(double scale) {
+    this.scale = scale;
+  }
+  
+  /**
+   * A vertex and its betweenness.
+   */
+  private static class Candidate implements Comparable<Candidate> {
+    final String id;
+    final double bc;
+    
+    Candidate(String id, double bc) {
+      this.id = id;
+      this.bc = bc;
+    }
+
+    public int compareTo(Candidate o) {
+      return Double.compare(bc, o.bc);
+    }
+  }
+  
+  /**
+   * Keep the top k vertexes of a split.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase
+    implements Mapper<Text, LabeledAdjBiSetVertex, DoubleWritable, Text> {
+    private int k;
+    private double scale;
+    /**
+     * Smallest betweenness at the head.
+     */
+    private PriorityQueue<Candidate> top=new PriorityQueue<Candidate>();
+    private OutputCollector<DoubleWritable, Text> output=null;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      k=job.getInt(topKey, 10);
+      scale=Double.parseDouble(job.get(scaleKey, "1"));
+    }
+
+    @Override
+    public void map(Text key, LabeledAdjBiSetVertex value,
+        OutputCollector<DoubleWritable, Text> output, Reporter reporter)
+        throws IOException {
+      this.output=output;
+      MultiSourceLabel label=(MultiSourceLabel) value.getLabel(MultiSourceLabel.multiSourceLabelKey);
+      if(label==null) {
+        return;
+      }
+      double bc=label.getBC()*scale;
+      if(top.size()<k) {
+        top.add(new Candidate(key.toString(), bc));
+      } else if(top.peek().bc<bc) {
+        top.poll();
+        top.add(new Candidate(key.toString(), bc));
+      }
+    }
+    
+    @Override
+    public void close() throws IOException {
+      if(output==null) {
+        return;
+      }
+      for(Candidate candidate : top) {
+        output.collect(new DoubleWritable(candidate.bc), new Text(candidate.id));
+      }
+    }
+  }
+  
+  /**
+   * Emit the first k vertexes.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+    implements Reducer<DoubleWritable, Text, Text, DoubleWritable> {
+    private int k;
+    private int count=0;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      k=job.getInt(topKey, 10);
+    }
+
+    @Override
+    public void reduce(DoubleWritable key, Iterator<Text> values,
+        OutputCollector<Text, DoubleWritable> output, Reporter reporter)
+        throws IOException {
+      while(values.hasNext() && count<k) {
+        output.collect(values.next(), key);
+        count++;
+      }
+    }
+  }
+  
+  /**
+   * Sort doubles in decreasing order.
+   */
+  public static class DecreasingComparator extends DoubleWritable.Comparator {
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      return -super.compare(b1, s1, l1, b2, s2, l2);
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf jobConf = new JobConf(context, TopBCStep.class);
+      jobConf.setJobName("TopBC");
+      
+      jobConf.setInt(topKey, k);
+      jobConf.set(scaleKey, Double.toString(scale));
+      
+      jobConf.setMapperClass(MapClass.class);
+      jobConf.setReducerClass(ReduceClass.class);
+      jobConf.setOutputKeyComparatorClass(DecreasingComparator.class);
+      
+      jobConf.setMapOutputKeyClass(DoubleWritable.class);
+      jobConf.setMapOutputValueClass(Text.class);
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(DoubleWritable.class);
+      
+      jobConf.setNumMapTasks(getMapperNum());
+      // Only one reducer is permitted, or the order will be wrong.
+      jobConf.setNumReduceTasks(1);
+      
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);
+      jobConf.setOutputFormat(TextOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
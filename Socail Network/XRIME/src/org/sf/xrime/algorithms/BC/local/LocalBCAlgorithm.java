@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BC.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BC.BCLabel;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Betweenness centrality of all vertexes, computed in the memory of one machine by
+ * the algorithm of Brandes. It takes the same input as BCAlgorithm, i.e., 
+ * LabeledAdjBiSetVertex following forward vertexes, and writes the input with the
+ * betweenness of each vertex set into its BCLabel.
+ * <p>
+ * The graph is loaded into primitive arrays in CSR format. Sources are handed out to
+ * threads one by one, each thread runs a BFS from the source, then accumulates the
+ * dependencies of the source on the vertexes in the reverse BFS order into its own
+ * array, and the arrays are summed up at the end. Unlike summing up BCAlgorithm over
+ * all sources, the dependency of a source on itself is not counted.
+ * @see "A Faster Algorithm for Betweenness Centrality by U. Brandes, 2001"
+ */
+public class LocalBCAlgorithm extends GraphAlgorithm {
+  /**
+   * Number of threads.
+   */
+  private int threadNum=Runtime.getRuntime().availableProcessors();
+  
+  private FileSystem client=null;
+  
+  private Map<String, Integer> indexes;
+  private int vertexNum;
+  private int[] offsets;
+  private int[] targets;
+  /**
+   * Betweenness of each vertex, in the order of input.
+   */
+  private double[] bc;
+  
+  public int getThreadNum() {
+    return threadNum;
+  }
+
+  public void setThreadNum(int threadNum) {
+    if(threadNum<1) {
+      throw new IllegalArgumentException("Number of threads should be positive");
+    }
+    this.threadNum = threadNum;
+  }
+  
+  /**
+   * Get the betweenness of a vertex computed by the last execution.
+   * @param id id of the vertex.
+   * @return the betweenness, or -1 if the vertex is not in the graph.
+   */
+  public double getBC(String id) {
+    Integer index=indexes==null ? null : indexes.get(id);
+    if(index==null) {
+      return -1;
+    }
+    return bc[index];
+  }
+  
+  public Path getSrcPath() {
+    Graph src=context.getSource();
+    if(src==null) {
+      return null;
+    }
+    
+    try {
+      return src.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setSrcPath(Path srcPath) {
+    Graph src=context.getSource();
+    if(src==null) {
+      src=new Graph(Graph.defaultGraph());
+      context.setSource(src);
+    }
+    src.setPath(srcPath);
+  }
+  
+  public Path getDestPath() {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      return null;
+    }
+    
+    try {
+      return dest.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setDestPath(Path destPath) {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      dest=new Graph(Graph.defaultGraph());
+      context.setDestination(dest);
+    }
+    dest.setPath(destPath);
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-t".equals(params[i])) {
+          setThreadNum(Integer.parseInt(params[++i]));
+        } else if (params[i] != null) {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters left: " +
+                         other_args.size() + " instead of 2.");
+    }
+    setSrcPath(new Path(other_args.get(0)));
+    setDestPath(new Path(other_args.get(1)));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    ExecutorService executor=Executors.newFixedThreadPool(threadNum);
+    try {
+      client=FileSystem.get(context);
+      Path[] files=SequenceFiles.listDataFiles(client, getSrcPath());
+      load(files);
+      
+      bc=new double[vertexNum];
+      final AtomicInteger nextSource=new AtomicInteger(0);
+      List<Callable<double[]>> workers=new ArrayList<Callable<double[]>>();
+      for(int i=0; i<Math.min(threadNum, Math.max(1, vertexNum)); i++) {
+        workers.add(new Callable<double[]>() {
+          public double[] call() {
+            Brandes brandes=new Brandes();
+            int source;
+            while((source=nextSource.getAndIncrement())<vertexNum) {
+              brandes.accumulate(source);
+            }
+            return brandes.bc;
+          }
+        });
+      }
+      for(Future<double[]> result : executor.invokeAll(workers)) {
+        double[] partial=result.get();
+        for(int v=0; v<vertexNum; v++) {
+          bc[v]+=partial[v];
+        }
+      }
+      
+      store(files);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (InterruptedException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (ExecutionException e) {
+      throw new ProcessorExecutionException(e.getCause());
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
+  /**
+   * Load forward edges into arrays.
+   * @param files input files.
+   * @throws IOException
+   */
+  private void load(Path[] files) throws IOException {
+    indexes=new HashMap<String, Integer>();
+    Text key=new Text();
+    for(Path file : files) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+      try {
+        while(reader.next(key)) {
+          indexes.put(key.toString(), indexes.size());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    
+    vertexNum=indexes.size();
+    offsets=new int[vertexNum+1];
+    targets=new int[1024];
+    int edgeNum=0;
+    
+    LabeledAdjBiSetVertex vertex=new LabeledAdjBiSetVertex();
+    int index=0;
+    for(Path file : files) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+      try {
+        while(reader.next(key, vertex)) {
+          for(AdjVertexEdge edge : vertex.getForwardVertexes()) {
+            Integer to=indexes.get(edge.getOpposite());
+            if(to==null) {
+              continue;
+            }
+            if(edgeNum==targets.length) {
+              targets=Arrays.copyOf(targets, edgeNum*2);
+            }
+            targets[edgeNum++]=to;
+          }
+          offsets[++index]=edgeNum;
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    targets=Arrays.copyOf(targets, edgeNum);
+  }
+  
+  /**
+   * Single source shortest paths and dependency accumulation of one thread.
+   */
+  private class Brandes {
+    /**
+     * Betweenness accumulated from the sources of this thread.
+     */
+    final double[] bc=new double[vertexNum];
+    private final int[] distances=new int[vertexNum];
+    private final double[] paths=new double[vertexNum];
+    private final double[] dependencies=new double[vertexNum];
+    /**
+     * Vertexes in BFS order, also used as the BFS queue.
+     */
+    private final int[] order=new int[vertexNum];
+    
+    Brandes() {
+      Arrays.fill(distances, -1);
+    }
+    
+    void accumulate(int source) {
+      // BFS, counting shortest paths.
+      int head=0, tail=0;
+      order[tail++]=source;
+      distances[source]=0;
+      paths[source]=1;
+      while(head<tail) {
+        int v=order[head++];
+        for(int e=offsets[v]; e<offsets[v+1]; e++) {
+          int w=targets[e];
+          if(distances[w]<0) {
+            distances[w]=distances[v]+1;
+            order[tail++]=w;
+          }
+          if(distances[w]==distances[v]+1) {
+            paths[w]+=paths[v];
+          }
+        }
+      }
+      
+      // Dependencies, in the reverse BFS order. Successors are found on the forward
+      // edges, so no predecessor list is needed.
+      for(int i=tail-1; i>=0; i--) {
+        int v=order[i];
+        double dependency=0;
+        for(int e=offsets[v]; e<offsets[v+1]; e++) {
+          int w=targets[e];
+          if(distances[w]==distances[v]+1) {
+            dependency+=paths[v]/paths[w]*(1+dependencies[w]);
+          }
+        }
+        dependencies[v]=dependency;
+        if(v!=source) {
+          bc[v]+=dependency;
+        }
+      }
+      
+      // Reset the visited vertexes only.
+      for(int i=0; i<tail; i++) {
+        int v=order[i];
+        distances[v]=-1;
+        paths[v]=0;
+        dependencies[v]=0;
+      }
+    }
+  }
+  
+  /**
+   * Write vertexes with their betweenness, in the order of input.
+   * @param files input files.
+   * @throws IOException
+   */
+  private void store(Path[] files) throws IOException {
+    Path output=new Path(getDestPath(), "part-00000");
+    SequenceFile.Writer writer=SequenceFile.createWriter(client, context, output, 
+        Text.class, LabeledAdjBiSetVertex.class);
+    try {
+      Text key=new Text();
+      LabeledAdjBiSetVertex vertex=new LabeledAdjBiSetVertex();
+      int index=0;
+      for(Path file : files) {
+        SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+        try {
+          while(reader.next(key, vertex)) {
+            BCLabel label=(BCLabel) vertex.getLabel(BCLabel.bcLabelPathsKey);
+            if(label==null) {
+              label=new BCLabel();
+            }
+            label.setStatus(1);
+            label.setBC((float) bc[index]);
+            vertex.setLabel(BCLabel.bcLabelPathsKey, label);
+            writer.append(key, vertex);
+            index++;
+          }
+        } finally {
+          reader.close();
+        }
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new LocalBCAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
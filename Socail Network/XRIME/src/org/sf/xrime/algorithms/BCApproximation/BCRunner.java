@@ -19,9 +19,8 @@ package org.sf.xrime.algorithms.BCApproximation;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.util.GenericOptionsParser;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Yang Cheng
@@ -34,10 +33,14 @@ import java.util.Random;
  * v: the specified vertex
  * the BC of the specified vertex is printed in the console 
  * 
+ * the sources are sampled by SampledBCAlgorithm, so that with probability 1-d (-d, 0.1 by
+ * default) the normalized bc is within e (-e, 0.05 by default), and run in batches of -w
+ * sources (32 by default). -budget limits the running time in seconds, and -k is the
+ * number of top vertexes written into out/top (10 by default)
+ * 
  */
 
 public class BCRunner {  
-  private static float bc=0;
   public static void main(String[] args) {
     runBC(args);
   }
@@ -46,52 +49,48 @@ public class BCRunner {
     try {            
         Configuration conf = new Configuration();
         
-        String[] otherArgs = new GenericOptionsParser(conf, args).getRemainingArgs();
-        if (otherArgs.length != 4) {
-            System.err.println("Usage:  <in> <mediate> <out> <vertex>");
+        String[] remainingArgs = new GenericOptionsParser(conf, args).getRemainingArgs();
+        List<String> otherArgs=new ArrayList<String>();
+        List<String> options=new ArrayList<String>();
+        for(int i=0;i<remainingArgs.length;i++)
+        {
+          if(remainingArgs[i].startsWith("-") && i+1<remainingArgs.length)
+          {
+            options.add(remainingArgs[i]);
+            options.add(remainingArgs[++i]);
+          }
+          else
+            otherArgs.add(remainingArgs[i]);
+        }
+        if (otherArgs.size() != 4) {
+            System.err.println("Usage:  [-e <epsilon>] [-d <delta>] [-k <top k>] [-w <batch width>] [-budget <seconds>] <in> <mediate> <out> <vertex>");
             System.exit(1);
         }
        
-        Set<String> vertexes=new HashSet<String>();
-        String src=otherArgs[0];         //src file
-        String mediate=otherArgs[1];                //mediate result
-        String out=otherArgs[2];         //out
-        String v=otherArgs[3];                       //specified vertex
-        BCAlgorithm job=new BCAlgorithm(v);
+        String src=otherArgs.get(0);         //src file
+        String mediate=otherArgs.get(1);                //mediate result
+        String out=otherArgs.get(2);         //out
+        String v=otherArgs.get(3);                       //specified vertex
+        SampledBCAlgorithm job=new SampledBCAlgorithm();
+        job.setConf(conf);
+        options.add(mediate);
+        options.add(out);
+        job.setArguments(options.toArray(new String[options.size()]));
         Pajek2LabeledAdjBiSetVertexTransformer transformer = new Pajek2LabeledAdjBiSetVertexTransformer(src,mediate);
         transformer.setSrcPath(new Path(transformer.getSrc()));
         transformer.setDestPath(new Path(transformer.getDest()));
         transformer.execute();
         
-        job.setSrcPath(new Path(mediate));
-        job.setDestPath(new Path(out));
-        System.out.println("here begin bcvertex gter:");
-        vertexes=new BCVertexGeter(src).getBCVertex();
-        if(!vertexes.contains(v))
+        job.execute();
+        double bc=job.getEstimate(v);
+        if(bc<0)
         {
           System.err.println("Wrong vertex");
           System.exit(1);
         }
-        int n=vertexes.size();
-        double c=new Random().nextDouble();
-        c*=n/10;
-        c+=2;
-        System.out.println("the number of c is "+c);
-        int k=0;
-
-        for(String item:vertexes)
-        {
-          k++;
-          job.addInitVertex(item);
-          job.execute();
-          bc+=job.getBCvertex();
-          job.setBCvertex(0);
-          if(bc>c*n)
-          {
-            break;
-          }
-        }
-        
+        System.out.println(job.getSampleNum()+" of "+job.getVertexNum()+" sources are sampled, the normalized bc is within "
+            +job.getAchievedEpsilon()+" with probability "+(1-job.getDelta()));
+        System.out.println("the top "+job.getTopK()+" vertexes are in "+job.getTopPath());
         System.out.println("the approximation bc of vertex   "+v+"   is   "+bc);
         System.out.println("this is the end of the whole algorithm!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
     } catch (Exception e) {
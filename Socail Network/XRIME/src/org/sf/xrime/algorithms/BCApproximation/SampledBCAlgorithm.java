@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BCApproximation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BC.batch.MultiSourceBCAlgorithm;
+import org.sf.xrime.algorithms.BC.batch.MultiSourceLabel;
+import org.sf.xrime.algorithms.BC.batch.TopBCStep;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+/**
+ * Approximate betweenness by sampling sources (Brandes and Pich), with an error 
+ * guarantee.
+ * <p>
+ * k sources are drawn uniformly at random without replacement, where
+ * k = ceil(ln(2n/delta) / (2*epsilon^2)), and run by MultiSourceBCAlgorithm in batches. 
+ * The dependencies they accumulate are scaled by n/k. By Hoeffding's inequality and the
+ * union bound, with probability at least 1-delta, the estimated betweenness of every 
+ * vertex is within epsilon*n*(n-1) of the exact one, i.e., the normalized betweenness
+ * is within epsilon. If k is not less than n, all vertexes are run and the betweenness
+ * is exact.
+ * <p>
+ * A time budget may be given. It is checked after each batch, and once it is used up
+ * no more batch is started. The guarantee is then weaker, see getAchievedEpsilon().
+ * <p>
+ * The output path holds two directories:
+ * <ul>
+ * <li>graph: the input graph, with the unscaled sums in MultiSourceLabel and BCLabel.</li>
+ * <li>top: text lines of the top k vertexes and their estimated betweenness.</li>
+ * </ul>
+ */
+public class SampledBCAlgorithm extends GraphAlgorithm {
+  /**
+   * Maximal error of normalized betweenness.
+   */
+  private double epsilon=0.05;
+  /**
+   * Probability that the error is exceeded.
+   */
+  private double delta=0.1;
+  /**
+   * Number of vertexes in the output top list.
+   */
+  private int topK=10;
+  /**
+   * Time budget in milliseconds, 0 for none.
+   */
+  private long budget=0;
+  private int batchWidth=32;
+  private Random random=new Random();
+  
+  /**
+   * Number of vertexes in the graph.
+   */
+  private long vertexNum=0;
+  /**
+   * Number of sources sampled and run.
+   */
+  private long sampleNum=0;
+  
+  public double getEpsilon() {
+    return epsilon;
+  }
+
+  public void setEpsilon(double epsilon) {
+    if(epsilon<=0 || epsilon>=1) {
+      throw new IllegalArgumentException("epsilon should be in (0, 1)");
+    }
+    this.epsilon = epsilon;
+  }
+
+  public double getDelta() {
+    return delta;
+  }
+
+  public void setDelta(double delta) {
+    if(delta<=0 || delta>=1) {
+      throw new IllegalArgumentException("delta should be in (0, 1)");
+    }
+    this.delta = delta;
+  }
+
+  public int getTopK() {
+    return topK;
+  }
+
+  public void setTopK(int topK) {
+    if(topK<1) {
+      throw new IllegalArgumentException("k should be positive");
+    }
+    this.topK = topK;
+  }
+
+  /**
+   * @return time budget in milliseconds, 0 for none.
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  public void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  public int getBatchWidth() {
+    return batchWidth;
+  }
+
+  public void setBatchWidth(int batchWidth) {
+    if(batchWidth<1) {
+      throw new IllegalArgumentException("Batch width should be positive");
+    }
+    this.batchWidth = batchWidth;
+  }
+  
+  public void setSeed(long seed) {
+    random=new Random(seed);
+  }
+
+  public long getVertexNum() {
+    return vertexNum;
+  }
+
+  public long getSampleNum() {
+    return sampleNum;
+  }
+  
+  /**
+   * Number of sources needed for the guarantee on a graph of n vertexes.
+   * @param n
+   * @return
+   */
+  public long getRequiredSampleNum(long n) {
+    return (long) Math.ceil(Math.log(2.0*n/delta)/(2*epsilon*epsilon));
+  }
+  
+  /**
+   * Error bound met by the sources actually run, with probability at least 1-delta.
+   * @return 0 if all vertexes have been run.
+   */
+  public double getAchievedEpsilon() {
+    if(sampleNum>=vertexNum) {
+      return 0;
+    }
+    return Math.sqrt(Math.log(2.0*vertexNum/delta)/(2*sampleNum));
+  }
+  
+  /**
+   * Factor from the sums over the sampled sources to estimated betweenness.
+   * @return
+   */
+  public double getScale() {
+    return (double) vertexNum/sampleNum;
+  }
+  
+  public Path getGraphPath() throws IllegalAccessException {
+    return new Path(context.getDestination().getPath(), "graph");
+  }
+  
+  public Path getTopPath() throws IllegalAccessException {
+    return new Path(context.getDestination().getPath(), "top");
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-e".equals(params[i])) {
+          setEpsilon(Double.parseDouble(params[++i]));
+        } else if ("-d".equals(params[i])) {
+          setDelta(Double.parseDouble(params[++i]));
+        } else if ("-k".equals(params[i])) {
+          setTopK(Integer.parseInt(params[++i]));
+        } else if ("-budget".equals(params[i])) {
+          setBudget(Long.parseLong(params[++i])*1000);
+        } else if ("-w".equals(params[i])) {
+          setBatchWidth(Integer.parseInt(params[++i]));
+        } else if ("-seed".equals(params[i])) {
+          setSeed(Long.parseLong(params[++i]));
+        } else if (params[i] != null) {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters left: " +
+                         other_args.size() + " instead of 2.");
+    }
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(other_args.get(0)));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(other_args.get(1)));
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    long start=System.currentTimeMillis();
+    try {
+      Path srcPath=context.getSource().getPath();
+      FileSystem client=FileSystem.get(context);
+      client.mkdirs(context.getDestination().getPath());
+      
+      vertexNum=countVertexes(client, srcPath);
+      if(vertexNum==0) {
+        throw new ProcessorExecutionException("No vertex in " + srcPath);
+      }
+      List<String> sources=sample(client, srcPath, getRequiredSampleNum(vertexNum));
+      
+      MultiSourceBCAlgorithm batches=new MultiSourceBCAlgorithm();
+      batches.setConf(context);
+      batches.setMapperNum(getMapperNum());
+      batches.setReducerNum(getReducerNum());
+      batches.setBatchWidth(batchWidth);
+      batches.setSrcPath(srcPath);
+      batches.setDestPath(getGraphPath());
+      
+      batches.begin();
+      for(int i=0; i<sources.size(); i+=batchWidth) {
+        batches.runBatch(sources.subList(i, Math.min(sources.size(), i+batchWidth)));
+        if(budget>0 && System.currentTimeMillis()-start>=budget) {
+          break;
+        }
+      }
+      sampleNum=batches.getSourceCount();
+      batches.end();
+      
+      TopBCStep top=new TopBCStep();
+      top.setConf(context);
+      top.setMapperNum(getMapperNum());
+      top.setK(topK);
+      top.setScale(getScale());
+      Graph graph=new Graph(Graph.defaultGraph());
+      graph.setPath(getGraphPath());
+      Graph topGraph=new Graph(Graph.defaultGraph());
+      topGraph.setPath(getTopPath());
+      top.setSource(graph);
+      top.setDestination(topGraph);
+      top.execute();
+      runningJob=top.getFinalStatus();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  private long countVertexes(FileSystem fs, Path path) throws IOException {
+    long n=0;
+    Text key=new Text();
+    for(Path file : SequenceFiles.listDataFiles(fs, path)) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(fs, file, context);
+      try {
+        while(reader.next(key)) {
+          n++;
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return n;
+  }
+  
+  /**
+   * Draw k vertexes uniformly without replacement, by reservoir sampling, so only the
+   * sample is kept in memory.
+   * @param fs
+   * @param path
+   * @param k
+   * @return the sample in random order.
+   * @throws IOException
+   */
+  private List<String> sample(FileSystem fs, Path path, long k) throws IOException {
+    List<String> reservoir=new ArrayList<String>();
+    long seen=0;
+    Text key=new Text();
+    for(Path file : SequenceFiles.listDataFiles(fs, path)) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(fs, file, context);
+      try {
+        while(reader.next(key)) {
+          seen++;
+          if(reservoir.size()<k) {
+            reservoir.add(key.toString());
+          } else {
+            long j=(long) (random.nextDouble()*seen);
+            if(j<k) {
+              reservoir.set((int) j, key.toString());
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    // Batches cut off by the budget should be random too.
+    Collections.shuffle(reservoir, random);
+    return reservoir;
+  }
+  
+  /**
+   * Estimated betweenness of a vertex, by scanning the output graph.
+   * @param id
+   * @return -1 if the vertex is not found.
+   * @throws ProcessorExecutionException
+   */
+  public double getEstimate(String id) throws ProcessorExecutionException {
+    try {
+      FileSystem client=FileSystem.get(context);
+      Text key=new Text();
+      LabeledAdjBiSetVertex vertex=new LabeledAdjBiSetVertex();
+      for(Path file : SequenceFiles.listDataFiles(client, getGraphPath())) {
+        SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+        try {
+          while(reader.next(key, vertex)) {
+            if(key.toString().equals(id)) {
+              MultiSourceLabel label=(MultiSourceLabel) vertex.getLabel(MultiSourceLabel.multiSourceLabelKey);
+              return label==null ? 0 : label.getBC()*getScale();
+            }
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      return -1;
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new SampledBCAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
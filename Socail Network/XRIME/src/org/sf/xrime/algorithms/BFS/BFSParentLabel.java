@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Label for BFS with parent pointers. 
+ * <p>
+ * Instead of the whole shortest vertex list from the root, as in BFSLabel, this label 
+ * only includes the distance from the root and the previous vertex on one shortest 
+ * path, so its size does not grow with the depth of BFS. Paths are reconstructed on 
+ * demand by BFSPathQuery.
+ */
+public class BFSParentLabel implements Cloneable, Writable {
+  static final public String bfsParentLabelKey = "xrime.algorithm.BFS.parent.label";
+  
+  /**
+   * Distance from the root, -1 if not visited.
+   */
+  private int distance;
+  /**
+   * Previous vertex on a shortest path, empty for the root and not visited vertexes.
+   */
+  private String parent;
+  
+  static {
+    // Register the factory.
+    WritableFactories.setFactory
+          (BFSParentLabel.class,
+           new WritableFactory() {
+               public Writable newInstance() { return new BFSParentLabel(); }
+           });
+  }
+  
+  public BFSParentLabel() {
+    distance=-1;
+    parent="";
+  }
+  
+  public BFSParentLabel(BFSParentLabel label) {
+    distance=label.getDistance();
+    parent=label.getParent();
+  }
+  
+  public int getDistance() {
+    return distance;
+  }
+
+  public void setDistance(int distance) {
+    this.distance = distance;
+  }
+
+  public String getParent() {
+    return parent;
+  }
+
+  public void setParent(String parent) {
+    this.parent = parent;
+  }
+  
+  public boolean isVisited() {
+    return distance>=0;
+  }
+    
+  public String toString() {
+    if(!isVisited()) {
+      return "<U>";
+    }
+    return "<" + distance + ", " + parent + ">";
+  }
+  
+  public Object clone() {
+    return new BFSParentLabel(this);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    distance=WritableUtils.readVInt(in);
+    parent=Text.readString(in);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    WritableUtils.writeVInt(out, distance);
+    Text.writeString(out, parent);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.lib.HashPartitioner;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+/**
+ * Reconstruct shortest paths from the output of BFS in parent mode, by walking the
+ * parent pointers of only the vertexes asked about. The output is partitioned with an
+ * index, so each step of a walk is one lookup in a partition.
+ * @see org.sf.xrime.algorithms.BFS.alg_2.BFSParentStep
+ */
+public class BFSPathQuery {
+  private Configuration conf;
+  private FileSystem fs;
+  private Path graph;
+  /**
+   * Readers of partitions, opened on demand.
+   */
+  private MapFile.Reader[] readers;
+  private HashPartitioner<Text, LabeledAdjVertex> partitioner = 
+    new HashPartitioner<Text, LabeledAdjVertex>();
+  
+  private Text key = new Text();
+  private LabeledAdjVertex vertex = new LabeledAdjVertex();
+  
+  /**
+   * @param conf configuration.
+   * @param graph output of BFS in parent mode.
+   * @throws IOException if the graph is not partitioned.
+   */
+  public BFSPathQuery(Configuration conf, Path graph) throws IOException {
+    this.conf = conf;
+    this.graph = graph;
+    fs = graph.getFileSystem(conf);
+    int partitions = Schimmy.countPartitions(fs, graph);
+    if(partitions == 0) {
+      throw new IOException("No partition found in " + graph);
+    }
+    readers = new MapFile.Reader[partitions];
+  }
+  
+  /**
+   * Get the label of a vertex.
+   * @param id id of the vertex.
+   * @return null if the vertex is not found.
+   * @throws IOException
+   */
+  public BFSParentLabel getLabel(String id) throws IOException {
+    key.set(id);
+    int partition = partitioner.getPartition(key, vertex, readers.length);
+    if(readers[partition] == null) {
+      Path file = new Path(graph, Schimmy.getPartitionFileName(partition));
+      readers[partition] = new MapFile.Reader(fs, file.toString(), conf);
+    }
+    if(readers[partition].get(key, vertex) == null) {
+      return null;
+    }
+    return (BFSParentLabel) vertex.getLabel(BFSParentLabel.bfsParentLabelKey);
+  }
+  
+  /**
+   * Get a shortest path from the starting vertex to a vertex.
+   * @param id id of the vertex.
+   * @return vertexes on the path, from the starting vertex to this one. Empty if the
+   *         vertex is not visited, null if it's not found.
+   * @throws IOException if the parent pointers are broken.
+   */
+  public List<String> getPath(String id) throws IOException {
+    BFSParentLabel label = getLabel(id);
+    if(label == null) {
+      return null;
+    }
+    
+    LinkedList<String> path = new LinkedList<String>();
+    if(!label.isVisited()) {
+      return path;
+    }
+    path.addFirst(id);
+    while(label.getDistance() > 0) {
+      String parent = label.getParent();
+      int distance = label.getDistance();
+      label = getLabel(parent);
+      if(label == null || label.getDistance() != distance - 1) {
+        throw new IOException("Broken parent pointer from " + path.getFirst() + " to " + parent);
+      }
+      path.addFirst(parent);
+    }
+    return path;
+  }
+  
+  public void close() throws IOException {
+    for(int i = 0; i < readers.length; i++) {
+      if(readers[i] != null) {
+        readers[i].close();
+        readers[i] = null;
+      }
+    }
+  }
+  
+  /**
+   * Print the paths to the specified vertexes.
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      Configuration conf = new Configuration();
+      String[] otherArgs = new GenericOptionsParser(conf, args).getRemainingArgs();
+      if(otherArgs.length < 2) {
+        System.err.println("Usage: BFSPathQuery <graph> <vertex> ...");
+        System.exit(1);
+      }
+      BFSPathQuery query = new BFSPathQuery(conf, new Path(otherArgs[0]));
+      try {
+        for(int i = 1; i < otherArgs.length; i++) {
+          List<String> path = query.getPath(otherArgs[i]);
+          if(path == null) {
+            System.out.println(otherArgs[i] + "\tnot found");
+          } else if(path.isEmpty()) {
+            System.out.println(otherArgs[i] + "\tinf");
+          } else {
+            System.out.println(otherArgs[i] + "\t" + path);
+          }
+        }
+      } finally {
+        query.close();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
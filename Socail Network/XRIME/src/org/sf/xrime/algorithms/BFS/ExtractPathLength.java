@@ -35,6 +35,12 @@ public class ExtractPathLength extends GraphAlgorithm {
     public void map(Text key, LabeledAdjVertex value,
         OutputCollector<Text, Text> output, Reporter reporter)
         throws IOException {
+			// Labels of BFS in parent mode hold the distance.
+			BFSParentLabel parent = (BFSParentLabel) value.getLabel(BFSParentLabel.bfsParentLabelKey);
+			if(parent != null){
+				output.collect(key, new Text(parent.isVisited() ? ""+parent.getDistance() : "inf"));
+				return;
+			}
 			// Get the bfs label.
 			BFSLabel label = (BFSLabel) value.getLabel(BFSLabel.bfsLabelPathsKey);
 			if(label.getPreps()==null || label.getPreps().size()==0){
@@ -19,12 +19,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.RunningJob;
+import org.apache.hadoop.mapred.lib.HashPartitioner;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
 import org.sf.xrime.algorithms.BFS.ExtractPathLength;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SchimmyPartitionStep;
 import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
 import org.sf.xrime.utils.MRConsoleReader;
 import org.sf.xrime.utils.SequenceTempDirMgr;
 
@@ -35,7 +44,59 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
  * @author weixue@cn.ibm.com
  */
 public class BFSAlgorithm extends GraphAlgorithm {
+  /**
+   * Whether to iterate in schimmy mode, i.e., partition the graph once and only shuffle
+   * the paths in each iteration.
+   */
+  private boolean schimmy=false;
+  /**
+   * Whether to iterate in frontier mode, i.e., only shuffle the paths sent by the 
+   * frontier, and keep the visited vertexes aside until the end. This overrides 
+   * schimmy mode.
+   */
+  private boolean frontier=false;
+  /**
+   * Whether to iterate in parent mode, i.e., keep only the distance and one parent of 
+   * each vertex instead of the whole path, see BFSPathQuery. This overrides the other
+   * modes.
+   */
+  private boolean parent=false;
+  /**
+   * Output graph of parent mode.
+   */
+  private Path parentGraph=null;
   
+  public boolean isSchimmy() {
+    return schimmy;
+  }
+
+  public void setSchimmy(boolean schimmy) {
+    this.schimmy = schimmy;
+  }
+
+  public boolean isFrontier() {
+    return frontier;
+  }
+
+  public void setFrontier(boolean frontier) {
+    this.frontier = frontier;
+  }
+
+  public boolean isParent() {
+    return parent;
+  }
+
+  public void setParent(boolean parent) {
+    this.parent = parent;
+  }
+  
+  /**
+   * @return the graph labeled with BFSParentLabel in parent mode, which could be 
+   *         queried by BFSPathQuery.
+   */
+  public Path getParentGraph() {
+    return parentGraph;
+  }
 
   @Override
   public void setArguments(String[] params) throws ProcessorExecutionException {
@@ -45,6 +106,12 @@ public class BFSAlgorithm extends GraphAlgorithm {
       if ("-init".equals(params[i])) {
         // id of the starting vertex of BFS.
         init_vertex = params[++i];
+      } else if ("-schimmy".equals(params[i])) {
+        schimmy = true;
+      } else if ("-frontier".equals(params[i])) {
+        frontier = true;
+      } else if ("-parent".equals(params[i])) {
+        parent = true;
       } else {
         other_args.add(params[i]);
       }
@@ -78,10 +145,34 @@ public class BFSAlgorithm extends GraphAlgorithm {
       }
       SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(context.getDestination().getPath().toString() + "/", context);
       dirMgr.setSeqNum(0);
+      if(parent) {
+        executeParent(dirMgr);
+        return;
+      }
+      if(frontier) {
+        executeFrontier(dirMgr);
+        return;
+      }
+
+      Graph src = getSource();
+      if(schimmy) {
+        // Partition the graph once, iterations will keep it partitioned.
+        SchimmyPartitionStep partitionStep = new SchimmyPartitionStep();
+        partitionStep.setConf(context);
+        partitionStep.setSource(getSource());
+        src = new Graph(getSource());
+        src.setPath(dirMgr.getTempDir());
+        partitionStep.setDestination(src);
+        partitionStep.setMapperNum(getMapperNum());
+        partitionStep.setReducerNum(getReducerNum());
+        partitionStep.setVertexClass(LabeledAdjVertex.class);
+        partitionStep.execute();
+      }
 
       BFSStep bfsStep = new BFSStep();
       bfsStep.setConf(context);
-      bfsStep.getContext().setSource(getSource());
+      bfsStep.getContext().setSource(src);
+      bfsStep.setSchimmy(schimmy);
       Graph dest = new Graph(getSource());
       dest.setPath(dirMgr.getTempDir());
       bfsStep.getContext().setDestination(dest);
@@ -119,4 +210,173 @@ public class BFSAlgorithm extends GraphAlgorithm {
       throw new ProcessorExecutionException(e);
     }
   }
+  
+  /**
+   * BFS in frontier mode. The graph is partitioned once with an index, and each round
+   * only reads the current frontier and writes the next one. The frontiers are merged
+   * back into the graph at the end.
+   * @param dirMgr temp dirs.
+   * @throws IOException
+   * @throws IllegalAccessException
+   * @throws ProcessorExecutionException
+   */
+  private void executeFrontier(SequenceTempDirMgr dirMgr) 
+      throws IOException, IllegalAccessException, ProcessorExecutionException {
+    SchimmyPartitionStep partitionStep = new SchimmyPartitionStep();
+    partitionStep.setConf(context);
+    partitionStep.setSource(getSource());
+    Path structure = dirMgr.getTempDir();
+    Graph dest = new Graph(getSource());
+    dest.setPath(structure);
+    partitionStep.setDestination(dest);
+    partitionStep.setMapperNum(getMapperNum());
+    partitionStep.setReducerNum(getReducerNum());
+    partitionStep.setVertexClass(LabeledAdjVertex.class);
+    partitionStep.setIndexed(true);
+    System.out.println("++++++>" + dirMgr.getSeqNum() +": SchimmyPartitionStep.");
+    partitionStep.execute();
+    
+    // The first frontier is the starting vertex.
+    Path init = dirMgr.getTempDir();
+    writeInitVertex(structure, init);
+    List<Path> frontiers = new ArrayList<Path>();
+    frontiers.add(init);
+
+    BFSFrontierStep bfsStep = new BFSFrontierStep();
+    bfsStep.setConf(context);
+    bfsStep.setStructure(structure);
+    bfsStep.setMapperNum(getMapperNum());
+    while (true) {
+      Graph src = new Graph(getSource());
+      src.setPath(frontiers.get(frontiers.size()-1));
+      bfsStep.setSource(src);
+      dest = new Graph(getSource());
+      dest.setPath(dirMgr.getTempDir());
+      bfsStep.setDestination(dest);
+      System.out.println("++++++>" + dirMgr.getSeqNum() +": BFSFrontierStep.");
+      bfsStep.execute();
+      
+      frontiers.add(dest.getPath());
+      long frontier_size = MRConsoleReader.getRecordNum(bfsStep.getFinalStatus(), 
+          ConstantLabels.FRONTIER_SIZE, ConstantLabels.FRONTIER_SIZE);
+      if(frontier_size <= 0)
+        break; // Propagation finished.
+    }
+    
+    BFSMergeStep mergeStep = new BFSMergeStep();
+    mergeStep.setConf(context);
+    mergeStep.setStructure(structure);
+    Graph src = new Graph(getSource());
+    src.setPaths(frontiers);
+    mergeStep.setSource(src);
+    dest = new Graph(getSource());
+    dest.setPath(dirMgr.getTempDir());
+    mergeStep.setDestination(dest);
+    mergeStep.setMapperNum(getMapperNum());
+    System.out.println("++++++>" + dirMgr.getSeqNum() +": BFSMergeStep.");
+    mergeStep.execute();
+    
+    ExtractPathLength extract_pl = new ExtractPathLength();
+    extract_pl.setConf(context);
+    extract_pl.setSource(mergeStep.getDestination());
+    dest = new Graph(getSource());
+    dest.setPath(dirMgr.getTempDir());
+    extract_pl.setDestination(dest);
+    extract_pl.setMapperNum(getMapperNum());
+    extract_pl.setReducerNum(getReducerNum());
+    System.out.println("++++++>" + dirMgr.getSeqNum()+": ExtractPathLength.");
+    extract_pl.execute();
+  }
+  
+  /**
+   * BFS in parent mode. The graph is partitioned once as in schimmy mode, and each
+   * round only shuffles the ids of the frontier as parents.
+   * @param dirMgr temp dirs.
+   * @throws IOException
+   * @throws IllegalAccessException
+   * @throws ProcessorExecutionException
+   */
+  private void executeParent(SequenceTempDirMgr dirMgr) 
+      throws IOException, IllegalAccessException, ProcessorExecutionException {
+    SchimmyPartitionStep partitionStep = new SchimmyPartitionStep();
+    partitionStep.setConf(context);
+    partitionStep.setSource(getSource());
+    Graph src = new Graph(getSource());
+    src.setPath(dirMgr.getTempDir());
+    partitionStep.setDestination(src);
+    partitionStep.setMapperNum(getMapperNum());
+    partitionStep.setReducerNum(getReducerNum());
+    partitionStep.setVertexClass(LabeledAdjVertex.class);
+    System.out.println("++++++>" + dirMgr.getSeqNum() +": SchimmyPartitionStep.");
+    partitionStep.execute();
+    
+    BFSParentStep bfsStep = new BFSParentStep();
+    bfsStep.setConf(context);
+    bfsStep.setMapperNum(getMapperNum());
+    for(int level = 0; ; level++) {
+      bfsStep.setSource(src);
+      Graph dest = new Graph(getSource());
+      dest.setPath(dirMgr.getTempDir());
+      bfsStep.setDestination(dest);
+      bfsStep.setLevel(level);
+      System.out.println("++++++>" + dirMgr.getSeqNum() +": BFSParentStep.");
+      bfsStep.execute();
+      
+      src = dest;
+      long frontier_size = MRConsoleReader.getRecordNum(bfsStep.getFinalStatus(), 
+          ConstantLabels.FRONTIER_SIZE, ConstantLabels.FRONTIER_SIZE);
+      if(frontier_size <= 0)
+        break; // Propagation finished.
+    }
+    parentGraph = src.getPath();
+    
+    ExtractPathLength extract_pl = new ExtractPathLength();
+    extract_pl.setConf(context);
+    extract_pl.setSource(src);
+    Graph dest = new Graph(getSource());
+    dest.setPath(dirMgr.getTempDir());
+    extract_pl.setDestination(dest);
+    extract_pl.setMapperNum(getMapperNum());
+    extract_pl.setReducerNum(getReducerNum());
+    System.out.println("++++++>" + dirMgr.getSeqNum()+": ExtractPathLength.");
+    extract_pl.execute();
+  }
+  
+  /**
+   * Look up the starting vertex in the partitioned graph, and write it as visited.
+   * @param structure the graph partitioned with an index.
+   * @param init path of the first frontier.
+   * @throws IOException
+   * @throws ProcessorExecutionException if the starting vertex is not found.
+   */
+  private void writeInitVertex(Path structure, Path init) 
+      throws IOException, ProcessorExecutionException {
+    FileSystem fs = structure.getFileSystem(context);
+    String init_vertex = getParameter(ConstantLabels.INIT_VERTEX);
+    Text key = new Text(init_vertex);
+    LabeledAdjVertex vertex = new LabeledAdjVertex();
+    int partition = new HashPartitioner<Text, LabeledAdjVertex>().getPartition(key, vertex, 
+        Schimmy.countPartitions(fs, structure));
+    MapFile.Reader reader = new MapFile.Reader(fs, 
+        new Path(structure, Schimmy.getPartitionFileName(partition)).toString(), context);
+    try {
+      if(reader.get(key, vertex) == null) {
+        throw new ProcessorExecutionException("The starting vertex " + init_vertex + " is not found.");
+      }
+    } finally {
+      reader.close();
+    }
+    
+    BFSLabel label = new BFSLabel();
+    label.setStatus(1);
+    label.addPrep(init_vertex);
+    vertex.setLabel(BFSLabel.bfsLabelPathsKey, label);
+    SequenceFile.Writer writer = SequenceFile.createWriter(fs, context, 
+        new Path(init, Schimmy.getPartitionFileName(0)), Text.class, LabeledAdjVertex.class);
+    try {
+      writer.append(key, vertex);
+    } finally {
+      writer.close();
+    }
+  }
 }
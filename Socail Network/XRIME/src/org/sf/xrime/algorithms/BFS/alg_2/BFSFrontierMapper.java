@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Mapper of BFS in frontier mode. The input is only the current frontier, whose
+ * labels already hold the paths through them, so the paths are sent to all neighbors.
+ */
+public class BFSFrontierMapper extends GraphAlgorithmMapReduceBase implements
+  Mapper<Text, LabeledAdjVertex, Text, BFSLabel> {
+  
+  @Override
+  public void map(Text key, LabeledAdjVertex value,
+      OutputCollector<Text, BFSLabel> collector, Reporter reporter)
+      throws IOException {
+    BFSLabel label = (BFSLabel) value.getLabel(BFSLabel.bfsLabelPathsKey);
+    Iterator<AbstractEdge> iter=value.getIncidentElements();
+    while(iter.hasNext()) {  // Emit to all edges this vertex points to.
+      collector.collect(new Text(((Edge)iter.next()).getTo()), label);
+    }
+  }
+}
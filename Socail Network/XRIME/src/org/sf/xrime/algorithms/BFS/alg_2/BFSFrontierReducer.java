@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Reducer of BFS in frontier mode. Paths arrive sorted by their destinations, which
+ * are matched against the partitions with the same number as this reducer: first
+ * against the vertexes visited in former rounds, to skip them, then against the graph,
+ * to get the adjacency of the new frontier. The visited vertexes are kept sorted in one
+ * file per partition, so they are merged with the destinations as both stream past,
+ * and the merged file is written next to the new frontier for the next round.
+ */
+public class BFSFrontierReducer extends GraphAlgorithmMapReduceBase 
+    implements Reducer<Text, BFSLabel, Text, LabeledAdjVertex> {
+  private MapFile.Reader structure = null;
+  private SequenceFile.Reader former = null;
+  private Text formerKey = new Text();
+  private boolean formerRemains = false;
+  private SequenceFile.Writer visited = null;
+  private LabeledAdjVertex vertex = new LabeledAdjVertex();
+  private String init_vertex = null;
+  
+  @Override
+  public void configure(JobConf job) {
+    super.configure(job);
+    init_vertex = job.get(ConstantLabels.INIT_VERTEX, "");
+    
+    String name = Schimmy.getPartitionFileName(job.getInt(Schimmy.taskPartitionKey, -1));
+    Path file = new Path(job.get(Schimmy.structurePathKey), name);
+    try {
+      FileSystem fs = file.getFileSystem(job);
+      structure = new MapFile.Reader(fs, file.toString(), job);
+      // Nothing is visited before the first round, except the starting vertex.
+      file = new Path(job.get(BFSFrontierStep.visitedPathKey), 
+          BFSFrontierStep.visitedFilePrefix + name);
+      if(fs.exists(file)) {
+        former = new SequenceFile.Reader(fs, file, job);
+        formerRemains = former.next(formerKey);
+      }
+      file = new Path(FileOutputFormat.getWorkOutputPath(job), 
+          BFSFrontierStep.visitedFilePrefix + name);
+      visited = SequenceFile.createWriter(fs, job, file, Text.class, NullWritable.class);
+    } catch (IOException e) {
+      throw new RuntimeException("Can not open partition " + file, e);
+    }
+  }
+
+  @Override
+  public void reduce(Text key, Iterator<BFSLabel> values,
+      OutputCollector<Text, LabeledAdjVertex> output, Reporter reporter)
+      throws IOException {
+    if(key.toString().equals(init_vertex)) {
+      return;
+    }
+    if(skipTo(key)) {
+      return;  // 1. The vertex has been visited before.
+    }
+    if(structure.get(key, vertex) == null) {
+      return;  // Paths sent to absent vertexes are dropped.
+    }
+    
+    // 2. Advance the frontier. Only take one path from the starting vertex, and add
+    // the vertex itself, so that the path could be sent on in next round.
+    BFSLabel label = new BFSLabel(values.next());
+    label.setStatus(1);
+    label.addPrep(key.toString());
+    vertex.setLabel(BFSLabel.bfsLabelPathsKey, label);
+    output.collect(key, vertex);
+    visited.append(key, NullWritable.get());
+    reporter.incrCounter(ConstantLabels.FRONTIER_SIZE, ConstantLabels.FRONTIER_SIZE, 1);
+  }
+  
+  /**
+   * Copy the vertexes visited in former rounds, which are before the key, to the
+   * visited vertexes of this round.
+   * @param key destination of paths.
+   * @return true if the key has been visited in former rounds.
+   * @throws IOException
+   */
+  private boolean skipTo(Text key) throws IOException {
+    while(formerRemains && formerKey.compareTo(key) < 0) {
+      visited.append(formerKey, NullWritable.get());
+      formerRemains = former.next(formerKey);
+    }
+    return formerRemains && formerKey.equals(key);
+  }
+  
+  @Override
+  public void close() throws IOException {
+    if(structure != null) {
+      structure.close();
+    }
+    if(visited != null) {
+      while(formerRemains) {
+        visited.append(formerKey, NullWritable.get());
+        formerRemains = former.next(formerKey);
+      }
+      visited.close();
+    }
+    if(former != null) {
+      former.close();
+    }
+  }
+}
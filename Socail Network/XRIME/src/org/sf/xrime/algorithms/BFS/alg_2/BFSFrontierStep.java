@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapFileOutputFormat;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.lib.HashPartitioner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * One round of BFS in frontier mode. The source is the current frontier, and the
+ * destination is the next one. The graph itself is partitioned once with an index
+ * (see SchimmyPartitionStep), and is neither read through nor written in rounds.
+ * Former frontiers are kept as they are, and are merged with the graph by
+ * BFSMergeStep at the end. The vertexes visited so far are carried from round to
+ * round in one sorted side file per partition, written next to each frontier, so
+ * a round reads neither the graph nor all former frontiers.
+ */
+public class BFSFrontierStep extends GraphAlgorithm {
+  /**
+   * Key in JobConf for the path holding the vertexes visited in former rounds, which
+   * is the source frontier.
+   */
+  static final public String visitedPathKey = "xrime.algorithm.BFS.frontier.visited";
+  /**
+   * Prefix of the side files holding visited vertexes. The leading underscore keeps
+   * them out of the input of later jobs.
+   */
+  static final public String visitedFilePrefix = "_visited-";
+  
+  /**
+   * Path of the graph partitioned with an index.
+   */
+  private Path structure = null;
+  
+  public Path getStructure() {
+    return structure;
+  }
+
+  public void setStructure(Path structure) {
+    this.structure = structure;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    if(structure == null) {
+      throw new ProcessorExecutionException("No partitioned graph specified.");
+    }
+    try {
+      JobConf jobConf = new JobConf(context, BFSFrontierStep.class);
+      jobConf.setJobName("BFSFrontier");
+  
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);  
+      jobConf.setNumMapTasks(getMapperNum());        
+      jobConf.setMapperClass(BFSFrontierMapper.class);
+      jobConf.setMapOutputValueClass(BFSLabel.class);
+      jobConf.setCombinerClass(BFSSchimmyCombiner.class);
+      jobConf.setReducerClass(BFSFrontierReducer.class);
+      
+      // One reducer per partition.
+      jobConf.set(Schimmy.structurePathKey, structure.toString());
+      jobConf.setPartitionerClass(HashPartitioner.class);
+      jobConf.setNumReduceTasks(Schimmy.countPartitions(structure.getFileSystem(jobConf), 
+          structure));
+      jobConf.set(visitedPathKey, context.getSource().getPath().toString());
+        
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjVertex.class);
+          
+      // The next frontier is looked up by id in later rounds.
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      jobConf.setOutputFormat(MapFileOutputFormat.class);    
+  
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Merge the frontiers of BFS in frontier mode back into the partitioned graph. The
+ * sources are the frontiers, and only their labels are shuffled. The result is the
+ * same as the output of BFSStep, i.e., visited vertexes have paths from the starting
+ * vertex, and the others have empty ones.
+ */
+public class BFSMergeStep extends GraphAlgorithm {
+  /**
+   * Path of the partitioned graph.
+   */
+  private Path structure = null;
+  
+  public Path getStructure() {
+    return structure;
+  }
+
+  public void setStructure(Path structure) {
+    this.structure = structure;
+  }
+
+  /**
+   * Send the label of each visited vertex to itself.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjVertex, Text, BFSLabel> {
+
+    @Override
+    public void map(Text key, LabeledAdjVertex value,
+        OutputCollector<Text, BFSLabel> output, Reporter reporter)
+        throws IOException {
+      output.collect(key, (BFSLabel) value.getLabel(BFSLabel.bfsLabelPathsKey));
+    }
+  }
+  
+  /**
+   * Set the labels into the graph.
+   */
+  public static class ReduceClass extends SchimmyReducerBase<BFSLabel, LabeledAdjVertex> {
+
+    @Override
+    protected void update(Text key, LabeledAdjVertex vertex,
+        Iterator<BFSLabel> messages, Reporter reporter) throws IOException {
+      if(messages.hasNext()) {
+        vertex.setLabel(BFSLabel.bfsLabelPathsKey, new BFSLabel(messages.next()));
+      } else if(vertex.getLabel(BFSLabel.bfsLabelPathsKey) == null) {
+        // Just in case BFSLabelTransformer is not invoked?
+        vertex.setLabel(BFSLabel.bfsLabelPathsKey, new BFSLabel());
+      }
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    if(structure == null) {
+      throw new ProcessorExecutionException("No partitioned graph specified.");
+    }
+    try {
+      JobConf jobConf = new JobConf(context, BFSMergeStep.class);
+      jobConf.setJobName("BFSMerge");
+  
+      for(Path path : getSource().getPaths()){
+        FileInputFormat.addInputPath(jobConf, path);
+      }
+      jobConf.setInputFormat(SequenceFileInputFormat.class);  
+      jobConf.setNumMapTasks(getMapperNum());        
+      jobConf.setMapperClass(MapClass.class);
+      jobConf.setMapOutputValueClass(BFSLabel.class);
+      jobConf.setReducerClass(ReduceClass.class);
+        
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjVertex.class);
+          
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      // One reducer per partition, the output is written by reducers as side files.
+      Schimmy.configure(jobConf, structure);
+  
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSParentLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Mapper of BFS in parent mode. Vertexes in the frontier, i.e., at the distance of 
+ * current level, send their ids to all neighbors as parents.
+ */
+public class BFSParentMapper extends GraphAlgorithmMapReduceBase implements
+  Mapper<Text, LabeledAdjVertex, Text, Text> {
+  
+  @Override
+  public void map(Text key, LabeledAdjVertex value,
+      OutputCollector<Text, Text> collector, Reporter reporter)
+      throws IOException {
+    int level = context.getInt(ConstantLabels.LEVEL, 0);
+    BFSParentLabel label = (BFSParentLabel) value.getLabel(BFSParentLabel.bfsParentLabelKey);
+    boolean is_frontier;
+    if(level == 0) {
+      // Labels of former runs are cleared in the first round.
+      is_frontier = value.getId().equals(context.get(ConstantLabels.INIT_VERTEX, ""));
+    } else {
+      is_frontier = label != null && label.getDistance() == level;
+    }
+    if(!is_frontier) {
+      return;
+    }
+    
+    Text parent = new Text(value.getId());
+    Iterator<AbstractEdge> iter=value.getIncidentElements();
+    while(iter.hasNext()) {  // Emit to all edges this vertex points to.
+      collector.collect(new Text(((Edge)iter.next()).getTo()), parent);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSParentLabel;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Reducer of BFS in parent mode. A vertex not visited before takes one of the parents
+ * sent to it, and joins the next frontier.
+ */
+public class BFSParentReducer extends SchimmyReducerBase<Text, LabeledAdjVertex> {
+
+  @Override
+  protected void update(Text key, LabeledAdjVertex vertex, Iterator<Text> messages,
+      Reporter reporter) throws IOException {
+    int level = context.getInt(ConstantLabels.LEVEL, 0);
+    BFSParentLabel label = (BFSParentLabel) vertex.getLabel(BFSParentLabel.bfsParentLabelKey);
+    if(label == null || level == 0) {
+      label = new BFSParentLabel();
+      vertex.setLabel(BFSParentLabel.bfsParentLabelKey, label);
+      if(key.toString().equals(context.get(ConstantLabels.INIT_VERTEX, ""))) {
+        label.setDistance(0);
+      }
+    }
+    
+    if(label.isVisited() || !messages.hasNext()) {
+      // Visited before, or not changed in this round of iteration.
+      return;
+    }
+    
+    label.setParent(messages.next().toString());
+    label.setDistance(level + 1);
+    reporter.incrCounter(ConstantLabels.FRONTIER_SIZE, ConstantLabels.FRONTIER_SIZE, 1);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * One round of BFS in parent mode. The source is partitioned as in schimmy mode, and
+ * only parent ids are shuffled. Each vertex keeps its distance and one parent in a
+ * BFSParentLabel, so the graph does not grow with the depth of BFS. The output is
+ * partitioned with an index, so that paths could be looked up by BFSPathQuery.
+ */
+public class BFSParentStep extends GraphAlgorithm {
+  /**
+   * Distance of the current frontier.
+   */
+  private int level=0;
+  
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf jobConf = new JobConf(context, BFSParentStep.class);
+      jobConf.setJobName("BFSParent");
+      jobConf.setInt(ConstantLabels.LEVEL, level);
+  
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);  
+      jobConf.setNumMapTasks(getMapperNum());        
+      jobConf.setMapperClass(BFSParentMapper.class);
+      jobConf.setMapOutputValueClass(Text.class);
+      jobConf.setCombinerClass(BFSParentCombiner.class);
+      jobConf.setReducerClass(BFSParentReducer.class);
+        
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjVertex.class);
+          
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      // One reducer per partition, the output is written by reducers as side files.
+      Schimmy.configure(jobConf, context.getSource().getPath());
+      jobConf.setBoolean(Schimmy.indexedOutputKey, true);
+  
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+
+
+/**
+ * Combiner of BFS in schimmy mode. Only one path from the starting vertex is taken,
+ * so only the first path sent to a vertex need to be shuffled.
+ */
+public class BFSSchimmyCombiner extends MapReduceBase 
+    implements Reducer<Text, BFSLabel, Text, BFSLabel> {
+
+  @Override
+  public void reduce(Text key, Iterator<BFSLabel> values,
+      OutputCollector<Text, BFSLabel> output, Reporter reporter)
+      throws IOException {
+    if(values.hasNext()) {
+      output.collect(key, values.next());
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Mapper of BFS in schimmy mode. Only the paths of the current frontier are sent to
+ * the neighbors, the vertexes themselves stay in the partitions read by BFSSchimmyReducer.
+ * @see BFSMapper
+ */
+public class BFSSchimmyMapper extends GraphAlgorithmMapReduceBase implements
+  Mapper<Text, LabeledAdjVertex, Text, BFSLabel> {
+  /**
+   * Whether the vertex advances the frontier in this round of iteration.
+   * @param vertex the vertex.
+   * @param label BFS label of the vertex.
+   * @param init_vertex id of the starting vertex.
+   * @return true if the vertex is in the current frontier, or this is the first
+   *         round of iteration and this vertex is the starting vertex.
+   */
+  static boolean isExpanding(LabeledAdjVertex vertex, BFSLabel label, String init_vertex) {
+    return vertex.getLabel(ConstantLabels.IS_FRONTIER)!=null || 
+           (label.getStatus() == 0 && vertex.getId().equals(init_vertex));
+  }
+  
+  @Override
+  public void map(Text key, LabeledAdjVertex value,
+      OutputCollector<Text, BFSLabel> collector, Reporter reporter)
+      throws IOException {
+    BFSLabel label = (BFSLabel) value.getLabel(BFSLabel.bfsLabelPathsKey);
+    if(label == null || !isExpanding(value, label, context.get(ConstantLabels.INIT_VERTEX, ""))) {
+      return;
+    }
+    
+    // The path to the neighbors goes through this vertex.
+    BFSLabel notifier = new BFSLabel(label);
+    notifier.setStatus(1);
+    notifier.addPrep(value.getId());
+    
+    Iterator<AbstractEdge> iter=value.getIncidentElements();
+    while(iter.hasNext()) {  // Emit to all edges this vertex points to.
+      collector.collect(new Text(((Edge)iter.next()).getTo()), notifier);
+    }
+  }
+}
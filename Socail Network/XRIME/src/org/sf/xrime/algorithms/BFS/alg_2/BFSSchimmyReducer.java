@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Reducer of BFS in schimmy mode. The transition BFSMapper applies to the frontier is
+ * applied here, then the vertexes not visited yet join the next frontier if any path
+ * is sent to them.
+ * @see BFSMapper
+ * @see BFSReducer
+ */
+public class BFSSchimmyReducer extends SchimmyReducerBase<BFSLabel, LabeledAdjVertex> {
+
+  @Override
+  protected void update(Text key, LabeledAdjVertex vertex, Iterator<BFSLabel> messages,
+      Reporter reporter) throws IOException {
+    BFSLabel label = (BFSLabel) vertex.getLabel(BFSLabel.bfsLabelPathsKey);
+    if(label == null) {
+      // Just in case BFSLabelTransformer is not invoked?
+      label = new BFSLabel();
+      vertex.setLabel(BFSLabel.bfsLabelPathsKey, label);
+    }
+    
+    if(BFSSchimmyMapper.isExpanding(vertex, label, context.get(ConstantLabels.INIT_VERTEX, ""))) {
+      // Mark the vertex as visited, it's no longer the frontier.
+      label.setStatus(1);
+      label.addPrep(vertex.getId());
+      vertex.removeLabel(ConstantLabels.IS_FRONTIER);
+    }
+    
+    if(label.getStatus() == 1 || !messages.hasNext()) {
+      // Visited before, or not changed in this round of iteration.
+      return;
+    }
+    
+    // Only take one path from the starting vertex, and mark it as the frontier.
+    label.addPreps(messages.next().getPreps());
+    vertex.setStringLabel(ConstantLabels.IS_FRONTIER, "true");
+    reporter.incrCounter(ConstantLabels.FRONTIER_SIZE, ConstantLabels.FRONTIER_SIZE, 1);
+  }
+}
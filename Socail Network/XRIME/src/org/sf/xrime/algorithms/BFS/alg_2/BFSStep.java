@@ -26,6 +26,8 @@ import org.apache.hadoop.mapred.SequenceFileInputFormat;
 import org.apache.hadoop.mapred.SequenceFileOutputFormat;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.utils.Schimmy;
 import org.sf.xrime.model.vertex.LabeledAdjVertex;
 
 
@@ -34,6 +36,19 @@ import org.sf.xrime.model.vertex.LabeledAdjVertex;
  * @author weixue@cn.ibm.com
  */
 public class BFSStep extends GraphAlgorithm {  
+  /**
+   * Whether the source is partitioned by SchimmyPartitionStep, and only the paths are
+   * shuffled.
+   */
+  private boolean schimmy=false;
+  
+  public boolean isSchimmy() {
+    return schimmy;
+  }
+
+  public void setSchimmy(boolean schimmy) {
+    this.schimmy = schimmy;
+  }
 
   @Override
   public void execute() throws ProcessorExecutionException {
@@ -44,13 +59,20 @@ public class BFSStep extends GraphAlgorithm {
       FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
         
       jobConf.setInputFormat(SequenceFileInputFormat.class);  
-      jobConf.setMapperClass(BFSMapper.class);
       jobConf.setNumMapTasks(getMapperNum());        
-      jobConf.setMapOutputValueClass(LabeledAdjVertex.class);    
-      
-      // jobConf.setCombinerClass(BFSCombineClass.class);
+      if(schimmy) {
+        jobConf.setMapperClass(BFSSchimmyMapper.class);
+        jobConf.setMapOutputValueClass(BFSLabel.class);
+        jobConf.setCombinerClass(BFSSchimmyCombiner.class);
+        jobConf.setReducerClass(BFSSchimmyReducer.class);
+      } else {
+        jobConf.setMapperClass(BFSMapper.class);
+        jobConf.setMapOutputValueClass(LabeledAdjVertex.class);    
+        
+        // jobConf.setCombinerClass(BFSCombineClass.class);
         
-      jobConf.setReducerClass(BFSReducer.class);
+        jobConf.setReducerClass(BFSReducer.class);
+      }
       jobConf.setNumReduceTasks(getReducerNum());
         
       jobConf.setOutputKeyClass(Text.class);
@@ -58,6 +80,10 @@ public class BFSStep extends GraphAlgorithm {
           
       FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
       jobConf.setOutputFormat(SequenceFileOutputFormat.class);    
+      if(schimmy) {
+        // One reducer per partition, the output is written by reducers as side files.
+        Schimmy.configure(jobConf, context.getSource().getPath());
+      }
   
       this.runningJob = JobClient.runJob(jobConf);
     } catch (IOException e) {
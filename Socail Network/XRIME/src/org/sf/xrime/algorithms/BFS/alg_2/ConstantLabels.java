@@ -9,6 +9,8 @@ public class ConstantLabels {
   public static final String IS_FRONTIER = "is_frontier";
   /** Id of the starting vertex of BFS.*/
   public static final String INIT_VERTEX = "init_vertex";
+  /** Current level of BFS in parent mode, i.e., distance of the frontier.*/
+  public static final String LEVEL = "bfs_level";
   /** A counter name.*/
   public static final String FRONTIER_SIZE = "Frontier Size";
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.BFS.bsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.BFS.alg_2.ConstantLabels;
+import org.sf.xrime.algorithms.bsp.BSPAlgorithm;
+import org.sf.xrime.algorithms.bsp.MessageCombiner;
+import org.sf.xrime.algorithms.bsp.VertexContext;
+import org.sf.xrime.algorithms.bsp.VertexProgram;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * BFS run by BSPEngine. It takes the same input as BFS.alg_2.BFSAlgorithm, i.e.,
+ * LabeledAdjVertex, and sets the same BFSLabel: visited vertexes get status 1, and the
+ * path from the starting vertex to themselves as precedents.
+ * <p>
+ * The starting vertex sends its path in superstep 0. A vertex which gets paths for the
+ * first time takes one of them, appends itself and sends the result along its edges.
+ * All vertexes vote to halt after each superstep, so the computation ends when the 
+ * frontier is empty.
+ */
+public class BFSAlgorithm extends BSPAlgorithm<LabeledAdjVertex, BFSLabel> {
+  /**
+   * Id of the starting vertex.
+   */
+  private String initVertex = null;
+
+  public String getInitVertex() {
+    return initVertex;
+  }
+
+  public void setInitVertex(String initVertex) {
+    this.initVertex = initVertex;
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    for(int i=0; i < params.length; i++) {
+      if ("-init".equals(params[i])) {
+        // id of the starting vertex of BFS.
+        initVertex = params[++i];
+      } else {
+        other_args.add(params[i]);
+      }
+    }
+    
+    if(initVertex == null)
+      throw new ProcessorExecutionException("You need to specify the starting vertex of BFS.");
+    
+    super.setArguments(other_args.toArray(new String[other_args.size()]));
+    setParameter(ConstantLabels.INIT_VERTEX, initVertex);
+  }
+
+  @Override
+  protected VertexProgram<LabeledAdjVertex, BFSLabel> createProgram() {
+    return new BFSProgram(initVertex);
+  }
+  
+  /**
+   * The vertex program of BFS. Messages are paths from the starting vertex to the sender.
+   */
+  public static class BFSProgram extends VertexProgram<LabeledAdjVertex, BFSLabel> {
+    private final String initVertex;
+    
+    public BFSProgram(String initVertex) {
+      this.initVertex = initVertex;
+    }
+
+    @Override
+    public void compute(VertexContext<LabeledAdjVertex, BFSLabel> context,
+        Iterable<BFSLabel> messages) {
+      LabeledAdjVertex vertex = context.getVertex();
+      BFSLabel label = (BFSLabel) vertex.getLabel(BFSLabel.bfsLabelPathsKey);
+      if(label == null) {
+        label = new BFSLabel();
+        vertex.setLabel(BFSLabel.bfsLabelPathsKey, label);
+      }
+      
+      if(label.getStatus() == 0) {
+        BFSLabel prep = null;
+        for(BFSLabel message : messages) {
+          prep = message;
+          break;
+        }
+        
+        if(prep != null || (context.getSuperstep() == 0 && vertex.getId().equals(initVertex))) {
+          // Visit the vertex, and notify neighbors.
+          if(prep != null) {
+            label.addPreps(prep.getPreps());
+          }
+          label.addPrep(vertex.getId());
+          label.setStatus(1);
+          context.sendMessageToOutNeighbors(label);
+        }
+      }
+      context.voteToHalt();
+    }
+
+    @Override
+    public MessageCombiner<BFSLabel> getCombiner() {
+      return new MessageCombiner<BFSLabel>() {
+        public BFSLabel combine(BFSLabel a, BFSLabel b) {
+          // Only take one path.
+          return a;
+        }
+      };
+    }
+  }
+}
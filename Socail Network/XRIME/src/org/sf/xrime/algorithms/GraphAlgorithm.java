@@ -37,6 +37,12 @@ import org.sf.xrime.model.Graph;
  * generated and stored in file system.
  */
 public abstract class GraphAlgorithm implements Processor, Tool {
+	/**
+	 * Key of the largest size of the remaining graph, which is finished in the memory of
+	 * the client by iterative algorithms supporting it. Zero, the default, disables it.
+	 */
+	public static final String localThresholdKey = "xrime.algorithm.local.threshold";
+	
 	/**
 	 * The execution context of algorithm.
 	 */
@@ -183,6 +189,34 @@ public abstract class GraphAlgorithm implements Processor, Tool {
 	public int getReducerNum(){
 	  return context.getReducerNum();
 	}
+	/**
+	 * Set the largest size of the remaining graph to be finished locally.
+	 * @param threshold the size, in vertexes or in whatever the algorithm shrinks, 
+	 * zero to disable.
+	 */
+	public void setLocalThreshold(long threshold){
+	  context.setLong(localThresholdKey, threshold);
+	}
+	
+	/**
+	 * Get the largest size of the remaining graph to be finished locally.
+	 * @return the size, zero if disabled.
+	 */
+	public long getLocalThreshold(){
+	  return context.getLong(localThresholdKey, 0);
+	}
+	
+	/**
+	 * Used by iterative algorithms to decide whether to stop launching jobs, and pull
+	 * the remaining graph into memory to finish it.
+	 * @param size size of the remaining graph, negative if unknown.
+	 * @return true if the graph is small enough.
+	 */
+	protected boolean shouldFinishLocally(long size){
+	  long threshold = getLocalThreshold();
+	  return threshold > 0 && size >= 0 && size <= threshold;
+	}
+	
 	/**
 	 * Get the final status of executing this algorithm instance.
 	 * @return final status of executing.
@@ -213,6 +247,8 @@ public abstract class GraphAlgorithm implements Processor, Tool {
           setMapperNum(Integer.parseInt(args[++i]));
         } else if ("-r".equals(args[i])) {
           setReducerNum(Integer.parseInt(args[++i]));
+        } else if ("-localthreshold".equals(args[i])) {
+          setLocalThreshold(Long.parseLong(args[++i]));
         /**  
         } else if ("-vmr".equals(args[i])) {
           context.setBoolean("mapred.versioned.enabled", true);
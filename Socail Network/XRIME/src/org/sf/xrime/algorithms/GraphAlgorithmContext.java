@@ -238,6 +238,20 @@ public class GraphAlgorithmContext extends Configuration{
 		return getInt(reducerNumberKey, reducerDefaultNumber);
 	}
 
+	/**
+	 * Check whether the output adjacency lists of a transformer should be written in
+	 * compressed format. The graph property Graph.compressedAdjacencyKey is looked up
+	 * in the configuration, then among the destination graph settings, in case the
+	 * configuration is a copy of an execution context handed to the transformer.
+	 * @param conf hadoop configuration object of the transformer.
+	 * @return true for compressed adjacency lists.
+	 */
+	public static boolean isCompressedAdjacency(Configuration conf) {
+		Graph graph = new Graph();
+		loadGraph(graph, conf, destinationGraphPostfix);
+		return conf.getBoolean(Graph.compressedAdjacencyKey, graph.isCompressedAdjacency());
+	}
+
 	/**
 	 * Write the settings of source and destination graphs to the embedded hadoop
 	 * configuration object.
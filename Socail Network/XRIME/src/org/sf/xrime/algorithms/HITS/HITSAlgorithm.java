@@ -27,7 +27,10 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 
 
 /**
-* 
+* HITS on LabeledAdjBiSetVertex. Each iteration is a single IterationStep, which
+* normalizes the scores with the sums aggregated by the previous iteration, delivers
+* them, and aggregates the new sums and the residuals. The scores are normalized by a
+* final pass and written to the destination.
 * @author Qu Na
 * 
 */
@@ -35,8 +38,8 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 public class HITSAlgorithm extends GraphAlgorithm{
   static final public String HITSHubKey = "xrime.algorithm.HITS.Hub";
   static final public String HITSAuthorityKey = "xrime.algorithm.HITS.Authority";
-  //static final public String HITSHubSumKey = "xrime.algorithm.HITS.HubSum";
-  //static final public String HITSAuthoritySumKey = "xrime.algorithm.HITS.AuthoritySum"; 
+  static final public String HITSHubSumKey = "xrime.algorithm.HITS.HubSum";
+  static final public String HITSAuthoritySumKey = "xrime.algorithm.HITS.AuthoritySum"; 
   static final public String HITSStopThresholdKey = "xrime.algorithm.HITS.stopThreshold";  
   
   private JobConf jobConf;
@@ -145,42 +148,49 @@ public class HITSAlgorithm extends GraphAlgorithm{
       }
       tempDirs.setFileSystem(client);
       
-      DeliveryStep step1 = new DeliveryStep();
-      step1.setConf(context);
-      step1.getContext().setSource(getSource());
-      Graph dest1 = new Graph(getSource());
-      dest1.setPath(tempDirs.getTempDir());
-      step1.getContext().setDestination(dest1);
-      
-      HITSSummer summer = new HITSSummer();
-      summer.setConf(context);
-      NormalizeStep step2 = new NormalizeStep(summer);      
-      step2.setConf(context);
-      step2.setStopThreshold(stopThreshold);
-      
+      // Each iteration is a single job, whose sums are applied by the next one.
+      double hubsum = 0;
+      double authoritysum = 0;
+      Graph src = getSource();
       int step = maxStep;
       while(step>0){
-        step1.execute();
-        
-        summer.setSource(step1.getContext().getDestination());
-        Graph sumdest = new Graph(getSource());
-        sumdest.setPath(tempDirs.getTempDir());
-        summer.setDestination(sumdest);
-        summer.execute();
+        IterationStep iteration = new IterationStep();
+        iteration.setConf(context);
+        iteration.setParameter(HITSStopThresholdKey, Double.toString(stopThreshold));
+        if(hubsum > 0){
+          iteration.setParameter(HITSHubSumKey, Double.toString(hubsum));
+          iteration.setParameter(HITSAuthoritySumKey, Double.toString(authoritysum));
+        }
+        iteration.setSource(src);
+        Graph dest = new Graph(getSource());
+        dest.setPath(tempDirs.getTempDir());
+        iteration.setDestination(dest);
+        iteration.execute();
         
-        step2.setSource(step1.getContext().getDestination());
-        Graph dest2 = new Graph(getSource());
-        dest2.setPath(tempDirs.getTempDir());
-        step2.getContext().setDestination(dest2);
-        step2.execute();
-        if(step2.isEnd()){
+        hubsum = iteration.getHubSum();
+        authoritysum = iteration.getAuthoritySum();
+        src = dest;
+        step--;
+        System.out.println("++++++>HITS residual: " + iteration.getResidual() + 
+            ", changed vertexes: " + iteration.getChangedVertexes());
+        if(iteration.getChangedVertexes() == 0){
           break;
         }
-        step1.setSource(step2.getContext().getDestination());
-        step--;
-        
-        dest1.setPath(tempDirs.getTempDir());
       }
+      
+      // Normalize the scores of the last iteration.
+      IterationStep finalPass = new IterationStep();
+      finalPass.setConf(context);
+      finalPass.setParameter(IterationStep.finalPassKey, "true");
+      if(hubsum > 0){
+        finalPass.setParameter(HITSHubSumKey, Double.toString(hubsum));
+        finalPass.setParameter(HITSAuthoritySumKey, Double.toString(authoritysum));
+      }
+      finalPass.setSource(src);
+      finalPass.setDestination(getDestination());
+      finalPass.execute();
+      
+      tempDirs.deleteAll();
     }catch(IOException e){
       e.printStackTrace();
       throw new ProcessorExecutionException(e);
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.HITS;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.HITS.HITSLabel.AuthorityLabel;
+import org.sf.xrime.algorithms.HITS.HITSLabel.HubLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+
+/**
+ * Mapper of IterationStep. The scores summed up by the last iteration are normalized 
+ * here with the sums aggregated by it, and then delivered like DeliveryMapper. In the
+ * final pass, the scores are only normalized.
+ */
+public class IterationMapper extends GraphAlgorithmMapReduceBase 
+  implements Mapper<Text, LabeledAdjBiSetVertex, Text, Writable> {
+  /** Sum of hub scores of the last iteration, not applied if not positive. */
+  private double hubsum = 0;
+  /** Sum of authority scores of the last iteration, not applied if not positive. */
+  private double authoritysum = 0;
+  /** Only normalize the scores. */
+  private boolean finalPass = false;
+  
+  private ObjectWritable outputValue = new ObjectWritable();
+  private Text dest = new Text();
+  
+  @Override
+  public void configure(JobConf job){
+    super.configure(job);
+    String property = context.getParameter(HITSAlgorithm.HITSHubSumKey);
+    if(property != null){
+      hubsum = Double.valueOf(property);
+    }
+    property = context.getParameter(HITSAlgorithm.HITSAuthoritySumKey);
+    if(property != null){
+      authoritysum = Double.valueOf(property);
+    }
+    finalPass = Boolean.valueOf(context.getParameter(IterationStep.finalPassKey));
+  }
+  
+  @Override
+  public void map(Text key, LabeledAdjBiSetVertex value, 
+      OutputCollector<Text, Writable> collector, Reporter reporter)
+      throws IOException{
+    HubLabel hublabel = (HubLabel) value.getLabel(HITSAlgorithm.HITSHubKey);
+    if(hublabel == null) {
+      hublabel = new HubLabel();
+      value.setLabel(HITSAlgorithm.HITSHubKey, hublabel);
+    }
+    AuthorityLabel authoritylabel = (AuthorityLabel) value.getLabel(HITSAlgorithm.HITSAuthorityKey);
+    if(authoritylabel == null){
+      authoritylabel = new AuthorityLabel();
+      value.setLabel(HITSAlgorithm.HITSAuthorityKey, authoritylabel);
+    }
+    
+    // Normalize lazily, vertexes without neighbors get 0.
+    if(value.getForwardVertexes().size() == 0){
+      hublabel.setHubscore(0);
+    }else if(hubsum > 0){
+      hublabel.setHubscore(hublabel.getHubscore() / hubsum);
+    }
+    if(value.getBackwardVertexes().size() == 0){
+      authoritylabel.setAuthorityscore(0);
+    }else if(authoritysum > 0){
+      authoritylabel.setAuthorityscore(authoritylabel.getAuthorityscore() / authoritysum);
+    }
+    
+    if(finalPass){
+      collector.collect(key, value);
+      return;
+    }
+    
+    // emit hub for forwards
+    if(value.getForwardVertexes().size() > 0) {
+      outputValue.set(new HubLabel(hublabel.getHubscore()));
+      for(AdjVertexEdge edge: value.getForwardVertexes()) {
+        dest.set(edge.getOpposite());
+        collector.collect(dest, outputValue);
+      }
+    }
+    
+    // emit authority for backwards
+    if(value.getBackwardVertexes().size() > 0) {
+      outputValue.set(new AuthorityLabel(authoritylabel.getAuthorityscore()));
+      for(AdjVertexEdge edge: value.getBackwardVertexes()) {
+        dest.set(edge.getOpposite());
+        collector.collect(dest, outputValue);
+      }
+    }
+    
+    // emit the vertex
+    outputValue.set(value);
+    collector.collect(key, outputValue);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.HITS;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.HITS.HITSLabel.AuthorityLabel;
+import org.sf.xrime.algorithms.HITS.HITSLabel.HubLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.SideAggregates;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+
+/**
+ * Reducer of IterationStep. The normalized scores delivered by the mapper are checked 
+ * against the previous ones and kept as the previous scores, then the received scores
+ * are summed up into the new scores as DeliveryReducer does. The sums of new scores, 
+ * which are used to normalize them in the next iteration, and the residuals are 
+ * aggregated.
+ */
+public class IterationReducer extends GraphAlgorithmMapReduceBase 
+  implements Reducer<Text, ObjectWritable, Text, LabeledAdjBiSetVertex> {
+  private JobConf job = null;
+  private double stopThreshold = 0.01;
+  private SideAggregates aggregates = new SideAggregates();
+  
+  @Override
+  public void configure(JobConf job){
+    super.configure(job);
+    this.job = job;
+    String property = context.getParameter(HITSAlgorithm.HITSStopThresholdKey);
+    if(property != null) {
+      stopThreshold = Double.valueOf(property);
+    }
+  }
+  
+  @Override
+  public void reduce(Text key, Iterator<ObjectWritable> values,
+      OutputCollector<Text, LabeledAdjBiSetVertex> output, Reporter reporter)
+      throws IOException{
+    LabeledAdjBiSetVertex vertex = null;
+    double newhubscore = 0;
+    double newauthorityscore = 0;
+    
+    while(values.hasNext()){
+      ObjectWritable obj = values.next();
+      
+      if(obj.get() instanceof HubLabel){
+        newauthorityscore += ((HubLabel)obj.get()).getHubscore();
+        continue;
+      }else if(obj.get() instanceof AuthorityLabel){
+        newhubscore += ((AuthorityLabel)obj.get()).getAuthorityscore();
+        continue;
+      }
+      vertex = (LabeledAdjBiSetVertex) obj.get();
+    }
+    
+    if(vertex == null){
+      return;
+    }
+    HubLabel hublabel = (HubLabel) vertex.getLabel(HITSAlgorithm.HITSHubKey);
+    AuthorityLabel authoritylabel = (AuthorityLabel) vertex.getLabel(HITSAlgorithm.HITSAuthorityKey);
+    
+    // Check the change of the normalized scores.
+    double hubMSE = Math.abs(hublabel.getHubscore()-hublabel.getPreHubscore());
+    double authorityMSE = Math.abs(authoritylabel.getAuthorityscore()-authoritylabel.getPreAuthorityscore());
+    aggregates.add(IterationStep.RESIDUAL, hubMSE+authorityMSE);
+    if((hubMSE+authorityMSE) > stopThreshold){
+      aggregates.add(IterationStep.CHANGED, 1);
+    }
+    
+    hublabel.setPreHubscore(hublabel.getHubscore());
+    hublabel.setHubscore(newhubscore);
+    authoritylabel.setPreAuthorityscore(authoritylabel.getAuthorityscore());
+    authoritylabel.setAuthorityscore(newauthorityscore);
+    aggregates.add(IterationStep.HUB_SUM, newhubscore);
+    aggregates.add(IterationStep.AUTHORITY_SUM, newauthorityscore);
+    
+    output.collect(key, vertex);
+  }
+  
+  @Override
+  public void close() throws IOException {
+    aggregates.write(job);
+    super.close();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.HITS;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.SideAggregates;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+
+/**
+ * One whole iteration of HITS in a single job, which fuses DeliveryStep, HITSSummer and
+ * NormalizeStep. The sums of scores are aggregated while they are computed, and applied
+ * at the beginning of the next iteration, so the graph is read and written only once in
+ * each iteration. The scores written by an iteration are not normalized, and a final 
+ * pass, which is a map-only job, normalizes the scores of the last iteration.
+ * <p>
+ * The residuals of the previous iteration, i.e., the changes of normalized scores, are
+ * aggregated by the same job, and used to check the convergence.
+ * @see IterationMapper
+ * @see IterationReducer
+ */
+public class IterationStep extends GraphAlgorithm {
+  /** Key of the parameter, set to true to run the final pass. */
+  static final public String finalPassKey = "xrime.algorithm.HITS.final.pass";
+  
+  /** Aggregate of the sum of new hub scores. */
+  static final public String HUB_SUM = "hub";
+  /** Aggregate of the sum of new authority scores. */
+  static final public String AUTHORITY_SUM = "authority";
+  /** Aggregate of the sum of changes of normalized scores. */
+  static final public String RESIDUAL = "residual";
+  /** Aggregate of the number of vertexes whose scores change more than the threshold. */
+  static final public String CHANGED = "changed";
+  
+  private Map<String, Double> aggregates = null;
+  
+  public IterationStep(){
+    super();
+  }
+  
+  /**
+   * Get an aggregate of the last execution.
+   * @param name name of the aggregate.
+   * @return value of the aggregate, 0 if it is absent.
+   */
+  public double getAggregate(String name){
+    if(aggregates == null){
+      return 0;
+    }
+    return SideAggregates.get(aggregates, name, 0);
+  }
+  
+  public double getHubSum(){
+    return getAggregate(HUB_SUM);
+  }
+  
+  public double getAuthoritySum(){
+    return getAggregate(AUTHORITY_SUM);
+  }
+  
+  public double getResidual(){
+    return getAggregate(RESIDUAL);
+  }
+  
+  public long getChangedVertexes(){
+    return Math.round(getAggregate(CHANGED));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      boolean finalPass = Boolean.valueOf(context.getParameter(finalPassKey));
+      
+      JobConf jobConf = new JobConf(context, IterationStep.class);
+      jobConf.setJobName(finalPass ? "HITSFinalPass" : "HITSIteration");
+
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+
+      jobConf.setInputFormat(SequenceFileInputFormat.class);
+      jobConf.setMapperClass(IterationMapper.class);
+      jobConf.setNumMapTasks(getMapperNum());
+      if(finalPass){
+        jobConf.setMapOutputValueClass(LabeledAdjBiSetVertex.class);
+        jobConf.setNumReduceTasks(0);
+      }else{
+        jobConf.setMapOutputValueClass(ObjectWritable.class);
+        jobConf.setReducerClass(IterationReducer.class);
+        jobConf.setNumReduceTasks(getReducerNum());
+      }
+
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(LabeledAdjBiSetVertex.class);
+
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+
+      this.runningJob = JobClient.runJob(jobConf);
+      
+      FileSystem client = FileSystem.get(jobConf);
+      aggregates = SideAggregates.read(client, context.getDestination().getPath(), jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.HITS.bsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.HITS.HITSLabel.AuthorityLabel;
+import org.sf.xrime.algorithms.HITS.HITSLabel.HubLabel;
+import org.sf.xrime.algorithms.bsp.Aggregators;
+import org.sf.xrime.algorithms.bsp.BSPAlgorithm;
+import org.sf.xrime.algorithms.bsp.BSPEngine;
+import org.sf.xrime.algorithms.bsp.MessageCombiner;
+import org.sf.xrime.algorithms.bsp.VertexContext;
+import org.sf.xrime.algorithms.bsp.VertexProgram;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+
+/**
+ * HITS run by BSPEngine. It takes the same input as HITS.HITSAlgorithm, i.e., 
+ * LabeledAdjBiSetVertex, and sets the same HubLabel and AuthorityLabel.
+ * <p>
+ * Each iteration takes two supersteps, like DeliveryStep and NormalizeStep:
+ * <ol>
+ * <li>Even supersteps normalize the scores of the last iteration with the sums 
+ *     aggregated in the previous superstep, then send hub scores to forward vertexes
+ *     and authority scores to backward vertexes.</li>
+ * <li>Odd supersteps keep the previous scores, sum up the received scores into the 
+ *     new ones, and aggregate their sums.</li>
+ * </ol>
+ * Messages are pairs of (hub part, authority part), summed up by the combiner.
+ */
+public class HITSAlgorithm extends BSPAlgorithm<LabeledAdjBiSetVertex, double[]> {
+  private int maxStep = 10;
+  private double stopThreshold = 0.01;
+  
+  public int getMaxStep(){
+    return maxStep;
+  }
+  
+  public void setMaxStep(int maxStep){
+    this.maxStep = maxStep; 
+  }
+  
+  public double getStopThreshold(){
+    return stopThreshold;
+  }
+  
+  public void setStopThreshold(double stopThreshold){
+    this.stopThreshold = stopThreshold;
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-maxstep".equals(params[i])) {
+          setMaxStep(Integer.parseInt(params[++i]));
+        } else if ("-threshold".equals(params[i])) {
+          setStopThreshold(Double.parseDouble(params[++i]));
+        } else {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    super.setArguments(other_args.toArray(new String[other_args.size()]));
+  }
+
+  @Override
+  protected VertexProgram<LabeledAdjBiSetVertex, double[]> createProgram() {
+    return new HITSProgram(maxStep, stopThreshold);
+  }
+  
+  /**
+   * The vertex program of HITS.
+   */
+  public static class HITSProgram extends VertexProgram<LabeledAdjBiSetVertex, double[]> {
+    public static final String HUB_SUM = "hub";
+    public static final String AUTHORITY_SUM = "authority";
+    public static final String CHANGED = "changed";
+    
+    private static final String HUB_KEY = 
+      org.sf.xrime.algorithms.HITS.HITSAlgorithm.HITSHubKey;
+    private static final String AUTHORITY_KEY = 
+      org.sf.xrime.algorithms.HITS.HITSAlgorithm.HITSAuthorityKey;
+    
+    private final int maxStep;
+    private final double stopThreshold;
+    
+    public HITSProgram(int maxStep, double stopThreshold) {
+      this.maxStep = maxStep;
+      this.stopThreshold = stopThreshold;
+    }
+    
+    @Override
+    public void initialize(BSPEngine<LabeledAdjBiSetVertex, double[]> engine) {
+      engine.registerAggregator(HUB_SUM, new Aggregators.DoubleSum());
+      engine.registerAggregator(AUTHORITY_SUM, new Aggregators.DoubleSum());
+      engine.registerAggregator(CHANGED, new Aggregators.BooleanOr());
+    }
+
+    @Override
+    public void compute(VertexContext<LabeledAdjBiSetVertex, double[]> context,
+        Iterable<double[]> messages) {
+      LabeledAdjBiSetVertex vertex = context.getVertex();
+      HubLabel hublabel = (HubLabel) vertex.getLabel(HUB_KEY);
+      if(hublabel == null) {
+        hublabel = new HubLabel();
+        vertex.setLabel(HUB_KEY, hublabel);
+      }
+      AuthorityLabel authoritylabel = (AuthorityLabel) vertex.getLabel(AUTHORITY_KEY);
+      if(authoritylabel == null) {
+        authoritylabel = new AuthorityLabel();
+        vertex.setLabel(AUTHORITY_KEY, authoritylabel);
+      }
+      
+      if(context.getSuperstep() % 2 == 0) {
+        if(context.getSuperstep() > 0) {
+          // Normalize, not if the sums are not positive, as IterationMapper does.
+          double hubsum = context.<Double>getAggregatedValue(HUB_SUM);
+          double authoritysum = context.<Double>getAggregatedValue(AUTHORITY_SUM);
+          if(hubsum > 0) {
+            hublabel.setHubscore(hublabel.getHubscore() / hubsum);
+          }
+          if(authoritysum > 0) {
+            authoritylabel.setAuthorityscore(authoritylabel.getAuthorityscore() / authoritysum);
+          }
+          // Check the change.
+          double hubMSE = Math.abs(hublabel.getHubscore()-hublabel.getPreHubscore());
+          double authorityMSE = Math.abs(
+              authoritylabel.getAuthorityscore()-authoritylabel.getPreAuthorityscore());
+          if((hubMSE+authorityMSE) > stopThreshold){
+            context.aggregate(CHANGED, true);
+          }
+        }
+        
+        // Deliver.
+        if(vertex.getForwardVertexes().size() > 0) {
+          context.sendMessageToOutNeighbors(new double[] {hublabel.getHubscore(), 0});
+        }
+        if(vertex.getBackwardVertexes().size() > 0) {
+          context.sendMessageToInNeighbors(new double[] {0, authoritylabel.getAuthorityscore()});
+        }
+      } else {
+        // Keep the previous scores, vertexes without neighbors get 0.
+        if(vertex.getForwardVertexes().size() == 0) {
+          hublabel.setPreHubscore(0);
+        } else {
+          hublabel.setPreHubscore(hublabel.getHubscore());
+        }
+        if(vertex.getBackwardVertexes().size() == 0) {
+          authoritylabel.setPreAuthorityscore(0);
+        } else {
+          authoritylabel.setPreAuthorityscore(authoritylabel.getAuthorityscore());
+        }
+        
+        // Hub scores from backwards become the authority score, and vice versa.
+        double newhubscore = 0;
+        double newauthorityscore = 0;
+        for(double[] message : messages) {
+          newauthorityscore += message[0];
+          newhubscore += message[1];
+        }
+        hublabel.setHubscore(newhubscore);
+        authoritylabel.setAuthorityscore(newauthorityscore);
+        context.aggregate(HUB_SUM, newhubscore);
+        context.aggregate(AUTHORITY_SUM, newauthorityscore);
+      }
+    }
+
+    @Override
+    public void masterCompute(BSPEngine<LabeledAdjBiSetVertex, double[]> engine) {
+      long superstep = engine.getSuperstep();
+      if(superstep % 2 == 0 && (superstep / 2 >= maxStep || 
+          (superstep > 0 && !engine.<Boolean>getAggregatedValue(CHANGED)))) {
+        engine.haltComputation();
+      }
+    }
+
+    @Override
+    public MessageCombiner<double[]> getCombiner() {
+      return new MessageCombiner<double[]>() {
+        public double[] combine(double[] a, double[] b) {
+          return new double[] {a[0] + b[0], a[1] + b[1]};
+        }
+      };
+    }
+    
+    @Override
+    public boolean usesInEdges() {
+      return true;
+    }
+  }
+}
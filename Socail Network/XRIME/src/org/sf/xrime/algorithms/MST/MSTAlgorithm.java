@@ -29,6 +29,7 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
  * MST Algorithm finds the minimum spanning tree of a connected 
  * large scale weighted undirected graph
  * @see org.sf.xrime.algorithms.GraphAlgorithm
+ * @see org.sf.xrime.algorithms.MST.boruvka.BoruvkaMSTAlgorithm
  */
 public class MSTAlgorithm extends GraphAlgorithm {
 
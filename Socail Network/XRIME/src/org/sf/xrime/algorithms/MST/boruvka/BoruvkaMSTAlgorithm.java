@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.partitions.connected.weakly.alg_3.StarBasedAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.utils.MRConsoleReader;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+
+/**
+ * Boruvka's algorithm for the minimum spanning forest of a weighted undirected graph.
+ * The input is the same as that of MSTAlgorithm, i.e., adjacency lists with weights in
+ * MSTWEdgesLabel, and so is the output, i.e., each vertex with the states of its edges
+ * in MSTEdgeStatesLabel.
+ * <p>
+ * In each round, every component chooses its lightest edge, and the components linked
+ * by chosen edges are merged by large-star and small-star operations, and then the edge
+ * list is contracted. The number of components at least halves in each round, so there
+ * are O(log n) rounds, instead of the message passing rounds of MSTAlgorithm, which 
+ * grow with the number of vertexes. When the contracted edge list is no larger than the 
+ * local threshold, it is finished by Kruskal's algorithm in the memory of the client.
+ * @see org.sf.xrime.algorithms.MST.MSTAlgorithm
+ * @see MinEdgeStep
+ * @see LocalKruskal
+ */
+public class BoruvkaMSTAlgorithm extends GraphAlgorithm {
+  /**
+   * Number of contraction rounds of the last execution.
+   */
+  private int rounds = 0;
+  
+  /** Default constructor.*/
+  public BoruvkaMSTAlgorithm(){
+    super();
+  }
+  
+  /**
+   * Get the number of contraction rounds of the last execution.
+   * @return the number of rounds.
+   */
+  public int getRounds() {
+    return rounds;
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+      
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().getParent().toString()+
+                        "/mst_boruvka_"+System.currentTimeMillis()+"_"+
+                        getDestination().getPath().getName()+"_";
+      
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      
+      // Merges the components linked by chosen edges.
+      StarBasedAlgorithm star = new StarBasedAlgorithm();
+      star.setConf(context);
+      
+      // 1. Transform input to an edge list.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": EdgeListGenerate");
+      EdgeListGenerate generate = new EdgeListGenerate();
+      generate.setConf(context);
+      Path edges = runStep(generate, getSource().getPath(), dirMgr);
+      long edge_num = getCounter(generate, EdgeListGenerate.EDGES);
+      
+      // Paths of the edges chosen in all rounds, separated by commas.
+      StringBuffer tree_edges = new StringBuffer();
+      rounds = 0;
+      while(edge_num > 0){
+        if(shouldFinishLocally(edge_num)){
+          // 2.1 Finish the contracted graph in memory.
+          System.out.println("++++++>"+dirMgr.getSeqNum()+": LocalKruskal");
+          LocalKruskal kruskal = new LocalKruskal();
+          kruskal.setConf(context);
+          Path chosen = runStep(kruskal, edges, dirMgr);
+          tree_edges.append(chosen.toString()).append(',');
+          break;
+        }
+        rounds++;
+        
+        // 2.2 Choose the lightest edge of each component.
+        System.out.println("++++++>"+dirMgr.getSeqNum()+": MinEdgeStep");
+        MinEdgeStep min_edge = new MinEdgeStep();
+        min_edge.setConf(context);
+        Path chosen = runStep(min_edge, edges, dirMgr);
+        tree_edges.append(chosen.toString()).append(',');
+        
+        // 2.3 Merge the components linked by chosen edges.
+        System.out.println("++++++>"+dirMgr.getSeqNum()+": ChosenLinks");
+        ChosenLinks links = new ChosenLinks();
+        links.setConf(context);
+        Path labels = runStep(links, chosen, dirMgr);
+        labels = star.iterate(labels, dirMgr);
+        
+        // 2.4 Contract the edge list.
+        System.out.println("++++++>"+dirMgr.getSeqNum()+": RelabelStep");
+        edges = runStep(createRelabelStep(labels, RelabelStep.FROM_SIDE), edges, dirMgr);
+        System.out.println("++++++>"+dirMgr.getSeqNum()+": RelabelStep");
+        RelabelStep relabel = createRelabelStep(labels, RelabelStep.TO_SIDE);
+        edges = runStep(relabel, edges, dirMgr);
+        edge_num = getCounter(relabel, RelabelStep.REMAINING_EDGES);
+        System.out.println("++++++>Number of remaining edges:" + edge_num);
+      }
+      
+      // 3. Mark the chosen edges on the input graph.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": MarkTreeEdges");
+      MarkTreeEdges mark = new MarkTreeEdges();
+      mark.setConf(context);
+      mark.setParameter(MarkTreeEdges.TREE_EDGES, tree_edges.toString());
+      Graph src = new Graph(Graph.defaultGraph());
+      src.setPath(getSource().getPath());
+      Graph dest = new Graph(Graph.defaultGraph());
+      dest.setPath(getDestination().getPath());
+      mark.setSource(src);
+      mark.setDestination(dest);
+      mark.setMapperNum(getMapperNum());
+      mark.setReducerNum(getReducerNum());
+      mark.execute();
+      
+      // Delete all temporary directories.
+      dirMgr.deleteAll();
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Read a counter of the Boruvka steps.
+   * @param step the finished step.
+   * @param name name of the counter.
+   * @return value of the counter, zero if it is absent.
+   * @throws ProcessorExecutionException
+   */
+  private long getCounter(GraphAlgorithm step, String name) 
+      throws ProcessorExecutionException {
+    return Math.max(0, MRConsoleReader.getRecordNum(step.getFinalStatus(), 
+        EdgeListGenerate.COUNTER_GROUP, name));
+  }
+  
+  /**
+   * Create the step to relabel one side of the edge list.
+   * @param labels path of the converged star edge list.
+   * @param side the side.
+   * @return the step.
+   */
+  private RelabelStep createRelabelStep(Path labels, String side){
+    RelabelStep relabel = new RelabelStep();
+    relabel.setConf(context);
+    relabel.setParameter(RelabelStep.LABELS, labels.toString());
+    relabel.setParameter(RelabelStep.SIDE, side);
+    return relabel;
+  }
+  
+  /**
+   * Run a step into a new temp dir.
+   * @param step the step, whose context and parameters have been set.
+   * @param src source path.
+   * @param dirMgr temp dirs.
+   * @return the new temp dir.
+   * @throws IOException
+   * @throws ProcessorExecutionException
+   */
+  private Path runStep(GraphAlgorithm step, Path src, SequenceTempDirMgr dirMgr) 
+      throws IOException, ProcessorExecutionException {
+    Graph src_graph = new Graph(Graph.defaultGraph());
+    src_graph.setPath(src);
+    Graph dest = new Graph(Graph.defaultGraph());
+    Path tmpDir = dirMgr.getTempDir();
+    dest.setPath(tmpDir);
+    step.setSource(src_graph);
+    step.setDestination(dest);
+    step.setMapperNum(getMapperNum());
+    step.setReducerNum(getReducerNum());
+    step.execute();
+    return tmpDir;
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new BoruvkaMSTAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+
+
+/**
+ * An edge of the contracted graph. It connects two components, and remembers the
+ * original edge it comes from, i.e., its two ends in the input graph and its weight.
+ * <p>
+ * Edges are totally ordered by their weights, and then by their original ends, so that
+ * the lightest edge of each component is unique even if weights are equal. This is what
+ * keeps the edges chosen in a round free of cycles.
+ */
+public class ComponentEdge implements Writable, Comparable<ComponentEdge>, Cloneable {
+  /** Component of one end. */
+  private String from;
+  /** Component of the other end. */
+  private String to;
+  /** Weight of the original edge. */
+  private double weight;
+  /** The smaller original end. */
+  private String u;
+  /** The larger original end. */
+  private String v;
+  
+  static {
+    // Register the writable factory for this class.
+    WritableFactories.setFactory(ComponentEdge.class, new WritableFactory() {
+      public Writable newInstance() {
+        return new ComponentEdge();
+      }
+    });
+  }
+  
+  /**
+   * Default constructor.
+   */
+  public ComponentEdge(){
+    from = to = u = v = "";
+    weight = 0;
+  }
+  
+  /**
+   * Normal constructor. The original ends could be given in any order.
+   * @param from component of one end.
+   * @param to component of the other end.
+   * @param weight weight of the original edge.
+   * @param u one original end.
+   * @param v the other original end.
+   */
+  public ComponentEdge(String from, String to, double weight, String u, String v){
+    this.from = from;
+    this.to = to;
+    this.weight = weight;
+    if(u.compareTo(v) <= 0){
+      this.u = u;
+      this.v = v;
+    }else{
+      this.u = v;
+      this.v = u;
+    }
+  }
+  
+  /**
+   * Copy constructor.
+   * @param edge
+   */
+  public ComponentEdge(ComponentEdge edge){
+    from = edge.from;
+    to = edge.to;
+    weight = edge.weight;
+    u = edge.u;
+    v = edge.v;
+  }
+
+  public String getFrom() {
+    return from;
+  }
+
+  public void setFrom(String from) {
+    this.from = from;
+  }
+
+  public String getTo() {
+    return to;
+  }
+
+  public void setTo(String to) {
+    this.to = to;
+  }
+
+  public double getWeight() {
+    return weight;
+  }
+
+  public String getU() {
+    return u;
+  }
+
+  public String getV() {
+    return v;
+  }
+  
+  /**
+   * Get the component at the other side.
+   * @param component component of one end.
+   * @return component of the other end.
+   */
+  public String otherSide(String component){
+    return from.equals(component) ? to : from;
+  }
+  
+  /**
+   * Check whether both ends are in the same component.
+   * @return true if so.
+   */
+  public boolean isLoop(){
+    return from.equals(to);
+  }
+  
+  @Override
+  public int compareTo(ComponentEdge other) {
+    int ret = Double.compare(weight, other.weight);
+    if(ret == 0){
+      ret = u.compareTo(other.u);
+    }
+    if(ret == 0){
+      ret = v.compareTo(other.v);
+    }
+    return ret;
+  }
+  
+  public Object clone() {
+    return new ComponentEdge(this);
+  }
+  
+  public String toString(){
+    return "<" + from + ", " + to + ", " + weight + ", " + u + ", " + v + ">";
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    from = Text.readString(in);
+    to = Text.readString(in);
+    weight = in.readDouble();
+    u = Text.readString(in);
+    v = Text.readString(in);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    Text.writeString(out, from);
+    Text.writeString(out, to);
+    out.writeDouble(weight);
+    Text.writeString(out, u);
+    Text.writeString(out, v);
+  }
+}
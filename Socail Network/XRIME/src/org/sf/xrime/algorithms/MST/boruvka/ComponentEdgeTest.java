@@ -0,0 +1,56 @@
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+
+public class ComponentEdgeTest {
+	@Test
+	public void testCompareTo() {
+		ComponentEdge light = new ComponentEdge("x", "y", 1.0, "d", "e");
+		ComponentEdge heavy = new ComponentEdge("x", "y", 2.0, "a", "b");
+		assertTrue(light.compareTo(heavy) < 0);
+		assertTrue(heavy.compareTo(light) > 0);
+	}
+	
+	@Test
+	public void testCompareToEqualWeights() {
+		// Equal weights are ordered by the smaller original end, then by the larger one,
+		// whatever the components and the order the ends are given in.
+		ComponentEdge ab = new ComponentEdge("x", "y", 1.0, "b", "a");
+		ComponentEdge ac = new ComponentEdge("y", "x", 1.0, "a", "c");
+		ComponentEdge bc = new ComponentEdge("x", "z", 1.0, "b", "c");
+		assertEquals(ab.getU(), "a");
+		assertEquals(ab.getV(), "b");
+		assertTrue(ab.compareTo(ac) < 0);
+		assertTrue(ac.compareTo(ab) > 0);
+		assertTrue(ac.compareTo(bc) < 0);
+		assertTrue(ab.compareTo(bc) < 0);
+		
+		// The same original edge seen from different components is the same edge.
+		ComponentEdge ba = new ComponentEdge("y", "x", 1.0, "a", "b");
+		assertEquals(ab.compareTo(ba), 0);
+		assertEquals(ba.compareTo(ab), 0);
+	}
+	
+	@Test
+	public void testReadWrite() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ComponentEdge edge1 = new ComponentEdge("x", "y", 1.5, "b", "a");
+		edge1.write(out);
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		ComponentEdge edge2 = new ComponentEdge();
+		edge2.readFields(in);
+		assertEquals(edge2.toString(), "<x, y, 1.5, a, b>");
+		assertEquals(edge2.compareTo(edge1), 0);
+	}
+}
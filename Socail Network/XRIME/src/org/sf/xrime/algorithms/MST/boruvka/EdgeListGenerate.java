@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.MST.MSTLabel.MSTWEdgesLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.WeightOfEdge;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Turn the weighted adjacency lists used by the MST algorithms into a list of undirected
+ * edges, each of which is kept once. At the beginning, every vertex is a component by
+ * itself, so the components of the ends are the ends themselves.
+ */
+public class EdgeListGenerate extends GraphAlgorithm {
+  /** Counter group of the Boruvka steps. */
+  public static final String COUNTER_GROUP = "BORUVKA";
+  /** Counter of generated edges. */
+  public static final String EDGES = "BORUVKA_EDGES";
+  
+  /**
+   * Default constructor.
+   */
+  public EdgeListGenerate(){
+    super();
+  }
+  
+  /**
+   * Emit each weighted edge with its ends in increasing order.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjVertex, Edge, ComponentEdge>{
+    @Override
+    public void map(Text key, LabeledAdjVertex value,
+        OutputCollector<Edge, ComponentEdge> output, Reporter reporter)
+        throws IOException {
+      if(value.getEdges() == null){
+        return;
+      }
+      MSTWEdgesLabel weights = (MSTWEdgesLabel) value.getLabel(MSTWEdgesLabel.mstWEdgesLabel);
+      for(Edge edge : value.getEdges()){
+        if(value.getId().equals(edge.getTo())){
+          // Self loops never belong to a spanning tree.
+          continue;
+        }
+        WeightOfEdge weight = weights == null ? null : weights.getWEdge(edge.getTo());
+        if(weight == null){
+          throw new IOException("No weight for the edge from " + value.getId() + 
+              " to " + edge.getTo());
+        }
+        ComponentEdge result = new ComponentEdge(value.getId(), edge.getTo(), 
+            weight.getWeight(), value.getId(), edge.getTo());
+        output.collect(new Edge(result.getU(), result.getV()), result);
+      }
+    }
+  }
+  
+  /**
+   * Both directions of an edge meet here, keep the lighter one.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Edge, ComponentEdge, Text, ComponentEdge>{
+    @Override
+    public void reduce(Edge key, Iterator<ComponentEdge> values,
+        OutputCollector<Text, ComponentEdge> output, Reporter reporter)
+        throws IOException {
+      ComponentEdge lightest = null;
+      while(values.hasNext()){
+        ComponentEdge edge = values.next();
+        if(lightest == null || edge.compareTo(lightest) < 0){
+          lightest = new ComponentEdge(edge);
+        }
+      }
+      lightest.setFrom(lightest.getU());
+      lightest.setTo(lightest.getV());
+      output.collect(new Text(lightest.getFrom()), lightest);
+      reporter.incrCounter(COUNTER_GROUP, EDGES, 1);
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+    
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, EdgeListGenerate.class);
+    conf.setJobName("BoruvkaEdgeListGenerate");
+ 
+    conf.setMapOutputKeyClass(Edge.class);
+    conf.setMapOutputValueClass(ComponentEdge.class);
+    // the keys are components (strings), the values are edges between components.
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(ComponentEdge.class);
+    conf.setMapperClass(MapClass.class);        
+    conf.setReducerClass(ReduceClass.class);
+    // makes the file format suitable for machine processing.
+    conf.setInputFormat(SequenceFileInputFormat.class);
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new EdgeListGenerate(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
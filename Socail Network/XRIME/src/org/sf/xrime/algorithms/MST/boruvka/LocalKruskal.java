@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Finish a small contracted graph with Kruskal's algorithm in the memory of the client.
+ * Edges are sorted in the same order as chosen by MinEdgeStep, and an edge is kept if it
+ * joins two different sets of the union-find. The kept edges are written in the format of
+ * MinEdgeStep, so that they are marked in the same way.
+ */
+public class LocalKruskal extends GraphAlgorithm {
+  /**
+   * Parent of each component in the union-find, roots are their own parents.
+   */
+  private Map<String, String> parents = new HashMap<String, String>();
+  
+  /**
+   * Default constructor.
+   */
+  public LocalKruskal(){
+    super();
+  }
+  
+  /**
+   * Find the root of a component.
+   * @param component the component.
+   * @return the root.
+   */
+  private String find(String component){
+    String root = component;
+    String parent = parents.get(root);
+    while(parent != null && !parent.equals(root)){
+      root = parent;
+      parent = parents.get(root);
+    }
+    // Path compression.
+    while(!component.equals(root)){
+      String next = parents.get(component);
+      parents.put(component, root);
+      component = next;
+    }
+    return root;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      FileSystem client = FileSystem.get(context);
+      List<ComponentEdge> edges = new ArrayList<ComponentEdge>();
+      for(Path file : SequenceFiles.listDataFiles(client, getSource().getPath())){
+        SequenceFile.Reader reader = new SequenceFile.Reader(client, file, context);
+        try {
+          Text key = new Text();
+          ComponentEdge edge = new ComponentEdge();
+          while(reader.next(key, edge)){
+            edges.add(edge);
+            edge = new ComponentEdge();
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      Collections.sort(edges);
+      
+      parents.clear();
+      Path file = new Path(getDestination().getPath(), "part-00000");
+      SequenceFile.Writer writer = SequenceFile.createWriter(client, context, file, 
+          Text.class, ComponentEdge.class);
+      try {
+        for(ComponentEdge edge : edges){
+          String a = find(edge.getFrom());
+          String b = find(edge.getTo());
+          if(!a.equals(b)){
+            parents.put(a, b);
+            parents.put(b, b);
+            writer.append(new Text(edge.getFrom()), edge);
+          }
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
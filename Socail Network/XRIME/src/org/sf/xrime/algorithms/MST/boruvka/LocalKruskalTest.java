@@ -0,0 +1,76 @@
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.model.Graph;
+
+
+public class LocalKruskalTest {
+	@Test
+	public void testSquareWithDiagonal() throws IOException, ProcessorExecutionException {
+		JobConf conf = new JobConf();
+		FileSystem fs = FileSystem.getLocal(conf);
+		Path dir = new Path(System.getProperty("java.io.tmpdir"), "LocalKruskalTest");
+		fs.delete(dir, true);
+		try {
+			// The sides of the square a-b-c-d weigh the same, so the tie-break decides
+			// which of them are kept besides the diagonal a-c.
+			ComponentEdge[] edges = new ComponentEdge[] {
+					new ComponentEdge("c", "d", 1.0, "c", "d"),
+					new ComponentEdge("b", "d", 2.0, "b", "d"),
+					new ComponentEdge("b", "c", 1.0, "b", "c"),
+					new ComponentEdge("d", "a", 1.0, "d", "a"),
+					new ComponentEdge("a", "b", 1.0, "a", "b"),
+					new ComponentEdge("a", "c", 0.5, "a", "c")};
+			Path input = new Path(dir, "input");
+			SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, 
+					new Path(input, "part-00000"), Text.class, ComponentEdge.class);
+			for(ComponentEdge edge : edges){
+				writer.append(new Text(edge.getFrom()), edge);
+			}
+			writer.close();
+			
+			LocalKruskal kruskal = new LocalKruskal();
+			kruskal.setConf(conf);
+			Graph src = new Graph(Graph.defaultGraph());
+			src.setPath(input);
+			kruskal.setSource(src);
+			Graph dest = new Graph(Graph.defaultGraph());
+			dest.setPath(new Path(dir, "output"));
+			kruskal.setDestination(dest);
+			kruskal.execute();
+			
+			Set<String> kept = new HashSet<String>();
+			double weight = 0;
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, 
+					new Path(dir, "output/part-00000"), conf);
+			Text key = new Text();
+			ComponentEdge edge = new ComponentEdge();
+			while(reader.next(key, edge)){
+				assertEquals(key.toString(), edge.getFrom());
+				kept.add(edge.getU() + edge.getV());
+				weight += edge.getWeight();
+			}
+			reader.close();
+			
+			assertEquals(kept.size(), 3);
+			assertTrue(kept.contains("ac"));
+			assertTrue(kept.contains("ab"));
+			assertTrue(kept.contains("ad"));
+			assertEquals(weight, 2.5, 0);
+		} finally {
+			fs.delete(dir, true);
+		}
+	}
+}
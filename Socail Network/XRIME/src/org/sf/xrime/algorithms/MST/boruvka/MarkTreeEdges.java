@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.MultipleInputs;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.MST.MSTLabel.MSTEdgeStateVariable;
+import org.sf.xrime.algorithms.MST.MSTLabel.MSTEdgeStatesLabel;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+/**
+ * Mark the edges chosen in all rounds on the input graph. Each vertex gets the states
+ * of its edges in the same way as MSTAlgorithm, i.e., Branch for edges of the minimum
+ * spanning forest and Rejected for the others, so the output is the same as that of 
+ * MSTFinalReducer.
+ * @see org.sf.xrime.algorithms.MST.MSTFinalReducer
+ */
+public class MarkTreeEdges extends GraphAlgorithm {
+  /**
+   * The parameter name of the paths of chosen edges, separated by commas.
+   */
+  public static final String TREE_EDGES = "boruvka_tree_edges";
+  
+  /** State of edges in the tree, the same as MSTAlgorithm. */
+  public static final int BRANCH = -1;
+  /** State of edges not in the tree, the same as MSTAlgorithm. */
+  public static final int REJECTED = 0;
+  
+  /**
+   * Default constructor.
+   */
+  public MarkTreeEdges(){
+    super();
+  }
+  
+  /**
+   * Wrap the vertexes.
+   */
+  public static class VertexMapper extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjVertex, Text, ObjectWritable>{
+    @Override
+    public void map(Text key, LabeledAdjVertex value,
+        OutputCollector<Text, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      output.collect(key, new ObjectWritable(value));
+    }
+  }
+  
+  /**
+   * Tell both original ends of a chosen edge about each other.
+   */
+  public static class TreeEdgeMapper extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, ComponentEdge, Text, ObjectWritable>{
+    @Override
+    public void map(Text key, ComponentEdge value,
+        OutputCollector<Text, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      output.collect(new Text(value.getU()), new ObjectWritable(new Text(value.getV())));
+      output.collect(new Text(value.getV()), new ObjectWritable(new Text(value.getU())));
+    }
+  }
+  
+  /**
+   * Set the states of the edges of a vertex.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, ObjectWritable, Text, LabeledAdjVertex>{
+    @Override
+    public void reduce(Text key, Iterator<ObjectWritable> values,
+        OutputCollector<Text, LabeledAdjVertex> output, Reporter reporter)
+        throws IOException {
+      LabeledAdjVertex vertex = null;
+      // An edge chosen by both of its components arrives twice.
+      Set<String> tree_neighbors = new HashSet<String>();
+      while(values.hasNext()){
+        Object value = values.next().get();
+        if(value instanceof LabeledAdjVertex){
+          vertex = new LabeledAdjVertex((LabeledAdjVertex) value);
+        }else{
+          tree_neighbors.add(value.toString());
+        }
+      }
+      if(vertex == null){
+        return;
+      }
+      MSTEdgeStatesLabel states = new MSTEdgeStatesLabel();
+      if(vertex.getEdges() != null){
+        for(Edge edge : vertex.getEdges()){
+          int state = tree_neighbors.contains(edge.getTo()) ? BRANCH : REJECTED;
+          states.setEdgeState(edge.getTo(), new MSTEdgeStateVariable(state));
+        }
+      }
+      vertex.setLabel(MSTEdgeStatesLabel.mstEdgeStatesLabel, states);
+      output.collect(key, vertex);
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 3 parameters left.
+    if (params.length != 3) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 3.");
+    }
+    
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+    setParameter(TREE_EDGES, params[2]);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, MarkTreeEdges.class);
+    conf.setJobName("BoruvkaMarkTreeEdges");
+    
+    conf.setMapOutputKeyClass(Text.class);
+    conf.setMapOutputValueClass(ObjectWritable.class);
+    // the keys are vertex ids (strings), the values are vertexes with edge states.
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(LabeledAdjVertex.class);
+    conf.setReducerClass(ReduceClass.class);
+    // makes the file format suitable for machine processing.
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      MultipleInputs.addInputPath(conf, getSource().getPath(), 
+          SequenceFileInputFormat.class, VertexMapper.class);
+      String tree_edges = context.getParameter(TREE_EDGES);
+      if(tree_edges != null){
+        for(String path : tree_edges.split(",")){
+          if(path.length() > 0){
+            MultipleInputs.addInputPath(conf, new Path(path), 
+                SequenceFileInputFormat.class, TreeEdgeMapper.class);
+          }
+        }
+      }
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new MarkTreeEdges(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
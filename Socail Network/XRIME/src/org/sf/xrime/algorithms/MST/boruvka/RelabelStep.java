@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.MST.boruvka;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.MultipleInputs;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.EdgeSecondarySort;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.Edge;
+
+
+/**
+ * Replace the components at one side of the edges with the components they are merged
+ * into. Run on the from side and then on the to side, edges within a merged component
+ * are dropped by the second run, and the rest is the edge list of the contracted graph.
+ * <p>
+ * The new components come from the converged star edge list of the chosen links. An edge
+ * list is joined with it by the component at the given side. The join is sorted so that
+ * the new component arrives first, and a component never holds its edges in memory.
+ */
+public class RelabelStep extends GraphAlgorithm {
+  /**
+   * The parameter name of the path of the star edge list, which maps components to the
+   * smallest components they are merged with.
+   */
+  public static final String LABELS = "boruvka_labels";
+  /**
+   * The parameter name of the side to be relabeled, FROM_SIDE or TO_SIDE.
+   */
+  public static final String SIDE = "boruvka_side";
+  /** Relabel the from side. */
+  public static final String FROM_SIDE = "from";
+  /** Relabel the to side, and drop the edges within components. */
+  public static final String TO_SIDE = "to";
+  /** Counter of edges left in the contracted graph. */
+  public static final String REMAINING_EDGES = "BORUVKA_REMAINING_EDGES";
+  
+  /** Sorted before edges, so that new components arrive first. */
+  private static final String LABEL_TAG = "0";
+  /** Tag of edges. */
+  private static final String EDGE_TAG = "1";
+  
+  /**
+   * Default constructor.
+   */
+  public RelabelStep(){
+    super();
+  }
+  
+  /**
+   * Key edges by the components at the side to be relabeled.
+   */
+  public static class EdgeMapper extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, ComponentEdge, Edge, ObjectWritable>{
+    private boolean from_side = true;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      from_side = !TO_SIDE.equals(context.getParameter(SIDE));
+    }
+    
+    @Override
+    public void map(Text key, ComponentEdge value,
+        OutputCollector<Edge, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      String component = from_side ? value.getFrom() : value.getTo();
+      output.collect(new Edge(component, EDGE_TAG), new ObjectWritable(value));
+    }
+  }
+  
+  /**
+   * Key new components by the components merged into them.
+   */
+  public static class LabelMapper extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, Text, Edge, ObjectWritable>{
+    @Override
+    public void map(Text key, Text value,
+        OutputCollector<Edge, ObjectWritable> output, Reporter reporter)
+        throws IOException {
+      output.collect(new Edge(key.toString(), LABEL_TAG), new ObjectWritable(value));
+    }
+  }
+  
+  /**
+   * Relabel the edges of a component.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Edge, ObjectWritable, Text, ComponentEdge>{
+    private boolean from_side = true;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      from_side = !TO_SIDE.equals(context.getParameter(SIDE));
+    }
+    
+    @Override
+    public void reduce(Edge key, Iterator<ObjectWritable> values,
+        OutputCollector<Text, ComponentEdge> output, Reporter reporter)
+        throws IOException {
+      String component = null;
+      while(values.hasNext()){
+        Object value = values.next().get();
+        if(value instanceof Text){
+          // The center of a star may point to itself more than once, keep the smallest.
+          String label = value.toString();
+          if(component == null || label.compareTo(component) < 0){
+            component = label;
+          }
+          continue;
+        }
+        ComponentEdge edge = (ComponentEdge) value;
+        if(component != null){
+          if(from_side){
+            edge.setFrom(component);
+          }else{
+            edge.setTo(component);
+          }
+        }
+        if(from_side){
+          output.collect(new Text(edge.getTo()), edge);
+        }else if(!edge.isLoop()){
+          output.collect(new Text(edge.getFrom()), edge);
+          reporter.incrCounter(EdgeListGenerate.COUNTER_GROUP, REMAINING_EDGES, 1);
+        }
+      }
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 4 parameters left.
+    if (params.length != 4) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 4.");
+    }
+    
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+    setParameter(LABELS, params[2]);
+    setParameter(SIDE, params[3]);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, RelabelStep.class);
+    conf.setJobName("BoruvkaRelabel");
+    
+    String labels = context.getParameter(LABELS);
+    if(labels == null){
+      throw new ProcessorExecutionException("No path of new components specified.");
+    }
+    
+    conf.setMapOutputKeyClass(Edge.class);
+    conf.setMapOutputValueClass(ObjectWritable.class);
+    // the keys are components (strings), the values are edges between components.
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(ComponentEdge.class);
+    conf.setReducerClass(ReduceClass.class);
+    // group by components, with new components sorted first.
+    conf.setPartitionerClass(EdgeSecondarySort.FromPartitioner.class);
+    conf.setOutputValueGroupingComparator(EdgeSecondarySort.FromComparator.class);
+    // makes the file format suitable for machine processing.
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      MultipleInputs.addInputPath(conf, getSource().getPath(), 
+          SequenceFileInputFormat.class, EdgeMapper.class);
+      MultipleInputs.addInputPath(conf, new Path(labels), 
+          SequenceFileInputFormat.class, LabelMapper.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new RelabelStep(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
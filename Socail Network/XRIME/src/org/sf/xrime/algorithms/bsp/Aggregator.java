@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+/**
+ * Aggregates values contributed by vertexes during a superstep into one global value,
+ * which is visible to the master computation after the superstep, and to all vertexes
+ * in the next superstep. Must be commutative and associative.
+ * @param <A> type of values.
+ * @see Aggregators
+ */
+public interface Aggregator<A> {
+  /**
+   * The value of the aggregator if nothing is contributed.
+   * @return
+   */
+  public A createInitialValue();
+  
+  /**
+   * Aggregate two values. The arguments must not be modified.
+   * @param a
+   * @param b
+   * @return
+   */
+  public A aggregate(A a, A b);
+}
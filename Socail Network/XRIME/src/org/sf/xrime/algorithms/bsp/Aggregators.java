@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+/**
+ * Commonly used aggregators.
+ */
+public class Aggregators {
+  /**
+   * Sum of doubles.
+   */
+  public static class DoubleSum implements Aggregator<Double> {
+    public Double createInitialValue() {
+      return 0.0;
+    }
+    
+    public Double aggregate(Double a, Double b) {
+      return a + b;
+    }
+  }
+  
+  /**
+   * Maximum of doubles.
+   */
+  public static class DoubleMax implements Aggregator<Double> {
+    public Double createInitialValue() {
+      return Double.NEGATIVE_INFINITY;
+    }
+    
+    public Double aggregate(Double a, Double b) {
+      return Math.max(a, b);
+    }
+  }
+  
+  /**
+   * Sum of longs.
+   */
+  public static class LongSum implements Aggregator<Long> {
+    public Long createInitialValue() {
+      return 0L;
+    }
+    
+    public Long aggregate(Long a, Long b) {
+      return a + b;
+    }
+  }
+  
+  /**
+   * Whether any vertex contributed true.
+   */
+  public static class BooleanOr implements Aggregator<Boolean> {
+    public Boolean createInitialValue() {
+      return false;
+    }
+    
+    public Boolean aggregate(Boolean a, Boolean b) {
+      return a || b;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.Vertex;
+
+
+/**
+ * Base class of algorithms run as vertex programs by BSPEngine, in the memory of one
+ * machine. execute() loads the source graph, runs the program returned by 
+ * createProgram(), and writes the vertexes into the destination path.
+ * <p>
+ * Subclasses handle their own command line options in setArguments(), then pass the 
+ * remaining ones to this class, which handles "-t" (number of threads), "-maxstep"
+ * (maximal number of supersteps), and the input and output paths.
+ * @param <V> type of vertexes.
+ * @param <M> type of messages.
+ */
+public abstract class BSPAlgorithm<V extends Vertex, M> extends GraphAlgorithm {
+  /**
+   * Number of threads.
+   */
+  private int threadNum=Runtime.getRuntime().availableProcessors();
+  /**
+   * Maximal number of supersteps.
+   */
+  private long maxSuperstep=Long.MAX_VALUE;
+  /**
+   * Number of supersteps run by the last execution.
+   */
+  private long superstepCount=0;
+  
+  public int getThreadNum() {
+    return threadNum;
+  }
+
+  public void setThreadNum(int threadNum) {
+    if(threadNum<1) {
+      throw new IllegalArgumentException("Number of threads should be positive");
+    }
+    this.threadNum = threadNum;
+  }
+
+  public long getMaxSuperstep() {
+    return maxSuperstep;
+  }
+
+  public void setMaxSuperstep(long maxSuperstep) {
+    this.maxSuperstep = maxSuperstep;
+  }
+
+  public long getSuperstepCount() {
+    return superstepCount;
+  }
+  
+  /**
+   * Create the vertex program to run, with the current settings of this algorithm.
+   * @return
+   */
+  protected abstract VertexProgram<V, M> createProgram();
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-t".equals(params[i])) {
+          setThreadNum(Integer.parseInt(params[++i]));
+        } else if ("-maxstep".equals(params[i])) {
+          setMaxSuperstep(Long.parseLong(params[++i]));
+        } else if (params[i] != null) {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters left: " +
+                         other_args.size() + " instead of 2.");
+    }
+    
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(other_args.get(0)));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(other_args.get(1)));
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+      
+      BSPEngine<V, M> engine = new BSPEngine<V, M>(createProgram(), threadNum);
+      engine.load(context, getSource().getPath());
+      superstepCount = engine.run(maxSuperstep);
+      engine.store(context, getDestination().getPath());
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (InterruptedException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.sf.xrime.model.vertex.Vertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Multi-threaded, in-memory, bulk synchronous engine of vertex programs, for graphs
+ * which fit in the memory of one machine. The vertexes are split into one partition
+ * per thread. Each superstep has two phases separated by barriers:
+ * <ol>
+ * <li>Compute: each thread calls VertexProgram.compute() for the active vertexes of
+ *     its partition, and buffers the messages sent by them per target partition.</li>
+ * <li>Deliver: each thread collects the messages sent to its partition, and combines
+ *     them per vertex if the program has a combiner.</li>
+ * </ol>
+ * Aggregated values and VertexProgram.masterCompute() are handled between the phases.
+ * The computation ends when all vertexes have voted to halt and no message is sent,
+ * when the master halts it, or after the maximal number of supersteps.
+ * <p>
+ * Typical usage is load(), run() then store(), see BSPAlgorithm.
+ * @param <V> type of vertexes.
+ * @param <M> type of messages.
+ */
+public class BSPEngine<V extends Vertex, M> {
+  private final VertexProgram<V, M> program;
+  private final MessageCombiner<M> combiner;
+  private final int threadNum;
+  
+  // The graph, vertexes are numbered in the order they are added.
+  private final List<V> vertexes = new ArrayList<V>();
+  private Class<?> vertexClass = null;
+  private int[] outOffsets;
+  private int[] outTargets;
+  private int[] inOffsets;
+  private int[] inSources;
+  private boolean[] halted;
+  private boolean prepared = false;
+  
+  // Partition p holds vertexes from bounds[p] (inclusive) to bounds[p+1] (exclusive).
+  private int[] bounds;
+  private List<Worker> workers;
+  
+  private final Map<String, Aggregator<Object>> aggregators = 
+    new LinkedHashMap<String, Aggregator<Object>>();
+  private Map<String, Object> aggregatedValues = new HashMap<String, Object>();
+  
+  private long superstep = 0;
+  private boolean halt = false;
+  
+  /**
+   * Constructor.
+   * @param program the vertex program.
+   * @param threadNum number of threads.
+   */
+  public BSPEngine(VertexProgram<V, M> program, int threadNum) {
+    if (threadNum < 1) {
+      throw new IllegalArgumentException("Number of threads should be positive");
+    }
+    this.program = program;
+    this.combiner = program.getCombiner();
+    this.threadNum = threadNum;
+  }
+  
+  /**
+   * Add a vertex. Ids of vertexes should be unique.
+   * @param vertex
+   */
+  public void addVertex(V vertex) {
+    if (prepared) {
+      throw new IllegalStateException("Vertexes can not be added after running");
+    }
+    vertexes.add(vertex);
+    if (vertexClass == null) {
+      vertexClass = vertex.getClass();
+    }
+  }
+  
+  /**
+   * Load vertexes from sequence files.
+   * @param conf
+   * @param input a file, or a directory of files.
+   * @throws IOException
+   */
+  @SuppressWarnings("unchecked")
+  public void load(Configuration conf, Path input) throws IOException {
+    FileSystem fs = input.getFileSystem(conf);
+    for (Path file : SequenceFiles.listDataFiles(fs, input)) {
+      SequenceFile.Reader reader = new SequenceFile.Reader(fs, file, conf);
+      try {
+        Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+        vertexClass = reader.getValueClass();
+        while (true) {
+          V vertex = (V) ReflectionUtils.newInstance(reader.getValueClass(), conf);
+          if (!reader.next(key, vertex)) {
+            break;
+          }
+          addVertex(vertex);
+        }
+      } finally {
+        reader.close();
+      }
+    }
+  }
+  
+  /**
+   * Write vertexes into sequence file part-00000 of the output directory, keyed by
+   * their ids, in the order they are added.
+   * @param conf
+   * @param output
+   * @throws IOException
+   */
+  public void store(Configuration conf, Path output) throws IOException {
+    FileSystem fs = output.getFileSystem(conf);
+    SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, 
+        new Path(output, "part-00000"), Text.class, 
+        vertexClass == null ? Vertex.class : vertexClass);
+    try {
+      Text key = new Text();
+      for (V vertex : vertexes) {
+        key.set(vertex.getId());
+        writer.append(key, vertex);
+      }
+    } finally {
+      writer.close();
+    }
+  }
+  
+  /**
+   * The vertexes, in the order they are added.
+   * @return
+   */
+  public List<V> getVertexes() {
+    return vertexes;
+  }
+  
+  /**
+   * Number of vertexes.
+   * @return
+   */
+  public int getVertexCount() {
+    return vertexes.size();
+  }
+  
+  /**
+   * The current superstep, or the last one after the computation ends.
+   * @return
+   */
+  public long getSuperstep() {
+    return superstep;
+  }
+  
+  /**
+   * Register an aggregator, usually in VertexProgram.initialize().
+   * @param name
+   * @param aggregator
+   */
+  @SuppressWarnings("unchecked")
+  public <A> void registerAggregator(String name, Aggregator<A> aggregator) {
+    aggregators.put(name, (Aggregator<Object>) aggregator);
+    aggregatedValues.put(name, aggregator.createInitialValue());
+  }
+  
+  /**
+   * Get the aggregated value of the last finished superstep.
+   * @param name
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public <A> A getAggregatedValue(String name) {
+    if (!aggregators.containsKey(name)) {
+      throw new IllegalArgumentException("Unknown aggregator: " + name);
+    }
+    return (A) aggregatedValues.get(name);
+  }
+  
+  /**
+   * End the computation after the current superstep, used in masterCompute().
+   */
+  public void haltComputation() {
+    halt = true;
+  }
+  
+  /**
+   * Run the vertex program.
+   * @param maxSupersteps maximal number of supersteps.
+   * @return number of supersteps run.
+   * @throws InterruptedException
+   */
+  public long run(long maxSupersteps) throws InterruptedException {
+    prepare();
+    superstep = 0;
+    halt = false;
+    program.initialize(this);
+    
+    if (vertexes.isEmpty()) {
+      return 0;
+    }
+    
+    ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+    try {
+      while (superstep < maxSupersteps) {
+        invokeAll(executor, new Phase() {
+          void run(Worker worker) {
+            worker.compute();
+          }
+        });
+        
+        // Barrier, aggregate the values of this superstep.
+        Map<String, Object> values = new HashMap<String, Object>();
+        boolean active = false;
+        long sent = 0;
+        for (Map.Entry<String, Aggregator<Object>> entry : aggregators.entrySet()) {
+          Object value = entry.getValue().createInitialValue();
+          for (Worker worker : workers) {
+            if (worker.aggregates.containsKey(entry.getKey())) {
+              value = entry.getValue().aggregate(value, worker.aggregates.get(entry.getKey()));
+            }
+          }
+          values.put(entry.getKey(), value);
+        }
+        for (Worker worker : workers) {
+          active |= worker.active;
+          sent += worker.sent;
+        }
+        aggregatedValues = values;
+        program.masterCompute(this);
+        
+        if (halt || (!active && sent == 0)) {
+          superstep++;
+          break;
+        }
+        
+        invokeAll(executor, new Phase() {
+          void run(Worker worker) {
+            worker.deliver();
+          }
+        });
+        superstep++;
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return superstep;
+  }
+  
+  private abstract class Phase {
+    abstract void run(Worker worker);
+  }
+  
+  private void invokeAll(ExecutorService executor, final Phase phase) 
+      throws InterruptedException {
+    List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(workers.size());
+    for (final Worker worker : workers) {
+      tasks.add(new Callable<Object>() {
+        public Object call() {
+          phase.run(worker);
+          return null;
+        }
+      });
+    }
+    for (Future<Object> result : executor.invokeAll(tasks)) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+  
+  /**
+   * Number the vertexes, build the edges and the partitions.
+   */
+  private void prepare() {
+    if (prepared) {
+      return;
+    }
+    prepared = true;
+    
+    int vertexNum = vertexes.size();
+    Map<String, Integer> indexes = new HashMap<String, Integer>(vertexNum * 2);
+    for (int v = 0; v < vertexNum; v++) {
+      indexes.put(vertexes.get(v).getId(), v);
+    }
+    
+    outOffsets = new int[vertexNum + 1];
+    outTargets = toCSR(indexes, outOffsets, true);
+    if (program.usesInEdges()) {
+      inOffsets = new int[vertexNum + 1];
+      if (vertexNum > 0 && program.getInNeighbors(vertexes.get(0)) != null) {
+        inSources = toCSR(indexes, inOffsets, false);
+      } else {
+        inSources = reverse(outOffsets, outTargets, inOffsets);
+      }
+    }
+    halted = new boolean[vertexNum];
+    
+    int partitionNum = Math.max(1, Math.min(threadNum, vertexNum));
+    bounds = new int[partitionNum + 1];
+    workers = new ArrayList<Worker>(partitionNum);
+    for (int p = 0; p < partitionNum; p++) {
+      bounds[p + 1] = (int) ((long) vertexNum * (p + 1) / partitionNum);
+    }
+    for (int p = 0; p < partitionNum; p++) {
+      workers.add(new Worker(p, bounds[p], bounds[p + 1]));
+    }
+  }
+  
+  private int[] toCSR(Map<String, Integer> indexes, int[] offsets, boolean out) {
+    int[] targets = new int[16];
+    int count = 0;
+    for (int v = 0; v < vertexes.size(); v++) {
+      Collection<String> neighbors = out ? program.getOutNeighbors(vertexes.get(v)) : 
+        program.getInNeighbors(vertexes.get(v));
+      if (neighbors != null) {
+        for (String neighbor : neighbors) {
+          Integer index = indexes.get(neighbor);
+          if (index == null) {
+            // Not in the graph.
+            continue;
+          }
+          if (count == targets.length) {
+            targets = Arrays.copyOf(targets, count * 2);
+          }
+          targets[count++] = index;
+        }
+      }
+      offsets[v + 1] = count;
+    }
+    return Arrays.copyOf(targets, count);
+  }
+  
+  private static int[] reverse(int[] offsets, int[] targets, int[] reverseOffsets) {
+    int vertexNum = offsets.length - 1;
+    for (int e = 0; e < targets.length; e++) {
+      reverseOffsets[targets[e] + 1]++;
+    }
+    for (int v = 0; v < vertexNum; v++) {
+      reverseOffsets[v + 1] += reverseOffsets[v];
+    }
+    int[] positions = Arrays.copyOf(reverseOffsets, vertexNum);
+    int[] sources = new int[targets.length];
+    for (int v = 0; v < vertexNum; v++) {
+      for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+        sources[positions[targets[e]]++] = v;
+      }
+    }
+    return sources;
+  }
+  
+  private int partitionOf(int v) {
+    int p = (int) ((long) v * workers.size() / vertexes.size());
+    while (bounds[p + 1] <= v) {
+      p++;
+    }
+    while (bounds[p] > v) {
+      p--;
+    }
+    return p;
+  }
+  
+  /**
+   * A partition of vertexes, computed by one thread.
+   */
+  private class Worker implements VertexContext<V, M> {
+    private final int partition;
+    private final int start;
+    private final int end;
+    
+    // Messages sent by this partition, per target partition.
+    private final int[][] sentTargets;
+    private final Object[][] sentMessages;
+    private final int[] sentCounts;
+    
+    // Messages to this partition. With a combiner, at most one per vertex in
+    // combined, otherwise those of vertex v are inbox[inboxOffsets[v-start]] to 
+    // inbox[inboxOffsets[v-start+1]-1].
+    private Object[] combined;
+    private int[] inboxOffsets;
+    private Object[] inbox;
+    
+    private final Map<String, Object> aggregates = new HashMap<String, Object>();
+    private boolean active;
+    private long sent;
+    
+    private int current;
+    private final Messages messages = new Messages();
+    
+    Worker(int partition, int start, int end) {
+      this.partition = partition;
+      this.start = start;
+      this.end = end;
+      sentTargets = new int[bounds.length - 1][];
+      sentMessages = new Object[bounds.length - 1][];
+      sentCounts = new int[bounds.length - 1];
+      if (combiner != null) {
+        combined = new Object[end - start];
+      } else {
+        inboxOffsets = new int[end - start + 1];
+        inbox = new Object[0];
+      }
+    }
+    
+    void compute() {
+      Arrays.fill(sentCounts, 0);
+      aggregates.clear();
+      active = false;
+      sent = 0;
+      for (int v = start; v < end; v++) {
+        int local = v - start;
+        if (combiner != null) {
+          messages.reset(combined, local, combined[local] == null ? local : local + 1);
+        } else {
+          messages.reset(inbox, inboxOffsets[local], inboxOffsets[local + 1]);
+        }
+        if (halted[v] && messages.isEmpty()) {
+          continue;
+        }
+        halted[v] = false;
+        current = v;
+        program.compute(this, messages);
+        active |= !halted[v];
+      }
+    }
+    
+    @SuppressWarnings("unchecked")
+    void deliver() {
+      if (combiner != null) {
+        Arrays.fill(combined, null);
+        for (Worker sender : workers) {
+          int[] targets = sender.sentTargets[partition];
+          Object[] values = sender.sentMessages[partition];
+          for (int i = 0; i < sender.sentCounts[partition]; i++) {
+            int local = targets[i] - start;
+            combined[local] = combined[local] == null ? values[i] : 
+              combiner.combine((M) combined[local], (M) values[i]);
+          }
+        }
+        return;
+      }
+      
+      // Counting sort by target vertex.
+      Arrays.fill(inboxOffsets, 0);
+      int total = 0;
+      for (Worker sender : workers) {
+        int[] targets = sender.sentTargets[partition];
+        for (int i = 0; i < sender.sentCounts[partition]; i++) {
+          inboxOffsets[targets[i] - start + 1]++;
+        }
+        total += sender.sentCounts[partition];
+      }
+      for (int i = 0; i < end - start; i++) {
+        inboxOffsets[i + 1] += inboxOffsets[i];
+      }
+      int[] positions = Arrays.copyOf(inboxOffsets, end - start);
+      if (inbox.length < total || inbox.length > total * 4) {
+        inbox = new Object[total];
+      }
+      for (Worker sender : workers) {
+        int[] targets = sender.sentTargets[partition];
+        Object[] values = sender.sentMessages[partition];
+        for (int i = 0; i < sender.sentCounts[partition]; i++) {
+          inbox[positions[targets[i] - start]++] = values[i];
+        }
+      }
+    }
+
+    public int getIndex() {
+      return current;
+    }
+
+    public String getId() {
+      return vertexes.get(current).getId();
+    }
+
+    public V getVertex() {
+      return vertexes.get(current);
+    }
+
+    public long getSuperstep() {
+      return superstep;
+    }
+
+    public int getVertexCount() {
+      return vertexes.size();
+    }
+
+    public int getOutDegree() {
+      return outOffsets[current + 1] - outOffsets[current];
+    }
+
+    public int getOutNeighbor(int i) {
+      return outTargets[outOffsets[current] + i];
+    }
+
+    public int getInDegree() {
+      checkInEdges();
+      return inOffsets[current + 1] - inOffsets[current];
+    }
+
+    public int getInNeighbor(int i) {
+      checkInEdges();
+      return inSources[inOffsets[current] + i];
+    }
+    
+    private void checkInEdges() {
+      if (inOffsets == null) {
+        throw new IllegalStateException("Incoming edges are not built, see VertexProgram.usesInEdges()");
+      }
+    }
+
+    public void sendMessage(int target, M message) {
+      int p = partitionOf(target);
+      int count = sentCounts[p];
+      if (sentTargets[p] == null) {
+        sentTargets[p] = new int[16];
+        sentMessages[p] = new Object[16];
+      } else if (count == sentTargets[p].length) {
+        sentTargets[p] = Arrays.copyOf(sentTargets[p], count * 2);
+        sentMessages[p] = Arrays.copyOf(sentMessages[p], count * 2);
+      }
+      sentTargets[p][count] = target;
+      sentMessages[p][count] = message;
+      sentCounts[p] = count + 1;
+      sent++;
+    }
+
+    public void sendMessageToOutNeighbors(M message) {
+      for (int e = outOffsets[current]; e < outOffsets[current + 1]; e++) {
+        sendMessage(outTargets[e], message);
+      }
+    }
+
+    public void sendMessageToInNeighbors(M message) {
+      checkInEdges();
+      for (int e = inOffsets[current]; e < inOffsets[current + 1]; e++) {
+        sendMessage(inSources[e], message);
+      }
+    }
+
+    public void voteToHalt() {
+      halted[current] = true;
+    }
+
+    public <A> void aggregate(String name, A value) {
+      Aggregator<Object> aggregator = aggregators.get(name);
+      if (aggregator == null) {
+        throw new IllegalArgumentException("Unknown aggregator: " + name);
+      }
+      Object old = aggregates.get(name);
+      aggregates.put(name, aggregator.aggregate(
+          old == null ? aggregator.createInitialValue() : old, value));
+    }
+
+    public <A> A getAggregatedValue(String name) {
+      return BSPEngine.this.<A>getAggregatedValue(name);
+    }
+  }
+  
+  /**
+   * Messages of a vertex, a range of an array.
+   */
+  private class Messages implements Iterable<M>, Iterator<M> {
+    private Object[] array;
+    private int from;
+    private int to;
+    private int next;
+    
+    void reset(Object[] array, int from, int to) {
+      this.array = array;
+      this.from = from;
+      this.to = to;
+      this.next = from;
+    }
+    
+    boolean isEmpty() {
+      return from == to;
+    }
+    
+    public Iterator<M> iterator() {
+      next = from;
+      return this;
+    }
+
+    public boolean hasNext() {
+      return next < to;
+    }
+
+    @SuppressWarnings("unchecked")
+    public M next() {
+      if (next >= to) {
+        throw new NoSuchElementException();
+      }
+      return (M) array[next++];
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,307 @@
+package org.sf.xrime.algorithms.bsp;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.sf.xrime.algorithms.BFS.BFSLabel;
+import org.sf.xrime.algorithms.BFS.bsp.BFSAlgorithm.BFSProgram;
+import org.sf.xrime.algorithms.partitions.connected.weakly.alg_2.ConstantLabels;
+import org.sf.xrime.algorithms.partitions.connected.weakly.bsp.LabelPropagationAlgorithm.LabelPropagationProgram;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.model.vertex.LabeledAdjVertex;
+
+
+public class BSPEngineTest {
+	/**
+	 * Every vertex sends index+1 to the first and the last vertex in superstep 0, and
+	 * the messages received in superstep 1 are recorded.
+	 */
+	private static class GatherProgram extends VertexProgram<AdjSetVertex, Integer> {
+		private final boolean combine;
+		private final List<List<Integer>> received = new ArrayList<List<Integer>>();
+
+		GatherProgram(int vertex_num, boolean combine) {
+			this.combine = combine;
+			for(int v = 0; v < vertex_num; v++){
+				received.add(new ArrayList<Integer>());
+			}
+		}
+
+		@Override
+		public void compute(VertexContext<AdjSetVertex, Integer> context,
+				Iterable<Integer> messages) {
+			if(context.getSuperstep() == 0){
+				context.sendMessage(0, context.getIndex() + 1);
+				context.sendMessage(context.getVertexCount() - 1, context.getIndex() + 1);
+			}else{
+				// Each vertex only touches its own list.
+				for(Integer message : messages){
+					received.get(context.getIndex()).add(message);
+				}
+			}
+			context.voteToHalt();
+		}
+
+		@Override
+		public MessageCombiner<Integer> getCombiner() {
+			if(!combine){
+				return null;
+			}
+			return new MessageCombiner<Integer>() {
+				public Integer combine(Integer a, Integer b) {
+					return a + b;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Passes a token along the out edges from the first vertex, records the supersteps
+	 * in which each vertex is computed. Vertexes always vote to halt unless keepActive.
+	 */
+	private static class TokenProgram extends VertexProgram<AdjSetVertex, String> {
+		private final boolean keepActive;
+		private final List<List<Long>> computed = new ArrayList<List<Long>>();
+
+		TokenProgram(int vertex_num, boolean keepActive) {
+			this.keepActive = keepActive;
+			for(int v = 0; v < vertex_num; v++){
+				computed.add(new ArrayList<Long>());
+			}
+		}
+
+		@Override
+		public void compute(VertexContext<AdjSetVertex, String> context,
+				Iterable<String> messages) {
+			computed.get(context.getIndex()).add(context.getSuperstep());
+			boolean token = context.getSuperstep() == 0 && context.getIndex() == 0;
+			for(String message : messages){
+				assertEquals(message, "token");
+				token = true;
+			}
+			if(token){
+				context.sendMessageToOutNeighbors("token");
+			}
+			if(!keepActive){
+				context.voteToHalt();
+			}
+		}
+	}
+
+	/**
+	 * Aggregates the number of vertexes, and the maximal index times superstep+1. The
+	 * master records the aggregated values, and halts after superstep 2.
+	 */
+	private static class AggregateProgram extends VertexProgram<AdjSetVertex, Integer> {
+		private final List<Long> counts = new ArrayList<Long>();
+		private final List<Double> maxes = new ArrayList<Double>();
+		private final long[] seen;
+
+		AggregateProgram(int vertex_num) {
+			seen = new long[vertex_num];
+		}
+
+		@Override
+		public void initialize(BSPEngine<AdjSetVertex, Integer> engine) {
+			engine.registerAggregator("count", new Aggregators.LongSum());
+			engine.registerAggregator("max", new Aggregators.DoubleMax());
+		}
+
+		@Override
+		public void compute(VertexContext<AdjSetVertex, Integer> context,
+				Iterable<Integer> messages) {
+			// The count of the previous superstep, 0 in the first one.
+			seen[context.getIndex()] = context.<Long>getAggregatedValue("count");
+			context.aggregate("count", 1L);
+			context.aggregate("max", (double) context.getIndex() * (context.getSuperstep() + 1));
+		}
+
+		@Override
+		public void masterCompute(BSPEngine<AdjSetVertex, Integer> engine) {
+			counts.add(engine.<Long>getAggregatedValue("count"));
+			maxes.add(engine.<Double>getAggregatedValue("max"));
+			if(engine.getSuperstep() == 2){
+				engine.haltComputation();
+			}
+		}
+	}
+
+	/**
+	 * The path v0 -> v1 -> ... in the order of the indexes.
+	 */
+	private static <M> BSPEngine<AdjSetVertex, M> createPath(
+			VertexProgram<AdjSetVertex, M> program, int vertex_num, int thread_num) {
+		BSPEngine<AdjSetVertex, M> engine = new BSPEngine<AdjSetVertex, M>(program, thread_num);
+		for(int v = 0; v < vertex_num; v++){
+			AdjSetVertex vertex = new AdjSetVertex("v" + v);
+			if(v + 1 < vertex_num){
+				vertex.addOpposite(new AdjVertexEdge("v" + (v + 1)));
+			}
+			engine.addVertex(vertex);
+		}
+		return engine;
+	}
+
+	@Test
+	public void testInboxDelivery() throws InterruptedException {
+		GatherProgram program = new GatherProgram(7, false);
+		BSPEngine<AdjSetVertex, Integer> engine = createPath(program, 7, 3);
+		assertEquals(engine.run(Long.MAX_VALUE), 2L);
+
+		// All messages are delivered, across the partitions.
+		for(int v : new int[] {0, 6}){
+			List<Integer> received = program.received.get(v);
+			Collections.sort(received);
+			assertEquals(received.size(), 7);
+			for(int i = 0; i < 7; i++){
+				assertEquals(received.get(i).intValue(), i + 1);
+			}
+		}
+		for(int v = 1; v < 6; v++){
+			assertTrue(program.received.get(v).isEmpty());
+		}
+	}
+
+	@Test
+	public void testCombinerDelivery() throws InterruptedException {
+		GatherProgram program = new GatherProgram(7, true);
+		BSPEngine<AdjSetVertex, Integer> engine = createPath(program, 7, 3);
+		assertEquals(engine.run(Long.MAX_VALUE), 2L);
+
+		// The messages are combined into one per vertex.
+		for(int v : new int[] {0, 6}){
+			assertEquals(program.received.get(v).size(), 1);
+			assertEquals(program.received.get(v).get(0).intValue(), 28);
+		}
+		for(int v = 1; v < 6; v++){
+			assertTrue(program.received.get(v).isEmpty());
+		}
+	}
+
+	@Test
+	public void testVoteToHaltAndReactivation() throws InterruptedException {
+		TokenProgram program = new TokenProgram(6, false);
+		BSPEngine<AdjSetVertex, String> engine = createPath(program, 6, 4);
+
+		// Ends when the token leaves the last vertex, i.e., no message is sent.
+		assertEquals(engine.run(Long.MAX_VALUE), 6L);
+		assertEquals(program.computed.get(0).size(), 1);
+		for(int v = 1; v < 6; v++){
+			// Halted in superstep 0, and reactivated by the token only.
+			List<Long> computed = program.computed.get(v);
+			assertEquals(computed.size(), 2);
+			assertEquals(computed.get(0).longValue(), 0L);
+			assertEquals(computed.get(1).longValue(), (long) v);
+		}
+	}
+
+	@Test
+	public void testMaxSupersteps() throws InterruptedException {
+		TokenProgram program = new TokenProgram(5, true);
+		BSPEngine<AdjSetVertex, String> engine =
+			new BSPEngine<AdjSetVertex, String>(program, 2);
+		for(int v = 0; v < 5; v++){
+			engine.addVertex(new AdjSetVertex("v" + v));
+		}
+
+		// Vertexes which never vote to halt are computed in every superstep.
+		assertEquals(engine.run(4), 4L);
+		for(int v = 0; v < 5; v++){
+			assertEquals(program.computed.get(v).size(), 4);
+		}
+	}
+
+	@Test
+	public void testAggregators() throws InterruptedException {
+		AggregateProgram program = new AggregateProgram(10);
+		BSPEngine<AdjSetVertex, Integer> engine = createPath(program, 10, 3);
+
+		// Halted by the master after superstep 2, although vertexes are active.
+		assertEquals(engine.run(Long.MAX_VALUE), 3L);
+		assertEquals(program.counts.size(), 3);
+		for(int s = 0; s < 3; s++){
+			assertEquals(program.counts.get(s).longValue(), 10L);
+			assertEquals(program.maxes.get(s), 9.0 * (s + 1), 0);
+		}
+		// Vertexes see the values of the previous superstep.
+		for(int v = 0; v < 10; v++){
+			assertEquals(program.seen[v], 10L);
+		}
+		assertEquals(engine.<Long>getAggregatedValue("count").longValue(), 10L);
+	}
+
+	@Test
+	public void testBFS() throws InterruptedException {
+		// a -> b, a -> c, b -> d, c -> d, d -> e, e -> a, and f -> a is not reachable.
+		String[][] edges = new String[][] {
+				{"a", "b"}, {"a", "c"}, {"b", "d"}, {"c", "d"}, {"d", "e"}, {"e", "a"},
+				{"f", "a"}};
+		String[] ids = new String[] {"a", "b", "c", "d", "e", "f"};
+		int[] lengths = new int[] {1, 2, 2, 3, 4, 0};
+
+		for(int thread_num = 1; thread_num <= 4; thread_num++){
+			BSPEngine<LabeledAdjVertex, BFSLabel> engine =
+				new BSPEngine<LabeledAdjVertex, BFSLabel>(new BFSProgram("a"), thread_num);
+			for(String id : ids){
+				LabeledAdjVertex vertex = new LabeledAdjVertex(id);
+				for(String[] edge : edges){
+					if(edge[0].equals(id)){
+						vertex.addEdge(new Edge(edge[0], edge[1]));
+					}
+				}
+				engine.addVertex(vertex);
+			}
+			// Visits a, b and c, d, e, then no message is sent.
+			assertEquals(engine.run(Long.MAX_VALUE), 5L);
+
+			for(int v = 0; v < ids.length; v++){
+				BFSLabel label = (BFSLabel) engine.getVertexes().get(v).getLabel(
+						BFSLabel.bfsLabelPathsKey);
+				List<String> preps = label.getPreps();
+				assertEquals(label.getStatus(), lengths[v] > 0 ? 1 : 0);
+				assertEquals(preps.size(), lengths[v]);
+				if(lengths[v] > 0){
+					assertEquals(preps.get(0), "a");
+					assertEquals(preps.get(preps.size() - 1), ids[v]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testWCC() throws InterruptedException {
+		// c -> b -> a, d -> e <- f, and g is isolated. Labels flow against the edges too.
+		String[][] edges = new String[][] {
+				{"c", "b"}, {"b", "a"}, {"d", "e"}, {"f", "e"}};
+		String[] ids = new String[] {"f", "e", "d", "c", "g", "b", "a"};
+		String[] components = new String[] {"d", "d", "d", "a", "g", "a", "a"};
+
+		for(int thread_num = 1; thread_num <= 4; thread_num++){
+			BSPEngine<LabeledAdjSetVertex, String> engine =
+				new BSPEngine<LabeledAdjSetVertex, String>(
+						new LabelPropagationProgram(), thread_num);
+			for(String id : ids){
+				LabeledAdjSetVertex vertex = new LabeledAdjSetVertex(id);
+				for(String[] edge : edges){
+					if(edge[0].equals(id)){
+						vertex.addOpposite(new AdjVertexEdge(edge[1]));
+					}
+				}
+				engine.addVertex(vertex);
+			}
+			engine.run(Long.MAX_VALUE);
+
+			for(int v = 0; v < ids.length; v++){
+				LabeledAdjSetVertex vertex = engine.getVertexes().get(v);
+				assertEquals(vertex.getStringLabel(ConstantLabels.LAST_LABEL), components[v]);
+			}
+		}
+	}
+}
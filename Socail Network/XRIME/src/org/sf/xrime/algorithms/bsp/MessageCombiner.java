@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+/**
+ * Combines two messages sent to the same vertex into one, so that a vertex program
+ * gets at most one message per superstep. Must be commutative and associative.
+ * @param <M> type of messages.
+ */
+public interface MessageCombiner<M> {
+  /**
+   * Combine two messages. The arguments may be shared by other vertexes, and must
+   * not be modified.
+   * @param a
+   * @param b
+   * @return the combined message, may be one of the arguments.
+   */
+  public M combine(M a, M b);
+}
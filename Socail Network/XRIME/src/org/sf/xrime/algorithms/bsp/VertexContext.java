@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+/**
+ * View of the engine given to VertexProgram.compute() for the current vertex.
+ * Vertexes are numbered from 0 in the order of input, and messages are addressed
+ * with these indexes.
+ * @param <V> type of vertexes.
+ * @param <M> type of messages.
+ */
+public interface VertexContext<V, M> {
+  /**
+   * Index of the current vertex.
+   * @return
+   */
+  public int getIndex();
+  
+  /**
+   * Id of the current vertex.
+   * @return
+   */
+  public String getId();
+  
+  /**
+   * The current vertex, whose labels hold the state of the vertex program.
+   * @return
+   */
+  public V getVertex();
+  
+  /**
+   * Current superstep, starting from 0.
+   * @return
+   */
+  public long getSuperstep();
+  
+  /**
+   * Number of vertexes in the graph.
+   * @return
+   */
+  public int getVertexCount();
+  
+  /**
+   * Number of outgoing edges of the current vertex to vertexes in the graph.
+   * @return
+   */
+  public int getOutDegree();
+  
+  /**
+   * Index of the opposite end of the i-th outgoing edge.
+   * @param i
+   * @return
+   */
+  public int getOutNeighbor(int i);
+  
+  /**
+   * Number of incoming edges of the current vertex from vertexes in the graph. Only
+   * available if VertexProgram.usesInEdges() returns true.
+   * @return
+   */
+  public int getInDegree();
+  
+  /**
+   * Index of the opposite end of the i-th incoming edge.
+   * @param i
+   * @return
+   */
+  public int getInNeighbor(int i);
+  
+  /**
+   * Send a message to the specified vertex, which gets it in the next superstep.
+   * Messages may be shared, and must not be modified after being sent.
+   * @param target index of the target vertex.
+   * @param message
+   */
+  public void sendMessage(int target, M message);
+  
+  /**
+   * Send a message to the opposite ends of all outgoing edges.
+   * @param message
+   */
+  public void sendMessageToOutNeighbors(M message);
+  
+  /**
+   * Send a message to the opposite ends of all incoming edges.
+   * @param message
+   */
+  public void sendMessageToInNeighbors(M message);
+  
+  /**
+   * The current vertex is not computed in following supersteps, until it gets a message.
+   */
+  public void voteToHalt();
+  
+  /**
+   * Contribute a value to the specified aggregator.
+   * @param name
+   * @param value
+   */
+  public <A> void aggregate(String name, A value);
+  
+  /**
+   * Get the value of the specified aggregator in the previous superstep.
+   * @param name
+   * @return
+   */
+  public <A> A getAggregatedValue(String name);
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.bsp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjBiSetVertex;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.CompactAdjVertex;
+import org.sf.xrime.model.vertex.Vertex;
+
+
+/**
+ * A vertex program run by BSPEngine. In each superstep, compute() is called for every
+ * vertex which has not voted to halt or gets messages, with the messages sent to it
+ * in the previous superstep. The state of the program is kept in the vertexes, usually
+ * with the label classes of the corresponding MapReduce algorithm, so that the output
+ * is the same.
+ * @param <V> type of vertexes.
+ * @param <M> type of messages.
+ */
+public abstract class VertexProgram<V extends Vertex, M> {
+  /**
+   * Called before the first superstep, e.g., to register aggregators.
+   * @param engine
+   */
+  public void initialize(BSPEngine<V, M> engine) {
+  }
+  
+  /**
+   * Compute a vertex in the current superstep.
+   * @param context the current vertex and the engine.
+   * @param messages messages sent to the vertex in the previous superstep.
+   */
+  public abstract void compute(VertexContext<V, M> context, Iterable<M> messages);
+  
+  /**
+   * Called after each superstep, when the aggregated values of the superstep are
+   * available, e.g., to check the convergence and halt the computation.
+   * @param engine
+   */
+  public void masterCompute(BSPEngine<V, M> engine) {
+  }
+  
+  /**
+   * Combiner of messages.
+   * @return null if messages can not be combined.
+   */
+  public MessageCombiner<M> getCombiner() {
+    return null;
+  }
+  
+  /**
+   * Whether incoming edges are needed.
+   * @return
+   */
+  public boolean usesInEdges() {
+    return false;
+  }
+  
+  /**
+   * Ids of the opposite ends of the outgoing edges of the vertex. For AdjVertex, the
+   * opposite end of each edge is taken, for AdjSetVertex the opposites, and for
+   * AdjBiSetVertex the forward vertexes.
+   * @param vertex
+   * @return
+   */
+  public Collection<String> getOutNeighbors(V vertex) {
+    List<String> ret = new ArrayList<String>();
+    if (vertex instanceof AdjVertex) {
+      String id = vertex.getId();
+      for (Edge edge : ((AdjVertex) vertex).getEdges()) {
+        ret.add(id.equals(edge.getFrom()) ? edge.getTo() : edge.getFrom());
+      }
+    } else if (vertex instanceof AdjSetVertex) {
+      for (AdjVertexEdge edge : ((AdjSetVertex) vertex).getOpposites()) {
+        ret.add(edge.getOpposite());
+      }
+    } else if (vertex instanceof AdjBiSetVertex) {
+      for (AdjVertexEdge edge : ((AdjBiSetVertex) vertex).getForwardVertexes()) {
+        ret.add(edge.getOpposite());
+      }
+    } else if (vertex instanceof CompactAdjVertex) {
+      CompactAdjVertex compact = (CompactAdjVertex) vertex;
+      for (int i = 0; i < compact.getNeighborCount(); i++) {
+        ret.add(compact.getNeighbor(i));
+      }
+    } else {
+      throw new IllegalArgumentException("No adjacency in " + vertex.getClass().getName());
+    }
+    return ret;
+  }
+  
+  /**
+   * Ids of the opposite ends of the incoming edges of the vertex, only called if
+   * usesInEdges() returns true. For AdjBiSetVertex the backward vertexes are taken.
+   * @param vertex
+   * @return null to take the reverse of outgoing edges.
+   */
+  public Collection<String> getInNeighbors(V vertex) {
+    if (vertex instanceof AdjBiSetVertex) {
+      List<String> ret = new ArrayList<String>();
+      for (AdjVertexEdge edge : ((AdjBiSetVertex) vertex).getBackwardVertexes()) {
+        ret.add(edge.getOpposite());
+      }
+      return ret;
+    }
+    return null;
+  }
+}
@@ -50,6 +50,7 @@ import org.sf.xrime.model.vertex.SetOfVertexSets;
 import org.sf.xrime.model.vertex.SortedVertexSet;
 import org.sf.xrime.model.vertex.Vertex;
 import org.sf.xrime.model.vertex.VertexSet;
+import org.sf.xrime.utils.SortedArraySet;
 
 
 /**
@@ -90,16 +91,16 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
       Set<Edge> induced_neighborhood = ((EdgeSet) value.getLabel(ConstantLabels.INDUCED_NEIGHBORHOOD)).getEdges();
       
       // Reconstruct the neighborhood for each neighbor of this vertex.
-      HashMap<String, HashSet<String>> NoN = ReconstructNoN(list_of_neighbors, induced_neighborhood);
+      HashMap<String, SortedArraySet<String>> NoN = ReconstructNoN(list_of_neighbors, induced_neighborhood);
       // Make some noise.
       reporter.progress();
       
       // Generate all maximal cliques within the induced neighborhood of this vertex.
-      HashSet<HashSet<String>> cliques = Generate_Maximal_Cliques(list_of_neighbors, NoN, reporter);
+      HashSet<SortedArraySet<String>> cliques = Generate_Maximal_Cliques(list_of_neighbors, NoN, reporter);
       
       // Stupid type wrapping work.
       SetOfVertexSets result = new SetOfVertexSets();
-      for(HashSet<String> clique : cliques){
+      for(SortedArraySet<String> clique : cliques){
         SortedVertexSet temp_vertex_set = new SortedVertexSet();
         temp_vertex_set.addVertex(new Vertex(key.toString()));
         for(String id : clique){
@@ -120,22 +121,29 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
      * @param induced_neighborhood the induced neighborhood of this vertex.
      * @return
      */
-    public HashMap<String, HashSet<String>> ReconstructNoN(ArrayList<String> list_of_neighbors,
+    public HashMap<String, SortedArraySet<String>> ReconstructNoN(ArrayList<String> list_of_neighbors,
         Set<Edge> induced_neighborhood){
-      HashMap<String, HashSet<String>> result = new HashMap<String, HashSet<String>>();
+      // Collect the neighbors unsorted first, and sort each list once.
+      HashMap<String, ArrayList<String>> lists = new HashMap<String, ArrayList<String>>();
       
-      // Create an empth neighbor set for each neighbor of this vertex.
+      // Create an empth neighbor list for each neighbor of this vertex.
       for(String n_id : list_of_neighbors){
-        HashSet<String> temp_set = new HashSet<String>();
-        result.put(n_id, temp_set);
+        lists.put(n_id, new ArrayList<String>());
       }
       
       // Construct NoN.
       for(Edge edge : induced_neighborhood){
         String from = edge.getFrom();
         String to = edge.getTo();
-        result.get(from).add(to);
-        result.get(to).add(from);
+        lists.get(from).add(to);
+        lists.get(to).add(from);
+      }
+      
+      HashMap<String, SortedArraySet<String>> result = new HashMap<String, SortedArraySet<String>>();
+      for(String n_id : list_of_neighbors){
+        SortedArraySet<String> temp_set = new SortedArraySet<String>();
+        temp_set.addAll(lists.get(n_id));
+        result.put(n_id, temp_set);
       }
       
       return result;
@@ -150,14 +158,13 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
      * @param c_j input cliques.
      * @return
      */
-    @SuppressWarnings("unchecked")
-    public HashSet<HashSet<String>> Generate(List<String> node_list, HashMap<String, HashSet<String>> NoN,
-        Reporter reporter, int j, HashSet<HashSet<String>> c_j){
-      HashSet<HashSet<String>> result = new HashSet<HashSet<String>>();
+    public HashSet<SortedArraySet<String>> Generate(List<String> node_list, HashMap<String, SortedArraySet<String>> NoN,
+        Reporter reporter, int j, HashSet<SortedArraySet<String>> c_j){
+      HashSet<SortedArraySet<String>> result = new HashSet<SortedArraySet<String>>();
       String next_node = node_list.get(j+1);
       
       // Deal with each input clique.
-      for(HashSet<String> clique : c_j){
+      for(SortedArraySet<String> clique : c_j){
         boolean found_bigger_clique = true;
         // Check every vertex in this input clique, in order to determine whether adding the next
         // node could help to construct a bigger clique.
@@ -179,20 +186,19 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
         
         if(found_bigger_clique){
           // Adding the next node just creates a new bigger clique.
-          HashSet<String> new_clique = (HashSet<String>) clique.clone();
-          // Add the next node too.
+          SortedArraySet<String> new_clique = new SortedArraySet<String>(clique);
+          // Add the next node too. It is lexically greater than all nodes of the clique.
           new_clique.add(next_node);
           result.add(new_clique);
         }else{
           // Adding the next node does not create a new bigger clique.
           // Add the input clique first.
-          HashSet<String> new_clique_1 = (HashSet<String>) clique.clone();
+          SortedArraySet<String> new_clique_1 = new SortedArraySet<String>(clique);
           result.add(new_clique_1);
           
           // Generate another clique.
-          HashSet<String> new_clique_2 = (HashSet<String>) clique.clone();
-          // Get the intersection of input clique and N(j+1).
-          new_clique_2.retainAll(NoN.get(next_node));
+          // Get the intersection of input clique and N(j+1), by merging sorted sets.
+          SortedArraySet<String> new_clique_2 = clique.intersection(NoN.get(next_node));
           // Add the next node (i.e., j+1).
           new_clique_2.add(next_node);
           
@@ -202,10 +208,8 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
           for(int k=0; k<=j; k++){
             // Pay attention to those which may not be included in new_clique_2.
             if(!clique.contains(node_list.get(k))){
-              HashSet<String> temp_set = (HashSet<String>) NoN.get(node_list.get(k)).clone();
-              temp_set.retainAll(new_clique_2);
-              if(temp_set.size()==new_clique_2.size()&&
-                 temp_set.containsAll(new_clique_2)){
+              // N(k) intersect C' == C' is equivalent to C' being a subset of N(k).
+              if(NoN.get(node_list.get(k)).containsAll(new_clique_2)){
                 // N(k) intersect C' == C', which makes C' (new_clique_2) not
                 // maximal clique belongs to Cj+1.
                 is_maximal_clique = false;
@@ -230,12 +234,12 @@ public class AllMaximalCliquesGenerate extends GraphAlgorithm {
      * @param reporter      
      * @return
      */
-    public HashSet<HashSet<String>> Generate_Maximal_Cliques(List<String> neighbors, 
-        HashMap<String, HashSet<String>> NoN, Reporter reporter){
-      HashSet<HashSet<String>> result = new HashSet<HashSet<String>>();
+    public HashSet<SortedArraySet<String>> Generate_Maximal_Cliques(List<String> neighbors, 
+        HashMap<String, SortedArraySet<String>> NoN, Reporter reporter){
+      HashSet<SortedArraySet<String>> result = new HashSet<SortedArraySet<String>>();
       
       // Prepare the starting point, aka., the clique with size 1.
-      HashSet<String> starting_point = new HashSet<String>();
+      SortedArraySet<String> starting_point = new SortedArraySet<String>();
       starting_point.add(neighbors.get(0));
       result.add(starting_point);
       
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.clique.maximal;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.kcore.undirected.CorenessAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * This algorithm is used to rank vertexes, and to find the neighbors of each vertex which
+ * rank after it. Vertexes are ranked by their coreness, then by their degrees, then by their
+ * ids. A vertex has at most as many neighbors of higher coreness as its coreness, and hubs
+ * rank after their neighbors of lower degree and the same coreness, so that each vertex
+ * usually has few neighbors ranking after it. This is not bounded by the degeneracy of the
+ * graph though, since neighbors of the same coreness and higher degree are not limited. The
+ * input is the output of CorenessAlgorithm, and the neighbors ranking after each vertex are
+ * added as an AdjSetVertex label of ConstantLabels.LATER_NEIGHBORS. The degree of each
+ * vertex is added as an IntWritable label of ConstantLabels.DEGREE.
+ */
+public class CliqueOrientStep extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public CliqueOrientStep(){
+    super();
+  }
+  
+  /**
+   * Compare the ranks of two vertexes.
+   * @param coreness1 coreness of the first vertex.
+   * @param degree1 degree of the first vertex.
+   * @param id1 id of the first vertex.
+   * @param coreness2 coreness of the second vertex.
+   * @param degree2 degree of the second vertex.
+   * @param id2 id of the second vertex.
+   * @return negative if the first vertex ranks before the second one, positive if after,
+   * zero if they are the same vertex.
+   */
+  public static int compareRanks(int coreness1, int degree1, String id1, 
+      int coreness2, int degree2, String id2){
+    if(coreness1!=coreness2){
+      return coreness1 < coreness2 ? -1 : 1;
+    }
+    if(degree1!=degree2){
+      return degree1 < degree2 ? -1 : 1;
+    }
+    return id1.compareTo(id2);
+  }
+  
+  /**
+   * Get the coreness of a vertex from its label.
+   * @param vertex the vertex.
+   * @return the coreness.
+   */
+  static int getCoreness(LabeledAdjSetVertex vertex){
+    return ((IntWritable) vertex.getLabel(CorenessAlgorithm.corenessLabelKey)).get();
+  }
+  
+  /**
+   * Get the degree of a vertex from its label.
+   * @param vertex the vertex.
+   * @return the degree.
+   */
+  static int getDegree(LabeledAdjSetVertex vertex){
+    return ((IntWritable) vertex.getLabel(ConstantLabels.DEGREE)).get();
+  }
+  
+  /**
+   * Count the neighbors of a vertex, except itself.
+   * @param vertex the vertex.
+   * @return the degree.
+   */
+  static int countNeighbors(AdjSetVertex vertex){
+    if(vertex.getOpposites()==null) return 0;
+    int degree = vertex.getOpposites().size();
+    if(vertex.getOpposites().contains(new AdjVertexEdge(vertex.getId()))){
+      degree--; // Self loop.
+    }
+    return degree;
+  }
+  
+  /**
+   * Mapper. Tell each neighbor the coreness and the degree of myself.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjSetVertex, Text, LabeledAdjSetVertex>{
+
+    @Override
+    public void map(Text key, LabeledAdjSetVertex value,
+        OutputCollector<Text, LabeledAdjSetVertex> output, Reporter reporter)
+        throws IOException {
+      if(value.getOpposites()==null) return;
+      // Generate a notifier, without neighbors.
+      LabeledAdjSetVertex notifier = new LabeledAdjSetVertex(value.getId());
+      notifier.setLabel(CorenessAlgorithm.corenessLabelKey, 
+          value.getLabel(CorenessAlgorithm.corenessLabelKey));
+      notifier.setLabel(ConstantLabels.DEGREE, new IntWritable(countNeighbors(value)));
+      for(AdjVertexEdge oppo : value.getOpposites()){
+        if(oppo.getOpposite().equals(value.getId())) continue; // Self loop.
+        output.collect(new Text(oppo.getOpposite()), notifier);
+      }
+    }
+  }
+  
+  /**
+   * Reducer. Collect the neighbors ranking after this vertex.
+   */
+  public static class ReduceClass extends SchimmyReducerBase<LabeledAdjSetVertex, LabeledAdjSetVertex> {
+
+    @Override
+    protected void update(Text key, LabeledAdjSetVertex vertex,
+        Iterator<LabeledAdjSetVertex> messages, Reporter reporter) throws IOException {
+      int coreness = getCoreness(vertex);
+      int degree = countNeighbors(vertex);
+      AdjSetVertex later = new AdjSetVertex(vertex.getId());
+      while(messages.hasNext()){
+        LabeledAdjSetVertex notifier = messages.next();
+        if(compareRanks(coreness, degree, vertex.getId(), 
+            getCoreness(notifier), getDegree(notifier), notifier.getId()) < 0){
+          later.addOpposite(new AdjVertexEdge(notifier.getId()));
+        }
+      }
+      vertex.setLabel(ConstantLabels.LATER_NEIGHBORS, later);
+      vertex.setLabel(ConstantLabels.DEGREE, new IntWritable(degree));
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, CliqueOrientStep.class);
+      conf.setJobName("CliqueOrientStep");
+      
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setReducerClass(ReduceClass.class);
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(LabeledAdjSetVertex.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      // The source is partitioned by CorenessAlgorithm. One reducer per partition, the
+      // output is written by reducers as side files.
+      Schimmy.configure(conf, getSource().getPath());
+      
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -24,4 +24,7 @@ public class ConstantLabels {
   public static final String NEIGHBOR_NEIGHBORS = "neighbor_neighbors";
   public static final String INDUCED_NEIGHBORHOOD = "induced_neighborhood";
   public static final String ALL_MAXIMAL_CLIQUES = "all_maximal_cliques";
+  public static final String LATER_NEIGHBORS = "later_neighbors";
+  public static final String DEGREE = "degree";
+  public static final String MAXIMAL_CLIQUES_NUM = "maximal_cliques_num";
 }
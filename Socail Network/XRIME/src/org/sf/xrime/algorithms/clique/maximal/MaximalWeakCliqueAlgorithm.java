@@ -28,6 +28,8 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 /**
  * This algorithm is used to calculate all maximal weak cliques in a graph (not 
  * necessarily connected). The input is in the form of outgoing adjacency lists.
+ * @see PivotMaximalWeakCliqueAlgorithm for large graphs, without merging all cliques
+ * in one reducer.
  * @author xue
  *
  */
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.clique.maximal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.TextOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.kcore.undirected.CorenessAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * This algorithm is used as the final step of PivotMaximalWeakCliqueAlgorithm, to generate
+ * all maximal cliques in a graph ranked by CliqueOrientStep.
+ * <p>
+ * Each maximal clique is generated only at its first vertex in rank, so no clique needs to
+ * be merged or de-duplicated, and the output is spread over all reducers. Each vertex
+ * receives the neighbors ranking after each of its neighbors, from which the lines among
+ * its neighbors are found once each. Then the maximal cliques containing this vertex, and
+ * none of the neighbors ranking before it, are enumerated by the Bron-Kerbosch algorithm
+ * with pivoting. The bitsets are indexed by the neighbors ranking after the vertex only.
+ * Since vertexes of the same coreness are ranked by their degrees, a hub ranks after most
+ * of its neighbors, and holds no more than its degree times the number of its later
+ * neighbors bits. A vertex without neighbors is a maximal clique by itself.
+ * @see "Listing All Maximal Cliques in Sparse Graphs in Near-optimal Time by D. Eppstein,
+ * M. Loffler and D. Strash, 2010"
+ */
+public class PivotCliquesGenerate extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public PivotCliquesGenerate(){
+    super();
+  }
+  
+  /**
+   * Mapper. Tell each neighbor my rank and the neighbors ranking after me.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjSetVertex, Text, LabeledAdjSetVertex>{
+
+    @Override
+    public void map(Text key, LabeledAdjSetVertex value,
+        OutputCollector<Text, LabeledAdjSetVertex> output, Reporter reporter)
+        throws IOException {
+      // Make myself shown in reducer, for my rank, and for the clique of myself alone
+      // if I have no neighbor.
+      LabeledAdjSetVertex myself = new LabeledAdjSetVertex(value.getId());
+      myself.setLabel(CorenessAlgorithm.corenessLabelKey, 
+          value.getLabel(CorenessAlgorithm.corenessLabelKey));
+      myself.setLabel(ConstantLabels.DEGREE, value.getLabel(ConstantLabels.DEGREE));
+      output.collect(key, myself);
+      
+      if(value.getOpposites()==null) return;
+      
+      // Generate a notifier.
+      LabeledAdjSetVertex notifier = new LabeledAdjSetVertex(
+          (AdjSetVertex) value.getLabel(ConstantLabels.LATER_NEIGHBORS));
+      notifier.setLabel(CorenessAlgorithm.corenessLabelKey, 
+          value.getLabel(CorenessAlgorithm.corenessLabelKey));
+      notifier.setLabel(ConstantLabels.DEGREE, value.getLabel(ConstantLabels.DEGREE));
+      for(AdjVertexEdge oppo : value.getOpposites()){
+        if(oppo.getOpposite().equals(value.getId())) continue; // Self loop.
+        output.collect(new Text(oppo.getOpposite()), notifier);
+      }
+    }
+  }
+  
+  /**
+   * Reducer. Generate maximal cliques of which this vertex ranks first.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, LabeledAdjSetVertex, Text, Text>{
+    /** Ids of candidates (neighbors ranking after this vertex), indexed in the bitsets. */
+    private List<String> ids;
+    /** Neighbors of each candidate, among the candidates. */
+    private long[][] candidateRows;
+    /** Neighbors of each neighbor ranking before this vertex, among the candidates. */
+    private long[][] excludedRows;
+    /** Number of longs in a bitset. */
+    private int words;
+    /** Current clique, as indexes of candidates. */
+    private int[] clique;
+    
+    private Text canonical;
+    private OutputCollector<Text, Text> output;
+    private Reporter reporter;
+
+    @Override
+    public void reduce(Text key, Iterator<LabeledAdjSetVertex> values,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      // Split the neighbors into candidates, ranking after this vertex, and the others.
+      List<AdjSetVertex> neighbors = new ArrayList<AdjSetVertex>();
+      List<Integer> corenesses = new ArrayList<Integer>();
+      List<Integer> degrees = new ArrayList<Integer>();
+      HashSet<String> seen = new HashSet<String>();
+      int coreness = -1;
+      int degree = -1;
+      while(values.hasNext()){
+        LabeledAdjSetVertex curr_vertex = values.next();
+        if(curr_vertex.getId().equals(key.toString())){
+          // This is myself.
+          coreness = CliqueOrientStep.getCoreness(curr_vertex);
+          degree = CliqueOrientStep.getDegree(curr_vertex);
+          continue;
+        }
+        if(!seen.add(curr_vertex.getId())) continue;
+        corenesses.add(CliqueOrientStep.getCoreness(curr_vertex));
+        degrees.add(CliqueOrientStep.getDegree(curr_vertex));
+        // The value object is reused by the iterator.
+        neighbors.add(new AdjSetVertex(curr_vertex));
+      }
+      seen = null;
+      
+      HashMap<String, Integer> candidates_idx = new HashMap<String, Integer>();
+      HashMap<String, Integer> excluded_idx = new HashMap<String, Integer>();
+      ids = new ArrayList<String>();
+      for(int n=0; n<neighbors.size(); n++){
+        AdjSetVertex neighbor = neighbors.get(n);
+        if(CliqueOrientStep.compareRanks(coreness, degree, key.toString(), 
+            corenesses.get(n), degrees.get(n), neighbor.getId()) < 0){
+          candidates_idx.put(neighbor.getId(), ids.size());
+          ids.add(neighbor.getId());
+        }else{
+          excluded_idx.put(neighbor.getId(), excluded_idx.size());
+        }
+      }
+      
+      // Build the bitsets over candidates only, so that their size is bounded by the
+      // number of candidates times the degree, instead of the square of the degree. 
+      // Each line among neighbors is sent by the end ranking before, lines
+      // between excluded neighbors are useless.
+      int size = ids.size();
+      words = (size + 63) >>> 6;
+      candidateRows = new long[size][words];
+      excludedRows = new long[excluded_idx.size()][words];
+      for(AdjSetVertex neighbor : neighbors){
+        Integer i = candidates_idx.get(neighbor.getId());
+        Integer k = i==null ? excluded_idx.get(neighbor.getId()) : null;
+        // The opposites of a notifier are the neighbors ranking after its sender.
+        for(AdjVertexEdge oppo : neighbor.getOpposites()){
+          Integer j = candidates_idx.get(oppo.getOpposite());
+          if(j!=null){
+            if(i!=null){
+              candidateRows[i][j >>> 6] |= 1L << j;
+              candidateRows[j][i >>> 6] |= 1L << i;
+            }else{
+              excludedRows[k][j >>> 6] |= 1L << j;
+            }
+          }else if(i!=null){
+            Integer l = excluded_idx.get(oppo.getOpposite());
+            if(l!=null){
+              excludedRows[l][i >>> 6] |= 1L << i;
+            }
+          }
+        }
+      }
+      neighbors = null;
+      corenesses = null;
+      degrees = null;
+      
+      long[] candidates = new long[words];
+      for(int i=0; i<size; i++){
+        candidates[i >>> 6] |= 1L << i;
+      }
+      int[] excluded = new int[excludedRows.length];
+      for(int k=0; k<excluded.length; k++){
+        excluded[k] = k;
+      }
+      
+      this.clique = new int[size];
+      this.canonical = key;
+      this.output = output;
+      this.reporter = reporter;
+      expand(0, candidates, new long[words], excluded, excluded.length);
+    }
+    
+    /**
+     * Bron-Kerbosch with pivoting. Report the current clique if it is maximal, otherwise
+     * extend it by each candidate not adjacent to the pivot. The excluded vertexes are
+     * the tried candidates, kept in a bitset, and the neighbors ranking before this
+     * vertex, kept as a list of their indexes.
+     * @param depth size of the current clique, without this vertex.
+     * @param candidates vertexes adjacent to all of the current clique, to be added.
+     * @param tried candidates adjacent to all of the current clique, already tried.
+     * @param excluded neighbors ranking before this vertex, adjacent to all of the 
+     * current clique, in the first excluded_num entries.
+     * @param excluded_num number of such neighbors.
+     * @throws IOException
+     */
+    private void expand(int depth, long[] candidates, long[] tried, int[] excluded, 
+        int excluded_num) throws IOException {
+      if(isEmpty(candidates)){
+        if(isEmpty(tried) && excluded_num==0){
+          report(depth);
+        }
+        return;
+      }
+      
+      // Choose the pivot with the most neighbors among the candidates.
+      long[] pivot = null;
+      int max = -1;
+      for(int w=0; w<words; w++){
+        long bits = candidates[w] | tried[w];
+        while(bits!=0){
+          int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          int count = countCommon(candidates, candidateRows[u]);
+          if(count > max){
+            max = count;
+            pivot = candidateRows[u];
+          }
+        }
+      }
+      for(int k=0; k<excluded_num; k++){
+        int count = countCommon(candidates, excludedRows[excluded[k]]);
+        if(count > max){
+          max = count;
+          pivot = excludedRows[excluded[k]];
+        }
+      }
+      
+      for(int w=0; w<words; w++){
+        long bits = candidates[w] & ~pivot[w];
+        while(bits!=0){
+          int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          
+          long[] new_candidates = new long[words];
+          long[] new_tried = new long[words];
+          for(int x=0; x<words; x++){
+            new_candidates[x] = candidates[x] & candidateRows[v][x];
+            new_tried[x] = tried[x] & candidateRows[v][x];
+          }
+          int[] new_excluded = new int[excluded_num];
+          int new_excluded_num = 0;
+          for(int k=0; k<excluded_num; k++){
+            if((excludedRows[excluded[k]][v >>> 6] & (1L << v)) != 0){
+              new_excluded[new_excluded_num++] = excluded[k];
+            }
+          }
+          clique[depth] = v;
+          expand(depth+1, new_candidates, new_tried, new_excluded, new_excluded_num);
+          
+          candidates[w] &= ~(1L << v);
+          tried[w] |= 1L << v;
+        }
+      }
+    }
+    
+    private int countCommon(long[] a, long[] b){
+      int count = 0;
+      for(int x=0; x<words; x++){
+        count += Long.bitCount(a[x] & b[x]);
+      }
+      return count;
+    }
+    
+    private boolean isEmpty(long[] bitset){
+      for(long bits : bitset){
+        if(bits!=0) return false;
+      }
+      return true;
+    }
+    
+    private void report(int depth) throws IOException {
+      TreeSet<String> result = new TreeSet<String>();
+      result.add(canonical.toString());
+      for(int i=0; i<depth; i++){
+        result.add(ids.get(clique[i]));
+      }
+      output.collect(canonical, new Text(result.toString()));
+      reporter.incrCounter(ConstantLabels.MAXIMAL_CLIQUES_NUM, 
+          ConstantLabels.MAXIMAL_CLIQUES_NUM, 1);
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, PivotCliquesGenerate.class);
+    conf.setJobName("PivotCliquesGenerate");
+    
+    conf.setMapOutputKeyClass(Text.class);
+    conf.setMapOutputValueClass(LabeledAdjSetVertex.class);
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(Text.class);
+    conf.setMapperClass(MapClass.class);        
+    // No combiner is permitted, since the logic of reducer depends on the completeness
+    // of information.
+    conf.setReducerClass(ReduceClass.class);
+    conf.setInputFormat(SequenceFileInputFormat.class);
+    conf.setOutputFormat(TextOutputFormat.class);
+    try {
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+        
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
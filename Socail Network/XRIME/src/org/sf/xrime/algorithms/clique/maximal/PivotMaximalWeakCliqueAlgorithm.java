@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.clique.maximal;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.kcore.undirected.CorenessAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+
+/**
+ * This algorithm is used to calculate all maximal weak cliques in a graph (not 
+ * necessarily connected), as MaximalWeakCliqueAlgorithm does. The input is in the form
+ * of outgoing adjacency lists. The output is text, one maximal clique per line, keyed by
+ * the vertex ranking first in the clique. Each vertex without neighbors is a maximal
+ * clique by itself.
+ * <p>
+ * Unlike MaximalWeakCliqueAlgorithm, whose cliques are all merged by one reducer, each
+ * clique is generated exactly once, by the reducer of its first vertex in the ranking of
+ * CliqueOrientStep.
+ */
+public class PivotMaximalWeakCliqueAlgorithm extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public PivotMaximalWeakCliqueAlgorithm(){
+    super();
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+      
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().getParent().toString()+"/pmwc_"+
+                          System.currentTimeMillis()+"_"+getDestination().getPath().getName()+
+                          "_";
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      Path tmpDir;
+      
+      Graph src;
+      Graph dest;
+      
+      // 1. Calculate the coreness of each vertex, in the weak neighborhood.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": CorenessAlgorithm");
+      src = new Graph(Graph.defaultGraph()); 
+      src.setPath(getSource().getPath());
+      dest = new Graph(Graph.defaultGraph());
+      tmpDir = dirMgr.getTempDir();
+      dest.setPath(tmpDir);
+      GraphAlgorithm coreness = new CorenessAlgorithm();
+      coreness.setConf(context);
+      coreness.setSource(src);
+      coreness.setDestination(dest);
+      coreness.setMapperNum(getMapperNum());
+      coreness.setReducerNum(getReducerNum());
+      coreness.execute();
+ 
+      // 2. Find the neighbors ranking after each vertex.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": CliqueOrientStep");
+      src = new Graph(Graph.defaultGraph());
+      src.setPath(new Path(tmpDir, "coreness"));
+      dest = new Graph(Graph.defaultGraph());
+      tmpDir = dirMgr.getTempDir();
+      dest.setPath(tmpDir);
+      GraphAlgorithm orient = new CliqueOrientStep();
+      orient.setConf(context);
+      orient.setSource(src);
+      orient.setDestination(dest);
+      orient.setMapperNum(getMapperNum());
+      orient.execute();
+      
+      // 3. Generate all maximal cliques, each at its first vertex.
+      System.out.println("++++++>" + dirMgr.getSeqNum() + ": PivotCliquesGenerate");
+      src = new Graph(Graph.defaultGraph());
+      src.setPath(tmpDir);
+      dest = new Graph(Graph.defaultGraph());
+      dest.setPath(getDestination().getPath());
+      GraphAlgorithm all_cliques = new PivotCliquesGenerate();
+      all_cliques.setConf(context);
+      all_cliques.setSource(src);
+      all_cliques.setDestination(dest);
+      all_cliques.setMapperNum(getMapperNum());
+      all_cliques.setReducerNum(getReducerNum());
+      all_cliques.execute();
+      
+      // Delete all temporary directories.
+      dirMgr.deleteAll();
+    }catch(IOException e){
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new PivotMaximalWeakCliqueAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.kcore.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.kcore.undirected.CorenessAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Coreness of all vertexes, computed in the memory of one machine by the algorithm of
+ * Batagelj and Zaversnik. It takes the same input as CorenessAlgorithm, i.e., outgoing
+ * adjacency vertexes lists, and writes the same output, i.e., LabeledAdjSetVertex with
+ * the coreness in the label of CorenessAlgorithm.corenessLabelKey, into the "coreness"
+ * directory under the destination.
+ * <p>
+ * The undirected graph is loaded into primitive arrays in CSR format, without self loops
+ * and duplicated lines. Vertexes are kept in an array sorted by their current degrees,
+ * with the start of each degree recorded, so that the vertex of the smallest degree is
+ * removed, and its neighbours of larger degrees moved to the lower bucket, in constant
+ * time. The whole decomposition takes time linear to the number of lines.
+ * @see "An O(m) Algorithm for Cores Decomposition of Networks by V. Batagelj and 
+ * M. Zaversnik, 2003"
+ */
+public class LocalCorenessAlgorithm extends GraphAlgorithm {
+  private FileSystem client=null;
+  
+  private Map<String, Integer> indexes;
+  private List<String> ids;
+  private int vertexNum;
+  private int[] offsets;
+  private int[] targets;
+  /**
+   * Coreness of each vertex, indexed as ids.
+   */
+  private int[] coreness;
+  
+  /**
+   * Get the coreness of a vertex computed by the last execution.
+   * @param id id of the vertex.
+   * @return the coreness, or -1 if the vertex is not in the graph.
+   */
+  public int getCoreness(String id) {
+    Integer index=indexes==null ? null : indexes.get(id);
+    if(index==null) {
+      return -1;
+    }
+    return coreness[index];
+  }
+  
+  /**
+   * Get the largest coreness computed by the last execution, i.e., the degeneracy of
+   * the graph.
+   * @return the degeneracy.
+   */
+  public int getDegeneracy() {
+    int max=0;
+    for(int v=0; coreness!=null && v<vertexNum; v++) {
+      max=Math.max(max, coreness[v]);
+    }
+    return max;
+  }
+  
+  public Path getSrcPath() {
+    Graph src=context.getSource();
+    if(src==null) {
+      return null;
+    }
+    
+    try {
+      return src.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setSrcPath(Path srcPath) {
+    Graph src=context.getSource();
+    if(src==null) {
+      src=new Graph(Graph.defaultGraph());
+      context.setSource(src);
+    }
+    src.setPath(srcPath);
+  }
+  
+  public Path getDestPath() {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      return null;
+    }
+    
+    try {
+      return dest.getPath();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+  
+  public void setDestPath(Path destPath) {
+    Graph dest=context.getDestination();
+    if(dest==null) {
+      dest=new Graph(Graph.defaultGraph());
+      context.setDestination(dest);
+    }
+    dest.setPath(destPath);
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+    setSrcPath(new Path(params[0]));
+    setDestPath(new Path(params[1]));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      client=FileSystem.get(context);
+      load(SequenceFiles.listDataFiles(client, getSrcPath()));
+      decompose();
+      store();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  private int indexOf(String id) {
+    Integer index=indexes.get(id);
+    if(index==null) {
+      index=ids.size();
+      indexes.put(id, index);
+      ids.add(id);
+    }
+    return index;
+  }
+  
+  /**
+   * Load lines into arrays, in both directions.
+   * @param files input files.
+   * @throws IOException
+   */
+  private void load(Path[] files) throws IOException {
+    indexes=new HashMap<String, Integer>();
+    ids=new ArrayList<String>();
+    int[] froms=new int[1024];
+    int[] tos=new int[1024];
+    int edgeNum=0;
+    
+    Text key=new Text();
+    AdjVertex vertex=new AdjVertex();
+    for(Path file : files) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+      try {
+        while(reader.next(key, vertex)) {
+          int from=indexOf(vertex.getId());
+          for(Edge edge : vertex.getEdges()) {
+            int to=indexOf(edge.getTo());
+            if(to==from) {
+              continue;
+            }
+            if(edgeNum+2>froms.length) {
+              froms=Arrays.copyOf(froms, froms.length*2);
+              tos=Arrays.copyOf(tos, tos.length*2);
+            }
+            froms[edgeNum]=from;
+            tos[edgeNum++]=to;
+            froms[edgeNum]=to;
+            tos[edgeNum++]=from;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    
+    vertexNum=ids.size();
+    offsets=new int[vertexNum+1];
+    for(int e=0; e<edgeNum; e++) {
+      offsets[froms[e]+1]++;
+    }
+    for(int v=0; v<vertexNum; v++) {
+      offsets[v+1]+=offsets[v];
+    }
+    targets=new int[edgeNum];
+    int[] next=Arrays.copyOf(offsets, vertexNum);
+    for(int e=0; e<edgeNum; e++) {
+      targets[next[froms[e]]++]=tos[e];
+    }
+    
+    // Remove duplicated lines, and compact the arrays.
+    int compacted=0;
+    int start=0;
+    for(int v=0; v<vertexNum; v++) {
+      int end=offsets[v+1];
+      Arrays.sort(targets, start, end);
+      offsets[v]=compacted;
+      for(int e=start; e<end; e++) {
+        if(e==start || targets[e]!=targets[e-1]) {
+          targets[compacted++]=targets[e];
+        }
+      }
+      start=end;
+    }
+    offsets[vertexNum]=compacted;
+    targets=Arrays.copyOf(targets, compacted);
+  }
+  
+  /**
+   * Batagelj-Zaversnik decomposition. On return, coreness holds the core number of each
+   * vertex.
+   */
+  private void decompose() {
+    int maxDegree=0;
+    int[] degrees=new int[vertexNum];
+    for(int v=0; v<vertexNum; v++) {
+      degrees[v]=offsets[v+1]-offsets[v];
+      maxDegree=Math.max(maxDegree, degrees[v]);
+    }
+    
+    // Start of each degree in the sorted array, sorted by counting.
+    int[] bins=new int[maxDegree+1];
+    for(int v=0; v<vertexNum; v++) {
+      bins[degrees[v]]++;
+    }
+    int start=0;
+    for(int d=0; d<=maxDegree; d++) {
+      int num=bins[d];
+      bins[d]=start;
+      start+=num;
+    }
+    // Vertexes sorted by degrees, and the position of each vertex in it.
+    int[] sorted=new int[vertexNum];
+    int[] positions=new int[vertexNum];
+    for(int v=0; v<vertexNum; v++) {
+      positions[v]=bins[degrees[v]]++;
+      sorted[positions[v]]=v;
+    }
+    for(int d=maxDegree; d>0; d--) {
+      bins[d]=bins[d-1];
+    }
+    bins[0]=0;
+    
+    // Remove vertexes in the order of degrees. The degree of a vertex when removed is
+    // its coreness.
+    for(int i=0; i<vertexNum; i++) {
+      int v=sorted[i];
+      for(int e=offsets[v]; e<offsets[v+1]; e++) {
+        int u=targets[e];
+        if(degrees[u]>degrees[v]) {
+          // Swap u with the first vertex of its bucket, then shrink the bucket.
+          int du=degrees[u];
+          int pu=positions[u];
+          int pw=bins[du];
+          int w=sorted[pw];
+          if(u!=w) {
+            positions[u]=pw;
+            sorted[pu]=w;
+            positions[w]=pu;
+            sorted[pw]=u;
+          }
+          bins[du]++;
+          degrees[u]--;
+        }
+      }
+    }
+    coreness=degrees;
+  }
+  
+  /**
+   * Write vertexes with their coreness.
+   * @throws IOException
+   */
+  private void store() throws IOException {
+    Path output=new Path(new Path(getDestPath(), "coreness"), "part-00000");
+    SequenceFile.Writer writer=SequenceFile.createWriter(client, context, output, 
+        Text.class, LabeledAdjSetVertex.class);
+    try {
+      for(int v=0; v<vertexNum; v++) {
+        LabeledAdjSetVertex vertex=new LabeledAdjSetVertex(ids.get(v));
+        for(int e=offsets[v]; e<offsets[v+1]; e++) {
+          vertex.addOpposite(new AdjVertexEdge(ids.get(targets[e])));
+        }
+        vertex.setLabel(CorenessAlgorithm.corenessLabelKey, new IntWritable(coreness[v]));
+        writer.append(new Text(ids.get(v)), vertex);
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new LocalCorenessAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
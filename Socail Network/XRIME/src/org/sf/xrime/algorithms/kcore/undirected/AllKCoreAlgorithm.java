@@ -34,6 +34,7 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 /**
  * This class is used to calculate all k-cores of a graph. We assume the input is in
  * the form of outgoing adjacency vertexes lists.
+ * @see CorenessAlgorithm for the coreness of all vertexes in a single run.
  * @author xue
  */
 public class AllKCoreAlgorithm extends GraphAlgorithm {
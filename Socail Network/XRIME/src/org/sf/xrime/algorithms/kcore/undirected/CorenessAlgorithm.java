@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.kcore.undirected;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.transform.vertex.OutAdjVertex2AdjSetVertexTransformer;
+import org.sf.xrime.algorithms.transform.vertex.Vertex2LabeledTransformer;
+import org.sf.xrime.algorithms.utils.SchimmyPartitionStep;
+import org.sf.xrime.model.Element;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.label.LabelAdder;
+import org.sf.xrime.model.label.Labelable;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.utils.MRConsoleReader;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+
+/**
+ * This class is used to calculate the coreness, i.e., the largest k of k-cores containing
+ * it, of every vertex of a graph. We assume the input is in the form of outgoing adjacency
+ * vertexes lists. The result is written to the "coreness" directory under the destination,
+ * as LabeledAdjSetVertex with the coreness in an IntWritable label of corenessLabelKey.
+ * <p>
+ * Unlike AllKCoreAlgorithm, which runs ElementRemoval repeatedly for every k, all cores
+ * are determined at once. The estimate of each vertex starts from its degree, and is 
+ * lowered by CorenessStep until no estimate changes. Any k-core consists of the vertexes
+ * with coreness no less than k.
+ * @see org.sf.xrime.algorithms.kcore.local.LocalCorenessAlgorithm
+ */
+public class CorenessAlgorithm extends GraphAlgorithm {
+  /**
+   * Key of the coreness label.
+   */
+  public static final String corenessLabelKey = "xrime.algorithm.kcore.coreness";
+  
+  /**
+   * Used to set the initial estimate of coreness to the degree of each vertex.
+   */
+  public static class InitialCorenessAdder extends LabelAdder {
+    @Override
+    public void addLabels(Labelable labels, Element element) {
+      if(!(element instanceof LabeledAdjSetVertex)){
+        return;
+      }
+      LabeledAdjSetVertex vertex = (LabeledAdjSetVertex) element;
+      int degree = 0;
+      if(vertex.getOpposites()!=null){
+        for(AdjVertexEdge opp : vertex.getOpposites()){
+          if(!opp.getOpposite().equals(vertex.getId())){
+            degree++;
+          }
+        }
+      }
+      labels.setLabel(corenessLabelKey, new IntWritable(degree));
+    }
+  }
+  
+  /**
+   * Default constructor.
+   */
+  public CorenessAlgorithm(){
+    super();
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().toString()+"/coreness_";
+
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      Path tmpDir;
+
+      // 1. Transform input from outgoing adjacency vertexes lists to AdjSetVertex.
+      System.out.println("-------->"+dirMgr.getSeqNum()+": Transform input to AdjSetVertex");
+      Transformer transformer = new OutAdjVertex2AdjSetVertexTransformer();
+      // Inherit settings from this algorithm.
+      transformer.setConf(context);
+      transformer.setSrcPath(getSource().getPath());
+      // Generate temporary directory.
+      tmpDir = dirMgr.getTempDir();
+      // And use it as the destination directory.
+      transformer.setDestPath(tmpDir);
+      transformer.setMapperNum(getMapperNum());
+      transformer.setReducerNum(getReducerNum());
+      transformer.execute();
+      
+      // 2. Label each vertex with its degree as the initial estimate.
+      System.out.println("-------->"+dirMgr.getSeqNum()+": Add initial estimates");
+      Vertex2LabeledTransformer l_transformer = new Vertex2LabeledTransformer();
+      l_transformer.setConf(context);
+      l_transformer.setSrcPath(tmpDir);
+      tmpDir = dirMgr.getTempDir();
+      l_transformer.setDestPath(tmpDir);
+      l_transformer.setMapperNum(getMapperNum());
+      l_transformer.setReducerNum(getReducerNum());
+      l_transformer.setLabelAdderClass(InitialCorenessAdder.class);
+      l_transformer.setOutputValueClass(LabeledAdjSetVertex.class);
+      l_transformer.execute();
+      
+      // 3. Partition the graph once, iterations will keep it partitioned.
+      System.out.println("-------->"+dirMgr.getSeqNum()+": Partition the graph");
+      SchimmyPartitionStep partition = new SchimmyPartitionStep();
+      partition.setConf(context);
+      Graph src = new Graph(Graph.defaultGraph());
+      src.setPath(tmpDir);
+      partition.setSource(src);
+      Graph dest = new Graph(Graph.defaultGraph());
+      tmpDir = dirMgr.getTempDir();
+      dest.setPath(tmpDir);
+      partition.setDestination(dest);
+      partition.setMapperNum(getMapperNum());
+      partition.setReducerNum(getReducerNum());
+      partition.setVertexClass(LabeledAdjSetVertex.class);
+      partition.execute();
+      
+      // 4. Lower the estimates until no one changes.
+      long changed = -1;
+      while(changed!=0){
+        System.out.println("-------->"+dirMgr.getSeqNum()+": Lower estimates of coreness");
+        CorenessStep step = new CorenessStep();
+        // Inherit settings from this algorithm.
+        step.setConf(context);
+        src = new Graph(Graph.defaultGraph());
+        // Use the output directory of last step as the input directory of this step.
+        src.setPath(tmpDir);
+        dest = new Graph(Graph.defaultGraph());
+        // Generate a new temporary directory.
+        tmpDir = dirMgr.getTempDir();
+        dest.setPath(tmpDir);
+        step.setSource(src);
+        step.setDestination(dest);
+        step.setMapperNum(getMapperNum());
+        step.execute();
+        
+        // The counter is absent if no estimate changed.
+        changed = MRConsoleReader.getRecordNum(step.getFinalStatus(), CorenessStep.CHANGED, 
+            CorenessStep.CHANGED);
+        if(changed<0){
+          changed = 0;
+        }
+      }
+      
+      // 5. Record the result by rename the directory.
+      Path dest_path = new Path(getDestination().getPath().toString()+"/coreness");
+      FileSystem fs_client = FileSystem.get(context);
+      fs_client.rename(tmpDir, dest_path);
+
+      // Delete all useless temporary directories.
+      dirMgr.deleteAll();
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new CorenessAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
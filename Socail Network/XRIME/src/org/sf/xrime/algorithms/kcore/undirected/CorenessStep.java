@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.kcore.undirected;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * One round of the distributed coreness computation. Every vertex sends its current
+ * estimate of coreness to its neighbours, and lowers its estimate to the h-index of
+ * the received estimates, i.e., the largest h such that at least h neighbours have
+ * estimates no less than h. Estimates never increase, and once no estimate changes,
+ * each of them is the core number of the vertex. The source is partitioned by
+ * SchimmyPartitionStep, and only the estimates are shuffled.
+ * @see "Distributed k-Core Decomposition by A. Montresor, F. De Pellegrini and 
+ * D. Miorandi, 2011"
+ */
+public class CorenessStep extends GraphAlgorithm {
+  /**
+   * Counter group and name of the number of vertexes whose estimates changed.
+   */
+  public static final String CHANGED = "coreness_changed";
+  
+  /**
+   * Default constructor.
+   */
+  public CorenessStep(){
+    super();
+  }
+  
+  /**
+   * Mapper. Sends the estimate of each vertex to its neighbours.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjSetVertex, Text, IntWritable>{
+
+    @Override
+    public void map(Text key, LabeledAdjSetVertex value,
+        OutputCollector<Text, IntWritable> output, Reporter reporter)
+        throws IOException {
+      if(value.getOpposites()==null){
+        return;
+      }
+      IntWritable estimate = (IntWritable) value.getLabel(CorenessAlgorithm.corenessLabelKey);
+      for(AdjVertexEdge opp : value.getOpposites()){
+        if(opp.getOpposite().equals(value.getId())){
+          // Self loops do not count.
+          continue;
+        }
+        output.collect(new Text(opp.getOpposite()), estimate);
+      }
+    }
+  }
+  
+  /**
+   * Reducer. Lowers the estimate of each vertex to the h-index of its neighbours.
+   */
+  public static class ReduceClass extends SchimmyReducerBase<IntWritable, LabeledAdjSetVertex> {
+
+    @Override
+    protected void update(Text key, LabeledAdjSetVertex vertex, Iterator<IntWritable> messages,
+        Reporter reporter) throws IOException {
+      IntWritable estimate = (IntWritable) vertex.getLabel(CorenessAlgorithm.corenessLabelKey);
+      int current = estimate.get();
+      if(current==0){
+        return;
+      }
+      // Count the neighbours by their estimates, capped by the estimate of this vertex.
+      int[] counts = new int[current+1];
+      while(messages.hasNext()){
+        counts[Math.min(messages.next().get(), current)]++;
+      }
+      // The h-index, at most the current estimate.
+      int h = current;
+      int at_least = counts[current];
+      while(at_least < h){
+        h--;
+        at_least += counts[h];
+      }
+      if(h < current){
+        vertex.setLabel(CorenessAlgorithm.corenessLabelKey, new IntWritable(h));
+        reporter.incrCounter(CHANGED, CHANGED, 1);
+      }
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, CorenessStep.class);
+      conf.setJobName("CorenessStep");
+
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setMapOutputValueClass(IntWritable.class);
+      conf.setReducerClass(ReduceClass.class);
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(LabeledAdjSetVertex.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      // One reducer per partition, the output is written by reducers as side files.
+      Schimmy.configure(conf, getSource().getPath());
+
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
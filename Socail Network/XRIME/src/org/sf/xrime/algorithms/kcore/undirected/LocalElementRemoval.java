@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.kcore.undirected;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * This class does what ElementRemoval does recursively until convergence, in the memory
+ * of the client. It is used to finish a small remaining graph. Vertexes of degree less
+ * than k are put into a queue, and when one is removed, the degrees of its neighbours
+ * are decreased, which may put them into the queue too. The output is the k-core, in the
+ * same form as the output of ElementRemoval.
+ */
+public class LocalElementRemoval extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public LocalElementRemoval(){
+    super();
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      int k_of_core = Integer.parseInt(context.getParameter(ElementRemoval.K_OF_CORE));
+      FileSystem client = FileSystem.get(context);
+      
+      // Load the vertexes.
+      Map<String, AdjSetVertex> vertexes = new LinkedHashMap<String, AdjSetVertex>();
+      for(Path file : SequenceFiles.listDataFiles(client, getSource().getPath())){
+        SequenceFile.Reader reader = new SequenceFile.Reader(client, file, context);
+        try {
+          Text key = new Text();
+          AdjSetVertex vertex = new AdjSetVertex();
+          while(reader.next(key, vertex)){
+            vertexes.put(vertex.getId(), vertex);
+            vertex = new AdjSetVertex();
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      
+      // Remove vertexes of degree less than k, until there is none.
+      LinkedList<AdjSetVertex> queue = new LinkedList<AdjSetVertex>();
+      for(AdjSetVertex vertex : vertexes.values()){
+        if(vertex.getOpposites().size() < k_of_core){
+          queue.add(vertex);
+        }
+      }
+      while(!queue.isEmpty()){
+        AdjSetVertex removed = queue.removeFirst();
+        vertexes.remove(removed.getId());
+        AdjVertexEdge line = new AdjVertexEdge(removed.getId());
+        for(AdjVertexEdge opposite : removed.getOpposites()){
+          AdjSetVertex neighbour = vertexes.get(opposite.getOpposite());
+          if(neighbour == null || neighbour == removed){
+            continue;
+          }
+          int degree = neighbour.getOpposites().size();
+          neighbour.getOpposites().remove(line);
+          // Queue it only once, when the degree drops below k.
+          if(degree >= k_of_core && neighbour.getOpposites().size() < k_of_core){
+            queue.add(neighbour);
+          }
+        }
+      }
+      
+      // Write the k-core.
+      Path file = new Path(getDestination().getPath(), "part-00000");
+      SequenceFile.Writer writer = SequenceFile.createWriter(client, context, file, 
+          Text.class, AdjSetVertex.class);
+      try {
+        for(AdjSetVertex vertex : vertexes.values()){
+          writer.append(new Text(vertex.getId()), vertex);
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (NumberFormatException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.sf.xrime.algorithms.kcore.undirected;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+
+
+public class LocalElementRemovalTest {
+	private static void addEdge(Map<String, AdjSetVertex> vertexes, String a, String b) {
+		for(String[] ends : new String[][] {{a, b}, {b, a}}){
+			AdjSetVertex vertex = vertexes.get(ends[0]);
+			if(vertex == null){
+				vertex = new AdjSetVertex(ends[0]);
+				vertexes.put(ends[0], vertex);
+			}
+			vertex.addOpposite(new AdjVertexEdge(ends[1]));
+		}
+	}
+	
+	private static Map<String, AdjSetVertex> peel(Map<String, AdjSetVertex> vertexes, int k)
+			throws IOException, ProcessorExecutionException {
+		JobConf conf = new JobConf();
+		FileSystem fs = FileSystem.getLocal(conf);
+		Path dir = new Path(System.getProperty("java.io.tmpdir"), "LocalElementRemovalTest");
+		fs.delete(dir, true);
+		try {
+			Path input = new Path(dir, "input");
+			SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, 
+					new Path(input, "part-00000"), Text.class, AdjSetVertex.class);
+			for(AdjSetVertex vertex : vertexes.values()){
+				writer.append(new Text(vertex.getId()), vertex);
+			}
+			writer.close();
+			
+			LocalElementRemoval removal = new LocalElementRemoval();
+			removal.setConf(conf);
+			Graph src = new Graph(Graph.defaultGraph());
+			src.setPath(input);
+			removal.setSource(src);
+			Graph dest = new Graph(Graph.defaultGraph());
+			dest.setPath(new Path(dir, "output"));
+			removal.setDestination(dest);
+			removal.setParameter(ElementRemoval.K_OF_CORE, Integer.toString(k));
+			removal.execute();
+			
+			Map<String, AdjSetVertex> core = new HashMap<String, AdjSetVertex>();
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, 
+					new Path(dir, "output/part-00000"), conf);
+			Text key = new Text();
+			AdjSetVertex vertex = new AdjSetVertex();
+			while(reader.next(key, vertex)){
+				core.put(key.toString(), vertex);
+				vertex = new AdjSetVertex();
+			}
+			reader.close();
+			return core;
+		} finally {
+			fs.delete(dir, true);
+		}
+	}
+	
+	@Test
+	public void testStar() throws IOException, ProcessorExecutionException {
+		// Once the leaves are removed, the center is left alone.
+		Map<String, AdjSetVertex> vertexes = new HashMap<String, AdjSetVertex>();
+		for(String leaf : new String[] {"l1", "l2", "l3", "l4"}){
+			addEdge(vertexes, "c", leaf);
+		}
+		assertTrue(peel(vertexes, 2).isEmpty());
+	}
+	
+	@Test
+	public void testStarOnTriangle() throws IOException, ProcessorExecutionException {
+		Map<String, AdjSetVertex> vertexes = new HashMap<String, AdjSetVertex>();
+		addEdge(vertexes, "a", "b");
+		addEdge(vertexes, "b", "c");
+		addEdge(vertexes, "c", "a");
+		for(String leaf : new String[] {"l1", "l2", "l3", "l4"}){
+			addEdge(vertexes, "c", leaf);
+		}
+		Map<String, AdjSetVertex> core = peel(vertexes, 2);
+		
+		assertEquals(core.keySet().size(), 3);
+		assertEquals(core.get("a").getOpposites().size(), 2);
+		assertEquals(core.get("b").getOpposites().size(), 2);
+		assertEquals(core.get("c").getOpposites().size(), 2);
+		assertTrue(core.get("c").getOpposites().contains(new AdjVertexEdge("a")));
+		assertTrue(core.get("c").getOpposites().contains(new AdjVertexEdge("b")));
+		assertTrue(peel(vertexes, 3).isEmpty());
+	}
+}
@@ -35,7 +35,8 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
  * This class is used to calculate k-core with specified k. It wraps the recursive
  * invocation of ElementRemoval. We assume the input is in the form of AdjSetVertex.
  * So, this algorithm could be used to calculate a series of k-cores, like 0-core,
- * 1-core, 2-core, ...
+ * 1-core, 2-core, ... If a local threshold is set, the remaining graph with no more
+ * vertexes than it is finished by LocalElementRemoval.
  * @author xue
  */
 public class SpecifiedKCoreAlgorithm2 extends GraphAlgorithm {
@@ -142,6 +143,24 @@ public class SpecifiedKCoreAlgorithm2 extends GraphAlgorithm {
 					// Converged!
 					break;
 				}
+				
+				// 2.3. Finish the remaining iterations in memory if the graph is small.
+				if(shouldFinishLocally(found_vertexes_num)){
+					System.out.println("-------->"+dirMgr.getSeqNum()+": Finish locally");
+					GraphAlgorithm local_rm = new LocalElementRemoval();
+					local_rm.setConf(context);
+					src = new Graph(Graph.defaultGraph());
+					src.setPath(tmpDir);
+					dest = new Graph(Graph.defaultGraph());
+					tmpDir = dirMgr.getTempDir();
+					dest.setPath(tmpDir);
+					local_rm.setSource(src);
+					local_rm.setDestination(dest);
+					local_rm.setParameter(ElementRemoval.K_OF_CORE, 
+					    context.getParameter(ElementRemoval.K_OF_CORE));
+					local_rm.execute();
+					break;
+				}
 			}
 
 			// 3. Textify the result.
@@ -16,17 +16,15 @@
 package org.sf.xrime.algorithms.pagerank;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.ipc.RPC;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import org.apache.hadoop.mapred.TaskAttemptID;
 import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.SideAggregates;
 import org.sf.xrime.model.edge.AdjVertexEdge;
 import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
 
@@ -51,9 +49,10 @@ public class PageRankMapper extends GraphAlgorithmMapReduceBase
   
   PageRankLabel label=new PageRankLabel();
   
-  private long zeroOutDegreeVertexCount=0L;
-  private double zeroOutDegreeVertexRank=0.0;  
-  private String taskID=null;   // TaskID to send 
+  /**
+   * Count and score of vertexes without out link, read by the reducers of the same job.
+   */
+  private SideAggregates aggregates=new SideAggregates();
   
   @Override
   public void map(Text key, LabeledAdjSetVertex value,
@@ -92,38 +91,26 @@ public class PageRankMapper extends GraphAlgorithmMapReduceBase
         collector.collect(dest, outputValue);
         }
     } else {  // collect score
-      zeroOutDegreeVertexCount++;
-      zeroOutDegreeVertexRank+=label.getPr();
+      aggregates.add(PageRankStep.zeroOutDegreeVertexCountKey, 1);
+      aggregates.add(PageRankStep.zeroOutDegreeVertexRankKey, label.getPr());
     }
   }
 
   /** 
-   * Keep JobConf to read parameters and create communication to PageRankStep.
+   * Keep JobConf to write the aggregates.
    * @see org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase#configure(org.apache.hadoop.mapred.JobConf)
    */
   public void configure(JobConf job) {
     super.configure(job);
     jobConf=job;
-        
-    TaskAttemptID taskId = TaskAttemptID.forName(job.get("mapred.task.id"));
-    taskID=taskId.getTaskID().toString();
   }
   
   /**
-   * Report possible score by vertex which is without out link.
+   * Report possible score by vertex which is without out link. It is written as a side
+   * file committed with this task, so the reducers could spread it in the same job.
    * @see org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase#close()
    */
   public void close() throws IOException {
-    if(zeroOutDegreeVertexCount>0) {
-      ZeroOutDegreeVertexRankCollector rankCollector=null;
-      String hostName=context.getParameter(PageRankStep.rankCollectorHost);
-      int port=Integer.valueOf(context.getParameter(PageRankStep.rankCollectorPort));
-      
-      InetSocketAddress addr=new InetSocketAddress(hostName, port);
-      rankCollector=(ZeroOutDegreeVertexRankCollector)RPC.getProxy(ZeroOutDegreeVertexRankCollector.class, 
-          PageRankStep.protocolVersion, addr, jobConf);
-      rankCollector.postRank(taskID, zeroOutDegreeVertexCount, zeroOutDegreeVertexRank);
-      RPC.stopProxy(rankCollector);
-    }
+    aggregates.write(jobConf);
   }
 }
@@ -17,6 +17,7 @@ package org.sf.xrime.algorithms.pagerank;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -28,6 +29,7 @@ import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.Reporter;
 import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
 import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.SideAggregates;
 import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
 
 
@@ -40,6 +42,11 @@ public class PageRankReducer extends GraphAlgorithmMapReduceBase
   private double stopThreshold=0.01;
   private double dampingFactor=1;
   private String continueFile;
+  /**
+   * Score of vertexes without out link in this iteration, spread to reachable vertexes
+   * in proportion to their init weights.
+   */
+  private double zeroOutDegreeVertexRank=0.0;
 
   @Override
   public void reduce(Text key, Iterator<ObjectWritable> values,
@@ -63,7 +70,8 @@ public class PageRankReducer extends GraphAlgorithmMapReduceBase
       PageRankLabel label=(PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
       
       if(label.isReachable()) {      
-        newPR= dampingFactor*newPR + (1-dampingFactor)*label.getInitWeight();
+        newPR= dampingFactor*newPR + (1-dampingFactor)*label.getInitWeight()
+            + dampingFactor*zeroOutDegreeVertexRank*label.getInitWeight();
         
         label.setPr( newPR );
         vertex.setLabel(PageRankLabel.pageRankLabelKey, label);
@@ -100,6 +108,22 @@ public class PageRankReducer extends GraphAlgorithmMapReduceBase
     if(continueFile==null) {
       continueFile="continue";
     }
+    
+    zeroOutDegreeVertexRank=readZeroOutDegreeVertexRank(job);
+  }
+  
+  /**
+   * Sum up the score of vertexes without out link, reported by all mappers of this job.
+   * @param job configuration of the reduce task.
+   * @return the score.
+   */
+  static double readZeroOutDegreeVertexRank(JobConf job) {
+    try {
+      Map<String, Double> aggregates=SideAggregates.readMapAggregates(job);
+      return SideAggregates.get(aggregates, PageRankStep.zeroOutDegreeVertexRankKey, 0.0);
+    } catch (IOException e) {
+      throw new RuntimeException("Can not read score of vertexes without out link", e);
+    }
   }
   
   private void recordContinue() throws IOException {
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+
+
+/**
+ * Combiner of PageRank algorithm in schimmy mode. Sum up the quotients sent to the
+ * same vertex.
+ */
+public class PageRankSchimmyCombiner extends MapReduceBase 
+    implements Reducer<Text, DoubleWritable, Text, DoubleWritable> {
+  DoubleWritable outputValue=new DoubleWritable();
+  
+  @Override
+  public void reduce(Text key, Iterator<DoubleWritable> values,
+      OutputCollector<Text, DoubleWritable> output, Reporter reporter)
+      throws IOException {
+    double sum=0;
+    while(values.hasNext()) {
+      sum+=values.next().get();
+    }
+    outputValue.set(sum);
+    output.collect(key, outputValue);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.SideAggregates;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * Mapper of PageRank algorithm in schimmy mode. Same as PageRankMapper, except that
+ * the vertex itself is not emitted, since PageRankSchimmyReducer reads it from the
+ * partitioned graph, and the quotients are emitted as bare doubles.
+ * @see PageRankMapper
+ */
+public class PageRankSchimmyMapper extends GraphAlgorithmMapReduceBase
+    implements Mapper<Text, LabeledAdjSetVertex, Text, DoubleWritable> {
+  JobConf jobConf=null;
+  
+  DoubleWritable outputValue=new DoubleWritable(); 
+  Text dest=new Text();
+  
+  private SideAggregates aggregates=new SideAggregates();
+  
+  @Override
+  public void map(Text key, LabeledAdjSetVertex value,
+      OutputCollector<Text, DoubleWritable> collector, Reporter reporter)
+      throws IOException {    
+    PageRankLabel label=(PageRankLabel) value.getLabel(PageRankLabel.pageRankLabelKey);
+    if(label==null || !label.isReachable()) {
+      return;
+    }
+    
+    // emit PR for neighbors
+    if(value.getOpposites().size()>0) {
+      outputValue.set(label.getPr()/value.getOpposites().size());
+      for(AdjVertexEdge edge: value.getOpposites()) {
+        dest.set(edge.getOpposite());
+        collector.collect(dest, outputValue);
+      }
+    } else {  // collect score
+      aggregates.add(PageRankStep.zeroOutDegreeVertexCountKey, 1);
+      aggregates.add(PageRankStep.zeroOutDegreeVertexRankKey, label.getPr());
+    }
+  }
+
+  public void configure(JobConf job) {
+    super.configure(job);
+    jobConf=job;
+  }
+  
+  /**
+   * Report possible score by vertex which is without out link.
+   * @see PageRankMapper#close()
+   */
+  public void close() throws IOException {
+    aggregates.write(jobConf);
+  }
+}
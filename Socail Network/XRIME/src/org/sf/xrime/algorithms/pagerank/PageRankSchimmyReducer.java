@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * Reducer of PageRank algorithm in schimmy mode. Each vertex of the partition gets
+ * the sum of quotients sent to it, and its score is updated as PageRankReducer does.
+ * @see PageRankReducer
+ */
+public class PageRankSchimmyReducer extends SchimmyReducerBase<DoubleWritable, LabeledAdjSetVertex> {
+  JobConf job=null;
+  boolean changeFlag=false;
+  
+  private double stopThreshold=0.01;
+  private double dampingFactor=1;
+  private String continueFile;
+  private double zeroOutDegreeVertexRank=0.0;
+
+  @Override
+  protected void update(Text key, LabeledAdjSetVertex vertex, Iterator<DoubleWritable> messages, 
+      Reporter reporter) throws IOException {
+    PageRankLabel label=(PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
+    if(label==null) {
+      label=new PageRankLabel();
+      label.setInitVertex(false);
+      label.setReachable(false);
+      label.setPr(0);
+      label.setInitWeight(0);
+    }
+    
+    label.setPrepPR(label.getPr());  //set previous page rank value.
+    
+    if(label.isReachable()) {
+      double newPR=0;
+      while(messages.hasNext()) {
+        newPR+=messages.next().get();
+      }
+      newPR= dampingFactor*newPR + (1-dampingFactor)*label.getInitWeight()
+          + dampingFactor*zeroOutDegreeVertexRank*label.getInitWeight();
+      label.setPr( newPR );
+      
+      if( Math.abs(label.getPrepPR()-label.getPr()) > stopThreshold) {
+        recordContinue();
+      }
+    }
+    
+    vertex.setLabel(PageRankLabel.pageRankLabelKey, label);
+  }
+
+  public void configure(JobConf job) {
+    super.configure(job);
+    this.job=job;
+    
+    String property=context.getParameter(PageRankAlgorithm.pageRankDampingFactorKey);
+    if(property!=null) {
+      dampingFactor=Double.valueOf(property);
+    }
+    
+    property=context.getParameter(PageRankAlgorithm.pageRankStopThresholdKey);
+    if(property!=null) {
+      stopThreshold=Double.valueOf(property);
+    }
+    
+    continueFile=context.getParameter(PageRankStep.continueFileKey);
+    if(continueFile==null) {
+      continueFile="continue";
+    }
+    
+    zeroOutDegreeVertexRank=PageRankReducer.readZeroOutDegreeVertexRank(job);
+  }
+  
+  private void recordContinue() throws IOException {
+    if(changeFlag) {
+      return;
+    }
+    
+    changeFlag=true;
+    FileSystem client=FileSystem.get(job);
+    client.mkdirs(new Path(continueFile));
+  }
+}
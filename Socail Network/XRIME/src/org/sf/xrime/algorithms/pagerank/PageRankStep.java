@@ -16,16 +16,13 @@
 package org.sf.xrime.algorithms.pagerank;
 
 import java.io.IOException;
-import java.net.InetAddress;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.ipc.RPC;
-import org.apache.hadoop.ipc.Server;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileOutputFormat;
 import org.apache.hadoop.mapred.JobClient;
@@ -35,17 +32,18 @@ import org.apache.hadoop.mapred.SequenceFileOutputFormat;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
 import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SideAggregates;
 import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
-import org.sf.xrime.utils.NetUtils;
-import org.sf.xrime.utils.SequenceTempDirMgr;
 
 
 /**
  * As we know, PageRank is an iterated algorithm. PageRankStep is an iteration.
- * PageRankStep also implement 
+ * Scores of vertexes without out link are summed up by the mappers into side files,
+ * which the reducers read to spread them in the same job.
  * @author Cai Bin 
  */
-public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexRankCollector {  
+public class PageRankStep extends GraphAlgorithm {  
   /**
    * Continue indicator file name in destination working directory
    */
@@ -57,19 +55,28 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
   static final public String continueFileKey  ="xrime.algorithm.PageRank.continue.flag";
   
   /**
-   * Key in JobConf for JobTracker host name, which used to open a ZeroOutDegreeVertexRankCollector server
+   * Name of the aggregate for the count of vertexes without out link.
+   * @see SideAggregates
    */
-  static final public String rankCollectorHost="xrime.algorithm.PageRank.collector.host";
+  static final public String zeroOutDegreeVertexCountKey="zeroOutDegreeVertexCount";
   
   /**
-   * Key in JobConf for JobTracker port, which used to open a ZeroOutDegreeVertexRankCollector server
+   * Name of the aggregate for the score of vertexes without out link.
+   * @see SideAggregates
    */
-  static final public String rankCollectorPort="xrime.algorithm.PageRank.collector.port";
+  static final public String zeroOutDegreeVertexRankKey="zeroOutDegreeVertexRank";
   
   /**
    * Whether more iteration is needed.
    */
   private boolean end=false;
+  
+  /**
+   * Whether to run in schimmy mode, i.e., only shuffle the quotients and merge-join them
+   * with the source graph, which should be partitioned.
+   * @see Schimmy
+   */
+  private boolean schimmy=false;
 
   private JobConf jobConf;  
   private FileSystem client=null;
@@ -80,13 +87,6 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
 
   private long zeroOutDegreeVertexCount=0L;
   private double zeroOutDegreeVertexRank=0.0;
-  private double zeroOutDegreeVertexRankPrevious=0.0;
-  private Set<String> reported=new HashSet<String>();
-  
-  static final public long protocolVersion=5473L;
-  private Server server;
-  private InetAddress ipAddress=null;
-  private int ipPort=0;
 
   public String getContinueFlag() {
     return continueFileName;
@@ -105,6 +105,14 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
     return end;
   }  
   
+  public boolean isSchimmy() {
+    return schimmy;
+  }
+
+  public void setSchimmy(boolean schimmy) {
+    this.schimmy = schimmy;
+  }
+  
   public FileSystem getClient() {
     return client;
   }
@@ -133,58 +141,44 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
     return zeroOutDegreeVertexRank;
   }
   
-  public void resetZeroOutDegreeVertexInfo() {
-    synchronized(reported) {
-      reported.clear();
-      zeroOutDegreeVertexRank=0.0;
-      zeroOutDegreeVertexCount=0L;
-    }
-  }
-
-  public double getZeroOutDegreeVertexRankPrevious() {
-    return zeroOutDegreeVertexRankPrevious;
-  }
-
-  public void setZeroOutDegreeVertexRankPrevious(
-      double zeroOutDegreeVertexRankPrevious) {
-    this.zeroOutDegreeVertexRankPrevious = zeroOutDegreeVertexRankPrevious;
-  }
-  
   @Override
   public void execute() throws ProcessorExecutionException {
     try {
-      if (server == null) {
-        startServer(); // start the server
-      }
-      resetZeroOutDegreeVertexInfo(); // reset zeroOutDegreeVertexRank &
-                                      // zeroOutDegreeVertexCount
-      
       // {{ algorithm properties
       context.setParameter(continueFileKey, continueFlagFile());
-      context.setParameter(rankCollectorHost, ipAddress.getHostName());
-      context.setParameter(rankCollectorPort, Integer.toString(ipPort));
       context.setParameter(PageRankAlgorithm.pageRankDampingFactorKey, Double.toString(dampingFactor));
       context.setParameter(PageRankAlgorithm.pageRankStopThresholdKey, Double.toString(stopThreshold));
       // }} algorithm properties
+
       // {{ Mapper, Reducer configuration
       jobConf = new JobConf(context, PageRankStep.class);
-      jobConf.setJobName("BFS");
+      jobConf.setJobName("PageRank");
 
       FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
 
       jobConf.setInputFormat(SequenceFileInputFormat.class);
-      jobConf.setMapperClass(PageRankMapper.class);
       jobConf.setNumMapTasks(getMapperNum());
-      jobConf.setMapOutputValueClass(ObjectWritable.class);
-
-      jobConf.setReducerClass(PageRankReducer.class);
-      jobConf.setNumReduceTasks(getReducerNum());
+      if (schimmy) {
+        jobConf.setMapperClass(PageRankSchimmyMapper.class);
+        jobConf.setMapOutputValueClass(DoubleWritable.class);
+        jobConf.setCombinerClass(PageRankSchimmyCombiner.class);
+        jobConf.setReducerClass(PageRankSchimmyReducer.class);
+      } else {
+        jobConf.setMapperClass(PageRankMapper.class);
+        jobConf.setMapOutputValueClass(ObjectWritable.class);
+        jobConf.setReducerClass(PageRankReducer.class);
+        jobConf.setNumReduceTasks(getReducerNum());
+      }
 
       jobConf.setOutputKeyClass(Text.class);
       jobConf.setOutputValueClass(LabeledAdjSetVertex.class);
 
       FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
       jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+      if (schimmy) {
+        // One reducer per partition, each writing its own partition.
+        Schimmy.configure(jobConf, context.getSource().getPath());
+      }
       // }} Mapper, Reducer configuration
 
       this.runningJob = JobClient.runJob(jobConf);
@@ -202,54 +196,12 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
       }
       // }} end indicator
 
-      // {{ correction
-      if (zeroOutDegreeVertexRank > 0) {
-        SequenceTempDirMgr dirmgr = new SequenceTempDirMgr(context
-            .getDestination().getPath().toString());
-        Path tmpFile = dirmgr.getTempDir();
-        
-        // prop.setProperty(PageRankAlgorithm.pageRankVertexAdjKey,
-        // Double.toString(dampingFactor*zeroOutDegreeVertexRank/vertexNumber));
-        context.setParameter(PageRankAlgorithm.pageRankVertexAdjKey, 
-            Double.toString(dampingFactor * zeroOutDegreeVertexRank));
-        System.out.println("dampingFactor*zeroOutDegreeVertexRank: "
-            + dampingFactor * zeroOutDegreeVertexRank);
-        // {{ Mapper, Reducer configuration
-        jobConf = new JobConf(context, PageRankStep.class);
-        jobConf.setJobName("BFS");
-
-        FileInputFormat.setInputPaths(jobConf, context.getDestination()
-            .getPath());
-
-        jobConf.setInputFormat(SequenceFileInputFormat.class);
-        jobConf.setMapperClass(PageRankCorrectionMapper.class);
-        jobConf.setNumMapTasks(getMapperNum());
-        jobConf.setNumReduceTasks(0); // no reducer here
-
-        jobConf.setOutputKeyClass(Text.class);
-        jobConf.setOutputValueClass(LabeledAdjSetVertex.class);
-
-        FileOutputFormat.setOutputPath(jobConf, tmpFile);
-        jobConf.setOutputFormat(SequenceFileOutputFormat.class);
-        // }} Mapper, Reducer configuration
-
-        this.runningJob = JobClient.runJob(jobConf);
-
-        // {{End? We need additional check here since PageRankCorrectionMapper
-        // will generate new PR value.
-        if (client.exists(new Path(continueFlagFile()))) {
-          end = false;
-          client.delete(new Path(continueFlagFile()), true);
-        } else {
-          end = true;
-        }
-        // }}End? We need additional check here since PageRankCorrectionMapper
-        // will generate new PR value.
-
-        client.delete(context.getDestination().getPath(), true);
-        client.rename(tmpFile, context.getDestination().getPath());
-      }
-      // }} correction
+      // {{ score of vertexes without out link, already spread by the reducers
+      Map<String, Double> aggregates=SideAggregates.read(client, 
+          context.getDestination().getPath(), jobConf);
+      zeroOutDegreeVertexCount=(long)SideAggregates.get(aggregates, zeroOutDegreeVertexCountKey, 0);
+      zeroOutDegreeVertexRank=SideAggregates.get(aggregates, zeroOutDegreeVertexRankKey, 0);
+      // }} score of vertexes without out link
     } catch (IOException e) {
       end = true;
       throw new ProcessorExecutionException(e);
@@ -257,36 +209,4 @@ public class PageRankStep extends GraphAlgorithm implements ZeroOutDegreeVertexR
       throw new ProcessorExecutionException(e);
     }
   }
-
-  public synchronized void startServer() throws IOException {
-    if(server!=null) {
-      return;
-    }
-    
-    ipAddress=NetUtils.getLocalIP();
-    ipPort=NetUtils.getFreePort();
-    server = RPC.getServer(this, ipAddress.getHostName(), ipPort, context);
-    server.start();
-  }
-  
-  public void stopServer() {
-    server.stop();
-  }
-  
-  @Override
-  public void postRank(String tanskID, long count, double rank) {
-    synchronized(reported) {
-      if(!reported.contains(tanskID)) {
-            zeroOutDegreeVertexRank+=rank;
-            zeroOutDegreeVertexCount+=count;
-            reported.add(tanskID);
-      }
-    }
-  }
-
-  @Override
-  public long getProtocolVersion(String protocol, long clientVersion)
-      throws IOException {
-    return protocolVersion;
-  }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank.bsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.bsp.Aggregators;
+import org.sf.xrime.algorithms.bsp.BSPAlgorithm;
+import org.sf.xrime.algorithms.bsp.BSPEngine;
+import org.sf.xrime.algorithms.bsp.MessageCombiner;
+import org.sf.xrime.algorithms.bsp.VertexContext;
+import org.sf.xrime.algorithms.bsp.VertexProgram;
+import org.sf.xrime.algorithms.pagerank.PageRankLabel;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * PageRank run by BSPEngine. It takes the same input as normal.PageRankAlgorithm, i.e.,
+ * LabeledAdjSetVertex with PageRankLabel, honors the same parameters, and sets the same
+ * scores as LocalPageRankAlgorithm.
+ * <p>
+ * Superstep k computes the scores of iteration k from the quotients sent in superstep
+ * k-1, and sends the quotients of iteration k+1. The scores of reachable vertexes 
+ * without opposites are summed up by the "dangling" aggregator and spread in the next
+ * superstep, and the "changed" aggregator tells the master whether to stop.
+ */
+public class PageRankAlgorithm extends BSPAlgorithm<LabeledAdjSetVertex, Double> {
+  private int maxStep=10;
+  private double stopThreshold=0.01;
+  private double dampingFactor=1;
+  
+  public int getMaxStep() {
+    return maxStep;
+  }
+
+  public void setMaxStep(int maxStep) {
+    this.maxStep = maxStep;
+  }
+
+  public double getStopThreshold() {
+    return stopThreshold;
+  }
+
+  public void setStopThreshold(double stopThreshold) {
+    this.stopThreshold = stopThreshold;
+  }
+
+  public double getDampingFactor() {
+    return dampingFactor;
+  }
+
+  public void setDampingFactor(double dampingFactor) {
+    if(dampingFactor>=0 && dampingFactor<=1) {
+      this.dampingFactor = dampingFactor;
+      return;
+    }
+    
+    throw new IllegalArgumentException("Damping Factor d should be 0<=d<1");
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-maxstep".equals(params[i])) {
+          setMaxStep(Integer.parseInt(params[++i]));
+        } else if ("-d".equals(params[i])) {
+          setDampingFactor(Double.parseDouble(params[++i]));
+        } else if ("-threshold".equals(params[i])) {
+          setStopThreshold(Double.parseDouble(params[++i]));
+        } else {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    super.setArguments(other_args.toArray(new String[other_args.size()]));
+  }
+
+  @Override
+  protected VertexProgram<LabeledAdjSetVertex, Double> createProgram() {
+    return new PageRankProgram(maxStep, stopThreshold, dampingFactor);
+  }
+  
+  /**
+   * The vertex program of PageRank. Messages are quotients of scores.
+   */
+  public static class PageRankProgram extends VertexProgram<LabeledAdjSetVertex, Double> {
+    public static final String DANGLING = "dangling";
+    public static final String CHANGED = "changed";
+    
+    private final int maxStep;
+    private final double stopThreshold;
+    private final double dampingFactor;
+    
+    public PageRankProgram(int maxStep, double stopThreshold, double dampingFactor) {
+      this.maxStep = maxStep;
+      this.stopThreshold = stopThreshold;
+      this.dampingFactor = dampingFactor;
+    }
+
+    @Override
+    public void initialize(BSPEngine<LabeledAdjSetVertex, Double> engine) {
+      engine.registerAggregator(DANGLING, new Aggregators.DoubleSum());
+      engine.registerAggregator(CHANGED, new Aggregators.BooleanOr());
+    }
+
+    @Override
+    public void compute(VertexContext<LabeledAdjSetVertex, Double> context,
+        Iterable<Double> messages) {
+      LabeledAdjSetVertex vertex = context.getVertex();
+      PageRankLabel label = (PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
+      if(label == null) {
+        label = new PageRankLabel(0);
+        label.setInitVertex(false);
+        label.setReachable(false);
+        label.setInitWeight(0);
+        vertex.setLabel(PageRankLabel.pageRankLabelKey, label);
+      }
+      
+      if(!label.isReachable()) {
+        // The score is kept.
+        if(context.getSuperstep() == 0 && maxStep > 0) {
+          label.setPrepPR(label.getPr());
+        }
+        context.voteToHalt();
+        return;
+      }
+      
+      if(context.getSuperstep() > 0) {
+        double newPR = 0;
+        for(double quotient : messages) {
+          newPR += quotient;
+        }
+        newPR = dampingFactor*newPR + (1-dampingFactor)*label.getInitWeight();
+        double zeroOutDegreeVertexRank = context.<Double>getAggregatedValue(DANGLING);
+        if(zeroOutDegreeVertexRank > 0) {
+          newPR = newPR + dampingFactor*zeroOutDegreeVertexRank*label.getInitWeight();
+        }
+        label.setPrepPR(label.getPr());
+        label.setPr(newPR);
+        if(Math.abs(label.getPrepPR()-newPR) > stopThreshold) {
+          context.aggregate(CHANGED, true);
+        }
+      }
+      
+      if(context.getSuperstep() < maxStep) {
+        int outDegree = vertex.getOpposites() == null ? 0 : vertex.getOpposites().size();
+        if(outDegree > 0) {
+          context.sendMessageToOutNeighbors(label.getPr()/outDegree);
+        } else {
+          context.aggregate(DANGLING, label.getPr());
+        }
+      }
+    }
+
+    @Override
+    public void masterCompute(BSPEngine<LabeledAdjSetVertex, Double> engine) {
+      long step = engine.getSuperstep();
+      if(step >= maxStep || 
+          (step > 0 && !engine.<Boolean>getAggregatedValue(CHANGED))) {
+        engine.haltComputation();
+      }
+    }
+
+    @Override
+    public MessageCombiner<Double> getCombiner() {
+      return new MessageCombiner<Double>() {
+        public Double combine(Double a, Double b) {
+          return a + b;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.pagerank.PageRankLabel;
+import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * PageRank computed in the memory of one machine, for graphs which fit in it. It takes
+ * the same input as PageRankAlgorithm, i.e., LabeledAdjSetVertex with PageRankLabel,
+ * honors the same parameters, and writes the same output into the destination path.
+ * <p>
+ * The graph is loaded into primitive arrays, with incoming edges in CSR format, and
+ * each iteration pulls the quotients of neighbors in parallel, with the vertexes split
+ * among threads. Like PageRankMapper and PageRankReducer:
+ * <ul>
+ * <li>Only reachable vertexes send their scores and get new scores, the scores of other
+ *     vertexes (including vertexes without PageRankLabel) are kept.</li>
+ * <li>The score of a vertex is divided by the number of its opposites, quotients to
+ *     vertexes absent from the input are lost.</li>
+ * <li>The scores of reachable vertexes without opposites are summed up, then spread to
+ *     reachable vertexes in proportion to their init weights.</li>
+ * <li>Iterations stop after maxStep, or when no score changes more than stopThreshold.</li>
+ * </ul>
+ * @see PageRankCrossCheck
+ */
+public class LocalPageRankAlgorithm extends PageRankAlgorithm {
+  /**
+   * Number of threads.
+   */
+  private int threadNum=Runtime.getRuntime().availableProcessors();
+  /**
+   * Number of iterations run by the last execution.
+   */
+  private int stepCount=0;
+  
+  // The graph, vertexes are numbered in the order of input.
+  private int vertexNum;
+  private int[] inOffsets;
+  private int[] inSources;
+  private int[] outDegrees;
+  private boolean[] reachable;
+  private double[] initWeights;
+  private double[] pr;
+  private double[] prepPR;
+  /**
+   * Quotient each vertex sends to its opposites in the current iteration.
+   */
+  private double[] quotients;
+  
+  public int getThreadNum() {
+    return threadNum;
+  }
+
+  public void setThreadNum(int threadNum) {
+    if(threadNum<1) {
+      throw new IllegalArgumentException("Number of threads should be positive");
+    }
+    this.threadNum = threadNum;
+  }
+  
+  public int getStepCount() {
+    return stepCount;
+  }
+
+  @Override
+  public Path getResultPath() {
+    return getDestPath();
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    ExecutorService executor=Executors.newFixedThreadPool(threadNum);
+    try {
+      client=FileSystem.get(context);
+      Path[] files=SequenceFiles.listDataFiles(client, getSrcPath());
+      load(files);
+      
+      stepCount=0;
+      boolean end=false;
+      while(stepCount<maxStep && !end) {
+        end=!iterate(executor);
+        stepCount++;
+      }
+      
+      store(files);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (InterruptedException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (ExecutionException e) {
+      throw new ProcessorExecutionException(e.getCause());
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
+  /**
+   * Load the graph into arrays.
+   * @param files input files.
+   * @throws IOException
+   */
+  private void load(Path[] files) throws IOException {
+    // Number the vertexes in the order of input.
+    Map<String, Integer> indexes=new HashMap<String, Integer>();
+    Text key=new Text();
+    for(Path file : files) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+      try {
+        while(reader.next(key)) {
+          indexes.put(key.toString(), indexes.size());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    
+    vertexNum=indexes.size();
+    outDegrees=new int[vertexNum];
+    reachable=new boolean[vertexNum];
+    initWeights=new double[vertexNum];
+    pr=new double[vertexNum];
+    prepPR=new double[vertexNum];
+    quotients=new double[vertexNum];
+    int[] inDegrees=new int[vertexNum];
+    
+    // Edges between vertexes in the input, as from and to pairs.
+    int[] edges=new int[1024];
+    int edgeNum=0;
+    
+    LabeledAdjSetVertex vertex=new LabeledAdjSetVertex();
+    int index=0;
+    for(Path file : files) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+      try {
+        while(reader.next(key, vertex)) {
+          PageRankLabel label=(PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
+          if(label!=null) {
+            reachable[index]=label.isReachable();
+            initWeights[index]=label.getInitWeight();
+            pr[index]=label.getPr();
+          }
+          
+          outDegrees[index]=vertex.getOpposites().size();
+          for(AdjVertexEdge edge : vertex.getOpposites()) {
+            Integer to=indexes.get(edge.getOpposite());
+            if(to==null) {
+              continue;
+            }
+            if(edgeNum*2==edges.length) {
+              edges=Arrays.copyOf(edges, edges.length*2);
+            }
+            edges[edgeNum*2]=index;
+            edges[edgeNum*2+1]=to;
+            edgeNum++;
+            inDegrees[to]++;
+          }
+          index++;
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    
+    inOffsets=new int[vertexNum+1];
+    for(int v=0; v<vertexNum; v++) {
+      inOffsets[v+1]=inOffsets[v]+inDegrees[v];
+    }
+    inSources=new int[edgeNum];
+    // Reuse in-degrees as the fill positions.
+    System.arraycopy(inOffsets, 0, inDegrees, 0, vertexNum);
+    for(int e=0; e<edgeNum; e++) {
+      inSources[inDegrees[edges[e*2+1]]++]=edges[e*2];
+    }
+  }
+  
+  /**
+   * One iteration, including the correction of scores of vertexes without opposites.
+   * @param executor
+   * @return whether any score changed more than stopThreshold.
+   */
+  private boolean iterate(ExecutorService executor) throws InterruptedException, ExecutionException {
+    // Scatter: compute quotients, and sum up scores not sent.
+    List<Callable<Double>> scatters=new ArrayList<Callable<Double>>();
+    for(final int[] range : split()) {
+      scatters.add(new Callable<Double>() {
+        public Double call() {
+          double zeroOutDegreeVertexRank=0;
+          for(int v=range[0]; v<range[1]; v++) {
+            prepPR[v]=pr[v];
+            quotients[v]=0;
+            if(!reachable[v]) {
+              continue;
+            }
+            if(outDegrees[v]>0) {
+              quotients[v]=pr[v]/outDegrees[v];
+            } else {
+              zeroOutDegreeVertexRank+=pr[v];
+            }
+          }
+          return zeroOutDegreeVertexRank;
+        }
+      });
+    }
+    double zeroOutDegreeVertexRank=0;
+    for(Future<Double> result : executor.invokeAll(scatters)) {
+      zeroOutDegreeVertexRank+=result.get();
+    }
+    
+    // Gather: sum up quotients from incoming edges, and correct.
+    final boolean correct=zeroOutDegreeVertexRank>0;
+    final double correctionValue=dampingFactor*zeroOutDegreeVertexRank;
+    List<Callable<Boolean>> gathers=new ArrayList<Callable<Boolean>>();
+    for(final int[] range : split()) {
+      gathers.add(new Callable<Boolean>() {
+        public Boolean call() {
+          boolean changed=false;
+          for(int v=range[0]; v<range[1]; v++) {
+            if(!reachable[v]) {
+              continue;
+            }
+            double newPR=0;
+            for(int e=inOffsets[v]; e<inOffsets[v+1]; e++) {
+              newPR+=quotients[inSources[e]];
+            }
+            newPR=dampingFactor*newPR + (1-dampingFactor)*initWeights[v];
+            if(correct) {
+              newPR=newPR+correctionValue*initWeights[v];
+            }
+            pr[v]=newPR;
+            if(Math.abs(prepPR[v]-newPR) > stopThreshold) {
+              changed=true;
+            }
+          }
+          return changed;
+        }
+      });
+    }
+    boolean changed=false;
+    for(Future<Boolean> result : executor.invokeAll(gathers)) {
+      changed|=result.get();
+    }
+    return changed;
+  }
+  
+  /**
+   * Split vertexes into ranges, several for each thread to balance the load.
+   * @return list of [start, end) ranges.
+   */
+  private List<int[]> split() {
+    int num=Math.max(1, Math.min(vertexNum, threadNum*4));
+    List<int[]> ranges=new ArrayList<int[]>(num);
+    for(int i=0; i<num; i++) {
+      ranges.add(new int[] {(int) ((long) vertexNum*i/num), (int) ((long) vertexNum*(i+1)/num)});
+    }
+    return ranges;
+  }
+  
+  /**
+   * Write vertexes with their new scores, in the order of input.
+   * @param files input files.
+   * @throws IOException
+   */
+  private void store(Path[] files) throws IOException {
+    Path output=new Path(getDestPath(), "part-00000");
+    SequenceFile.Writer writer=SequenceFile.createWriter(client, context, output, 
+        Text.class, LabeledAdjSetVertex.class);
+    try {
+      Text key=new Text();
+      LabeledAdjSetVertex vertex=new LabeledAdjSetVertex();
+      int index=0;
+      for(Path file : files) {
+        SequenceFile.Reader reader=new SequenceFile.Reader(client, file, context);
+        try {
+          while(reader.next(key, vertex)) {
+            PageRankLabel label=(PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
+            if(label==null) {
+              label=new PageRankLabel();
+              label.setInitVertex(false);
+              label.setReachable(false);
+              label.setInitWeight(0);
+            }
+            label.setPr(pr[index]);
+            label.setPrepPR(stepCount>0 ? prepPR[index] : label.getPrepPR());
+            vertex.setLabel(PageRankLabel.pageRankLabelKey, label);
+            writer.append(key, vertex);
+            index++;
+          }
+        } finally {
+          reader.close();
+        }
+      }
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.pagerank.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.pagerank.PageRankLabel;
+import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Run PageRankAlgorithm and LocalPageRankAlgorithm on the same input with the same
+ * parameters, and check that they give the same scores. Results of the former are
+ * written into sub directories "mapreduce*" of the destination path, and results of
+ * the latter into "local". Fails if any score differs more than the tolerance, or
+ * the vertexes are not the same.
+ */
+public class PageRankCrossCheck extends GraphAlgorithm {
+  private int maxStep=10;
+  private double stopThreshold=0.01;
+  private double dampingFactor=1;
+  private int threadNum=Runtime.getRuntime().availableProcessors();
+  /**
+   * Maximal difference allowed between scores. Sums are done in different orders,
+   * so the scores are not exactly the same.
+   */
+  private double tolerance=1e-9;
+  
+  private double maxDifference=0;
+  
+  public void setMaxStep(int maxStep) {
+    this.maxStep = maxStep;
+  }
+
+  public void setStopThreshold(double stopThreshold) {
+    this.stopThreshold = stopThreshold;
+  }
+
+  public void setDampingFactor(double dampingFactor) {
+    this.dampingFactor = dampingFactor;
+  }
+
+  public void setThreadNum(int threadNum) {
+    this.threadNum = threadNum;
+  }
+
+  public void setTolerance(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * Maximal difference found by the last execution.
+   * @return
+   */
+  public double getMaxDifference() {
+    return maxDifference;
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    for(int i=0; i < params.length; ++i) {
+      try {
+        if ("-maxstep".equals(params[i])) {
+          maxStep=Integer.parseInt(params[++i]);
+        } else if ("-d".equals(params[i])) {
+          dampingFactor=Double.parseDouble(params[++i]);
+        } else if ("-threshold".equals(params[i])) {
+          stopThreshold=Double.parseDouble(params[++i]);
+        } else if ("-tolerance".equals(params[i])) {
+          tolerance=Double.parseDouble(params[++i]);
+        } else if ("-t".equals(params[i])) {
+          threadNum=Integer.parseInt(params[++i]);
+        } else if (params[i] != null) {
+          other_args.add(params[i]);
+        }
+      } catch (NumberFormatException except) {
+        throw new ProcessorExecutionException("Number expected instead of " + params[i]);
+      } catch (ArrayIndexOutOfBoundsException except) {
+        throw new ProcessorExecutionException("Required parameter missing from " + params[i-1]);
+      }
+    }
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          other_args.size() + " instead of 2.");
+    }
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(other_args.get(0)));
+    setSource(src);
+    createDestination(new Path(other_args.get(1)));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      Path work=getDestination().getPath();
+      
+      PageRankAlgorithm mapReduce=new PageRankAlgorithm();
+      configure(mapReduce, new Path(work, "mapreduce"));
+      mapReduce.execute();
+      
+      LocalPageRankAlgorithm local=new LocalPageRankAlgorithm();
+      configure(local, new Path(work, "local"));
+      local.setThreadNum(threadNum);
+      local.execute();
+      
+      compare(mapReduce.getResultPath(), local.getResultPath());
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  private void configure(PageRankAlgorithm algorithm, Path dest) {
+    algorithm.setConf(context);
+    algorithm.setSource(getSource());
+    algorithm.setDestPath(dest);
+    algorithm.setMaxStep(maxStep);
+    algorithm.setStopThreshold(stopThreshold);
+    algorithm.setDampingFactor(dampingFactor);
+  }
+  
+  private void compare(Path expected, Path actual) throws IOException, ProcessorExecutionException {
+    Map<String, Double> scores=readScores(actual);
+    Map<String, Double> expectedScores=readScores(expected);
+    
+    maxDifference=0;
+    int mismatches=0;
+    for(Map.Entry<String, Double> entry : expectedScores.entrySet()) {
+      Double score=scores.remove(entry.getKey());
+      if(score==null) {
+        throw new ProcessorExecutionException("Vertex " + entry.getKey() + " is missing from " + actual);
+      }
+      double difference=Math.abs(score-entry.getValue());
+      maxDifference=Math.max(maxDifference, difference);
+      if(difference>tolerance) {
+        if(mismatches<10) {
+          System.out.println("Vertex " + entry.getKey() + ": " + entry.getValue() + " != " + score);
+        }
+        mismatches++;
+      }
+    }
+    if(!scores.isEmpty()) {
+      throw new ProcessorExecutionException("Vertex " + scores.keySet().iterator().next() + 
+          " is missing from " + expected);
+    }
+    
+    System.out.println("=====================================");
+    System.out.println(expectedScores.size() + " vertex(s) compared, maximal difference: " + maxDifference);
+    System.out.println("=====================================");
+    if(mismatches>0) {
+      throw new ProcessorExecutionException(mismatches + " score(s) differ more than " + tolerance);
+    }
+  }
+  
+  private Map<String, Double> readScores(Path path) throws IOException {
+    Map<String, Double> scores=new HashMap<String, Double>();
+    FileSystem fs=path.getFileSystem(context);
+    Text key=new Text();
+    LabeledAdjSetVertex vertex=new LabeledAdjSetVertex();
+    for(Path file : SequenceFiles.listDataFiles(fs, path)) {
+      SequenceFile.Reader reader=new SequenceFile.Reader(fs, file, context);
+      try {
+        while(reader.next(key, vertex)) {
+          PageRankLabel label=(PageRankLabel) vertex.getLabel(PageRankLabel.pageRankLabelKey);
+          scores.put(key.toString(), label==null ? 0 : label.getPr());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return scores;
+  }
+
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new PageRankCrossCheck(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -23,7 +23,9 @@ import org.apache.hadoop.mapred.JobConf;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
 import org.sf.xrime.algorithms.pagerank.PageRankStep;
+import org.sf.xrime.algorithms.utils.SchimmyPartitionStep;
 import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
 import org.sf.xrime.utils.SequenceTempDirMgr;
 
 
@@ -35,7 +37,6 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 public class PageRankAlgorithm extends GraphAlgorithm {
   static final public String pageRankDampingFactorKey = "xrime.algorithm.pageRank.dampingFactor";
   static final public String pageRankStopThresholdKey = "xrime.algorithm.pageRank.stopThreshold";
-  static final public String pageRankVertexAdjKey     = "xrime.algorithm.pageRank.adjust";
       
   protected JobConf jobConf;
   protected FileSystem client=null;  
@@ -44,6 +45,15 @@ public class PageRankAlgorithm extends GraphAlgorithm {
   protected int maxStep=10;
   protected double stopThreshold=0.01;
   protected double dampingFactor=1;
+  /**
+   * Whether to iterate in schimmy mode, i.e., partition the graph once and only shuffle
+   * the quotients in each iteration.
+   */
+  protected boolean schimmy=false;
+  /**
+   * Where the scores are written by the last execution.
+   */
+  protected Path resultPath=null;
 
   public FileSystem getClient() {
     return client;
@@ -82,6 +92,23 @@ public class PageRankAlgorithm extends GraphAlgorithm {
     throw new IllegalArgumentException("Damping Factor d should be 0<=d<1");
   }
   
+  /**
+   * The output of the last step, i.e., the final scores. Intermediate results are
+   * written into sub directories of the destination path.
+   * @return
+   */
+  public Path getResultPath() {
+    return resultPath;
+  }
+  
+  public boolean isSchimmy() {
+    return schimmy;
+  }
+
+  public void setSchimmy(boolean schimmy) {
+    this.schimmy = schimmy;
+  }
+  
   public double getStopThreshold() {
     return stopThreshold;
   }
@@ -146,9 +173,23 @@ public class PageRankAlgorithm extends GraphAlgorithm {
       tempDirs.setFileSystem(client);
       tempDirs.setSeqNum(0);
       
+      Graph src=getSource();
+      if(schimmy) {
+        // Partition the graph once, iterations will keep it partitioned.
+        SchimmyPartitionStep partitionStep=new SchimmyPartitionStep();
+        partitionStep.setConf(context);
+        partitionStep.setSource(getSource());
+        src=new Graph(getSource());
+        src.setPath(tempDirs.getTempDir());
+        partitionStep.setDestination(src);
+        partitionStep.setVertexClass(LabeledAdjSetVertex.class);
+        partitionStep.execute();
+      }
+      
       PageRankStep bfsStep=new PageRankStep();
       bfsStep.setConf(context);
-      bfsStep.setSource(getSource());
+      bfsStep.setSource(src);
+      bfsStep.setSchimmy(schimmy);
       Graph dest=new Graph(getSource());
       dest.setPath(tempDirs.getTempDir());
       bfsStep.setDestination(dest);
@@ -159,6 +200,7 @@ public class PageRankAlgorithm extends GraphAlgorithm {
       int step=maxStep;
       while(step>0) {
         bfsStep.execute();
+        resultPath=bfsStep.getDestination().getPath();
         if( bfsStep.isEnd() ) {
           break;
         }            
@@ -169,7 +211,6 @@ public class PageRankAlgorithm extends GraphAlgorithm {
         bfsStep.setDestination(dest);
         step--;
       }
-      bfsStep.stopServer();
       client.close();      
     } catch (IOException e) {
       e.printStackTrace();
@@ -22,6 +22,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.util.ToolRunner;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.pagerank.local.LocalPageRankAlgorithm;
 import org.sf.xrime.algorithms.pagerank.normal.AddPageRankLabelTransformer;
 import org.sf.xrime.algorithms.pagerank.normal.PageRankAlgorithm;
 import org.sf.xrime.algorithms.statistics.VertexEdgeCounter;
@@ -38,6 +39,8 @@ import org.sf.xrime.preprocessing.textadj.TextAdjTransformer;
  */
 public class PageRankRunner extends GraphAlgorithm{
   private boolean isSmth = false;
+  private boolean isSchimmy = false;
+  private boolean isLocal = false;
   private String srcPath = null;
   private String destPath = null;
   
@@ -49,6 +52,10 @@ public class PageRankRunner extends GraphAlgorithm{
 			try {
 				if ("-s".equals(params[i])) {
 					isSmth=true;
+				} else if ("-schimmy".equals(params[i])) {
+					isSchimmy=true;
+				} else if ("-local".equals(params[i])) {
+					isLocal=true;
 				} else {
 					other_args.add(params[i]);
 				}
@@ -148,7 +155,7 @@ public class PageRankRunner extends GraphAlgorithm{
     // }} add label: PageRankLabel
 
     // {{ now, we can execute PageRankAlgorithm
-    PageRankAlgorithm pr = new PageRankAlgorithm();
+    PageRankAlgorithm pr = isLocal ? new LocalPageRankAlgorithm() : new PageRankAlgorithm();
     pr.setConf(context);
     pr.setSrcPath(internalLabelData);
     pr.setDestPath(new Path(destPath));
@@ -157,6 +164,7 @@ public class PageRankRunner extends GraphAlgorithm{
     pr.setMaxStep(150);
     pr.setDampingFactor(1.0);
     pr.setStopThreshold(0.02 / vertexCount); // only a suggestion
+    pr.setSchimmy(isSchimmy);
     pr.execute();
     // }} now, we can execute PageRankAlgorithm
   }
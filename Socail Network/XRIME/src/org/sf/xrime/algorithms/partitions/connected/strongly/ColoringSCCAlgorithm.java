@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.strongly;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.transform.vertex.InAdjVertex2AdjBiSetVertexTransformer;
+import org.sf.xrime.algorithms.transform.vertex.Vertex2LabeledTransformer;
+import org.sf.xrime.algorithms.utils.SchimmyPartitionStep;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.MRConsoleReader;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+
+/**
+ * Algorithm to calculate strongly connected components of a graph by coloring. We assume
+ * the input is the original graph represented with incoming adjacency vertexes lists, and
+ * the output is the same as SCCAlgorithm.
+ * <p>
+ * SCCAlgorithm finds a single SCC around one pivot vertex in each round. Here, every vertex
+ * is a pivot: in each round, the largest vertex id is propagated forward as the color, and
+ * each vertex keeping its own id as the color finds its SCC among the ancestors of the same
+ * color. So, all SCCs whose vertexes have no ancestor with a larger color are found in
+ * the same round, and removed from the graph before next round. Vertexes without incoming
+ * or outgoing edges are removed at the beginning of each round as well, which makes
+ * mostly acyclic graphs shrink fast.
+ * @see ColoringSCCStep
+ */
+public class ColoringSCCAlgorithm extends GraphAlgorithm {
+  /**
+   * Number of rounds of the last execution.
+   */
+  private int rounds = 0;
+  
+  /**
+   * Default constructor.
+   */
+  public ColoringSCCAlgorithm(){
+    super();
+  }
+  
+  public int getRounds() {
+    return rounds;
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    setSource(src);
+    setDestination(dest);
+  }
+  
+  /**
+   * Run one phase of ColoringSCCStep.
+   * @param dirMgr used to generate the output directory.
+   * @param input the input directory.
+   * @param phase the phase.
+   * @return the step, whose destination is the output directory.
+   * @throws IOException
+   * @throws ProcessorExecutionException
+   */
+  private ColoringSCCStep runStep(SequenceTempDirMgr dirMgr, Path input, int phase) 
+      throws IOException, ProcessorExecutionException {
+    ColoringSCCStep step = new ColoringSCCStep();
+    // Inherit settings from this algorithm.
+    step.setConf(context);
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(input);
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(dirMgr.getTempDir());
+    step.setSource(src);
+    step.setDestination(dest);
+    step.setMapperNum(getMapperNum());
+    step.setPhase(phase);
+    step.execute();
+    return step;
+  }
+  
+  /**
+   * Get the value of a counter of ColoringSCCStep, which is absent if zero.
+   * @param step the step.
+   * @param counter name of the counter.
+   * @return the value.
+   * @throws ProcessorExecutionException
+   */
+  private long getCounter(ColoringSCCStep step, String counter) 
+      throws ProcessorExecutionException {
+    long value = MRConsoleReader.getRecordNum(step.getFinalStatus(), 
+        ColoringSCCStep.COUNTER, counter);
+    return value<0 ? 0 : value;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().getParent().toString()+
+          "/scc_coloring_"+getDestination().getPath().getName()+"_";
+
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      Path tmpDir;
+
+      // 1. Transform the incoming adjacency vertexes lists into AdjBiSetVertex.
+      System.out.println("##########>"+dirMgr.getSeqNum()+" Transform input to AdjBiSetVertex");
+      Transformer transformer = new InAdjVertex2AdjBiSetVertexTransformer();
+      transformer.setConf(context);
+      transformer.setSrcPath(getSource().getPath());
+      tmpDir = dirMgr.getTempDir();
+      transformer.setDestPath(tmpDir);
+      transformer.setMapperNum(getMapperNum());
+      transformer.setReducerNum(getReducerNum());
+      transformer.execute();
+      
+      // 2. Transform to LabeledAdjBiSetVertex.
+      System.out.println("##########>"+dirMgr.getSeqNum()+" Transform to LabeledAdjBiSetVertex");
+      Vertex2LabeledTransformer l_transformer = new Vertex2LabeledTransformer();
+      l_transformer.setConf(context);
+      l_transformer.setSrcPath(tmpDir);
+      tmpDir = dirMgr.getTempDir();
+      l_transformer.setDestPath(tmpDir);
+      l_transformer.setMapperNum(getMapperNum());
+      l_transformer.setReducerNum(getReducerNum());
+      l_transformer.setLabelAdderClass(null);
+      l_transformer.setOutputValueClass(LabeledAdjBiSetVertex.class);
+      l_transformer.execute();
+      
+      // 3. Partition the graph once, all steps will keep it partitioned.
+      System.out.println("##########>"+dirMgr.getSeqNum()+" Partition the graph");
+      SchimmyPartitionStep partition = new SchimmyPartitionStep();
+      partition.setConf(context);
+      Graph src = new Graph(Graph.defaultGraph());
+      src.setPath(tmpDir);
+      partition.setSource(src);
+      Graph dest = new Graph(Graph.defaultGraph());
+      tmpDir = dirMgr.getTempDir();
+      dest.setPath(tmpDir);
+      partition.setDestination(dest);
+      partition.setMapperNum(getMapperNum());
+      partition.setReducerNum(getReducerNum());
+      partition.setVertexClass(LabeledAdjBiSetVertex.class);
+      partition.execute();
+      
+      // 4. Peel SCCs round by round, until all are found.
+      rounds = 0;
+      while(true){
+        // 4.1 Remove what was found in last round, and the trivial SCCs.
+        System.out.println("##########>"+dirMgr.getSeqNum()+" Prune found vertexes");
+        ColoringSCCStep step = runStep(dirMgr, tmpDir, ColoringSCCStep.PRUNE);
+        tmpDir = step.getDestination().getPath();
+        
+        // 4.2 Propagate the colors until no one changes.
+        long remaining = -1;
+        long changed = -1;
+        while(changed!=0){
+          System.out.println("##########>"+dirMgr.getSeqNum()+" Propagate colors");
+          step = runStep(dirMgr, tmpDir, ColoringSCCStep.COLOR);
+          tmpDir = step.getDestination().getPath();
+          changed = getCounter(step, ColoringSCCStep.CHANGED);
+          if(remaining<0){
+            remaining = getCounter(step, ColoringSCCStep.REMAINING);
+            System.out.println("##########> Remaining vertexes = " + remaining);
+          }
+        }
+        if(remaining==0){
+          break;
+        }
+        rounds++;
+        
+        // 4.3 Search backward from the roots until no vertex is reached.
+        changed = -1;
+        while(changed!=0){
+          System.out.println("##########>"+dirMgr.getSeqNum()+" Search backward from roots");
+          step = runStep(dirMgr, tmpDir, ColoringSCCStep.BACKWARD);
+          tmpDir = step.getDestination().getPath();
+          changed = getCounter(step, ColoringSCCStep.CHANGED);
+        }
+      }
+      
+      // 5. Every vertex has its FINAL_LABEL now.
+      System.out.println("##########>"+dirMgr.getSeqNum()+" Extract the final partitions");
+      src = new Graph(Graph.defaultGraph());
+      src.setPath(tmpDir);
+      GraphAlgorithm extractor = new ExtractPartitions();
+      extractor.setConf(context);
+      extractor.setSource(src);
+      extractor.setDestination(getDestination());
+      extractor.setMapperNum(getMapperNum());
+      extractor.setReducerNum(1);
+      extractor.execute();
+
+      // Delete all temporary directories.
+      dirMgr.deleteAll();
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new ColoringSCCAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.strongly;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.algorithms.utils.Schimmy;
+import org.sf.xrime.algorithms.utils.SchimmyReducerBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+
+
+/**
+ * One step of ColoringSCCAlgorithm. The source is partitioned by SchimmyPartitionStep,
+ * and only vertex ids are shuffled. Vertexes whose SCC is found carry FINAL_LABEL, and
+ * are kept in the graph without any edge. There are three phases:
+ * <ul>
+ * <li>PRUNE: vertexes found in last round notify their neighbours to drop the edges
+ * to them, and the colors are reset. The vertexes left without any incoming or outgoing
+ * edge are trivial SCCs, and are found at once.</li>
+ * <li>COLOR: every vertex whose color changed sends it to its descendants, and takes
+ * the largest color received. Colors start from the vertex ids.</li>
+ * <li>BACKWARD: every vertex whose color is its own id is a root, the SCC of a root
+ * consists of the ancestors with the same color, reached backward from it.</li>
+ * </ul>
+ * @see "On Identifying Strongly Connected Components in Parallel by L. Fleischer, 
+ * B. Hendrickson and A. Pinar, 2000"
+ */
+public class ColoringSCCStep extends GraphAlgorithm {
+  /**
+   * Phase of this step.
+   */
+  public static final String phaseKey = "xrime.algorithm.scc.coloring.phase";
+  public static final int PRUNE = 0;
+  public static final int COLOR = 1;
+  public static final int BACKWARD = 2;
+  /**
+   * Counter group of this step.
+   */
+  public static final String COUNTER = "scc_coloring";
+  /**
+   * Number of vertexes whose color changed in COLOR phase, or which are reached from
+   * the roots in BACKWARD phase.
+   */
+  public static final String CHANGED = "changed";
+  /**
+   * Number of vertexes whose SCC is not found yet, in COLOR phase. It is counted by the
+   * mappers, since a reducer without any message has no reporter.
+   */
+  public static final String REMAINING = "remaining";
+  
+  private int phase = PRUNE;
+  
+  /**
+   * Default constructor.
+   */
+  public ColoringSCCStep(){
+    super();
+  }
+  
+  public int getPhase() {
+    return phase;
+  }
+
+  public void setPhase(int phase) {
+    this.phase = phase;
+  }
+  
+  /**
+   * Get the current color of a vertex, which is its id if not colored yet.
+   * @param vertex the vertex.
+   * @return the color.
+   */
+  static String getColor(LabeledAdjBiSetVertex vertex){
+    String color = vertex.getStringLabel(ConstantLabels.COLOR_LABEL);
+    return color==null ? vertex.getId() : color;
+  }
+
+  /**
+   * Mapper. Sends vertex ids along the edges according to the phase.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjBiSetVertex, Text, Text>{
+    private int phase;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      phase = job.getInt(phaseKey, PRUNE);
+    }
+
+    @Override
+    public void map(Text key, LabeledAdjBiSetVertex value,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      boolean found = value.getStringLabel(ConstantLabels.FINAL_LABEL)!=null;
+      if(phase==PRUNE){
+        // Only the vertexes found in last round still have edges.
+        if(found){
+          notify(key, value.getForwardVertexes(), output);
+          notify(key, value.getBackwardVertexes(), output);
+        }
+      }else if(phase==COLOR){
+        if(!found){
+          reporter.incrCounter(COUNTER, REMAINING, 1);
+        }
+        // The color is sent when first set, or when changed.
+        if(!found && (value.getStringLabel(ConstantLabels.COLOR_LABEL)==null ||
+            value.getStringLabel(ConstantLabels.COLOR_CHANGED)!=null)){
+          notify(new Text(getColor(value)), value.getForwardVertexes(), output);
+        }
+      }else{
+        // Roots start the backward search, the other ones forward it once reached.
+        boolean root = !found && getColor(value).equals(value.getId());
+        if(root || value.getStringLabel(ConstantLabels.SCC_FRONTIER)!=null){
+          notify(new Text(getColor(value)), value.getBackwardVertexes(), output);
+        }
+      }
+    }
+    
+    private void notify(Text message, Set<AdjVertexEdge> opposites, 
+        OutputCollector<Text, Text> output) throws IOException {
+      for(AdjVertexEdge opp : opposites){
+        output.collect(new Text(opp.getOpposite()), message);
+      }
+    }
+  }
+  
+  /**
+   * Combiner of COLOR phase. Only the largest color sent to a vertex matters.
+   */
+  public static class CombineClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, Text, Text, Text>{
+
+    @Override
+    public void reduce(Text key, Iterator<Text> values, 
+        OutputCollector<Text, Text> output, Reporter reporter) throws IOException {
+      String largest = null;
+      while(values.hasNext()){
+        String curr = values.next().toString();
+        if(largest==null || curr.compareTo(largest) > 0){
+          largest = curr;
+        }
+      }
+      output.collect(key, new Text(largest));
+    }
+  }
+
+  /**
+   * Reducer. Updates the vertexes with the ids received according to the phase.
+   */
+  public static class ReduceClass extends SchimmyReducerBase<Text, LabeledAdjBiSetVertex> {
+    private int phase;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      phase = job.getInt(phaseKey, PRUNE);
+    }
+
+    @Override
+    protected void update(Text key, LabeledAdjBiSetVertex vertex, Iterator<Text> messages,
+        Reporter reporter) throws IOException {
+      if(vertex.getStringLabel(ConstantLabels.FINAL_LABEL)!=null){
+        // Already found, only clear the state once it is pruned.
+        if(phase==PRUNE){
+          vertex.clearForwardVertex();
+          vertex.clearBackwardVertex();
+          vertex.removeLabel(ConstantLabels.COLOR_LABEL);
+          vertex.removeLabel(ConstantLabels.COLOR_CHANGED);
+        }
+        vertex.removeLabel(ConstantLabels.SCC_FRONTIER);
+        return;
+      }
+      if(phase==PRUNE){
+        prune(vertex, messages, reporter);
+      }else if(phase==COLOR){
+        color(vertex, messages, reporter);
+      }else{
+        backward(vertex, messages, reporter);
+      }
+    }
+    
+    private void prune(LabeledAdjBiSetVertex vertex, Iterator<Text> messages,
+        Reporter reporter){
+      while(messages.hasNext()){
+        AdjVertexEdge found = new AdjVertexEdge(messages.next().toString());
+        vertex.removeForwardVertex(found);
+        vertex.removeBackwardVertex(found);
+      }
+      // Colors of last round are meaningless in the remaining graph.
+      vertex.removeLabel(ConstantLabels.COLOR_LABEL);
+      vertex.removeLabel(ConstantLabels.COLOR_CHANGED);
+      // A vertex without incoming or outgoing edges to others is an SCC by itself.
+      AdjVertexEdge loop = new AdjVertexEdge(vertex.getId());
+      int in_degree = vertex.getBackwardVertexes().size();
+      if(vertex.getBackwardVertexes().contains(loop)){
+        in_degree--;
+      }
+      int out_degree = vertex.getForwardVertexes().size();
+      if(vertex.getForwardVertexes().contains(loop)){
+        out_degree--;
+      }
+      if(in_degree==0 || out_degree==0){
+        vertex.setStringLabel(ConstantLabels.FINAL_LABEL, vertex.getId());
+      }
+    }
+    
+    private void color(LabeledAdjBiSetVertex vertex, Iterator<Text> messages,
+        Reporter reporter){
+      String color = getColor(vertex);
+      String largest = color;
+      while(messages.hasNext()){
+        String curr = messages.next().toString();
+        if(curr.compareTo(largest) > 0){
+          largest = curr;
+        }
+      }
+      vertex.setStringLabel(ConstantLabels.COLOR_LABEL, largest);
+      if(largest.equals(color)){
+        vertex.removeLabel(ConstantLabels.COLOR_CHANGED);
+      }else{
+        vertex.setStringLabel(ConstantLabels.COLOR_CHANGED, "changed");
+        reporter.incrCounter(COUNTER, CHANGED, 1);
+      }
+    }
+    
+    private void backward(LabeledAdjBiSetVertex vertex, Iterator<Text> messages,
+        Reporter reporter){
+      String color = getColor(vertex);
+      boolean reached = color.equals(vertex.getId());
+      while(!reached && messages.hasNext()){
+        // Only the ancestors of the same color are in the SCC of the root.
+        reached = messages.next().toString().equals(color);
+      }
+      if(reached){
+        vertex.setStringLabel(ConstantLabels.FINAL_LABEL, color);
+        // The root has sent its color in this step, and is not counted, so that roots
+        // without messages do not need a reporter.
+        if(!color.equals(vertex.getId())){
+          vertex.setStringLabel(ConstantLabels.SCC_FRONTIER, "frontier");
+          reporter.incrCounter(COUNTER, CHANGED, 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, ColoringSCCStep.class);
+      conf.setJobName("ColoringSCCStep");
+      conf.setInt(phaseKey, phase);
+
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setMapOutputValueClass(Text.class);
+      if(phase==COLOR){
+        conf.setCombinerClass(CombineClass.class);
+      }
+      conf.setReducerClass(ReduceClass.class);
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(LabeledAdjBiSetVertex.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      // One reducer per partition, the output is written by reducers as side files.
+      Schimmy.configure(conf, getSource().getPath());
+
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
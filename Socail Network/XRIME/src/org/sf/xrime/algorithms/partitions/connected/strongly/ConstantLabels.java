@@ -30,4 +30,7 @@ public class ConstantLabels {
   public static final String BACKWARD_LABEL = "backward_label";
   public static final String LABEL_FORWARD_DONE = "label_forward_done";
   public static final String LABEL_BACKWARD_DONE = "label_backward_done";
+  public static final String COLOR_LABEL = "color_label";
+  public static final String COLOR_CHANGED = "color_changed";
+  public static final String SCC_FRONTIER = "scc_frontier";
 }
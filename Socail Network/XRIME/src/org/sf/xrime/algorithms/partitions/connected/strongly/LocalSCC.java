@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.strongly;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Used to finish a small remaining graph in the memory of the client, instead of going on
+ * with the trim, pivot and propagation jobs. The SCCs of the graph induced by the vertexes
+ * of the source are found by Tarjan's algorithm, and each vertex is written as a
+ * LabeledAdjBiSetVertex with only the FINAL_LABEL, the same as ExtractSCC does. Edges to
+ * vertexes outside the source are ignored.
+ * @see SCCAlgorithm
+ */
+public class LocalSCC extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public LocalSCC(){
+    super();
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      FileSystem client = FileSystem.get(context);
+      
+      // Load the vertexes, and number them.
+      Map<String, Integer> indexes = new HashMap<String, Integer>();
+      List<String> ids = new ArrayList<String>();
+      List<List<String>> forwards = new ArrayList<List<String>>();
+      Text key = new Text();
+      LabeledAdjBiSetVertex vertex = new LabeledAdjBiSetVertex();
+      for(Path file : SequenceFiles.listDataFiles(client, getSource().getPath())){
+        SequenceFile.Reader reader = new SequenceFile.Reader(client, file, context);
+        try {
+          while(reader.next(key, vertex)){
+            indexes.put(vertex.getId(), ids.size());
+            ids.add(vertex.getId());
+            List<String> forward = new ArrayList<String>();
+            for(AdjVertexEdge edge : vertex.getForwardVertexes()){
+              forward.add(edge.getOpposite());
+            }
+            forwards.add(forward);
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      int vertex_num = ids.size();
+      int[][] successors = new int[vertex_num][];
+      for(int v = 0; v < vertex_num; v++){
+        int[] succ = new int[forwards.get(v).size()];
+        int num = 0;
+        for(String opp : forwards.get(v)){
+          Integer index = indexes.get(opp);
+          if(index != null){
+            succ[num++] = index;
+          }
+        }
+        successors[v] = num == succ.length ? succ : Arrays.copyOf(succ, num);
+      }
+      forwards = null;
+      
+      int[] components = tarjan(successors);
+      
+      // Write the SCC label of each vertex, i.e., the id of the root of its SCC.
+      Path file = new Path(getDestination().getPath(), "part-00000");
+      SequenceFile.Writer writer = SequenceFile.createWriter(client, context, file, 
+          Text.class, LabeledAdjBiSetVertex.class);
+      try {
+        for(int v = 0; v < vertex_num; v++){
+          LabeledAdjBiSetVertex result = new LabeledAdjBiSetVertex();
+          result.setId(ids.get(v));
+          result.setStringLabel(ConstantLabels.FINAL_LABEL, ids.get(components[v]));
+          writer.append(new Text(ids.get(v)), result);
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Tarjan's algorithm, with explicit stacks instead of recursion, so that long paths
+   * do not overflow the stack of the thread.
+   * @param successors successors of each vertex.
+   * @return the root of the SCC of each vertex.
+   */
+  static int[] tarjan(int[][] successors){
+    int vertex_num = successors.length;
+    int[] order = new int[vertex_num];
+    int[] low = new int[vertex_num];
+    int[] components = new int[vertex_num];
+    boolean[] on_stack = new boolean[vertex_num];
+    // SCC stack.
+    int[] stack = new int[vertex_num];
+    int stack_size = 0;
+    // DFS stack of vertexes, and the next successor to visit of each.
+    int[] dfs = new int[vertex_num];
+    int[] next = new int[vertex_num];
+    int counter = 0;
+    Arrays.fill(order, -1);
+    
+    for(int start = 0; start < vertex_num; start++){
+      if(order[start] >= 0){
+        continue;
+      }
+      int depth = 0;
+      dfs[0] = start;
+      next[0] = 0;
+      order[start] = low[start] = counter++;
+      stack[stack_size++] = start;
+      on_stack[start] = true;
+      while(depth >= 0){
+        int v = dfs[depth];
+        if(next[depth] < successors[v].length){
+          int w = successors[v][next[depth]++];
+          if(order[w] < 0){
+            // Go down.
+            order[w] = low[w] = counter++;
+            stack[stack_size++] = w;
+            on_stack[w] = true;
+            depth++;
+            dfs[depth] = w;
+            next[depth] = 0;
+          }else if(on_stack[w]){
+            low[v] = Math.min(low[v], order[w]);
+          }
+          continue;
+        }
+        // All successors visited, pop the SCC if v is its root.
+        if(low[v] == order[v]){
+          int w;
+          do {
+            w = stack[--stack_size];
+            on_stack[w] = false;
+            components[w] = v;
+          } while(w != v);
+        }
+        depth--;
+        if(depth >= 0){
+          int parent = dfs[depth];
+          low[parent] = Math.min(low[parent], low[v]);
+        }
+      }
+    }
+    return components;
+  }
+}
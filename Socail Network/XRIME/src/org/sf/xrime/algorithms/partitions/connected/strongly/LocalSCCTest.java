@@ -0,0 +1,50 @@
+package org.sf.xrime.algorithms.partitions.connected.strongly;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class LocalSCCTest {
+	@Test
+	public void testTarjanCycleAndTail() {
+		// 0 -> 1 -> 2 -> 0 is a cycle, and 2 -> 3 -> 4 is a tail leaving it.
+		int[][] successors = new int[][] {{1}, {2}, {0, 3}, {4}, {}};
+		int[] components = LocalSCC.tarjan(successors);
+		
+		assertEquals(components[0], components[1]);
+		assertEquals(components[0], components[2]);
+		assertTrue(components[0] >= 0 && components[0] <= 2);
+		assertEquals(components[3], 3);
+		assertEquals(components[4], 4);
+	}
+	
+	@Test
+	public void testTarjanTailIntoCycle() {
+		// 0 -> 1 is a tail entering the cycle 1 -> 2 -> 3 -> 1, and 4 is isolated.
+		int[][] successors = new int[][] {{1}, {2}, {3}, {1}, {}};
+		int[] components = LocalSCC.tarjan(successors);
+		
+		assertEquals(components[0], 0);
+		assertEquals(components[1], components[2]);
+		assertEquals(components[1], components[3]);
+		assertTrue(components[1] >= 1 && components[1] <= 3);
+		assertEquals(components[4], 4);
+	}
+	
+	@Test
+	public void testTarjanLongPath() {
+		// A long path must not overflow the stack.
+		int vertex_num = 100000;
+		int[][] successors = new int[vertex_num][];
+		for(int v = 0; v < vertex_num - 1; v++){
+			successors[v] = new int[] {v + 1};
+		}
+		successors[vertex_num - 1] = new int[] {0};
+		int[] components = LocalSCC.tarjan(successors);
+		
+		for(int v = 0; v < vertex_num; v++){
+			assertEquals(components[v], components[0]);
+		}
+	}
+}
@@ -38,7 +38,10 @@ import org.sf.xrime.model.vertex.LabeledAdjBiSetVertex;
 
 /**
  * This algorithm is used to choose the pivot vertex for label propagation. The criteria
- * is to choose the vertex with largest incoming+outgoing degree.
+ * is to choose the vertex with largest incoming+outgoing degree, ties are broken by the
+ * smaller id. Each mapper only emits its own best candidate when it is closed, and the
+ * combiner keeps the best one of each map output, so the single reducer only compares
+ * a few candidates instead of all vertexes.
  * @author xue
  */
 public class PivotChoose extends GraphAlgorithm {
@@ -57,24 +60,85 @@ public class PivotChoose extends GraphAlgorithm {
     super();
   }
   /**
-   * Emit vertex id and incoming+outgoing degree as value. The incoming+outgoing degree
-   * is specified as a label value.
+   * Whether a candidate is better than the best one so far.
+   * @param degree incoming+outgoing degree of the candidate.
+   * @param id id of the candidate.
+   * @param best_degree degree of the best one, -1 if there is none.
+   * @param best_id id of the best one, null if there is none.
+   * @return true if the candidate should replace the best one.
+   */
+  static boolean isBetter(int degree, String id, int best_degree, String best_id){
+    if(best_id==null || degree > best_degree){
+      return true;
+    }
+    return degree==best_degree && id.compareTo(best_id) < 0;
+  }
+  /**
+   * Generate the candidate record, with the incoming+outgoing degree as a label value.
+   * @param id vertex id.
+   * @param degree incoming+outgoing degree.
+   * @return the record.
+   */
+  static LabeledAdjBiSetVertex candidate(String id, int degree){
+    LabeledAdjBiSetVertex result = new LabeledAdjBiSetVertex();
+    result.setId(id);
+    result.setLabel(IN_OUT_DEGREE, new IntWritable(degree));
+    return result;
+  }
+  /**
+   * Keep the vertex with largest incoming+outgoing degree seen by this mapper, and emit
+   * it with the degree as a label value when the mapper is closed.
    * @author xue
    */
   public static class MapClass extends GraphAlgorithmMapReduceBase implements
     Mapper<Text, LabeledAdjBiSetVertex, Text, LabeledAdjBiSetVertex>{
+    private String best_id = null;
+    private int best_degree = -1;
+    private OutputCollector<Text, LabeledAdjBiSetVertex> output = null;
 
     @Override
     public void map(Text key, LabeledAdjBiSetVertex value,
         OutputCollector<Text, LabeledAdjBiSetVertex> output, Reporter reporter)
         throws IOException {
+      this.output = output;
       int in_degree = (value.getBackwardVertexes()==null) ? 0 : value.getBackwardVertexes().size();
       int out_degree = (value.getForwardVertexes()==null) ? 0 : value.getForwardVertexes().size();
-      // Generate the output value.
-      LabeledAdjBiSetVertex result = new LabeledAdjBiSetVertex();
-      result.setId(key.toString());
-      result.setLabel(IN_OUT_DEGREE, new IntWritable(in_degree+out_degree));
-      output.collect(new Text(KEY_PIVOT), result);
+      if(isBetter(in_degree+out_degree, key.toString(), best_degree, best_id)){
+        best_degree = in_degree+out_degree;
+        best_id = key.toString();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Nothing to emit if this mapper got no vertex.
+      if(best_id!=null){
+        output.collect(new Text(KEY_PIVOT), candidate(best_id, best_degree));
+      }
+    }
+  }
+  /**
+   * Combiner. Keep the candidate with largest incoming+outgoing degree.
+   * @author xue
+   */
+  public static class CombineClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, LabeledAdjBiSetVertex, Text, LabeledAdjBiSetVertex>{
+
+    @Override
+    public void reduce(Text key, Iterator<LabeledAdjBiSetVertex> values,
+        OutputCollector<Text, LabeledAdjBiSetVertex> output, Reporter reporter)
+        throws IOException {
+      String pivot_key = null;
+      int largest_value = -1;
+      while(values.hasNext()){
+        LabeledAdjBiSetVertex curr = values.next();
+        int curr_val = ((IntWritable)(curr.getLabel(IN_OUT_DEGREE))).get();
+        if(isBetter(curr_val, curr.getId(), largest_value, pivot_key)){
+          largest_value = curr_val;
+          pivot_key = curr.getId();
+        }
+      }
+      output.collect(key, candidate(pivot_key, largest_value));
     }
   }
   /**
@@ -88,13 +152,13 @@ public class PivotChoose extends GraphAlgorithm {
     public void reduce(Text key, Iterator<LabeledAdjBiSetVertex> values,
         OutputCollector<Text, Text> output, Reporter reporter)
         throws IOException {
-      int largest_value = 0;
+      int largest_value = -1;
       String pivot_key = null;
-      // Loop over all degree values and pick the largest one.
+      // Loop over the candidates of all mappers and pick the largest one.
       while(values.hasNext()){
         LabeledAdjBiSetVertex curr = values.next();
         int curr_val = ((IntWritable)(curr.getLabel(IN_OUT_DEGREE))).get();
-        if(curr_val > largest_value){
+        if(isBetter(curr_val, curr.getId(), largest_value, pivot_key)){
           largest_value = curr_val;
           pivot_key = curr.getId();
         }
@@ -117,7 +181,8 @@ public class PivotChoose extends GraphAlgorithm {
     // the values are chosen vertex id.
     conf.setOutputValueClass(Text.class);
     conf.setMapperClass(MapClass.class);        
-    // Since k2,v2 is different from k3,v3. No combiner is permitted.
+    // Since k2,v2 is different from k3,v3, the combiner is a different class.
+    conf.setCombinerClass(CombineClass.class);
     conf.setReducerClass(ReduceClass.class);
     // The format of input data is generated with WritableSerialization.
     conf.setInputFormat(SequenceFileInputFormat.class);
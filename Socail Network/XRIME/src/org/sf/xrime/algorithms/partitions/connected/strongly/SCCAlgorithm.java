@@ -39,6 +39,10 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 /**
  * Algorithm to calculate strongly connected components of a graph. We assume the input is the original
  * graph represented with incoming adjacency vertexes lists.
+ * <p>
+ * If a local threshold is set, any remaining graph with no more vertexes than it is 
+ * finished by LocalSCC in the memory of the client, instead of going on with more jobs.
+ * @see ColoringSCCAlgorithm
  * @author xue
  */
 public class SCCAlgorithm extends GraphAlgorithm {
@@ -172,9 +176,37 @@ public class SCCAlgorithm extends GraphAlgorithm {
     }else if(graph_size == 1){
       _scc_components.add(_curr_path);
       _curr_path = null;
+    }else if(shouldFinishLocally(graph_size)){
+      finishLocally();
     }
   }
   
+  /**
+   * Find all SCCs of the current graph in memory, and stop the recursion on it.
+   * @throws ProcessorExecutionException
+   */
+  private void finishLocally() throws ProcessorExecutionException {
+    System.out.println("##########>" + _dirMgr.getSeqNum() + " Finish locally");
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(_curr_path);
+    Path tmpDir;
+    try {
+      tmpDir = _dirMgr.getTempDir();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(tmpDir);
+    GraphAlgorithm local_scc = new LocalSCC();
+    local_scc.setConf(context);
+    local_scc.setSource(src);
+    local_scc.setDestination(dest);
+    local_scc.execute();
+    
+    _scc_components.add(tmpDir);
+    _curr_path = null;
+  }
+  
   /**
    * Forward trim.
    * @param dirMgr
@@ -251,6 +283,10 @@ public class SCCAlgorithm extends GraphAlgorithm {
         // Remember this end.
         _curr_path = tmpDir;
       }
+      if(shouldFinishLocally(remaining_graph_size)){
+        finishLocally();
+        break;
+      }
     }
   }
   
@@ -326,6 +362,10 @@ public class SCCAlgorithm extends GraphAlgorithm {
         // Remember this end.
         _curr_path = tmpDir;
       }
+      if(shouldFinishLocally(remaining_graph_size)){
+        finishLocally();
+        break;
+      }
     }
   }
   
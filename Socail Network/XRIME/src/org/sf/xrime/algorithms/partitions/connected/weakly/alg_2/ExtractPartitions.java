@@ -16,8 +16,12 @@
 package org.sf.xrime.algorithms.partitions.connected.weakly.alg_2;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileOutputFormat;
@@ -33,13 +37,20 @@ import org.sf.xrime.algorithms.GraphAlgorithm;
 import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
 import org.sf.xrime.model.Graph;
 import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+import org.sf.xrime.utils.SequenceFiles;
 
 
 /**
  * When the algorithm is finished, this class is used to extract the resulting partitions.
+ * If the parameter LABEL_MAPPING is set, the labels are replaced with the final labels
+ * written by LocalLabelMerge.
  * @author xue
  */
 public class ExtractPartitions extends GraphAlgorithm {
+  /**
+   * The parameter name of the path of final labels, optional.
+   */
+  public static final String LABEL_MAPPING = "label_mapping";
   /**
    * Default constructor.
    */
@@ -48,11 +59,45 @@ public class ExtractPartitions extends GraphAlgorithm {
   }
   public static class MapClass extends GraphAlgorithmMapReduceBase implements
     Mapper<Text, LabeledAdjSetVertex, Text, Text>{
+    /**
+     * Final labels of the labels to be replaced.
+     */
+    private Map<String, String> mapping = new HashMap<String, String>();
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      String mapping_path = context.getParameter(LABEL_MAPPING);
+      if(mapping_path == null){
+        return;
+      }
+      try {
+        Path path = new Path(mapping_path);
+        FileSystem fs = path.getFileSystem(job);
+        for(Path file : SequenceFiles.listDataFiles(fs, path)){
+          SequenceFile.Reader reader = new SequenceFile.Reader(fs, file, job);
+          try {
+            Text label = new Text();
+            Text final_label = new Text();
+            while(reader.next(label, final_label)){
+              mapping.put(label.toString(), final_label.toString());
+            }
+          } finally {
+            reader.close();
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Can not read final labels from " + mapping_path, e);
+      }
+    }
+    
     @Override
     public void map(Text key, LabeledAdjSetVertex value,
         OutputCollector<Text, Text> output, Reporter reporter)
         throws IOException {
-      output.collect(key, new Text(value.getStringLabel(ConstantLabels.LAST_LABEL)));
+      String label = value.getStringLabel(ConstantLabels.LAST_LABEL);
+      String final_label = mapping.get(label);
+      output.collect(key, new Text(final_label == null ? label : final_label));
     }
   }
   
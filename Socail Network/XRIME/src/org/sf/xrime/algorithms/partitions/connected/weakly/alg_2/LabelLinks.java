@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_2;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * Collect the links between labels, i.e., pairs of different labels of adjacent vertexes,
+ * which are in the same weakly connected component. They are merged by LocalLabelMerge,
+ * to finish the propagation in memory once it is nearly converged. The output is pairs of
+ * labels, with the smaller one as the key.
+ */
+public class LabelLinks extends GraphAlgorithm {
+  /**
+   * Default constructor.
+   */
+  public LabelLinks(){
+    super();
+  }
+  
+  /**
+   * Send the label of each vertex to itself and its neighbours.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, LabeledAdjSetVertex, Text, Text>{
+    @Override
+    public void map(Text key, LabeledAdjSetVertex value,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      Text label = new Text(value.getStringLabel(ConstantLabels.LAST_LABEL));
+      output.collect(key, label);
+      for(AdjVertexEdge opposite : value.getOpposites()){
+        output.collect(new Text(opposite.getOpposite()), label);
+      }
+    }
+  }
+  
+  /**
+   * Remove duplicated labels sent to the same vertex.
+   */
+  public static class CombineClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, Text, Text, Text>{
+    @Override
+    public void reduce(Text key, Iterator<Text> values,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      TreeSet<String> labels = new TreeSet<String>();
+      while(values.hasNext()){
+        labels.add(values.next().toString());
+      }
+      for(String label : labels){
+        output.collect(key, new Text(label));
+      }
+    }
+  }
+  
+  /**
+   * All labels around a vertex are in the same component, so link each of them to the
+   * smallest one.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Text, Text, Text, Text>{
+    @Override
+    public void reduce(Text key, Iterator<Text> values,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      TreeSet<String> labels = new TreeSet<String>();
+      while(values.hasNext()){
+        labels.add(values.next().toString());
+      }
+      if(labels.size() < 2){
+        return;
+      }
+      Text smallest = new Text(labels.pollFirst());
+      for(String label : labels){
+        output.collect(smallest, new Text(label));
+      }
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, LabelLinks.class);
+    conf.setJobName("LabelLinks");
+    
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(Text.class);
+    conf.setMapperClass(MapClass.class);
+    conf.setCombinerClass(CombineClass.class);
+    conf.setReducerClass(ReduceClass.class);
+    conf.setInputFormat(SequenceFileInputFormat.class);
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_2;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * Merge the links between labels collected by LabelLinks with union-find in the memory
+ * of the client. The result is the final label, i.e., the smallest label of the merged
+ * set, of each label to be changed, which is used by ExtractPartitions to relabel the
+ * vertexes.
+ */
+public class LocalLabelMerge extends GraphAlgorithm {
+  /**
+   * Parent of each label in the union-find, roots are their own parents.
+   */
+  private Map<String, String> parents = new HashMap<String, String>();
+  
+  /**
+   * Default constructor.
+   */
+  public LocalLabelMerge(){
+    super();
+  }
+  
+  /**
+   * Find the root of a label.
+   * @param label the label.
+   * @return the root.
+   */
+  private String find(String label){
+    String root = label;
+    String parent = parents.get(root);
+    while(parent != null && !parent.equals(root)){
+      root = parent;
+      parent = parents.get(root);
+    }
+    // Path compression.
+    while(!label.equals(root)){
+      String next = parents.get(label);
+      parents.put(label, root);
+      label = next;
+    }
+    return root;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      FileSystem client = FileSystem.get(context);
+      parents.clear();
+      for(Path file : SequenceFiles.listDataFiles(client, getSource().getPath())){
+        SequenceFile.Reader reader = new SequenceFile.Reader(client, file, context);
+        try {
+          Text smaller = new Text();
+          Text larger = new Text();
+          while(reader.next(smaller, larger)){
+            String a = find(smaller.toString());
+            String b = find(larger.toString());
+            // The smaller root wins, as in the propagation.
+            if(a.compareTo(b) < 0){
+              parents.put(b, a);
+              parents.put(a, a);
+            }else if(a.compareTo(b) > 0){
+              parents.put(a, b);
+              parents.put(b, b);
+            }
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      
+      Path file = new Path(getDestination().getPath(), "part-00000");
+      SequenceFile.Writer writer = SequenceFile.createWriter(client, context, file, 
+          Text.class, Text.class);
+      try {
+        for(String label : parents.keySet().toArray(new String[parents.size()])){
+          String root = find(label);
+          if(!root.equals(label)){
+            writer.append(new Text(label), new Text(root));
+          }
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_2;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.model.Graph;
+
+
+public class LocalLabelMergeTest {
+	@Test
+	public void testMerge() throws IOException, ProcessorExecutionException {
+		JobConf conf = new JobConf();
+		FileSystem fs = FileSystem.getLocal(conf);
+		Path dir = new Path(System.getProperty("java.io.tmpdir"), "LocalLabelMergeTest");
+		fs.delete(dir, true);
+		try {
+			// {a, b, c, d} are linked through b and c, {e, f} are apart.
+			Path input = new Path(dir, "input");
+			SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, 
+					new Path(input, "part-00000"), Text.class, Text.class);
+			writer.append(new Text("c"), new Text("d"));
+			writer.append(new Text("e"), new Text("f"));
+			writer.append(new Text("b"), new Text("c"));
+			writer.append(new Text("a"), new Text("c"));
+			writer.close();
+			
+			LocalLabelMerge merge = new LocalLabelMerge();
+			merge.setConf(conf);
+			Graph src = new Graph(Graph.defaultGraph());
+			src.setPath(input);
+			merge.setSource(src);
+			Graph dest = new Graph(Graph.defaultGraph());
+			dest.setPath(new Path(dir, "output"));
+			merge.setDestination(dest);
+			merge.execute();
+			
+			Map<String, String> roots = new HashMap<String, String>();
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, 
+					new Path(dir, "output/part-00000"), conf);
+			Text label = new Text();
+			Text root = new Text();
+			while(reader.next(label, root)){
+				roots.put(label.toString(), root.toString());
+			}
+			reader.close();
+			
+			// Only the labels to be changed are written, mapped to the smallest label.
+			assertEquals(roots.size(), 4);
+			assertEquals(roots.get("b"), "a");
+			assertEquals(roots.get("c"), "a");
+			assertEquals(roots.get("d"), "a");
+			assertEquals(roots.get("f"), "e");
+		} finally {
+			fs.delete(dir, true);
+		}
+	}
+}
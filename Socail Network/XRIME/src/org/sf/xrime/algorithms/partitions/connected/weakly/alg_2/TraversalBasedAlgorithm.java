@@ -34,6 +34,10 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
 /**
  * This class wraps all steps used to determine weakly connected components. We assume the input
  * is a graph represented as outgoing adjacency vertexes lists.
+ * <p>
+ * If a local threshold is set, the propagation stops once no more labels than it changed in
+ * a round. The links between labels are then collected by LabelLinks, and merged by 
+ * LocalLabelMerge in memory, and the final labels are applied by ExtractPartitions.
  * @author xue
  *
  */
@@ -120,6 +124,8 @@ public class TraversalBasedAlgorithm extends GraphAlgorithm {
       long changed_labels = -1;
       // Use to remember the path to the result of last propagation step.
       Path last_propagation_path = tmpDir;
+      // The final labels merged locally, if any.
+      Path label_mapping_path = null;
       do{
         // 2.1 Propagation.
         System.out.println("++++++>"+dirMgr.getSeqNum()+": VertexLabelPropagation");
@@ -146,6 +152,36 @@ public class TraversalBasedAlgorithm extends GraphAlgorithm {
           // The last round of iteratioin finished.
           changed_labels = 0;
         System.out.println("++++++>Number of changed labels:" + changed_labels);
+        
+        // 2.3 Finish locally if nearly converged.
+        if(changed_labels!=0 && shouldFinishLocally(changed_labels)){
+          System.out.println("++++++>"+dirMgr.getSeqNum()+": LabelLinks");
+          GraphAlgorithm links = new LabelLinks();
+          links.setConf(context);
+          src = new Graph(Graph.defaultGraph());
+          src.setPath(last_propagation_path);
+          dest = new Graph(Graph.defaultGraph());
+          tmpDir = dirMgr.getTempDir();
+          dest.setPath(tmpDir);
+          links.setSource(src);
+          links.setDestination(dest);
+          links.setMapperNum(getMapperNum());
+          links.setReducerNum(getReducerNum());
+          links.execute();
+          
+          System.out.println("++++++>"+dirMgr.getSeqNum()+": LocalLabelMerge");
+          GraphAlgorithm merge = new LocalLabelMerge();
+          merge.setConf(context);
+          src = new Graph(Graph.defaultGraph());
+          src.setPath(tmpDir);
+          dest = new Graph(Graph.defaultGraph());
+          label_mapping_path = dirMgr.getTempDir();
+          dest.setPath(label_mapping_path);
+          merge.setSource(src);
+          merge.setDestination(dest);
+          merge.execute();
+          break;
+        }
       }while(changed_labels!=0);
       
       // 3. Summarize the result as VertexSet.
@@ -177,6 +213,9 @@ public class TraversalBasedAlgorithm extends GraphAlgorithm {
       extract.setDestination(dest);
       extract.setMapperNum(getMapperNum());
       extract.setReducerNum(getReducerNum());
+      if(label_mapping_path!=null){
+        extract.setParameter(ExtractPartitions.LABEL_MAPPING, label_mapping_path.toString());
+      }
       extract.execute();
       
       // Delete all temporary directories.
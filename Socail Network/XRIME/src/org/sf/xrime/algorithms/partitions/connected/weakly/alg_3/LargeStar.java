@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_3;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.EdgeSecondarySort;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.Edge;
+
+
+/**
+ * Large-star operation on an edge list: each vertex links all its larger neighbors
+ * (and itself) to the smallest vertex of its neighborhood. Connectivity is kept.
+ * @see "R. Kiveris et al. Connected Components in MapReduce and Beyond. SOCC 2014."
+ */
+public class LargeStar extends GraphAlgorithm {
+  /** Counter of edges moved to a smaller vertex. */
+  public static final String CHANGED_EDGES = "LARGE_STAR_CHANGED_EDGES";
+  
+  /**
+   * Default constructor.
+   */
+  public LargeStar(){
+    super();
+  }
+  
+  /**
+   * Emit each edge in both directions.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, Text, Edge, Text>{
+    @Override
+    public void map(Text key, Text value,
+        OutputCollector<Edge, Text> output, Reporter reporter)
+        throws IOException {
+      output.collect(new Edge(key.toString(), value.toString()), value);
+      output.collect(new Edge(value.toString(), key.toString()), key);
+    }
+  }
+  
+  /**
+   * Neighbors arrive in increasing order, so the first one is the smallest.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase implements
+    Reducer<Edge, Text, Text, Text>{
+    @Override
+    public void reduce(Edge key, Iterator<Text> values,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      Text vertex = new Text(key.getFrom());
+      Text minimal = null;
+      Text last = null;
+      while(values.hasNext()){
+        Text neighbor = values.next();
+        if(last != null && last.equals(neighbor)){
+          // Duplicated edge.
+          continue;
+        }
+        last = new Text(neighbor);
+        if(minimal == null){
+          minimal = vertex.compareTo(last) < 0 ? vertex : last;
+        }
+        if(last.compareTo(vertex) >= 0){
+          output.collect(last, minimal);
+          if(minimal.compareTo(vertex) < 0 && !last.equals(vertex)){
+            reporter.incrCounter("STAR", CHANGED_EDGES, 1);
+          }
+        }
+      }
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+    
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, LargeStar.class);
+    conf.setJobName("LargeStar");
+ 
+    // the keys and values are both vertex ids (strings)
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(Text.class);
+    conf.setMapperClass(MapClass.class);        
+    conf.setReducerClass(ReduceClass.class);
+    EdgeSecondarySort.configure(conf);
+    // makes the file format suitable for machine processing.
+    conf.setInputFormat(SequenceFileInputFormat.class);
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(getReducerNum());
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new LargeStar(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
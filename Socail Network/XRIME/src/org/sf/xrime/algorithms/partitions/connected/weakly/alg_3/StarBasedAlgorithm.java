@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_3;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.utils.MRConsoleReader;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+
+/**
+ * This class wraps all steps used to determine weakly connected components by alternating
+ * large-star and small-star operations on the edge list. We assume the input is a graph
+ * represented as outgoing adjacency vertexes lists. The output is the same as that of
+ * the other algorithms, i.e., each vertex with the smallest vertex id of its component.
+ * <p>
+ * Unlike label propagation, a star operation links vertexes directly to the smallest
+ * vertex found in their neighborhoods, which works like pointer jumping, so the number
+ * of rounds grows with the logarithm of the number of vertexes instead of the diameter.
+ * The neighbors of a vertex are streamed through reducers in sorted order, so no 
+ * reducer holds a neighborhood or a component in memory.
+ * @see LargeStar
+ * @see SmallStar
+ */
+public class StarBasedAlgorithm extends GraphAlgorithm {
+  /** Default constructor.*/
+  public StarBasedAlgorithm(){
+    super();
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+      
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().getParent().toString()+"/wcc_alg3_"+
+                        System.currentTimeMillis()+"_"+getDestination().getPath().getName()+
+                        "_";
+      
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      
+      // 1. Transform input to an edge list.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": EdgeListGenerate");
+      Path last_path = runStep(createEdgeListStep(), getSource().getPath(), dirMgr);
+      
+      // 2. Alternate large-star and small-star until neither changes the edge list.
+      last_path = iterate(last_path, dirMgr);
+      
+      // 3. Extract WCC as partitions.
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": ExtractPartitions");
+      GraphAlgorithm extract = new ExtractPartitions();
+      extract.setConf(context);
+      Graph src = new Graph(Graph.defaultGraph());
+      src.setPath(last_path);
+      Graph dest = new Graph(Graph.defaultGraph());
+      dest.setPath(getDestination().getPath());
+      extract.setSource(src);
+      extract.setDestination(dest);
+      extract.setMapperNum(getMapperNum());
+      extract.setReducerNum(getReducerNum());
+      extract.execute();
+      
+      // Delete all temporary directories.
+      dirMgr.deleteAll();
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Create the step to transform input to an edge list.
+   * @return the step.
+   */
+  protected GraphAlgorithm createEdgeListStep() {
+    return new EdgeListGenerate();
+  }
+  
+  /**
+   * Alternate large-star and small-star on an edge list until it converges into stars.
+   * @param edges path of the edge list.
+   * @param dirMgr temp dirs.
+   * @return path of the converged edge list, where each vertex points to the smallest
+   *         vertex of its component.
+   * @throws IOException
+   * @throws ProcessorExecutionException
+   */
+  public Path iterate(Path edges, SequenceTempDirMgr dirMgr) 
+      throws IOException, ProcessorExecutionException {
+    long changed_edges = -1;
+    do{
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": LargeStar");
+      LargeStar large_star = new LargeStar();
+      edges = runStep(large_star, edges, dirMgr);
+      changed_edges = Math.max(0, MRConsoleReader.getRecordNum(large_star.getFinalStatus(), 
+          "STAR", LargeStar.CHANGED_EDGES));
+      
+      System.out.println("++++++>"+dirMgr.getSeqNum()+": SmallStar");
+      SmallStar small_star = new SmallStar();
+      edges = runStep(small_star, edges, dirMgr);
+      changed_edges += Math.max(0, MRConsoleReader.getRecordNum(small_star.getFinalStatus(), 
+          "STAR", SmallStar.CHANGED_EDGES));
+      System.out.println("++++++>Number of changed edges:" + changed_edges);
+    }while(changed_edges!=0);
+    return edges;
+  }
+  
+  /**
+   * Run a step into a new temp dir.
+   * @param step the step.
+   * @param src source path.
+   * @param dirMgr temp dirs.
+   * @return the new temp dir.
+   * @throws IOException
+   * @throws ProcessorExecutionException
+   */
+  private Path runStep(GraphAlgorithm step, Path src, SequenceTempDirMgr dirMgr) 
+      throws IOException, ProcessorExecutionException {
+    step.setConf(context);
+    Graph src_graph = new Graph(Graph.defaultGraph());
+    src_graph.setPath(src);
+    Graph dest = new Graph(Graph.defaultGraph());
+    Path tmpDir = dirMgr.getTempDir();
+    dest.setPath(tmpDir);
+    step.setSource(src_graph);
+    step.setDestination(dest);
+    step.setMapperNum(getMapperNum());
+    step.setReducerNum(getReducerNum());
+    step.execute();
+    return tmpDir;
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new StarBasedAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
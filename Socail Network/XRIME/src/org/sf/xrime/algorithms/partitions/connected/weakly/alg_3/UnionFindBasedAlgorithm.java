@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+
+
+/**
+ * Weakly connected components with components merged inside each map split before
+ * anything is shuffled. Mappers run union-finds over their splits and only emit the
+ * mapping from vertexes to their representatives, which is then merged by the star
+ * operations as in StarBasedAlgorithm. This pays off when most edges are local to a
+ * split, e.g., replies within a thread.
+ * @see UnionFindEdgeListGenerate
+ */
+public class UnionFindBasedAlgorithm extends StarBasedAlgorithm {
+  /**
+   * Maximal number of vertexes in the union-find of a mapper.
+   */
+  private int maxVertexes=1000000;
+  
+  /** Default constructor.*/
+  public UnionFindBasedAlgorithm(){
+    super();
+  }
+  
+  public int getMaxVertexes() {
+    return maxVertexes;
+  }
+
+  public void setMaxVertexes(int maxVertexes) {
+    this.maxVertexes = maxVertexes;
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    try {
+      for(int i=0; i < params.length; i++) {
+        if ("-max".equals(params[i])) {
+          setMaxVertexes(Integer.parseInt(params[++i]));
+        } else {
+          other_args.add(params[i]);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    super.setArguments(other_args.toArray(new String[other_args.size()]));
+  }
+  
+  @Override
+  protected GraphAlgorithm createEdgeListStep() {
+    UnionFindEdgeListGenerate step = new UnionFindEdgeListGenerate();
+    step.setMaxVertexes(maxVertexes);
+    return step;
+  }
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new UnionFindBasedAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.alg_3;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjVertex;
+
+
+/**
+ * Turn outgoing adjacency vertexes lists into an edge list, merging components inside
+ * each map split first. Each mapper runs a union-find over the edges of its split, and
+ * only emits an edge from each vertex to the representative of its component in the 
+ * split, i.e., the smallest vertex of it. Components spanning splits are then merged
+ * by the star operations.
+ * <p>
+ * The union-find holds the vertexes seen by a mapper. When it reaches the size limit,
+ * it is emitted and cleared, so memory stays bounded on large splits.
+ */
+public class UnionFindEdgeListGenerate extends GraphAlgorithm {
+  /** Key in JobConf for the maximal number of vertexes in a union-find. */
+  public static final String maxVertexesKey = "xrime.algorithm.wcc.unionfind.max";
+  /** Counter of vertexes emitted by mappers. */
+  public static final String EMITTED_VERTEXES = "UNION_FIND_EMITTED_VERTEXES";
+  
+  /**
+   * Maximal number of vertexes in a union-find.
+   */
+  private int maxVertexes=1000000;
+  
+  /**
+   * Default constructor.
+   */
+  public UnionFindEdgeListGenerate(){
+    super();
+  }
+  
+  public int getMaxVertexes() {
+    return maxVertexes;
+  }
+
+  public void setMaxVertexes(int maxVertexes) {
+    this.maxVertexes = maxVertexes;
+  }
+
+  public static class MapClass extends GraphAlgorithmMapReduceBase implements
+    Mapper<Text, AdjVertex, Text, Text>{
+    private int max_vertexes;
+    /**
+     * Parent of each vertex in the union-find, roots are their own parents.
+     */
+    private Map<String, String> parents = new HashMap<String, String>();
+    private OutputCollector<Text, Text> output = null;
+    private Reporter reporter = Reporter.NULL;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      max_vertexes = job.getInt(maxVertexesKey, 1000000);
+    }
+    
+    @Override
+    public void map(Text key, AdjVertex value,
+        OutputCollector<Text, Text> output, Reporter reporter)
+        throws IOException {
+      this.output = output;
+      this.reporter = reporter;
+      String id = key.toString();
+      find(id);
+      for(Edge edge : value.getEdges()){
+        union(id, edge.getTo());
+      }
+      if(parents.size() >= max_vertexes){
+        flush();
+      }
+    }
+    
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+    
+    /**
+     * Find the root of a vertex, adding it if it's not seen before.
+     * @param id the vertex.
+     * @return the root.
+     */
+    private String find(String id) {
+      String parent = parents.get(id);
+      if(parent == null){
+        parents.put(id, id);
+        return id;
+      }
+      while(!parent.equals(id)){
+        // Path halving.
+        String grand_parent = parents.get(parent);
+        parents.put(id, grand_parent);
+        id = grand_parent;
+        parent = parents.get(id);
+      }
+      return id;
+    }
+    
+    /**
+     * Merge the components of two vertexes, the smaller root is kept.
+     */
+    private void union(String a, String b) {
+      String root_a = find(a);
+      String root_b = find(b);
+      int cmp = new Text(root_a).compareTo(new Text(root_b));
+      if(cmp < 0){
+        parents.put(root_b, root_a);
+      }else if(cmp > 0){
+        parents.put(root_a, root_b);
+      }
+    }
+    
+    /**
+     * Emit an edge from each vertex to its root, and clear the union-find.
+     */
+    private void flush() throws IOException {
+      if(output == null){
+        return;
+      }
+      for(String id : parents.keySet()){
+        output.collect(new Text(id), new Text(find(id)));
+      }
+      reporter.incrCounter("STAR", EMITTED_VERTEXES, parents.size());
+      parents.clear();
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+                         params.length + " instead of 2.");
+    }
+    
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    
+    setSource(src);
+    setDestination(dest);
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf conf = new JobConf(context, UnionFindEdgeListGenerate.class);
+    conf.setJobName("UnionFindEdgeListGenerate");
+    conf.setInt(maxVertexesKey, maxVertexes);
+ 
+    // the keys and values are both vertex ids (strings)
+    conf.setOutputKeyClass(Text.class);
+    conf.setOutputValueClass(Text.class);
+    conf.setMapperClass(MapClass.class);        
+    // makes the file format suitable for machine processing.
+    conf.setInputFormat(SequenceFileInputFormat.class);
+    conf.setOutputFormat(SequenceFileOutputFormat.class);
+    try {
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+    } catch (IllegalAccessException e1) {
+      throw new ProcessorExecutionException(e1);
+    }
+    conf.setNumMapTasks(getMapperNum());
+    conf.setNumReduceTasks(0);
+    
+    try {
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new UnionFindEdgeListGenerate(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.partitions.connected.weakly.bsp;
+
+import org.sf.xrime.algorithms.bsp.BSPAlgorithm;
+import org.sf.xrime.algorithms.bsp.MessageCombiner;
+import org.sf.xrime.algorithms.bsp.VertexContext;
+import org.sf.xrime.algorithms.bsp.VertexProgram;
+import org.sf.xrime.algorithms.partitions.connected.weakly.alg_2.ConstantLabels;
+import org.sf.xrime.model.vertex.LabeledAdjSetVertex;
+
+
+/**
+ * Weakly connected components by label propagation, run by BSPEngine. It takes 
+ * LabeledAdjSetVertex, and sets the same labels as alg_2.TraversalBasedAlgorithm: 
+ * ConstantLabels.LAST_LABEL of each vertex is the minimal id in its component, so 
+ * that the output can be fed to alg_2.ExtractPartitions. 
+ * <p>
+ * Each vertex starts with its LAST_LABEL (or its id if absent), and sends it along
+ * outgoing and incoming edges. A vertex which gets a smaller label takes it and sends
+ * it on, all vertexes vote to halt after each superstep.
+ */
+public class LabelPropagationAlgorithm extends BSPAlgorithm<LabeledAdjSetVertex, String> {
+  @Override
+  protected VertexProgram<LabeledAdjSetVertex, String> createProgram() {
+    return new LabelPropagationProgram();
+  }
+  
+  /**
+   * The vertex program of label propagation. Messages are labels.
+   */
+  public static class LabelPropagationProgram extends VertexProgram<LabeledAdjSetVertex, String> {
+    @Override
+    public void compute(VertexContext<LabeledAdjSetVertex, String> context,
+        Iterable<String> messages) {
+      LabeledAdjSetVertex vertex = context.getVertex();
+      String last_label = vertex.getStringLabel(ConstantLabels.LAST_LABEL);
+      if(last_label == null) {
+        last_label = vertex.getId();
+      }
+      
+      boolean changed = context.getSuperstep() == 0;
+      for(String label : messages) {
+        if(label.compareTo(last_label) < 0) {
+          last_label = label;
+          changed = true;
+        }
+      }
+      
+      if(changed) {
+        vertex.setStringLabel(ConstantLabels.LAST_LABEL, last_label);
+        // Converged when the computation ends.
+        vertex.setStringLabel(ConstantLabels.LABEL_BEFORE_LAST, last_label);
+        context.sendMessageToOutNeighbors(last_label);
+        context.sendMessageToInNeighbors(last_label);
+      }
+      context.voteToHalt();
+    }
+
+    @Override
+    public MessageCombiner<String> getCombiner() {
+      return new MessageCombiner<String>() {
+        public String combine(String a, String b) {
+          return a.compareTo(b) <= 0 ? a : b;
+        }
+      };
+    }
+
+    @Override
+    public boolean usesInEdges() {
+      return true;
+    }
+  }
+}
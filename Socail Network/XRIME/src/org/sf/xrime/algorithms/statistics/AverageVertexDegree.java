@@ -21,6 +21,7 @@ import java.util.Iterator;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileOutputFormat;
@@ -36,11 +37,13 @@ import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
 import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
 import org.sf.xrime.model.Graph;
-import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.VertexUtils;
 
 
 /**
  * Calculate average degree of vertexes in the graph.
+ * The input is either keyed by vertex names, of AdjVertex, or dictionary encoded, of
+ * IdAdjVertex or IdAdjSetVertex.
  */
 public class AverageVertexDegree extends GraphAlgorithm{
   /**
@@ -53,14 +56,14 @@ public class AverageVertexDegree extends GraphAlgorithm{
    * Emit the degree of each vertex.
    */
   public static class MapClass extends GraphAlgorithmMapReduceBase
-    implements Mapper<Text, AdjVertex, Text, IntWritable> {
+    implements Mapper<Writable, Writable, Text, IntWritable> {
     
-    public void map(Text key, AdjVertex value, 
+    public void map(Writable key, Writable value, 
                     OutputCollector<Text, IntWritable> output, 
                     Reporter reporter) throws IOException {
       // Get the degree from the input adjacent vertexes list.
       output.collect(new Text("Average_Degree"), new IntWritable(
-          (value.getEdges()==null)?0:value.getEdges().size()));
+          VertexUtils.getDegree(value)));
       }
   }
   
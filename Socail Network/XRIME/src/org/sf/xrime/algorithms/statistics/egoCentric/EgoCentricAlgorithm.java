@@ -30,9 +30,9 @@ import org.apache.hadoop.mapred.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.statistics.triangle.TriangleCountAlgorithm;
+import org.sf.xrime.algorithms.statistics.triangle.TriangleEnumerateStep;
 import org.sf.xrime.model.Graph;
-import org.sf.xrime.model.edge.Edge;
-import org.sf.xrime.model.vertex.AdjSetVertex;
 import org.sf.xrime.model.vertex.LabeledAdjVertex;
 import org.sf.xrime.utils.SequenceTempDirMgr;
 
@@ -40,6 +40,7 @@ import org.sf.xrime.utils.SequenceTempDirMgr;
  * Algorithm to compute density of EgoCentric network. 
  * In SNA, the analysis concerned with the density of links surrounding particular agents is called EgoCentric approach.
  * EgoCentricAlgorithm computes information which would be used to deduce EgoCentric density.
+ * The arcs among the successors of each vertex are found by TriangleEnumerateStep.
  */
 public class EgoCentricAlgorithm extends GraphAlgorithm {
 	static final public String egoCentricLabelKey = "xrime.algorithm.EgoCentric.label";
@@ -133,27 +134,28 @@ public class EgoCentricAlgorithm extends GraphAlgorithm {
 			}
 			tempDirs.setFileSystem(FileSystem.get(jobConf));
 
-			jobConf.setJobName("EgoCentric");
-
 			// {{ First step, compute A --> <B, C>
-
-			jobConf.setMapperClass(EgoCentricMapper.class);
-			jobConf.setReducerClass(EgoCentricReducer.class);
-
-			jobConf.setMapOutputValueClass(AdjSetVertex.class);
-			jobConf.setOutputKeyClass(Text.class);
-			jobConf.setOutputValueClass(Edge.class);
-
-			FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+			// Each arc B --> C of the ego-centric network of A closes a triangle with A,
+			// so the arcs are found by triangle enumeration.
+			TriangleCountAlgorithm triangles = new TriangleCountAlgorithm();
+			triangles.setConf(context);
+			triangles.setSource(context.getSource());
+			triangles.setMapperNum(context.getMapperNum());
+			triangles.setReducerNum(context.getReducerNum());
+			Graph oriented = new Graph(Graph.defaultGraph());
+			oriented.setPath(triangles.orient(tempDirs));
+
+			TriangleEnumerateStep enumerate = new TriangleEnumerateStep();
+			enumerate.setConf(context);
+			enumerate.setSource(oriented);
 			Path middleResult = tempDirs.getTempDir();
-			FileOutputFormat.setOutputPath(jobConf, middleResult);
-			
-			jobConf.setNumReduceTasks(context.getReducerNum());
-
-			jobConf.setInputFormat(SequenceFileInputFormat.class);
-			jobConf.setOutputFormat(SequenceFileOutputFormat.class);
-
-			JobClient.runJob(jobConf);
+			Graph middle = new Graph(Graph.defaultGraph());
+			middle.setPath(middleResult);
+			enumerate.setDestination(middle);
+			enumerate.setMapperNum(context.getMapperNum());
+			enumerate.setReducerNum(context.getReducerNum());
+			enumerate.setEgo(true);
+			enumerate.execute();
 			// }} First step
 
 			// {{ Second step, add first step result to source graph
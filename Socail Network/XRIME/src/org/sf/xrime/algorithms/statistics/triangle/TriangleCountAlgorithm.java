@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.utils.MRConsoleReader;
+import org.sf.xrime.utils.SequenceTempDirMgr;
+
+/**
+ * Count triangles of each vertex in the undirected graph underlying outgoing adjacency
+ * lists. The output is TriangleLabel of each vertex, with the triangle count, degree and
+ * local clustering coefficient. The global transitivity, i.e., three times the number of
+ * triangles over the number of connected triples, is available after execution.
+ * <p>
+ * Lines are oriented from lower degree to higher degree, so that each vertex only keeps
+ * its neighbors of higher degree, and triangles are found by intersecting sorted lists of
+ * such neighbors. Hubs thus keep few neighbors, and no work is cubic in degree.
+ * @see "Counting Triangles and the Curse of the Last Reducer by S. Suri and 
+ * S. Vassilvitskii, 2011"
+ */
+public class TriangleCountAlgorithm extends GraphAlgorithm {
+  /**
+   * Sum of triangle counts of all vertexes of the last execution.
+   */
+  private long triangles = -1;
+  /**
+   * Number of connected triples of the last execution.
+   */
+  private long triples = -1;
+  
+  /**
+   * @return the number of triangles of the graph, -1 before execution.
+   */
+  public long getTriangles() {
+    return triangles < 0 ? -1 : triangles / 3;
+  }
+  
+  /**
+   * @return the number of connected triples, i.e., paths of length two, -1 before execution.
+   */
+  public long getTriples() {
+    return triples;
+  }
+  
+  /**
+   * @return the transitivity of the graph, -1 before execution.
+   */
+  public double getTransitivity() {
+    if(triangles < 0 || triples < 0) {
+      return -1;
+    }
+    return triples == 0 ? 0 : (double) triangles / triples;
+  }
+
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    // Make sure there are exactly 2 parameters left.
+    if (params.length != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          params.length + " instead of 2.");
+    }
+
+    // Configure the algorithm instance.
+    Graph src = new Graph(Graph.defaultGraph());
+    src.setPath(new Path(params[0]));
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(new Path(params[1]));
+    setSource(src);
+    setDestination(dest);
+  }
+  
+  /**
+   * Transform the source into TriangleVertex with only neighbors ranking higher, as the
+   * input of TriangleEnumerateStep.
+   * @param dirMgr temp dirs.
+   * @return the oriented graph.
+   * @throws IOException
+   * @throws IllegalAccessException
+   * @throws ProcessorExecutionException
+   */
+  public Path orient(SequenceTempDirMgr dirMgr) 
+      throws IOException, IllegalAccessException, ProcessorExecutionException {
+    System.out.println("++++++>" + dirMgr.getSeqNum() + ": TriangleNeighborsStep");
+    GraphAlgorithm neighbors = new TriangleNeighborsStep();
+    neighbors.setConf(context);
+    neighbors.setSource(getSource());
+    Graph dest = new Graph(Graph.defaultGraph());
+    dest.setPath(dirMgr.getTempDir());
+    neighbors.setDestination(dest);
+    neighbors.setMapperNum(getMapperNum());
+    neighbors.setReducerNum(getReducerNum());
+    neighbors.execute();
+    
+    System.out.println("++++++>" + dirMgr.getSeqNum() + ": TriangleOrientStep");
+    GraphAlgorithm orient = new TriangleOrientStep();
+    orient.setConf(context);
+    orient.setSource(dest);
+    dest = new Graph(Graph.defaultGraph());
+    dest.setPath(dirMgr.getTempDir());
+    orient.setDestination(dest);
+    orient.setMapperNum(getMapperNum());
+    orient.setReducerNum(getReducerNum());
+    orient.execute();
+    return dest.getPath();
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      if(getSource().getPaths()==null||getSource().getPaths().size()==0||
+          getDestination().getPaths()==null||getDestination().getPaths().size()==0){
+        throw new ProcessorExecutionException("No input and/or output paths specified.");
+      }
+      
+      // The prefix used by temp directories which store intermediate results of each steps.
+      String temp_dir_prefix = getDestination().getPath().getParent().toString()+"/triangle_"+
+          System.currentTimeMillis()+"_"+getDestination().getPath().getName()+"_";
+      // Create the temporary directory manager.
+      SequenceTempDirMgr dirMgr = new SequenceTempDirMgr(temp_dir_prefix, context);
+      // Sequence number begins with zero.
+      dirMgr.setSeqNum(0);
+      
+      Graph src = new Graph(Graph.defaultGraph());
+      src.setPath(orient(dirMgr));
+      
+      System.out.println("++++++>" + dirMgr.getSeqNum() + ": TriangleEnumerateStep");
+      GraphAlgorithm enumerate = new TriangleEnumerateStep();
+      enumerate.setConf(context);
+      enumerate.setSource(src);
+      Graph dest = new Graph(Graph.defaultGraph());
+      dest.setPath(dirMgr.getTempDir());
+      enumerate.setDestination(dest);
+      enumerate.setMapperNum(getMapperNum());
+      enumerate.setReducerNum(getReducerNum());
+      enumerate.execute();
+      
+      System.out.println("++++++>" + dirMgr.getSeqNum() + ": TriangleSumStep");
+      GraphAlgorithm sum = new TriangleSumStep();
+      sum.setConf(context);
+      sum.setSource(dest);
+      sum.setDestination(getDestination());
+      sum.setMapperNum(getMapperNum());
+      sum.setReducerNum(getReducerNum());
+      sum.execute();
+      
+      // Absent counters mean no vertex or no triangle.
+      triangles = Math.max(0, MRConsoleReader.getRecordNum(sum.getFinalStatus(), 
+          TriangleSumStep.TRIANGLE_COUNTER, TriangleSumStep.TRIANGLES));
+      triples = Math.max(0, MRConsoleReader.getRecordNum(sum.getFinalStatus(), 
+          TriangleSumStep.TRIANGLE_COUNTER, TriangleSumStep.TRIPLES));
+      System.out.println("Triangles: " + getTriangles() + ", transitivity: " + getTransitivity());
+      
+      // Delete all temporary directories.
+      dirMgr.deleteAll();
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new TriangleCountAlgorithm(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
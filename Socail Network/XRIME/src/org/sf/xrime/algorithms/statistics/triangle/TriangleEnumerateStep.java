@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.EdgeSecondarySort;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.Edge;
+
+/**
+ * Enumerate triangles of the graph oriented by TriangleOrientStep. Each vertex sends its
+ * higher neighbors to each of them, and each vertex intersects the received sorted lists
+ * with its own, by merging. A common neighbor closes a triangle, which is found only at
+ * its vertex of the middle rank. The lists are sorted after the vertex itself, so they 
+ * are intersected as they stream past and never held together.
+ * <p>
+ * By default, partial triangle counts are accumulated in memory for up to maxCountsKey
+ * vertexes and written as TriangleLabel, to be summed up by TriangleSumStep. In ego mode,
+ * for each vertex of each triangle with arcs to both other vertexes, the arcs between the
+ * other two vertexes are written as Edge with the vertex as the key, which are the arcs of
+ * its ego-centric network.
+ */
+public class TriangleEnumerateStep extends GraphAlgorithm {
+  /**
+   * Maximal number of vertexes whose partial counts are kept by a reducer.
+   */
+  public static final String maxCountsKey = "xrime.algorithm.triangle.counts.max";
+  /**
+   * Whether to write the arcs of ego-centric networks instead of counts.
+   */
+  public static final String egoKey = "xrime.algorithm.triangle.ego";
+  
+  /** Sorted before the lists of lower neighbors, so that the vertex arrives first. */
+  private static final String SELF_TAG = "0";
+  /** Tag of the lists of lower neighbors. */
+  private static final String LOWER_TAG = "1";
+  
+  private boolean ego = false;
+  
+  public boolean isEgo() {
+    return ego;
+  }
+
+  public void setEgo(boolean ego) {
+    this.ego = ego;
+  }
+
+  /**
+   * Mapper. Tell each higher neighbor my higher neighbors.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase
+      implements Mapper<Text, TriangleVertex, Edge, TriangleVertex> {
+
+    @Override
+    public void map(Text key, TriangleVertex value,
+        OutputCollector<Edge, TriangleVertex> output, Reporter reporter)
+        throws IOException {
+      String[] neighbors = value.getNeighbors();
+      // A vertex with less than two higher neighbors could not be the lowest one of a
+      // triangle.
+      if(neighbors.length > 1) {
+        for(String neighbor : neighbors) {
+          output.collect(new Edge(neighbor, LOWER_TAG), value);
+        }
+      }
+      output.collect(new Edge(key.toString(), SELF_TAG), value);
+    }
+  }
+  
+  /**
+   * Reducer. Find triangles in which this vertex is of the middle rank.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+      implements Reducer<Edge, TriangleVertex, Text, Writable> {
+    private boolean ego = false;
+    private int maxCounts = 0;
+    private Map<String, TriangleLabel> counts = new HashMap<String, TriangleLabel>();
+    private OutputCollector<Text, Writable> output = null;
+    
+    @Override
+    public void configure(JobConf job) {
+      super.configure(job);
+      ego = job.getBoolean(egoKey, false);
+      maxCounts = job.getInt(maxCountsKey, 100000);
+    }
+
+    @Override
+    public void reduce(Edge key, Iterator<TriangleVertex> values,
+        OutputCollector<Text, Writable> output, Reporter reporter)
+        throws IOException {
+      this.output = output;
+      if(!values.hasNext()) {
+        return;
+      }
+      // The value object is reused by the iterator.
+      TriangleVertex myself = new TriangleVertex(values.next());
+      if(!myself.getId().equals(key.getFrom())) {
+        // Lists sent to a vertex absent from the graph.
+        return;
+      }
+      
+      String[] highers = myself.getNeighbors();
+      long found = 0;
+      while(values.hasNext()) {
+        TriangleVertex lower = values.next();
+        String[] candidates = lower.getNeighbors();
+        int i = 0;
+        int j = 0;
+        while(i < candidates.length && j < highers.length) {
+          int cmp = candidates[i].compareTo(highers[j]);
+          if(cmp < 0) {
+            i++;
+          } else if(cmp > 0) {
+            j++;
+          } else {
+            // A triangle of lower, myself and the common neighbor.
+            if(ego) {
+              emitEgo(lower.getId(), lower.getDirection(myself.getId()), myself.getId(),
+                  lower.getDirections()[i], highers[j], myself.getDirections()[j]);
+            } else {
+              count(lower.getId(), 0, 1);
+              count(highers[j], 0, 1);
+            }
+            found++;
+            i++;
+            j++;
+          }
+        }
+        reporter.progress();
+      }
+      
+      if(!ego) {
+        count(myself.getId(), myself.getDegree(), found);
+      }
+    }
+    
+    /**
+     * Write the arcs of ego-centric networks within a triangle.
+     * @param low the vertex of the lowest rank.
+     * @param lowToMid directions from low to mid.
+     * @param mid the vertex of the middle rank.
+     * @param lowToHigh directions from low to high.
+     * @param high the vertex of the highest rank.
+     * @param midToHigh directions from mid to high.
+     * @throws IOException
+     */
+    private void emitEgo(String low, byte lowToMid, String mid, byte lowToHigh, 
+        String high, byte midToHigh) throws IOException {
+      if((lowToMid & TriangleVertex.OUT) != 0 && (lowToHigh & TriangleVertex.OUT) != 0) {
+        emitArcs(low, mid, high, midToHigh);
+      }
+      if((lowToMid & TriangleVertex.IN) != 0 && (midToHigh & TriangleVertex.OUT) != 0) {
+        emitArcs(mid, low, high, lowToHigh);
+      }
+      if((lowToHigh & TriangleVertex.IN) != 0 && (midToHigh & TriangleVertex.IN) != 0) {
+        emitArcs(high, low, mid, lowToMid);
+      }
+    }
+    
+    private void emitArcs(String ego, String from, String to, byte directions) 
+        throws IOException {
+      Text key = new Text(ego);
+      if((directions & TriangleVertex.OUT) != 0) {
+        output.collect(key, new Edge(from, to));
+      }
+      if((directions & TriangleVertex.IN) != 0) {
+        output.collect(key, new Edge(to, from));
+      }
+    }
+    
+    private void count(String id, int degree, long triangles) throws IOException {
+      TriangleLabel label = counts.get(id);
+      if(label == null) {
+        if(counts.size() >= maxCounts) {
+          flush();
+        }
+        counts.put(id, new TriangleLabel(degree, triangles));
+      } else {
+        label.add(new TriangleLabel(degree, triangles));
+      }
+    }
+    
+    private void flush() throws IOException {
+      for(Map.Entry<String, TriangleLabel> entry : counts.entrySet()) {
+        output.collect(new Text(entry.getKey()), entry.getValue());
+      }
+      counts.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+      if(output != null) {
+        flush();
+      }
+      super.close();
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, TriangleEnumerateStep.class);
+      conf.setJobName("TriangleEnumerate");
+      conf.setBoolean(egoKey, ego);
+      
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setMapOutputKeyClass(Edge.class);
+      conf.setMapOutputValueClass(TriangleVertex.class);
+      // Group by vertexes, with the vertexes themselves sorted first.
+      conf.setPartitionerClass(EdgeSecondarySort.FromPartitioner.class);
+      conf.setOutputValueGroupingComparator(EdgeSecondarySort.FromComparator.class);
+      conf.setReducerClass(ReduceClass.class);
+      conf.setNumReduceTasks(getReducerNum());
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(ego ? Edge.class : TriangleLabel.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      conf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Triangle count of a vertex, together with its degree in the undirected graph, from 
+ * which the local clustering coefficient is derived.
+ */
+public class TriangleLabel implements Cloneable, Writable {
+  static final public String triangleLabelKey = "xrime.algorithm.triangle.label";
+  
+  private int degree;
+  private long triangles;
+  
+  static {
+    // Register the factory.
+    WritableFactories.setFactory
+          (TriangleLabel.class,
+           new WritableFactory() {
+               public Writable newInstance() { return new TriangleLabel(); }
+           });
+  }
+  
+  public TriangleLabel() {
+    degree=0;
+    triangles=0;
+  }
+  
+  public TriangleLabel(int degree, long triangles) {
+    this.degree=degree;
+    this.triangles=triangles;
+  }
+  
+  public TriangleLabel(TriangleLabel label) {
+    this(label.getDegree(), label.getTriangles());
+  }
+
+  public int getDegree() {
+    return degree;
+  }
+
+  public void setDegree(int degree) {
+    this.degree = degree;
+  }
+
+  public long getTriangles() {
+    return triangles;
+  }
+
+  public void setTriangles(long triangles) {
+    this.triangles = triangles;
+  }
+  
+  /**
+   * Add up partial counts of the same vertex.
+   * @param label partial count.
+   */
+  public void add(TriangleLabel label) {
+    degree=Math.max(degree, label.getDegree());
+    triangles+=label.getTriangles();
+  }
+  
+  /**
+   * @return number of pairs of neighbors.
+   */
+  public long getTriples() {
+    return (long) degree*(degree-1)/2;
+  }
+  
+  /**
+   * @return fraction of pairs of neighbors which are adjacent, 0 if there is no pair.
+   */
+  public double getClusteringCoefficient() {
+    long triples=getTriples();
+    return triples==0 ? 0 : (double) triangles/triples;
+  }
+    
+  public String toString() {
+    return "<" + degree + ", " + triangles + ", " + getClusteringCoefficient() + ">";
+  }
+  
+  public Object clone() {
+    return new TriangleLabel(this);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    degree=WritableUtils.readVInt(in);
+    triangles=WritableUtils.readVLong(in);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    WritableUtils.writeVInt(out, degree);
+    WritableUtils.writeVLong(out, triangles);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjVertex;
+
+/**
+ * Collect the undirected neighborhood of each vertex from outgoing adjacency lists, with
+ * the directions of arcs to each neighbor. Self loops are ignored.
+ */
+public class TriangleNeighborsStep extends GraphAlgorithm {
+  
+  public static class MapClass extends GraphAlgorithmMapReduceBase
+      implements Mapper<Text, AdjVertex, Text, TriangleVertex> {
+
+    @Override
+    public void map(Text key, AdjVertex value,
+        OutputCollector<Text, TriangleVertex> output, Reporter reporter)
+        throws IOException {
+      TreeMap<String, Byte> tos = new TreeMap<String, Byte>();
+      TriangleVertex notifier = new TriangleVertex();
+      TreeMap<String, Byte> from = new TreeMap<String, Byte>();
+      from.put(value.getId(), TriangleVertex.IN);
+      notifier.setNeighbors(from);
+      for(Edge edge : value.getEdges()) {
+        String to = edge.getTo();
+        if(to.equals(value.getId())) {
+          continue;
+        }
+        tos.put(to, TriangleVertex.OUT);
+        // Tell the remote end about the arc.
+        notifier.setId(to);
+        output.collect(new Text(to), notifier);
+      }
+      
+      // Make myself shown, even if isolated.
+      TriangleVertex myself = new TriangleVertex(value.getId());
+      myself.setNeighbors(tos);
+      output.collect(key, myself);
+    }
+  }
+  
+  /**
+   * Merge the neighbors of a vertex. Also used as the combiner.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+      implements Reducer<Text, TriangleVertex, Text, TriangleVertex> {
+
+    @Override
+    public void reduce(Text key, Iterator<TriangleVertex> values,
+        OutputCollector<Text, TriangleVertex> output, Reporter reporter)
+        throws IOException {
+      TreeMap<String, Byte> directions = new TreeMap<String, Byte>();
+      while(values.hasNext()) {
+        TriangleVertex vertex = values.next();
+        String[] neighbors = vertex.getNeighbors();
+        for(int i = 0; i < neighbors.length; i++) {
+          Byte direction = directions.get(neighbors[i]);
+          byte merged = vertex.getDirections()[i];
+          if(direction != null) {
+            merged |= direction;
+          }
+          directions.put(neighbors[i], merged);
+        }
+      }
+      
+      TriangleVertex result = new TriangleVertex(key.toString());
+      result.setNeighbors(directions);
+      result.setDegree(directions.size());
+      output.collect(key, result);
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, TriangleNeighborsStep.class);
+      conf.setJobName("TriangleNeighbors");
+      
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setCombinerClass(ReduceClass.class);
+      conf.setReducerClass(ReduceClass.class);
+      conf.setNumReduceTasks(getReducerNum());
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(TriangleVertex.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      conf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+
+/**
+ * Orient each line from the end of lower degree to the end of higher degree, with ties
+ * broken by ids. Only the neighbors ranking higher are kept for each vertex, so that even
+ * hubs keep few neighbors, and each triangle is found once, at its middle vertex.
+ */
+public class TriangleOrientStep extends GraphAlgorithm {
+  
+  /**
+   * Compare the ranks of two vertexes.
+   * @return negative if the first vertex ranks lower than the second one, positive if
+   * higher, zero if they are the same vertex.
+   */
+  public static int compareRanks(int degree1, String id1, int degree2, String id2) {
+    if(degree1 != degree2) {
+      return degree1 < degree2 ? -1 : 1;
+    }
+    return id1.compareTo(id2);
+  }
+  
+  /**
+   * Mapper. Tell each neighbor the degree of myself.
+   */
+  public static class MapClass extends GraphAlgorithmMapReduceBase
+      implements Mapper<Text, TriangleVertex, Text, TriangleVertex> {
+
+    @Override
+    public void map(Text key, TriangleVertex value,
+        OutputCollector<Text, TriangleVertex> output, Reporter reporter)
+        throws IOException {
+      TriangleVertex notifier = new TriangleVertex(value.getId());
+      notifier.setDegree(value.getDegree());
+      for(String neighbor : value.getNeighbors()) {
+        output.collect(new Text(neighbor), notifier);
+      }
+      output.collect(key, value);
+    }
+  }
+  
+  /**
+   * Reducer. Keep the neighbors ranking higher.
+   */
+  public static class ReduceClass extends GraphAlgorithmMapReduceBase
+      implements Reducer<Text, TriangleVertex, Text, TriangleVertex> {
+
+    @Override
+    public void reduce(Text key, Iterator<TriangleVertex> values,
+        OutputCollector<Text, TriangleVertex> output, Reporter reporter)
+        throws IOException {
+      TriangleVertex myself = null;
+      // Degrees of neighbors.
+      Map<String, Integer> degrees = new HashMap<String, Integer>();
+      while(values.hasNext()) {
+        TriangleVertex vertex = values.next();
+        if(vertex.getId().equals(key.toString())) {
+          // The value object is reused by the iterator.
+          myself = new TriangleVertex(vertex);
+        } else {
+          degrees.put(vertex.getId(), vertex.getDegree());
+        }
+      }
+      if(myself == null) {
+        return;
+      }
+      
+      TreeMap<String, Byte> directions = new TreeMap<String, Byte>();
+      String[] neighbors = myself.getNeighbors();
+      for(int i = 0; i < neighbors.length; i++) {
+        Integer degree = degrees.get(neighbors[i]);
+        if(degree != null && compareRanks(myself.getDegree(), myself.getId(), 
+            degree, neighbors[i]) < 0) {
+          directions.put(neighbors[i], myself.getDirections()[i]);
+        }
+      }
+      myself.setNeighbors(directions);
+      output.collect(key, myself);
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, TriangleOrientStep.class);
+      conf.setJobName("TriangleOrient");
+      
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(MapClass.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setReducerClass(ReduceClass.class);
+      conf.setNumReduceTasks(getReducerNum());
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(TriangleVertex.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      conf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
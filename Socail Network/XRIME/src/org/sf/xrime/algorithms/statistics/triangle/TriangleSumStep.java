@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.IdentityMapper;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+import org.sf.xrime.algorithms.utils.GraphAlgorithmMapReduceBase;
+
+/**
+ * Sum up partial triangle counts of each vertex. The sums of triangle counts and of pairs
+ * of neighbors over all vertexes are recorded in counters, from which the transitivity of
+ * the graph is derived.
+ */
+public class TriangleSumStep extends GraphAlgorithm {
+  public static final String TRIANGLE_COUNTER = "triangle";
+  /**
+   * Sum of triangle counts of all vertexes, i.e., three times the number of triangles.
+   */
+  public static final String TRIANGLES = "triangles";
+  /**
+   * Sum of the numbers of pairs of neighbors of all vertexes.
+   */
+  public static final String TRIPLES = "triples";
+  
+  /**
+   * Combiner. Sum up partial counts.
+   */
+  public static class CombineClass extends GraphAlgorithmMapReduceBase
+      implements Reducer<Text, TriangleLabel, Text, TriangleLabel> {
+
+    @Override
+    public void reduce(Text key, Iterator<TriangleLabel> values,
+        OutputCollector<Text, TriangleLabel> output, Reporter reporter)
+        throws IOException {
+      output.collect(key, sum(values));
+    }
+    
+    protected TriangleLabel sum(Iterator<TriangleLabel> values) {
+      TriangleLabel result = new TriangleLabel();
+      while(values.hasNext()) {
+        result.add(values.next());
+      }
+      return result;
+    }
+  }
+  
+  /**
+   * Reducer. Sum up partial counts, and record the global sums.
+   */
+  public static class ReduceClass extends CombineClass {
+
+    @Override
+    public void reduce(Text key, Iterator<TriangleLabel> values,
+        OutputCollector<Text, TriangleLabel> output, Reporter reporter)
+        throws IOException {
+      TriangleLabel result = sum(values);
+      reporter.incrCounter(TRIANGLE_COUNTER, TRIANGLES, result.getTriangles());
+      reporter.incrCounter(TRIANGLE_COUNTER, TRIPLES, result.getTriples());
+      output.collect(key, result);
+    }
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      JobConf conf = new JobConf(context, TriangleSumStep.class);
+      conf.setJobName("TriangleSum");
+      
+      FileInputFormat.setInputPaths(conf, getSource().getPath());
+      conf.setInputFormat(SequenceFileInputFormat.class);
+      conf.setMapperClass(IdentityMapper.class);
+      conf.setNumMapTasks(getMapperNum());
+      conf.setCombinerClass(CombineClass.class);
+      conf.setReducerClass(ReduceClass.class);
+      conf.setNumReduceTasks(getReducerNum());
+      
+      conf.setOutputKeyClass(Text.class);
+      conf.setOutputValueClass(TriangleLabel.class);
+      FileOutputFormat.setOutputPath(conf, getDestination().getPath());
+      conf.setOutputFormat(SequenceFileOutputFormat.class);
+      
+      this.runningJob = JobClient.runJob(conf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
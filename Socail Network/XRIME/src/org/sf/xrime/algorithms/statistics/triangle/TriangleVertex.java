@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.statistics.triangle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Vertex used in triangle counting. The neighbors are kept in a sorted array of ids, so
+ * that neighborhoods are intersected by merging, and the directions of the arcs to each
+ * neighbor are kept in a parallel array, so that the directed graph could be recovered.
+ * The degree is that of the undirected graph, which may be larger than the number of
+ * neighbors kept after orientation.
+ */
+public class TriangleVertex implements Cloneable, Writable {
+  /**
+   * There is an arc from this vertex to the neighbor.
+   */
+  public static final byte OUT = 1;
+  /**
+   * There is an arc from the neighbor to this vertex.
+   */
+  public static final byte IN = 2;
+  
+  private static final String[] NO_NEIGHBORS = new String[0];
+  private static final byte[] NO_DIRECTIONS = new byte[0];
+  
+  private String id;
+  private int degree;
+  private String[] neighbors;
+  private byte[] directions;
+  
+  static {
+    // Register the factory.
+    WritableFactories.setFactory
+          (TriangleVertex.class,
+           new WritableFactory() {
+               public Writable newInstance() { return new TriangleVertex(); }
+           });
+  }
+  
+  public TriangleVertex() {
+    this("");
+  }
+  
+  public TriangleVertex(String id) {
+    this.id = id;
+    degree = 0;
+    neighbors = NO_NEIGHBORS;
+    directions = NO_DIRECTIONS;
+  }
+  
+  public TriangleVertex(TriangleVertex vertex) {
+    id = vertex.getId();
+    degree = vertex.getDegree();
+    neighbors = vertex.getNeighbors().clone();
+    directions = vertex.getDirections().clone();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public int getDegree() {
+    return degree;
+  }
+
+  public void setDegree(int degree) {
+    this.degree = degree;
+  }
+  
+  /**
+   * @return ids of neighbors, in ascending order.
+   */
+  public String[] getNeighbors() {
+    return neighbors;
+  }
+  
+  /**
+   * @return directions of arcs to each neighbor, a combination of OUT and IN.
+   */
+  public byte[] getDirections() {
+    return directions;
+  }
+  
+  /**
+   * Replace the neighbors with the specified ones.
+   * @param directions directions of arcs to each neighbor, keyed by ids in ascending order.
+   */
+  public void setNeighbors(Map<String, Byte> directions) {
+    neighbors = new String[directions.size()];
+    this.directions = new byte[directions.size()];
+    int i = 0;
+    for(Map.Entry<String, Byte> entry : directions.entrySet()) {
+      neighbors[i] = entry.getKey();
+      this.directions[i++] = entry.getValue();
+    }
+  }
+  
+  /**
+   * Get the directions of arcs to a neighbor.
+   * @param neighbor id of the neighbor.
+   * @return a combination of OUT and IN, or 0 if it is not a neighbor.
+   */
+  public byte getDirection(String neighbor) {
+    int low = 0;
+    int high = neighbors.length - 1;
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = neighbors[mid].compareTo(neighbor);
+      if(cmp < 0) {
+        low = mid + 1;
+      } else if(cmp > 0) {
+        high = mid - 1;
+      } else {
+        return directions[mid];
+      }
+    }
+    return 0;
+  }
+  
+  public String toString() {
+    StringBuffer buf = new StringBuffer();
+    buf.append("<").append(id).append(", ").append(degree).append(", [");
+    for(int i = 0; i < neighbors.length; i++) {
+      if(i > 0) {
+        buf.append(", ");
+      }
+      buf.append(neighbors[i]).append(":").append(directions[i]);
+    }
+    buf.append("]>");
+    return buf.toString();
+  }
+  
+  public Object clone() {
+    return new TriangleVertex(this);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    id = Text.readString(in);
+    degree = WritableUtils.readVInt(in);
+    int size = WritableUtils.readVInt(in);
+    neighbors = size == 0 ? NO_NEIGHBORS : new String[size];
+    directions = size == 0 ? NO_DIRECTIONS : new byte[size];
+    for(int i = 0; i < size; i++) {
+      neighbors[i] = Text.readString(in);
+      directions[i] = in.readByte();
+    }
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    Text.writeString(out, id);
+    WritableUtils.writeVInt(out, degree);
+    WritableUtils.writeVInt(out, neighbors.length);
+    for(int i = 0; i < neighbors.length; i++) {
+      Text.writeString(out, neighbors[i]);
+      out.writeByte(directions[i]);
+    }
+  }
+}
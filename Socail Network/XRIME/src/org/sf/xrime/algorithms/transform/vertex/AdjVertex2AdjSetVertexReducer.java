@@ -21,10 +21,12 @@ import java.util.Iterator;
 
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.Reporter;
+import org.sf.xrime.model.Graph;
 import org.sf.xrime.model.edge.Edge;
 import org.sf.xrime.model.edge.EdgeUtils;
 import org.sf.xrime.model.vertex.AdjSetVertex;
@@ -33,6 +35,7 @@ import org.sf.xrime.model.vertex.AdjSetVertex;
 public class AdjVertex2AdjSetVertexReducer extends MapReduceBase implements
     Reducer<Text, ObjectWritable, Text, AdjSetVertex> {
     Text outputKey=new Text();
+    boolean compressed=false;
 	
 	@Override
 	public void reduce(Text key, Iterator<ObjectWritable> values,
@@ -58,8 +61,14 @@ public class AdjVertex2AdjSetVertexReducer extends MapReduceBase implements
 				vertex.addOpposite(EdgeUtils.getAdjVertexEdgeByEdge(vertex, edge));
 			}
 			
+			vertex.setCompressed(compressed);
 			outputKey.set(vertex.getId());
 			output.collect(key, vertex);
 		}
 	}
+
+	public void configure(JobConf job) {
+		super.configure(job);
+		compressed=job.getBoolean(Graph.compressedAdjacencyKey, false);
+	}
 }
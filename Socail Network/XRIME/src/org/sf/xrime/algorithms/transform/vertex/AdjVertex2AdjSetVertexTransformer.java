@@ -31,6 +31,8 @@ import org.apache.hadoop.mapred.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.GraphAlgorithmContext;
+import org.sf.xrime.model.Graph;
 import org.sf.xrime.model.edge.Edge;
 import org.sf.xrime.model.vertex.AdjSetVertex;
 import org.sf.xrime.model.vertex.Vertex;
@@ -84,6 +86,7 @@ public class AdjVertex2AdjSetVertexTransformer extends Transformer {
 		jobConf.setInputFormat(SequenceFileInputFormat.class);
 		jobConf.setOutputFormat(SequenceFileOutputFormat.class);
 		jobConf.setClass(edgeFilterKey, edgeFilter, EdgeFilter.class);
+		jobConf.setBoolean(Graph.compressedAdjacencyKey, GraphAlgorithmContext.isCompressedAdjacency(conf));
 		FileInputFormat.setInputPaths(jobConf, srcPath);
 		FileOutputFormat.setOutputPath(jobConf, destPath);        
 
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.transform.vertex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.GraphAlgorithmContext;
+import org.sf.xrime.model.Graph;
+import org.sf.xrime.model.vertex.IdAdjSetVertex;
+import org.sf.xrime.model.vertex.IdAdjVertex;
+import org.sf.xrime.model.vertex.LabeledIdAdjSetVertex;
+
+
+/**
+ * Transform IdAdjVertex lists into IdAdjSetVertex (or LabeledIdAdjSetVertex) lists
+ * without any shuffle. Which ends of incidental edges are reserved as opposites is
+ * specified with -f (tos, froms or both, tos by default).
+ */
+public class IdAdjVertex2IdAdjSetVertexTransformer extends Transformer {
+	static final public String oppositeEndsKey = "xrime.transformer.idadjset.ends";
+	static final public String labeledKey = "xrime.transformer.idadjset.labeled";
+
+	/**
+	 * Which ends are reserved: "tos", "froms" or "both".
+	 */
+	private String oppositeEnds = "tos";
+
+	/**
+	 * Whether to generate LabeledIdAdjSetVertex.
+	 */
+	private boolean labeled = false;
+
+	/**
+	 * Default constructor.
+	 */
+	public IdAdjVertex2IdAdjSetVertexTransformer() {
+		super();
+	}
+
+	/**
+	 * Normal constructor.
+	 * @param src
+	 * @param dest
+	 */
+	public IdAdjVertex2IdAdjSetVertexTransformer(Path src, Path dest) {
+		super(src, dest);
+	}
+
+	public String getOppositeEnds() {
+		return oppositeEnds;
+	}
+
+	public void setOppositeEnds(String oppositeEnds) {
+		this.oppositeEnds = oppositeEnds;
+	}
+
+	public boolean isLabeled() {
+		return labeled;
+	}
+
+	public void setLabeled(boolean labeled) {
+		this.labeled = labeled;
+	}
+
+	/**
+	 * Convert each vertex in place.
+	 */
+	public static class MapClass extends MapReduceBase implements
+			Mapper<LongWritable, IdAdjVertex, LongWritable, IdAdjSetVertex> {
+		private String ends;
+		private IdAdjSetVertex result;
+
+		@Override
+		public void map(LongWritable key, IdAdjVertex value,
+				OutputCollector<LongWritable, IdAdjSetVertex> output, Reporter reporter)
+				throws IOException {
+			if ("froms".equals(ends)) {
+				result.fromIdAdjVertexFroms(value);
+			} else if ("both".equals(ends)) {
+				result.fromIdAdjVertexBoth(value);
+			} else {
+				result.fromIdAdjVertexTos(value);
+			}
+			output.collect(key, result);
+		}
+
+		public void configure(JobConf job) {
+			ends = job.get(oppositeEndsKey, "tos");
+			if (job.getBoolean(labeledKey, false)) {
+				result = new LabeledIdAdjSetVertex();
+			} else {
+				result = new IdAdjSetVertex();
+			}
+			result.setCompressed(job.getBoolean(Graph.compressedAdjacencyKey, false));
+		}
+	}
+
+	@Override
+	public void setArguments(String[] params) throws ProcessorExecutionException {
+		List<String> other_args = new ArrayList<String>();
+		for (int i = 0; i < params.length; ++i) {
+			try {
+				if ("-f".equals(params[i])) {
+					setOppositeEnds(params[++i]);
+				} else if ("-l".equals(params[i])) {
+					setLabeled(true);
+				} else {
+					other_args.add(params[i]);
+				}
+			} catch (ArrayIndexOutOfBoundsException except) {
+				throw new ProcessorExecutionException(except);
+			}
+		}
+		// Make sure there are exactly 2 parameters left.
+		if (other_args.size() != 2) {
+			throw new ProcessorExecutionException("Wrong number of parameters: " +
+					other_args.size() + " instead of 2.");
+		}
+
+		setSrcPath(new Path(other_args.get(0)));
+		setDestPath(new Path(other_args.get(1)));
+	}
+
+	@Override
+	public void execute() throws ProcessorExecutionException {
+		JobConf jobConf = new JobConf(conf, IdAdjVertex2IdAdjSetVertexTransformer.class);
+		jobConf.setJobName("IdAdjVertex2IdAdjSetVertexTransformer");
+
+		jobConf.set(oppositeEndsKey, oppositeEnds);
+		jobConf.setBoolean(labeledKey, labeled);
+		jobConf.setBoolean(Graph.compressedAdjacencyKey, GraphAlgorithmContext.isCompressedAdjacency(conf));
+		jobConf.setMapperClass(MapClass.class);
+		// No reducer is needed.
+		jobConf.setNumReduceTasks(0);
+		jobConf.setOutputKeyClass(LongWritable.class);
+		jobConf.setOutputValueClass(labeled ? LabeledIdAdjSetVertex.class : IdAdjSetVertex.class);
+		jobConf.setInputFormat(SequenceFileInputFormat.class);
+		jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+		FileInputFormat.setInputPaths(jobConf, srcPath);
+		FileOutputFormat.setOutputPath(jobConf, destPath);
+		jobConf.setNumMapTasks(mapperNum);
+
+		try {
+			this.runningJob = JobClient.runJob(jobConf);
+		} catch (IOException e) {
+			throw new ProcessorExecutionException(e);
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		try {
+			int res = ToolRunner.run(new IdAdjVertex2IdAdjSetVertexTransformer(), args);
+			System.exit(res);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.utils;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+import org.sf.xrime.model.edge.Edge;
+
+/**
+ * Secondary sort of edge lists. Map outputs are keyed by edges, partitioned and 
+ * grouped by their from ends, and sorted by their to ends within each group, so a
+ * reducer gets the neighbors of a vertex in increasing order, and could find the 
+ * smallest one without holding them all.
+ */
+public class EdgeSecondarySort {
+  /**
+   * Partition edges by their from ends.
+   */
+  public static class FromPartitioner implements Partitioner<Edge, Writable> {
+    @Override
+    public void configure(JobConf job) {
+    }
+
+    @Override
+    public int getPartition(Edge key, Writable value, int numPartitions) {
+      return (key.getFrom().hashCode() & Integer.MAX_VALUE) % numPartitions;
+    }
+  }
+  
+  /**
+   * Group edges by their from ends. Both the raw and the object forms are needed, 
+   * since the framework groups deserialized keys.
+   */
+  public static class FromComparator extends WritableComparator {
+    public FromComparator() {
+      super(Edge.class);
+    }
+    
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+      int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+      try {
+        return compareBytes(b1, s1 + n1, readVInt(b1, s1), b2, s2 + n2, readVInt(b2, s2));
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+    
+    @Override
+    public int compare(Object a, Object b) {
+      return ((Edge) a).getFrom().compareTo(((Edge) b).getFrom());
+    }
+  }
+  
+  /**
+   * Configure a job to sort edges in this way.
+   * @param job the job.
+   */
+  public static void configure(JobConf job) {
+    job.setMapOutputKeyClass(Edge.class);
+    job.setMapOutputValueClass(Text.class);
+    job.setPartitionerClass(FromPartitioner.class);
+    job.setOutputValueGroupingComparator(FromComparator.class);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.utils;
+
+import java.io.IOException;
+import java.text.NumberFormat;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.lib.HashPartitioner;
+import org.apache.hadoop.mapred.lib.NullOutputFormat;
+
+/**
+ * Settings shared by iterative steps running in "schimmy" mode, i.e., with graph
+ * structure separated from the messages passed along edges.
+ * <p>
+ * In the usual iterative step, the mapper emits each vertex along with its messages,
+ * and the reducer rejoins them, so the whole graph is shuffled in each iteration even
+ * though the adjacency lists never change. In schimmy mode, the graph is partitioned
+ * once with the same partitioner used for messages (see SchimmyPartitionStep), and
+ * each reducer merge-joins its sorted messages with the vertexes read directly from
+ * the corresponding partition (see SchimmyReducerBase). Only messages are shuffled.
+ * The reducers write their partitions in sorted order, so the output graph is
+ * partitioned in the same way, and could be the input of the next iteration.
+ * @see "J. Lin and M. Schatz. Design Patterns for Efficient Graph Algorithms in
+ * MapReduce. MLG 2010."
+ */
+public class Schimmy {
+  /**
+   * Key in JobConf for the path of the partitioned graph to be merge-joined.
+   */
+  static final public String structurePathKey = "xrime.algorithm.schimmy.structure";
+  
+  /**
+   * Key in JobConf for whether reducers write their partitions as map files, so that
+   * the output graph could also be looked up by id.
+   */
+  static final public String indexedOutputKey = "xrime.algorithm.schimmy.indexed";
+  
+  /**
+   * Key in JobConf set by the framework to the partition number of a task.
+   */
+  static final public String taskPartitionKey = "mapred.task.partition";
+  
+  private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance();
+  static {
+    // The same format used by FileOutputFormat.
+    NUMBER_FORMAT.setMinimumIntegerDigits(5);
+    NUMBER_FORMAT.setGroupingUsed(false);
+  }
+  
+  /**
+   * Only partition files written by reducers are taken into account.
+   */
+  private static final PathFilter partitionFilter = new PathFilter() {
+    public boolean accept(Path path) {
+      return path.getName().startsWith("part-");
+    }
+  };
+  
+  /**
+   * Get the file name of specified partition.
+   * @param partition partition number.
+   * @return file name.
+   */
+  public static synchronized String getPartitionFileName(int partition) {
+    return "part-" + NUMBER_FORMAT.format(partition);
+  }
+  
+  /**
+   * Get the data file of specified partition. The partition is either a sequence file,
+   * or a map file if the graph is partitioned with an index.
+   * @param fs file system.
+   * @param graph path of the partitioned graph.
+   * @param partition partition number.
+   * @return path of the sequence file holding the vertexes of the partition.
+   * @throws IOException
+   */
+  public static Path getPartitionDataFile(FileSystem fs, Path graph, int partition) 
+      throws IOException {
+    Path file = new Path(graph, getPartitionFileName(partition));
+    if (fs.getFileStatus(file).isDir()) {
+      return new Path(file, MapFile.DATA_FILE_NAME);
+    }
+    return file;
+  }
+  
+  /**
+   * Count the partitions of a partitioned graph.
+   * @param fs file system.
+   * @param graph path of the partitioned graph.
+   * @return number of partitions.
+   * @throws IOException
+   */
+  public static int countPartitions(FileSystem fs, Path graph) throws IOException {
+    FileStatus[] files = fs.listStatus(graph, partitionFilter);
+    return files == null ? 0 : files.length;
+  }
+  
+  /**
+   * Configure a job whose reducers extend SchimmyReducerBase. The number of reducers
+   * is set to the number of partitions of the structure, and the job output is left
+   * to the reducers. The output path should be set as usual.
+   * @param job the job.
+   * @param structure path of the partitioned graph.
+   * @throws IOException if the structure is not partitioned.
+   */
+  public static void configure(JobConf job, Path structure) throws IOException {
+    int partitions = countPartitions(structure.getFileSystem(job), structure);
+    if (partitions == 0) {
+      throw new IOException("No partition found in " + structure);
+    }
+    job.set(structurePathKey, structure.toString());
+    job.setPartitionerClass(HashPartitioner.class);
+    job.setNumReduceTasks(partitions);
+    job.setOutputFormat(NullOutputFormat.class);
+  }
+}
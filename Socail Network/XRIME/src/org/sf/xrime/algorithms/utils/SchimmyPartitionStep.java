@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.utils;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapFileOutputFormat;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.HashPartitioner;
+import org.apache.hadoop.mapred.lib.IdentityMapper;
+import org.apache.hadoop.mapred.lib.IdentityReducer;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.algorithms.GraphAlgorithm;
+
+/**
+ * Partition the source graph for steps running in schimmy mode. The vertexes are
+ * partitioned with the partitioner used for messages, into as many partitions as
+ * the proposed number of reducers, and sorted by id within each partition. This is
+ * done once before iterations.
+ * @see Schimmy
+ */
+public class SchimmyPartitionStep extends GraphAlgorithm {
+  /**
+   * Type of vertexes in the source graph.
+   */
+  private Class<? extends Writable> vertexClass = null;
+  /**
+   * Whether to write each partition as a map file, so that vertexes could also be
+   * looked up by id.
+   */
+  private boolean indexed = false;
+  
+  public boolean isIndexed() {
+    return indexed;
+  }
+
+  public void setIndexed(boolean indexed) {
+    this.indexed = indexed;
+  }
+
+  public Class<? extends Writable> getVertexClass() {
+    return vertexClass;
+  }
+
+  public void setVertexClass(Class<? extends Writable> vertexClass) {
+    this.vertexClass = vertexClass;
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    if (vertexClass == null) {
+      throw new ProcessorExecutionException("Vertex class is not specified.");
+    }
+    try {
+      JobConf jobConf = new JobConf(context, SchimmyPartitionStep.class);
+      jobConf.setJobName("SchimmyPartition");
+      
+      FileInputFormat.setInputPaths(jobConf, context.getSource().getPath());
+      jobConf.setInputFormat(SequenceFileInputFormat.class);
+      jobConf.setMapperClass(IdentityMapper.class);
+      jobConf.setNumMapTasks(getMapperNum());
+      
+      jobConf.setPartitionerClass(HashPartitioner.class);
+      jobConf.setReducerClass(IdentityReducer.class);
+      jobConf.setNumReduceTasks(getReducerNum());
+      
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(vertexClass);
+      FileOutputFormat.setOutputPath(jobConf, context.getDestination().getPath());
+      if (indexed) {
+        jobConf.setOutputFormat(MapFileOutputFormat.class);
+      } else {
+        jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+      }
+      
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalAccessException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapFileOutputFormat;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.RecordWriter;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Base class of reducers in schimmy mode. Messages arrive in the sorted order of
+ * their destination vertexes, and are merge-joined with the vertexes read from the
+ * partition of the structure with the same number as this reducer. Every vertex of
+ * the partition is updated once, with an empty iterator if no message is sent to it,
+ * and written to the partition of the same number in the output path, as a map file
+ * if Schimmy.indexedOutputKey is set. Messages sent to absent vertexes are dropped.
+ * <p>
+ * The output collector of reduce() is not used, see Schimmy.configure(). The reporter is
+ * only given by reduce(), so counters can not be incremented by the updates of a partition
+ * without any message.
+ * @param <M> type of messages.
+ * @param <V> type of vertexes.
+ * @see Schimmy
+ */
+public abstract class SchimmyReducerBase<M extends Writable, V extends Writable> 
+    extends GraphAlgorithmMapReduceBase implements Reducer<Text, M, Text, V> {
+  private SequenceFile.Reader structure = null;
+  private RecordWriter<Text, V> writer = null;
+  
+  /** Current vertex read from the structure, valid if hasVertex is true. */
+  private Text vertexKey = new Text();
+  private V vertex = null;
+  private boolean hasVertex = false;
+  
+  private Reporter reporter = Reporter.NULL;
+  
+  /**
+   * Update a vertex with the messages sent to it.
+   * @param key vertex id.
+   * @param vertex the vertex, written out after the update.
+   * @param messages messages sent to the vertex, may be empty.
+   * @param reporter reporter.
+   * @throws IOException
+   */
+  protected abstract void update(Text key, V vertex, Iterator<M> messages, 
+      Reporter reporter) throws IOException;
+  
+  @SuppressWarnings("unchecked")
+  @Override
+  public void configure(JobConf job) {
+    super.configure(job);
+    
+    int partition = job.getInt(Schimmy.taskPartitionKey, -1);
+    String name = Schimmy.getPartitionFileName(partition);
+    Path graph = new Path(job.get(Schimmy.structurePathKey));
+    Path file = new Path(graph, name);
+    try {
+      FileSystem fs = graph.getFileSystem(job);
+      file = Schimmy.getPartitionDataFile(fs, graph, partition);
+      structure = new SequenceFile.Reader(fs, file, job);
+      vertex = (V) ReflectionUtils.newInstance(structure.getValueClass(), job);
+      // The file is written to the work output path, and committed with the task.
+      if (job.getBoolean(Schimmy.indexedOutputKey, false)) {
+        writer = (RecordWriter) new MapFileOutputFormat().getRecordWriter(fs, job, name,
+            Reporter.NULL);
+      } else {
+        writer = new SequenceFileOutputFormat<Text, V>().getRecordWriter(fs, job, name, 
+            Reporter.NULL);
+      }
+      next();
+    } catch (IOException e) {
+      throw new RuntimeException("Can not open partition " + file, e);
+    }
+  }
+  
+  @Override
+  public void reduce(Text key, Iterator<M> values, OutputCollector<Text, V> output,
+      Reporter reporter) throws IOException {
+    this.reporter = reporter;
+    // Vertexes without messages.
+    while (hasVertex && vertexKey.compareTo(key) < 0) {
+      updateAndNext(Collections.<M>emptyList().iterator());
+    }
+    
+    if (hasVertex && vertexKey.compareTo(key) == 0) {
+      updateAndNext(values);
+    }
+  }
+  
+  @Override
+  public void close() throws IOException {
+    try {
+      while (hasVertex) {
+        updateAndNext(Collections.<M>emptyList().iterator());
+      }
+    } finally {
+      if (structure != null) {
+        structure.close();
+      }
+      if (writer != null) {
+        writer.close(reporter);
+      }
+    }
+  }
+  
+  private void updateAndNext(Iterator<M> messages) throws IOException {
+    update(vertexKey, vertex, messages, reporter);
+    writer.write(vertexKey, vertex);
+    next();
+  }
+  
+  private void next() throws IOException {
+    hasVertex = structure.next(vertexKey, vertex);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.algorithms.utils;
+
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobConf;
+
+
+/**
+ * Aggregates of double values over a whole job, such as sums of scores, which could not
+ * be kept by counters. Each task adds up its part, and writes it into a side file of its
+ * work output path when it is closed. Side files are committed into the output directory
+ * along with the task, so parts of failed or speculative attempts are never counted. The
+ * client sums up the parts after the job.
+ * <p>
+ * Names of side files start with "_", so they are skipped as input of later jobs.
+ * Parts written by mappers are committed before the reduce phase, so reducers of the
+ * same job could read them too, see readMapAggregates.
+ */
+public class SideAggregates {
+  /** Prefix of the names of side files. */
+  public static final String FILE_PREFIX = "_aggregates-";
+  /** Prefix of the names of side files written by mappers. */
+  public static final String MAP_FILE_PREFIX = FILE_PREFIX + "m-";
+  
+  private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance();
+  static {
+    NUMBER_FORMAT.setMinimumIntegerDigits(5);
+    NUMBER_FORMAT.setGroupingUsed(false);
+  }
+  
+  /** Partial values of this task. */
+  private Map<String, Double> values = new TreeMap<String, Double>();
+  
+  /**
+   * Add a value to an aggregate.
+   * @param name name of the aggregate.
+   * @param value the value.
+   */
+  public void add(String name, double value){
+    Double sum = values.get(name);
+    values.put(name, sum == null ? value : sum + value);
+  }
+  
+  /**
+   * Write the partial values of this task, nothing is written if there are none.
+   * @param job configuration of the task.
+   * @throws IOException
+   */
+  public void write(JobConf job) throws IOException {
+    if(values.isEmpty()){
+      return;
+    }
+    Path dir = FileOutputFormat.getWorkOutputPath(job);
+    if(dir == null){
+      throw new IOException("No output path for aggregates.");
+    }
+    String task = (job.getBoolean("mapred.task.is.map", true) ? "m-" : "r-") + 
+        NUMBER_FORMAT.format(job.getInt("mapred.task.partition", 0));
+    FileSystem fs = dir.getFileSystem(job);
+    SequenceFile.Writer writer = SequenceFile.createWriter(fs, job, 
+        new Path(dir, FILE_PREFIX + task), Text.class, DoubleWritable.class);
+    try {
+      for(Map.Entry<String, Double> entry : values.entrySet()){
+        writer.append(new Text(entry.getKey()), new DoubleWritable(entry.getValue()));
+      }
+    } finally {
+      writer.close();
+    }
+    values.clear();
+  }
+  
+  /**
+   * Sum up the partial values written by the tasks of a job.
+   * @param fs the file system.
+   * @param dir output directory of the job.
+   * @param conf configuration.
+   * @return aggregates by names, absent ones were never added.
+   * @throws IOException
+   */
+  public static Map<String, Double> read(FileSystem fs, Path dir, Configuration conf) 
+      throws IOException {
+    return read(fs, dir, conf, FILE_PREFIX);
+  }
+  
+  /**
+   * Sum up the partial values written by the mappers of the running job. Used by its 
+   * reducers, which start after all mappers are committed.
+   * @param job configuration of the reduce task.
+   * @return aggregates by names, absent ones were never added.
+   * @throws IOException
+   */
+  public static Map<String, Double> readMapAggregates(JobConf job) throws IOException {
+    Path dir = FileOutputFormat.getOutputPath(job);
+    if(dir == null){
+      throw new IOException("No output path for aggregates.");
+    }
+    return read(dir.getFileSystem(job), dir, job, MAP_FILE_PREFIX);
+  }
+  
+  /**
+   * Sum up the partial values in side files with the given prefix.
+   */
+  private static Map<String, Double> read(FileSystem fs, Path dir, Configuration conf, 
+      String prefix) throws IOException {
+    Map<String, Double> result = new TreeMap<String, Double>();
+    FileStatus[] files = fs.listStatus(dir);
+    if(files == null){
+      return result;
+    }
+    for(FileStatus status : files){
+      if(status.isDir() || !status.getPath().getName().startsWith(prefix)){
+        continue;
+      }
+      SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+      try {
+        Text name = new Text();
+        DoubleWritable value = new DoubleWritable();
+        while(reader.next(name, value)){
+          Double sum = result.get(name.toString());
+          result.put(name.toString(), sum == null ? value.get() : sum + value.get());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Get an aggregate.
+   * @param aggregates aggregates read.
+   * @param name name of the aggregate.
+   * @param defaultValue value used if it is absent.
+   * @return the aggregate.
+   */
+  public static double get(Map<String, Double> aggregates, String name, double defaultValue){
+    Double value = aggregates.get(name);
+    return value == null ? defaultValue : value;
+  }
+}
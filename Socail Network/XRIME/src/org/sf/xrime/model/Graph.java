@@ -35,6 +35,7 @@ public class Graph {
 	static final public String vertexClassKey        = "xrime.graph.vertex.class";
 	static final public String egdeClassKey          = "xrime.graph.vertex.egde";
 	static final public String graphPathsKey         = "xrime.graph.paths";
+	static final public String compressedAdjacencyKey = "xrime.graph.adjacency.compressed";
 	
 	/**
 	 * Used to store settings of this graph.
@@ -224,6 +225,24 @@ public class Graph {
 		}
 	}
 	
+	/**
+	 * Check whether sorted adjacency lists of this graph are written in compressed
+	 * format, i.e., front coded ids, or gap encoded ids for dictionary encoded vertexes.
+	 * @return true for compressed adjacency lists.
+	 */
+	public boolean isCompressedAdjacency() {
+		return getBoolean(compressedAdjacencyKey, false);
+	}
+	
+	/**
+	 * Set whether sorted adjacency lists of this graph are written in compressed format.
+	 * Data in both formats could be read regardless of this setting.
+	 * @param compressedAdjacency compressed adjacency flag.
+	 */
+	public void setCompressedAdjacency(boolean compressedAdjacency) {
+		setBoolean(compressedAdjacencyKey, compressedAdjacency);
+	}
+	
 	private boolean getBoolean(String name, boolean defaultValue) {
 	    String valueString = properties.getProperty(name);
 	    if ("true".equals(valueString)) {
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.csr;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+
+
+/**
+ * Read-only graph snapshot in CSR (compressed sparse row) format, written by
+ * CSRGraphWriter. Vertexes are numbered from 0 to getVertexCount()-1, and the
+ * neighbors of vertex v are the entries getNeighborStart(v) (inclusive) to
+ * getNeighborStart(v+1) (exclusive) of the neighbor array, sorted by index.
+ * <p>
+ * All files of the snapshot are mapped into memory with FileChannel.map(), so a
+ * snapshot of several GB opens instantly, takes no heap, and the pages are shared
+ * by all processes reading the same snapshot. Files larger than 2GB are mapped in
+ * several chunks. All accessors are thread safe.
+ * <p>
+ * Files of a snapshot directory, all numbers are big endian:
+ * <ul>
+ * <li>header: magic, version, vertex count, edge count and whether weighted.</li>
+ * <li>offsets: vertex count + 1 longs, start of each row in neighbors.</li>
+ * <li>neighbors: edge count ints, indexes of neighbors.</li>
+ * <li>weights: edge count doubles, only for weighted snapshots.</li>
+ * <li>ids: UTF-8 encoded vertex ids, packed.</li>
+ * <li>idoffsets: vertex count + 1 longs, start of each id in ids.</li>
+ * <li>idorder: vertex count ints, vertex indexes sorted by id, used to look up
+ *     indexes of ids with binary search.</li>
+ * </ul>
+ * @see CSRGraphWriter
+ */
+public class CSRGraph implements Closeable {
+	static final int MAGIC = 0x43535247; // "CSRG"
+	static final int VERSION = 1;
+	
+	static final String HEADER_FILE = "header";
+	static final String OFFSETS_FILE = "offsets";
+	static final String NEIGHBORS_FILE = "neighbors";
+	static final String WEIGHTS_FILE = "weights";
+	static final String IDS_FILE = "ids";
+	static final String ID_OFFSETS_FILE = "idoffsets";
+	static final String ID_ORDER_FILE = "idorder";
+	
+	private final File dir;
+	private final int vertexCount;
+	private final long edgeCount;
+	private final boolean weighted;
+	
+	private final MappedArray offsets;
+	private final MappedArray neighbors;
+	private final MappedArray weights;
+	private final MappedArray ids;
+	private final MappedArray idOffsets;
+	private final MappedArray idOrder;
+	
+	/**
+	 * Open the snapshot in the specified directory.
+	 * @param dir
+	 * @throws IOException
+	 */
+	public CSRGraph(File dir) throws IOException {
+		this.dir = dir;
+		DataInputStream in = new DataInputStream(new FileInputStream(new File(dir, HEADER_FILE)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(dir + " is not a CSR graph snapshot");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unknown CSR graph snapshot version: " + version);
+			}
+			vertexCount = in.readInt();
+			edgeCount = in.readLong();
+			weighted = in.readBoolean();
+		} finally {
+			in.close();
+		}
+		
+		offsets = map(OFFSETS_FILE, (vertexCount + 1L) * 8);
+		neighbors = map(NEIGHBORS_FILE, edgeCount * 4);
+		weights = weighted ? map(WEIGHTS_FILE, edgeCount * 8) : null;
+		idOffsets = map(ID_OFFSETS_FILE, (vertexCount + 1L) * 8);
+		ids = map(IDS_FILE, idOffsets.getLong(vertexCount));
+		idOrder = map(ID_ORDER_FILE, vertexCount * 4L);
+	}
+	
+	private MappedArray map(String name, long length) throws IOException {
+		File file = new File(dir, name);
+		if (file.length() != length) {
+			throw new IOException("Wrong size of " + file + ": " + file.length() + 
+					" instead of " + length);
+		}
+		return new MappedArray(file);
+	}
+	
+	/**
+	 * Directory of this snapshot.
+	 * @return
+	 */
+	public File getDirectory() {
+		return dir;
+	}
+	
+	/**
+	 * Number of vertexes.
+	 * @return
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+	
+	/**
+	 * Number of entries in the neighbor array, i.e., the sum of degrees.
+	 * @return
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+	
+	/**
+	 * Whether neighbors have weights.
+	 * @return
+	 */
+	public boolean isWeighted() {
+		return weighted;
+	}
+	
+	/**
+	 * Number of neighbors of the specified vertex.
+	 * @param v vertex index.
+	 * @return
+	 */
+	public int getDegree(int v) {
+		return (int) (offsets.getLong(v + 1) - offsets.getLong(v));
+	}
+	
+	/**
+	 * Position of the first neighbor of the specified vertex in the neighbor array.
+	 * getNeighborStart(getVertexCount()) is getEdgeCount().
+	 * @param v vertex index, from 0 to getVertexCount().
+	 * @return
+	 */
+	public long getNeighborStart(int v) {
+		return offsets.getLong(v);
+	}
+	
+	/**
+	 * Index of the neighbor at the specified position of the neighbor array.
+	 * @param i position, from 0 to getEdgeCount()-1.
+	 * @return
+	 */
+	public int getNeighbor(long i) {
+		return neighbors.getInt(i);
+	}
+	
+	/**
+	 * Weight of the neighbor at the specified position of the neighbor array, 1 for
+	 * unweighted snapshots.
+	 * @param i position, from 0 to getEdgeCount()-1.
+	 * @return
+	 */
+	public double getWeight(long i) {
+		return weighted ? weights.getDouble(i) : 1;
+	}
+	
+	/**
+	 * Id of the specified vertex.
+	 * @param v vertex index.
+	 * @return
+	 */
+	public String getId(int v) {
+		return getId(v, new Text()).toString();
+	}
+	
+	/**
+	 * Id of the specified vertex, set into the specified object.
+	 * @param v vertex index.
+	 * @param reuse
+	 * @return reuse.
+	 */
+	public Text getId(int v, Text reuse) {
+		long start = idOffsets.getLong(v);
+		int length = (int) (idOffsets.getLong(v + 1) - start);
+		byte[] bytes = new byte[length];
+		ids.getBytes(start, bytes, 0, length);
+		reuse.set(bytes);
+		return reuse;
+	}
+	
+	/**
+	 * Index of the vertex with the specified id.
+	 * @param id
+	 * @return the index, or -1 if there is no such vertex.
+	 */
+	public int indexOf(String id) {
+		Text text = new Text(id);
+		byte[] key = text.getBytes();
+		int keyLength = text.getLength();
+		byte[] buffer = new byte[keyLength + 1];
+		
+		int low = 0;
+		int high = vertexCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int v = idOrder.getInt(mid);
+			long start = idOffsets.getLong(v);
+			int length = (int) (idOffsets.getLong(v + 1) - start);
+			// Only compare the bytes up to the length of the key plus one.
+			int n = Math.min(length, keyLength + 1);
+			ids.getBytes(start, buffer, 0, n);
+			int cmp = WritableComparator.compareBytes(buffer, 0, n, key, 0, keyLength);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return v;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Nothing to release, the mapped buffers are freed when this object is collected.
+	 * Provided so that snapshots could be used like other resources.
+	 */
+	@Override
+	public void close() {
+	}
+	
+	/**
+	 * A file mapped into memory, in chunks of at most CHUNK_SIZE bytes. Numbers never
+	 * cross chunks, since the chunk size is a multiple of their sizes.
+	 */
+	static class MappedArray {
+		private static final int CHUNK_BITS = 30;
+		private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+		private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+		
+		private final ByteBuffer[] chunks;
+		
+		MappedArray(File file) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				long length = channel.size();
+				chunks = new ByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+				for (int i = 0; i < chunks.length; i++) {
+					long start = (long) i << CHUNK_BITS;
+					chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, 
+							Math.min(CHUNK_SIZE, length - start));
+				}
+			} finally {
+				// Mappings stay valid after the channel is closed.
+				raf.close();
+			}
+		}
+		
+		int getInt(long i) {
+			long pos = i << 2;
+			return chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) (pos & CHUNK_MASK));
+		}
+		
+		long getLong(long i) {
+			long pos = i << 3;
+			return chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) (pos & CHUNK_MASK));
+		}
+		
+		double getDouble(long i) {
+			long pos = i << 3;
+			return chunks[(int) (pos >>> CHUNK_BITS)].getDouble((int) (pos & CHUNK_MASK));
+		}
+		
+		void getBytes(long pos, byte[] dest, int offset, int length) {
+			for (int i = 0; i < length; i++, pos++) {
+				dest[offset + i] = chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.sf.xrime.model.csr;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.LabeledEdge;
+import org.sf.xrime.model.edge.WeightOfEdge;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.CompactAdjVertex;
+import org.sf.xrime.postprocessing.SequenceFileToCSRTransformer;
+
+public class CSRGraphTest {
+	private static File createTempDir() throws IOException {
+		File dir = File.createTempFile("csr", "");
+		dir.delete();
+		dir.deleteOnExit();
+		return dir;
+	}
+	
+	@Test
+	public void testWriteRead() throws IOException {
+		File dir = createTempDir();
+		CSRGraphWriter writer = new CSRGraphWriter(dir, true);
+		int a = writer.getIndex("a");
+		int b = writer.getIndex("\u4e2d\u6587");
+		int c = writer.getIndex("c");
+		writer.addVertex("a", new int[] {c, b}, new double[] {3, 2}, 2);
+		writer.addVertex("\u4e2d\u6587", new int[] {a}, new double[] {1}, 1);
+		// Only seen as a neighbor.
+		int d = writer.getIndex("d");
+		writer.addVertex("c", new int[] {d, a, b}, new double[] {4, 5, 6}, 3);
+		try {
+			writer.addVertex("a", new int[0], new double[0], 0);
+			fail("Rows must be added once, in order");
+		} catch (IllegalStateException e) {
+		}
+		writer.close();
+		
+		CSRGraph graph = new CSRGraph(dir);
+		assertEquals(graph.getVertexCount(), 4);
+		assertEquals(graph.getEdgeCount(), 6L);
+		assertTrue(graph.isWeighted());
+		assertEquals(graph.getDegree(a), 2);
+		assertEquals(graph.getDegree(d), 0);
+		assertEquals(graph.getNeighborStart(graph.getVertexCount()), 6L);
+		
+		// Neighbors are sorted, with their weights.
+		long start = graph.getNeighborStart(c);
+		assertEquals(graph.getNeighbor(start), a);
+		assertEquals(graph.getNeighbor(start + 1), b);
+		assertEquals(graph.getNeighbor(start + 2), d);
+		assertTrue(graph.getWeight(start) == 5);
+		assertTrue(graph.getWeight(start + 2) == 4);
+		
+		assertEquals(graph.getId(b), "\u4e2d\u6587");
+		assertEquals(graph.getId(d, new Text()).toString(), "d");
+		for (int v = 0; v < graph.getVertexCount(); v++) {
+			assertEquals(graph.indexOf(graph.getId(v)), v);
+		}
+		assertEquals(graph.indexOf(""), -1);
+		assertEquals(graph.indexOf("b"), -1);
+		assertEquals(graph.indexOf("dd"), -1);
+		graph.close();
+	}
+	
+	@Test
+	public void testConversion() throws IOException, ProcessorExecutionException {
+		Configuration conf = new Configuration();
+		FileSystem fs = FileSystem.getLocal(conf);
+		File dir = createTempDir();
+		Path input = new Path(dir.getPath(), "input/part-00000");
+		SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, input, 
+				Text.class, AdjVertex.class);
+		AdjVertex vertex = new AdjVertex("v1");
+		LabeledEdge edge = new LabeledEdge("v1", "v3");
+		edge.setLabel(CompactAdjVertex.weightKey, new WeightOfEdge(0.5));
+		vertex.addEdge(edge);
+		// All edges of an AdjVertex have the same class, this one has no weight.
+		vertex.addEdge(new LabeledEdge("v1", "v2"));
+		writer.append(new Text(vertex.getId()), vertex);
+		vertex = new AdjVertex("v2");
+		vertex.addEdge(new Edge("v2", "v1"));
+		writer.append(new Text(vertex.getId()), vertex);
+		writer.close();
+		
+		SequenceFileToCSRTransformer transformer = new SequenceFileToCSRTransformer(
+				new Path(dir.getPath(), "input"), new Path(dir.getPath(), "csr"));
+		transformer.setConf(conf);
+		transformer.setWeighted(true);
+		transformer.execute();
+		
+		CSRGraph graph = new CSRGraph(new File(dir, "csr"));
+		assertEquals(graph.getVertexCount(), 3);
+		assertEquals(graph.getEdgeCount(), 3L);
+		int v1 = graph.indexOf("v1");
+		assertEquals(v1, 0);
+		assertEquals(graph.getDegree(v1), 2);
+		assertEquals(graph.getId(graph.getNeighbor(0)), "v2");
+		assertTrue(graph.getWeight(0) == 1);
+		assertEquals(graph.getId(graph.getNeighbor(1)), "v3");
+		assertTrue(graph.getWeight(1) == 0.5);
+		assertEquals(graph.getDegree(graph.indexOf("v3")), 0);
+		fs.delete(new Path(dir.getPath()), true);
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.csr;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+
+
+/**
+ * Writer of CSR graph snapshots. Vertex ids are numbered in the order they are
+ * first seen by getIndex(), and the rows of vertexes must be added in the order of
+ * their indexes, so the usual way is to call getIndex() for all vertexes with
+ * adjacency lists first, then add their rows in the same order. Vertexes which only
+ * appear as neighbors get empty rows when the writer is closed.
+ * <p>
+ * The rows are streamed to disk, only the id dictionary is kept in memory.
+ * @see CSRGraph
+ */
+public class CSRGraphWriter implements Closeable {
+	private final File dir;
+	private final boolean weighted;
+	
+	private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+	private final List<String> ids = new ArrayList<String>();
+	
+	private DataOutputStream offsets;
+	private DataOutputStream neighbors;
+	private DataOutputStream weights;
+	
+	/**
+	 * Number of rows written.
+	 */
+	private int rows = 0;
+	/**
+	 * Number of neighbors written.
+	 */
+	private long edges = 0;
+	
+	/**
+	 * Create a snapshot in the specified directory, which is created if absent.
+	 * @param dir
+	 * @param weighted whether neighbors have weights.
+	 * @throws IOException
+	 */
+	public CSRGraphWriter(File dir, boolean weighted) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Can not create directory " + dir);
+		}
+		this.dir = dir;
+		this.weighted = weighted;
+		offsets = create(CSRGraph.OFFSETS_FILE);
+		neighbors = create(CSRGraph.NEIGHBORS_FILE);
+		if (weighted) {
+			weights = create(CSRGraph.WEIGHTS_FILE);
+		}
+		offsets.writeLong(0);
+	}
+	
+	private DataOutputStream create(String name) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(dir, name)), 1 << 16));
+	}
+	
+	/**
+	 * Get the index of the specified vertex, a new index is assigned if the vertex
+	 * is not seen before.
+	 * @param id
+	 * @return
+	 */
+	public int getIndex(String id) {
+		Integer index = indexes.get(id);
+		if (index == null) {
+			index = ids.size();
+			indexes.put(id, index);
+			ids.add(id);
+		}
+		return index;
+	}
+	
+	/**
+	 * Number of vertexes seen so far.
+	 * @return
+	 */
+	public int getVertexCount() {
+		return ids.size();
+	}
+	
+	/**
+	 * Add the row of the next vertex. Neighbors are sorted by index in the snapshot.
+	 * @param id id of the vertex, whose index must be the number of rows added.
+	 * @param nbrs indexes of neighbors.
+	 * @param wts weights of neighbors, ignored if the snapshot is not weighted.
+	 * @param count number of neighbors.
+	 * @throws IOException
+	 */
+	public void addVertex(String id, int[] nbrs, double[] wts, int count) throws IOException {
+		if (getIndex(id) != rows) {
+			throw new IllegalStateException("Row of " + id + " is added out of order, " +
+					"or added twice");
+		}
+		
+		if (weighted) {
+			// Sort the positions by neighbor index, to move weights together.
+			long[] order = new long[count];
+			for (int i = 0; i < count; i++) {
+				order[i] = ((long) nbrs[i] << 32) | i;
+			}
+			Arrays.sort(order);
+			for (int i = 0; i < count; i++) {
+				neighbors.writeInt((int) (order[i] >>> 32));
+				weights.writeDouble(wts[(int) order[i]]);
+			}
+		} else {
+			int[] sorted = Arrays.copyOf(nbrs, count);
+			Arrays.sort(sorted);
+			for (int i = 0; i < count; i++) {
+				neighbors.writeInt(sorted[i]);
+			}
+		}
+		
+		rows++;
+		edges += count;
+		offsets.writeLong(edges);
+	}
+	
+	/**
+	 * Write empty rows for vertexes without rows, the id dictionary and the header.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (offsets == null) {
+			return;
+		}
+		
+		while (rows < ids.size()) {
+			rows++;
+			offsets.writeLong(edges);
+		}
+		offsets.close();
+		neighbors.close();
+		if (weighted) {
+			weights.close();
+		}
+		offsets = null;
+		
+		writeIds();
+		
+		DataOutputStream header = create(CSRGraph.HEADER_FILE);
+		header.writeInt(CSRGraph.MAGIC);
+		header.writeInt(CSRGraph.VERSION);
+		header.writeInt(ids.size());
+		header.writeLong(edges);
+		header.writeBoolean(weighted);
+		header.close();
+	}
+	
+	private void writeIds() throws IOException {
+		final byte[][] encoded = new byte[ids.size()][];
+		DataOutputStream idFile = create(CSRGraph.IDS_FILE);
+		DataOutputStream idOffsets = create(CSRGraph.ID_OFFSETS_FILE);
+		long length = 0;
+		idOffsets.writeLong(length);
+		for (int i = 0; i < encoded.length; i++) {
+			// Encoded the same way as Text, so that ids are sorted in the order of Text.
+			Text text = new Text(ids.get(i));
+			encoded[i] = Arrays.copyOf(text.getBytes(), text.getLength());
+			idFile.write(encoded[i]);
+			length += encoded[i].length;
+			idOffsets.writeLong(length);
+		}
+		idFile.close();
+		idOffsets.close();
+		
+		Integer[] order = new Integer[encoded.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return WritableComparator.compareBytes(encoded[a], 0, encoded[a].length, 
+						encoded[b], 0, encoded[b].length);
+			}
+		});
+		DataOutputStream idOrder = create(CSRGraph.ID_ORDER_FILE);
+		for (Integer v : order) {
+			idOrder.writeInt(v);
+		}
+		idOrder.close();
+	}
+}
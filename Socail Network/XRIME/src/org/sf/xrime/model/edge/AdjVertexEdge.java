@@ -24,8 +24,11 @@ import java.util.List;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.Element;
 import org.sf.xrime.model.vertex.Vertex;
 
@@ -35,7 +38,7 @@ import org.sf.xrime.model.vertex.Vertex;
  * opposite vertex could be the from end, or the to end of a directed edge.
  * @author Cai Bin
  */
-public class AdjVertexEdge extends AbstractEdge implements Cloneable {
+public class AdjVertexEdge extends AbstractEdge implements WritableComparable<AdjVertexEdge>, Cloneable {
   /**
    * The id of the opposite vertex of this edge, which could be the from end,
    * or the to end of the edge.
@@ -49,6 +52,8 @@ public class AdjVertexEdge extends AbstractEdge implements Cloneable {
 		       new WritableFactory() {
 		           public Writable newInstance() { return new AdjVertexEdge(); }
 		       });
+		// Register the raw comparator.
+		WritableComparator.define(AdjVertexEdge.class, new Comparator());
     }
 	
 	/**
@@ -159,5 +164,34 @@ public class AdjVertexEdge extends AbstractEdge implements Cloneable {
     return opposite.hashCode();
   }
 
+  /**
+   * Ordered by the opposite vertex, the same as AdjVertexEdgeComparator.
+   */
+  @Override
+  public int compareTo(AdjVertexEdge o) {
+    return opposite.compareTo(o.getOpposite());
+  }
+
+  /**
+   * Compare serialized edges by the bytes of their opposite vertexes.
+   * @see org.sf.xrime.model.vertex.Vertex.Comparator
+   */
+  public static class Comparator extends WritableComparator {
+    public Comparator() {
+      super(AdjVertexEdge.class);
+    }
+
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      try {
+        int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+        int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+        return compareBytes(b1, s1 + n1, readVInt(b1, s1), b2, s2 + n2, readVInt(b2, s2));
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
 
 }
@@ -24,8 +24,11 @@ import java.util.List;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.Element;
 import org.sf.xrime.model.vertex.Vertex;
 
@@ -33,7 +36,7 @@ import org.sf.xrime.model.vertex.Vertex;
 /**
  * Directed edge with both ends specified.
  */
-public class Edge extends AbstractEdge implements Element {
+public class Edge extends AbstractEdge implements Element, WritableComparable<Edge> {
   /**
    * The from end of this edge, i.e., the id of the vertex from which
    * this edge goes out.
@@ -54,6 +57,8 @@ public class Edge extends AbstractEdge implements Element {
 				return new Edge();
 			}
 		});
+		// Register the raw comparator, so that sorting never deserializes edges.
+		WritableComparator.define(Edge.class, new Comparator());
 	}
 	/**
 	 * The default constructor.
@@ -263,5 +268,55 @@ public class Edge extends AbstractEdge implements Element {
   public int hashCode() {
     return (from+to).hashCode();
   }
-
+
+  /**
+   * Ordered by the from end first, then by the to end, the same as EdgeComparator.
+   * A null end is ordered as an empty id, as it is serialized.
+   */
+  @Override
+  public int compareTo(Edge o) {
+    String from1 = from == null ? nullString : from;
+    String from2 = o.getFrom() == null ? nullString : o.getFrom();
+    int cmp = from1.compareTo(from2);
+    if (cmp != 0) {
+      return cmp;
+    }
+    String to1 = to == null ? nullString : to;
+    String to2 = o.getTo() == null ? nullString : o.getTo();
+    return to1.compareTo(to2);
+  }
+
+  /**
+   * Compare serialized edges by the bytes of their from ends, then of their to ends.
+   * Only the two leading ids are read, so this also works for derivants of Edge.
+   * @see org.sf.xrime.model.vertex.Vertex.Comparator
+   */
+  public static class Comparator extends WritableComparator {
+    public Comparator() {
+      super(Edge.class);
+    }
+
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      try {
+        int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+        int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+        int len1 = readVInt(b1, s1);
+        int len2 = readVInt(b2, s2);
+        int cmp = compareBytes(b1, s1 + n1, len1, b2, s2 + n2, len2);
+        if (cmp != 0) {
+          return cmp;
+        }
+        // Move to the to ends.
+        s1 += n1 + len1;
+        s2 += n2 + len2;
+        n1 = WritableUtils.decodeVIntSize(b1[s1]);
+        n2 = WritableUtils.decodeVIntSize(b2[s2]);
+        return compareBytes(b1, s1 + n1, readVInt(b1, s1), b2, s2 + n2, readVInt(b2, s2));
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
 }
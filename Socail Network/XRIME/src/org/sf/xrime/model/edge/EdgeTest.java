@@ -8,6 +8,8 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
 import org.junit.Test;
 import org.sf.xrime.model.edge.Edge;
 
@@ -43,4 +45,39 @@ public class EdgeTest {
 		assertEquals(edge.getFrom(),edge3.getFrom());
 		assertEquals(edge.getTo(),null);
 	}
+	
+	@Test
+	public void testRawComparators() throws IOException {
+		String[] ids={"", "a", "ab", "b", "v10", "v2"};
+		WritableComparator edgeComparator=WritableComparator.get(Edge.class);
+		WritableComparator adjComparator=WritableComparator.get(AdjVertexEdge.class);
+		for(String from1 : ids) {
+			for(String to1 : ids) {
+				for(String from2 : ids) {
+					for(String to2 : ids) {
+						Edge edge1=new Edge(from1, to1);
+						Edge edge2=new Edge(from2, to2);
+						byte[] b1=serialize(edge1);
+						byte[] b2=serialize(edge2);
+						assertEquals(Integer.signum(edge1.compareTo(edge2)), 
+								Integer.signum(edgeComparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+						assertEquals(Integer.signum(new EdgeComparator().compare(edge1, edge2)), 
+								Integer.signum(edge1.compareTo(edge2)));
+					}
+				}
+				AdjVertexEdge adj1=new AdjVertexEdge(from1);
+				AdjVertexEdge adj2=new AdjVertexEdge(to1);
+				byte[] b1=serialize(adj1);
+				byte[] b2=serialize(adj2);
+				assertEquals(Integer.signum(adj1.compareTo(adj2)), 
+						Integer.signum(adjComparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+			}
+		}
+	}
+	
+	private static byte[] serialize(Writable writable) throws IOException {
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		writable.write(new DataOutputStream(strOutputStream));
+		return strOutputStream.toByteArray();
+	}
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.edge;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+import org.sf.xrime.model.vertex.IdVertex;
+
+
+/**
+ * Directed edge with both ends specified by dictionary encoded vertex ids.
+ * @see org.sf.xrime.model.vertex.IdVertex
+ */
+public class IdEdge extends AbstractEdge implements Cloneable {
+	/**
+	 * The id of the from end of this edge.
+	 */
+	protected long from = -1;
+	/**
+	 * The id of the to end of this edge.
+	 */
+	protected long to = -1;
+
+	static {
+		// Register the writable factory for this class.
+		WritableFactories.setFactory(IdEdge.class, new WritableFactory() {
+			public Writable newInstance() {
+				return new IdEdge();
+			}
+		});
+	}
+
+	/**
+	 * The default constructor.
+	 */
+	public IdEdge() {
+	}
+
+	/**
+	 * Normal constructor.
+	 * @param from
+	 * @param to
+	 */
+	public IdEdge(long from, long to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param edge
+	 */
+	public IdEdge(IdEdge edge) {
+		this(edge.getFrom(), edge.getTo());
+	}
+
+	/**
+	 * Get the id of the from end of this edge.
+	 * @return
+	 */
+	public long getFrom() {
+		return from;
+	}
+
+	/**
+	 * Set the id of the from end of this edge.
+	 * @param from
+	 */
+	public void setFrom(long from) {
+		this.from = from;
+	}
+
+	/**
+	 * Get the id of the to end of this edge.
+	 * @return
+	 */
+	public long getTo() {
+		return to;
+	}
+
+	/**
+	 * Set the id of the to end of this edge.
+	 * @param to
+	 */
+	public void setTo(long to) {
+		this.to = to;
+	}
+
+	@Override
+	public String toString() {
+		return "<" + from + ", " + to + ">";
+	}
+
+	@Override
+	public void fromString(String encoding) {
+		int comma_index = encoding.indexOf(", ");
+		this.from = Long.parseLong(encoding.substring(1, comma_index));
+		this.to = Long.parseLong(encoding.substring(comma_index + 2, encoding.length() - 1));
+	}
+
+	public Object clone() {
+		return new IdEdge(this);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		this.from = WritableUtils.readVLong(in);
+		this.to = WritableUtils.readVLong(in);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, from);
+		WritableUtils.writeVLong(out, to);
+	}
+
+	@Override
+	public Iterator<IdVertex> getIncidentElements() {
+		// The incident elements of this edge is its from end and to end.
+		List<IdVertex> vertexes = new ArrayList<IdVertex>();
+		vertexes.add(new IdVertex(from));
+		vertexes.add(new IdVertex(to));
+		return Collections.unmodifiableList(vertexes).iterator();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof IdEdge) {
+			return from == ((IdEdge) obj).getFrom() && to == ((IdEdge) obj).getTo();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		long bits = from * 31 + to;
+		return (int) (bits ^ (bits >>> 32));
+	}
+}
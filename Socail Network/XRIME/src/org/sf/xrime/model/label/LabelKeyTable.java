@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.label;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Interned table of label keys. Well-known keys are written as a small index
+ * into a fixed table, other keys are written literally. Keys read back are
+ * shared String instances, instead of one copy per record.
+ * <p>
+ * Like the tags of LabelTypeRegistry, indexes are part of the on-disk format.
+ * Only append to the table.
+ */
+public final class LabelKeyTable {
+	/**
+	 * Well-known label keys, index i+1 for entry i. Index 0 stands for a literal key.
+	 */
+	private static final String[] knownKeys = {
+		"xrime.algorithm.pageRank.label",
+		"xrime.algorithm.BFS.label",
+		"xrime.algorithm.BC.label",
+		"xrime.algorithm.SetBFS.label",
+		"xrime.algorithm.EgoCentric.label",
+		"xrime.algorithm.RadialTree.layout.label",
+		"xrime.algorithm.HITS.Hub",
+		"xrime.algorithm.HITS.Authority",
+		"xrime.algorithm.MST.edge.states.label",
+		"xrime.algorithm.MST.wedges.label",
+		"xrime.algorithem.MST.vertex.infor.label",
+		"xrime.algorithem.MST.message.timestamp.label",
+		"xrime.algorithem.MST.message.accept.label",
+		"xrime.algorithem.MST.message.report.label",
+		"xrime.algorithem.MST.message.test.label",
+		"xrime.algorithem.MST.message.changeroot.label",
+		"xrime.algorithem.MST.message.connect.label",
+		"xrime.algorithem.MST.message.initiate.label",
+		"xrime.algorithem.MST.message.reject.label",
+		"org.sf.xrime.target_component_label",
+		"is_frontier",
+		"init_vertex",
+		"last_label",
+		"label_before_last",
+		"final_label",
+		"scc_label",
+		"forward_label",
+		"backward_label",
+		"label_forward_done",
+		"label_backward_done",
+		"pivot_vertex",
+	};
+	/**
+	 * Upper bound of literal keys to intern. Some algorithms use vertex ids as keys,
+	 * which are not worth sharing and should not grow the table without limit.
+	 */
+	private static final int maxInterned = 4096;
+	
+	private static final Map<String, Integer> indexes = new HashMap<String, Integer>();
+	private static final ConcurrentHashMap<String, String> interned = new ConcurrentHashMap<String, String>();
+	
+	static {
+		for (int i = 0; i < knownKeys.length; i++) {
+			indexes.put(knownKeys[i], i + 1);
+		}
+	}
+	
+	private LabelKeyTable() {
+	}
+	
+	/**
+	 * Write a key, as an index if it is well-known, or literally otherwise.
+	 * @param out
+	 * @param key
+	 * @throws IOException
+	 */
+	public static void writeKey(DataOutput out, String key) throws IOException {
+		Integer index = indexes.get(key);
+		if (index != null) {
+			WritableUtils.writeVInt(out, index);
+		} else {
+			WritableUtils.writeVInt(out, 0);
+			Text.writeString(out, key);
+		}
+	}
+	
+	/**
+	 * Read a key written by writeKey.
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static String readKey(DataInput in) throws IOException {
+		int index = WritableUtils.readVInt(in);
+		if (index == 0) {
+			return intern(Text.readString(in));
+		}
+		if (index < 0 || index > knownKeys.length) {
+			throw new IOException("Unknown label key index: " + index);
+		}
+		return knownKeys[index - 1];
+	}
+	
+	/**
+	 * Get the shared instance of a key.
+	 * @param key
+	 * @return
+	 */
+	public static String intern(String key) {
+		Integer index = indexes.get(key);
+		if (index != null) {
+			return knownKeys[index - 1];
+		}
+		String shared = interned.get(key);
+		if (shared != null) {
+			return shared;
+		}
+		if (interned.size() < maxInterned) {
+			shared = interned.putIfAbsent(key, key);
+			return shared == null ? key : shared;
+		}
+		return key;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.label;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+
+/**
+ * Maps frequently used label value classes to small integer tags, so that
+ * Labels does not have to write a fully qualified class name for every label
+ * value of every record. Classes are resolved lazily, and the way to create
+ * a new instance (registered WritableFactory or no-arg constructor) is looked
+ * up only once per class.
+ * <p>
+ * Tags are part of the on-disk format. The table could only be appended to;
+ * never reorder or remove an entry. Tag 0 means the value class is not in the
+ * table, and its name is written literally instead.
+ */
+public final class LabelTypeRegistry {
+	/**
+	 * Tag used for classes not in the table.
+	 */
+	public static final int UNREGISTERED = 0;
+	/**
+	 * Class names of registered label values, tag i+1 for entry i. Names instead of
+	 * class literals, since the model package does not depend on algorithms.
+	 */
+	private static final String[] classNames = {
+		// Hadoop primitive writables.
+		"org.apache.hadoop.io.Text",
+		"org.apache.hadoop.io.IntWritable",
+		"org.apache.hadoop.io.LongWritable",
+		"org.apache.hadoop.io.DoubleWritable",
+		"org.apache.hadoop.io.FloatWritable",
+		"org.apache.hadoop.io.BooleanWritable",
+		"org.apache.hadoop.io.VIntWritable",
+		"org.apache.hadoop.io.VLongWritable",
+		"org.apache.hadoop.io.BytesWritable",
+		// X-RIME model classes used as label values.
+		"org.sf.xrime.model.label.Labels",
+		"org.sf.xrime.model.vertex.VertexSet",
+		"org.sf.xrime.model.edge.EdgeSet",
+		"org.sf.xrime.model.edge.WeightOfEdge",
+		"org.sf.xrime.model.path.PathAsVertexesList",
+		// Algorithm labels.
+		"org.sf.xrime.algorithms.pagerank.PageRankLabel",
+		"org.sf.xrime.algorithms.BFS.BFSLabel",
+		"org.sf.xrime.algorithms.BC.BCLabel",
+		"org.sf.xrime.algorithms.BCApproximation.BCLabel",
+		"org.sf.xrime.algorithms.HITS.HITSLabel.HubLabel",
+		"org.sf.xrime.algorithms.HITS.HITSLabel.AuthorityLabel",
+		"org.sf.xrime.algorithms.setBFS.SetBFSLabel",
+		"org.sf.xrime.algorithms.statistics.egoCentric.EgoCentricLabel",
+		"org.sf.xrime.algorithms.layout.radialtree.RadialTreeLabel",
+		"org.sf.xrime.algorithms.MST.MSTLabel.MSTEdgeStateVariable",
+		"org.sf.xrime.algorithms.MST.MSTLabel.MSTEdgeStatesLabel",
+		"org.sf.xrime.algorithms.MST.MSTLabel.MSTWEdgesLabel",
+		"org.sf.xrime.algorithms.MST.MSTLabel.MSTVertexInforLabel",
+		"org.sf.xrime.algorithms.MST.MSTLabel.MSTMessageTimestampLabel",
+	};
+	/**
+	 * Class name to tag.
+	 */
+	private static final ConcurrentHashMap<String, Integer> tags = new ConcurrentHashMap<String, Integer>();
+	/**
+	 * Class name to resolved instantiator, for both registered and literal classes.
+	 */
+	private static final ConcurrentHashMap<String, Instantiator> instantiators = 
+		new ConcurrentHashMap<String, Instantiator>();
+	
+	static {
+		for (int i = 0; i < classNames.length; i++) {
+			tags.put(classNames[i], i + 1);
+		}
+	}
+	
+	private LabelTypeRegistry() {
+	}
+	
+	/**
+	 * Get the tag of the specified class.
+	 * @param clazz
+	 * @return the tag, or UNREGISTERED if the class is not in the table.
+	 */
+	public static int getTag(Class<?> clazz) {
+		Integer tag = tags.get(clazz.getName());
+		return tag == null ? UNREGISTERED : tag;
+	}
+	
+	/**
+	 * Create a new instance of the class with the specified tag.
+	 * @param tag
+	 * @return
+	 * @throws IOException if the tag is unknown or the class could not be instantiated.
+	 */
+	public static Writable newInstance(int tag) throws IOException {
+		if (tag <= UNREGISTERED || tag > classNames.length) {
+			throw new IOException("Unknown label type tag: " + tag);
+		}
+		return newInstance(classNames[tag - 1]);
+	}
+	
+	/**
+	 * Create a new instance of the named class.
+	 * @param className
+	 * @return
+	 * @throws IOException if the class could not be found or instantiated.
+	 */
+	public static Writable newInstance(String className) throws IOException {
+		Instantiator instantiator = instantiators.get(className);
+		if (instantiator == null) {
+			instantiator = new Instantiator(className);
+			instantiators.putIfAbsent(className, instantiator);
+		}
+		return instantiator.newInstance();
+	}
+	
+	/**
+	 * Resolves a class once, and remembers how to create its instances.
+	 */
+	private static class Instantiator {
+		private final Class<? extends Writable> clazz;
+		private final Constructor<? extends Writable> constructor;
+		
+		Instantiator(String className) throws IOException {
+			try {
+				// Initializing the class runs its static block, which is where label
+				// classes register their factories.
+				clazz = Class.forName(className).asSubclass(Writable.class);
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Label type not found: " + className);
+			} catch (ClassCastException e) {
+				throw new IOException("Label type is not a Writable: " + className);
+			}
+			Constructor<? extends Writable> ctor = null;
+			if (WritableFactories.getFactory(clazz) == null) {
+				try {
+					ctor = clazz.getDeclaredConstructor();
+					ctor.setAccessible(true);
+				} catch (NoSuchMethodException e) {
+					throw new IOException("No default constructor for label type: " + className);
+				}
+			}
+			constructor = ctor;
+		}
+		
+		Writable newInstance() throws IOException {
+			if (constructor == null) {
+				WritableFactory factory = WritableFactories.getFactory(clazz);
+				return factory.newInstance();
+			}
+			try {
+				return constructor.newInstance();
+			} catch (Exception e) {
+				throw new IOException("Could not instantiate " + clazz.getName() + ": " + e.getMessage());
+			}
+		}
+	}
+}
@@ -24,13 +24,17 @@ import java.util.Map;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
-import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
  * An utility class to be aggregated within bigger classes to implement Labelable
  * interface.
  */
 public class Labels implements Labelable, Writable, Cloneable {
+	/**
+	 * Leading byte of the compact serialization format.
+	 */
+	private static final byte COMPACT_FORMAT=(byte) 0x81;
 	/**
 	 * The internal container of key-value pairs.
 	 */
@@ -208,32 +212,82 @@ public class Labels implements Labelable, Writable, Cloneable {
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public void readFields(DataInput in) throws IOException {
 		// Clear the container.
 		labels.clear();
+		// The legacy format starts with a non-negative int, whose first byte never
+		// has the high bit set. The compact format starts with a marker byte that does.
+		byte first=in.readByte();
+		if(first==COMPACT_FORMAT) {
+			readCompactFields(in);
+			return;
+		}
+		if((first & 0x80)!=0) {
+			throw new IOException("Unknown labels format: "+first);
+		}
 		// Determine the size of container.
-		int size=in.readInt();
+		int size=((first & 0xff)<<24) | ((in.readByte() & 0xff)<<16)
+			| ((in.readByte() & 0xff)<<8) | (in.readByte() & 0xff);
 		while( size-- > 0) {
 			// Each key is a string, but the label value may be of different types.
-			String key=Text.readString(in);
+			String key=LabelKeyTable.intern(Text.readString(in));
 			String valueClassName=Text.readString(in);
 
-			try {
-				Class instanceClass;
-				instanceClass = Class.forName(valueClassName);
-				Writable writable = WritableFactories.newInstance(instanceClass, null);
-				writable.readFields(in);
-				labels.put(key, writable);
-			} catch (ClassNotFoundException e) {
-				e.printStackTrace();
-				throw new IOException(e.getMessage());
-			}
+			Writable writable = LabelTypeRegistry.newInstance(valueClassName);
+			writable.readFields(in);
+			labels.put(key, writable);
 		}		
 	}
+	
+	/**
+	 * Read labels in compact format, where keys and value types are tagged.
+	 * @param in
+	 * @throws IOException
+	 */
+	private void readCompactFields(DataInput in) throws IOException {
+		int size=WritableUtils.readVInt(in);
+		while( size-- > 0) {
+			String key=LabelKeyTable.readKey(in);
+			int tag=WritableUtils.readVInt(in);
+			Writable writable;
+			if(tag==LabelTypeRegistry.UNREGISTERED) {
+				writable=LabelTypeRegistry.newInstance(Text.readString(in));
+			} else {
+				writable=LabelTypeRegistry.newInstance(tag);
+			}
+			writable.readFields(in);
+			labels.put(key, writable);
+		}
+	}
 
 	@Override
 	public void write(DataOutput out) throws IOException {
+		out.writeByte(COMPACT_FORMAT);
+		if(labels==null) {
+			WritableUtils.writeVInt(out, 0);
+			return;
+		}
+
+		WritableUtils.writeVInt(out, labels.size());
+		for(Map.Entry<String, Writable> entry : labels.entrySet()) {
+			LabelKeyTable.writeKey(out, entry.getKey());
+			Writable value=entry.getValue();
+			int tag=LabelTypeRegistry.getTag(value.getClass());
+			WritableUtils.writeVInt(out, tag);
+			if(tag==LabelTypeRegistry.UNREGISTERED) {
+				Text.writeString(out, value.getClass().getName());
+			}
+			value.write(out);
+		}
+	}
+	
+	/**
+	 * Write labels in the legacy format, with literal keys and value class names.
+	 * Kept for consumers which could not read the compact format.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeLegacy(DataOutput out) throws IOException {
 		if(labels==null) {
 			out.writeInt(0);
 			return;
@@ -9,6 +9,9 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Map;
 
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.junit.Test;
@@ -72,4 +75,63 @@ public class LabelsTest {
 		Text output=(Text) label2.getLabel("name1");
 		assertTrue(test.toString().compareTo(output.toString())==0);	
 	}
+	
+	@Test
+	public void testCompactFormat() throws IOException, Exception {
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(strOutputStream);
+		
+		Labels label1=new Labels();
+		label1.setLabel("xrime.algorithm.pageRank.label", new DoubleWritable(0.5));
+		label1.setIntLabel("name2", 231);
+		// Not in the type registry.
+		label1.setLabel("name3", new ByteWritable((byte) 7));
+		
+		label1.write(out);
+		
+		ByteArrayOutputStream  legacyOutputStream=new ByteArrayOutputStream();
+		label1.writeLegacy(new DataOutputStream(legacyOutputStream));
+		assertTrue(strOutputStream.size()<legacyOutputStream.size());
+		
+		ByteArrayInputStream  strInputStream=new ByteArrayInputStream(strOutputStream.toByteArray());
+		DataInputStream in = new DataInputStream(strInputStream);
+		
+		Labels label2=new Labels();
+		label2.readFields(in);
+		
+		assertTrue(label2.getLabels().size()==3);
+		assertTrue(label2.getIntLabel("name2")==231);
+		assertTrue(((DoubleWritable) label2.getLabel("xrime.algorithm.pageRank.label")).get()==0.5);
+		assertTrue(((ByteWritable) label2.getLabel("name3")).get()==7);
+		assertTrue(strInputStream.available()==0);
+	}
+	
+	@Test
+	public void testLegacyFormat() throws IOException, Exception {
+		// Labels written by older versions, with class names and literal keys.
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(strOutputStream);
+		out.writeInt(2);
+		Text.writeString(out, "name1");
+		Text.writeString(out, Text.class.getName());
+		new Text("test1").write(out);
+		Text.writeString(out, "name2");
+		Text.writeString(out, IntWritable.class.getName());
+		new IntWritable(231).write(out);
+		
+		Labels label1=new Labels();
+		label1.readFields(new DataInputStream(new ByteArrayInputStream(strOutputStream.toByteArray())));
+		assertTrue(label1.getLabels().size()==2);
+		assertEquals(label1.getStringLabel("name1"), "test1");
+		assertTrue(label1.getIntLabel("name2")==231);
+		
+		// Output of writeLegacy stays readable too.
+		ByteArrayOutputStream  legacyOutputStream=new ByteArrayOutputStream();
+		Labels label2=new Labels();
+		label2.setIntLabel("name2", 231);
+		label2.writeLegacy(new DataOutputStream(legacyOutputStream));
+		Labels label3=new Labels();
+		label3.readFields(new DataInputStream(new ByteArrayInputStream(legacyOutputStream.toByteArray())));
+		assertTrue(label3.getIntLabel("name2")==231);
+	}
 }
@@ -18,24 +18,32 @@ package org.sf.xrime.model.vertex;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.edge.AbstractEdge;
 import org.sf.xrime.model.edge.AdjVertexEdge;
 import org.sf.xrime.model.edge.AdjVertexEdgeComparator;
 import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.utils.FrontCoding;
+import org.sf.xrime.utils.SortedArraySet;
 
 
 /**
  * Vertex with incidental edges. The edges could be incoming, outgoing or both.
  * Edges are represented with AdjVertexEdge, which only record the other end of
  * the edge in contrast with this vertex.
+ * <p>
+ * In compressed mode, opposites are written front coded, in their sorted order,
+ * provided that all of them are plain AdjVertexEdges. Both formats are readable,
+ * and a vertex read in compressed format is written back in compressed format.
  */
 public class AdjSetVertex extends Vertex implements Cloneable {
   /**
@@ -43,6 +51,19 @@ public class AdjSetVertex extends Vertex implements Cloneable {
    * should have the same type (AdjVertexEdge or its derivants).
    */
 	protected Set<AdjVertexEdge> opposites = null;
+	/**
+	 * Shared by all opposite sets, so that sets of different vertexes are known to
+	 * have the same order, and could be intersected by merging.
+	 */
+	private static final AdjVertexEdgeComparator oppositeComparator = new AdjVertexEdgeComparator();
+	/**
+	 * Written in place of the container size to mark the compressed format.
+	 */
+	protected static final int COMPRESSED_MARKER = -1;
+	/**
+	 * Whether opposites are written in compressed format.
+	 */
+	protected boolean compressed = false;
 	
 	static {
 	  // Register writable factory for this class.
@@ -57,7 +78,7 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	 */
 	public AdjSetVertex() {
 	  super();
-		opposites = new TreeSet<AdjVertexEdge>(new AdjVertexEdgeComparator());
+		opposites = new SortedArraySet<AdjVertexEdge>(oppositeComparator);
 	}
 	/**
 	 * Normal constructor.
@@ -65,7 +86,7 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	 */
 	public AdjSetVertex(String id){
 	  super(id);
-	  opposites = new TreeSet<AdjVertexEdge>(new AdjVertexEdgeComparator());
+	  opposites = new SortedArraySet<AdjVertexEdge>(oppositeComparator);
 	}
 	/**
 	 * Copy constructor.
@@ -73,7 +94,9 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	 */
 	public AdjSetVertex(AdjSetVertex vertex) {
 		super(vertex);
-	  opposites = new TreeSet<AdjVertexEdge>(new AdjVertexEdgeComparator());
+	  compressed = vertex.isCompressed();
+	  opposites = new SortedArraySet<AdjVertexEdge>(oppositeComparator);
+	  // Iterated in order, so each add is an append.
 	  for(AdjVertexEdge edge : vertex.getOpposites()){
 	    opposites.add((AdjVertexEdge) edge.clone());
 	  }
@@ -89,9 +112,12 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 		id = vertex.getId();
 		opposites.clear();
 
+		List<AdjVertexEdge> tos = new ArrayList<AdjVertexEdge>(vertex.getEdges().size());
 		for (Edge edge : vertex.getEdges()) {
-			opposites.add(new AdjVertexEdge(edge.getTo()));
+			tos.add(new AdjVertexEdge(edge.getTo()));
 		}
+		// Bulk add, sorted once.
+		opposites.addAll(tos);
 	}
 	
 	/**
@@ -99,12 +125,15 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	 * only from ends of incoming incidental edges are reserved. This method could 
 	 * be used when the input AdjVertex only records incoming incidental edges.
 	 * @param vertex
-	 */	public void fromAdjVertexFroms(AdjVertex vertex){
+	 */
+	public void fromAdjVertexFroms(AdjVertex vertex){
 	  id = vertex.getId();
 	  opposites.clear();
+	  List<AdjVertexEdge> froms = new ArrayList<AdjVertexEdge>(vertex.getEdges().size());
 	  for(Edge edge : vertex.getEdges()){
-	    opposites.add(new AdjVertexEdge(edge.getFrom()));
+	    froms.add(new AdjVertexEdge(edge.getFrom()));
 	  }
+	  opposites.addAll(froms);
 	}
 	/**
 	 * Initialize this object with the content of specified AdjVertex. Particularly,
@@ -116,16 +145,18 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	public void fromAdjVertexBoth(AdjVertex vertex){
 	  id = vertex.getId();
 	  opposites.clear();
+	  List<AdjVertexEdge> both = new ArrayList<AdjVertexEdge>(vertex.getEdges().size());
 	  for(Edge edge : vertex.getEdges()){
 	    if(edge.getFrom().compareTo(id)!=0){
-	      opposites.add(new AdjVertexEdge(edge.getFrom()));
+	      both.add(new AdjVertexEdge(edge.getFrom()));
 	    }else if(edge.getTo().compareTo(id)!=0){
-	      opposites.add(new AdjVertexEdge(edge.getTo()));
+	      both.add(new AdjVertexEdge(edge.getTo()));
 	    }else{
 	      // A loop.
-	      opposites.add(new AdjVertexEdge(id));
+	      both.add(new AdjVertexEdge(id));
 	    }
 	  }
+	  opposites.addAll(both);
 	}
 	/**
 	 * Get opposite vertexes of incidental edges of this vertex.
@@ -156,11 +187,27 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 	  opposites.clear();
 	}
 	
+	/**
+	 * Check whether opposites are written in compressed format.
+	 * @return
+	 */
+	public boolean isCompressed() {
+	  return compressed;
+	}
+	
+	/**
+	 * Set whether opposites are written in compressed format.
+	 * @param compressed
+	 */
+	public void setCompressed(boolean compressed) {
+	  this.compressed = compressed;
+	}
+	
 	/**
 	 * Remove loop on this vertex.
 	 */
 	public void removeLoop() {
-		opposites.remove(id);
+		opposites.remove(new AdjVertexEdge(id));
 	}
 
 	public String toString() {
@@ -223,8 +270,15 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 		opposites.clear();
 		// Determine container size.
 		int size = in.readInt();
-
-		if (size > 0) {
+		compressed = (size == COMPRESSED_MARKER);
+		
+		if (compressed) {
+		  size = WritableUtils.readVInt(in);
+		  FrontCoding coding = new FrontCoding();
+		  for (int ii = 0; ii < size; ii++) {
+		    addOpposite(new AdjVertexEdge(coding.read(in)));
+		  }
+		} else if (size > 0) {
 		  // Determine the element type.
 			String className = Text.readString(in);
 			try {
@@ -240,7 +294,8 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 			} catch (ClassNotFoundException e) {
 				e.printStackTrace();
 			}
-		}	}
+		}
+	}
 
 	public void write(DataOutput out) throws IOException {
 	  // super.
@@ -250,17 +305,43 @@ public class AdjSetVertex extends Vertex implements Cloneable {
 			out.writeInt(0);
 			return;
 		}
+		if (compressed && isPlain()) {
+		  out.writeInt(COMPRESSED_MARKER);
+		  WritableUtils.writeVInt(out, opposites.size());
+		  FrontCoding coding = new FrontCoding();
+		  for (AdjVertexEdge sibling : opposites) {
+		    coding.write(out, sibling.getOpposite());
+		  }
+		  return;
+		}
 		// Size of the container.
 		out.writeInt(opposites.size());
 		if (opposites.size() > 0) {
 		  // All incidental edges should have the same type.
-			Text.writeString(out, opposites.toArray()[0].getClass().getName());
+			Text.writeString(out, opposites.iterator().next().getClass().getName());
 			for (AdjVertexEdge sibling : opposites) {
 			  sibling.write(out);
 			}
 		}
 	}
 	
+	/**
+	 * Only plain AdjVertexEdges could be written in compressed format, since their
+	 * derivants carry more than the opposite.
+	 * @return
+	 */
+	private boolean isPlain() {
+	  if (opposites.isEmpty()) {
+	    return false;
+	  }
+	  for (AdjVertexEdge sibling : opposites) {
+	    if (sibling.getClass() != AdjVertexEdge.class || sibling.getOpposite() == null) {
+	      return false;
+	    }
+	  }
+	  return true;
+	}
+	
 	@Override
 	public Iterator<AbstractEdge>  getIncidentElements() {
 		class Itr implements Iterator<AbstractEdge> {
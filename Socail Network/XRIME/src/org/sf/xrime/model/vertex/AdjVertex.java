@@ -28,13 +28,21 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.edge.AbstractEdge;
 import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.utils.FrontCoding;
 
 
 /**
  * Vertex with incidental edges. The edges could be incoming, outgoing, or both. 
  * All incidental edges are specified with both ends.
+ * <p>
+ * In compressed mode, only the other end of each edge is written, front coded in
+ * the order of the edge list, provided that all edges are plain Edges incident to
+ * this vertex. Lists sorted by the other end, as generated by the Raw2Sorted*
+ * transformers, compress best. Both formats are readable, and a vertex read in
+ * compressed format is written back in compressed format.
  */
 public class AdjVertex extends Vertex implements Cloneable {
 	/**
@@ -42,6 +50,23 @@ public class AdjVertex extends Vertex implements Cloneable {
 	 * its derivants).
 	 */
 	protected List<Edge> edges;
+	
+	/**
+	 * Written in place of the number of edges to mark the compressed format.
+	 */
+	protected static final int COMPRESSED_MARKER = -1;
+	/**
+	 * Directions of edges in compressed format. MIXED means a direction is written
+	 * for each edge.
+	 */
+	private static final byte OUTGOING = 0;
+	private static final byte INCOMING = 1;
+	private static final byte MIXED = 2;
+	
+	/**
+	 * Whether edges are written in compressed format.
+	 */
+	protected boolean compressed = false;
 
 	static {
 		// Register writable factory of this class.
@@ -75,6 +100,7 @@ public class AdjVertex extends Vertex implements Cloneable {
 	 */
 	public AdjVertex(AdjVertex adjVertex) {
 		super(adjVertex.getId());
+		compressed = adjVertex.isCompressed();
 		edges = new ArrayList<Edge>();
 		for (Edge edge : adjVertex.getEdges()) {
 			edges.add((Edge) edge.clone());
@@ -126,6 +152,22 @@ public class AdjVertex extends Vertex implements Cloneable {
 	public void clearEdges() {
 		edges.clear();
 	}
+	
+	/**
+	 * Check whether edges are written in compressed format.
+	 * @return
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+	
+	/**
+	 * Set whether edges are written in compressed format.
+	 * @param compressed
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
 
 	/**
 	 * Remove loop (aka. self circle) on this vertex.
@@ -176,7 +218,7 @@ public class AdjVertex extends Vertex implements Cloneable {
 		return ret;
 	}
 	  
-
+
 	@Override
 	public void fromString(String encoding){
 	  // Clean.
@@ -229,8 +271,22 @@ public class AdjVertex extends Vertex implements Cloneable {
 		edges.clear();
 		// Determine the size.
 		int size = in.readInt();
+		compressed = (size == COMPRESSED_MARKER);
 
-		if (size > 0) {
+		if (compressed) {
+			size = WritableUtils.readVInt(in);
+			byte direction = in.readByte();
+			FrontCoding coding = new FrontCoding();
+			for (int ii = 0; ii < size; ii++) {
+				byte current = (direction == MIXED) ? in.readByte() : direction;
+				String opposite = coding.read(in);
+				if (current == INCOMING) {
+					edges.add(new Edge(opposite, id));
+				} else {
+					edges.add(new Edge(id, opposite));
+				}
+			}
+		} else if (size > 0) {
 			// Determine the element type.
 			String className = Text.readString(in);
 			try {
@@ -257,6 +313,21 @@ public class AdjVertex extends Vertex implements Cloneable {
 			out.writeInt(0);
 			return;
 		}
+		byte direction = compressed ? getDirection() : -1;
+		if (direction >= 0) {
+			out.writeInt(COMPRESSED_MARKER);
+			WritableUtils.writeVInt(out, edges.size());
+			out.writeByte(direction);
+			FrontCoding coding = new FrontCoding();
+			for (Edge edge : edges) {
+				boolean outgoing = edge.getFrom().equals(id);
+				if (direction == MIXED) {
+					out.writeByte(outgoing ? OUTGOING : INCOMING);
+				}
+				coding.write(out, outgoing ? edge.getTo() : edge.getFrom());
+			}
+			return;
+		}
 		// number of incidental edges.
 		out.writeInt(edges.size());
 		if (edges.size() > 0) {
@@ -268,6 +339,34 @@ public class AdjVertex extends Vertex implements Cloneable {
 		}
 	}
 
+	/**
+	 * Determine the direction of edges in compressed format.
+	 * @return the direction, or -1 if some edge could not be written compressed.
+	 */
+	private byte getDirection() {
+		if (id == null || edges.isEmpty()) {
+			return -1;
+		}
+		boolean outgoing = false, incoming = false;
+		for (Edge edge : edges) {
+			// Derivants carry more than the two ends.
+			if (edge.getClass() != Edge.class || edge.getFrom() == null || edge.getTo() == null) {
+				return -1;
+			}
+			if (edge.getFrom().equals(id)) {
+				outgoing = true;
+			} else if (edge.getTo().equals(id)) {
+				incoming = true;
+			} else {
+				return -1;
+			}
+		}
+		if (outgoing && incoming) {
+			return MIXED;
+		}
+		return outgoing ? OUTGOING : INCOMING;
+	}
+
 	@Override
 	public Iterator<AbstractEdge>  getIncidentElements() {
 		/**
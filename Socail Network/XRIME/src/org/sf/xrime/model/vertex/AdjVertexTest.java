@@ -15,6 +15,7 @@ import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
 import org.junit.Test;
+import org.sf.xrime.model.edge.AdjVertexEdge;
 import org.sf.xrime.model.edge.Edge;
 import org.sf.xrime.model.vertex.AdjVertex;
 
@@ -172,6 +173,87 @@ public class AdjVertexTest {
 		assertTrue(adjVertex1.getEdges().size()==2);
 	}
 	
+	@Test
+	public void testAdjVertexCompressed() throws IOException {
+		AdjVertex adjVertex1=new AdjVertex("1000");
+		for(int ii=1001; ii<1100; ii++){
+			adjVertex1.addEdge(new Edge("1000", Integer.toString(ii)));
+		}
+		byte[] plain=serialize(adjVertex1);
+		adjVertex1.setCompressed(true);
+		byte[] compressed=serialize(adjVertex1);
+		assertTrue(compressed.length*4<plain.length);
+		
+		// Both formats are readable, and the format read is kept.
+		AdjVertex adjVertex=new AdjVertex();
+		deserialize(compressed, adjVertex);
+		assertTrue(adjVertex.isCompressed());
+		assertEquals(adjVertex1.toString(), adjVertex.toString());
+		deserialize(plain, adjVertex);
+		assertFalse(adjVertex.isCompressed());
+		assertEquals(adjVertex1.toString(), adjVertex.toString());
+		
+		// Mixed directions and a loop.
+		AdjVertex adjVertex2=new AdjVertex("b");
+		adjVertex2.addEdge(new Edge("a", "b"));
+		adjVertex2.addEdge(new Edge("b", "b"));
+		adjVertex2.addEdge(new Edge("b", "c"));
+		adjVertex2.setCompressed(true);
+		deserialize(serialize(adjVertex2), adjVertex);
+		assertTrue(adjVertex.isCompressed());
+		assertEquals(adjVertex2.toString(), adjVertex.toString());
+		
+		// Derivants of Edge are written in plain format.
+		AdjVertex adjVertex3=new AdjVertex("from1");
+		adjVertex3.addEdge(new Edge4Test("from1", "to1", "info1"));
+		adjVertex3.setCompressed(true);
+		deserialize(serialize(adjVertex3), adjVertex);
+		assertFalse(adjVertex.isCompressed());
+		assertEquals(((Edge4Test)adjVertex.getEdges().get(0)).getAddInfo(), "info1");
+	}
+	
+	@Test
+	public void testAdjSetVertexCompressed() throws IOException {
+		AdjSetVertex setVertex1=new AdjSetVertex("v");
+		for(int ii=0; ii<100; ii++){
+			setVertex1.addOpposite(new AdjVertexEdge("user" + (ii*7%100)));
+		}
+		setVertex1.addOpposite(new AdjVertexEdge("\u7528\u6237"));
+		setVertex1.addOpposite(new AdjVertexEdge("http://www.example.org/people/someone-with-a-long-name"));
+		byte[] plain=serialize(setVertex1);
+		setVertex1.setCompressed(true);
+		byte[] compressed=serialize(setVertex1);
+		assertTrue(compressed.length*2<plain.length);
+		
+		AdjSetVertex setVertex=new AdjSetVertex();
+		deserialize(compressed, setVertex);
+		assertTrue(setVertex.isCompressed());
+		assertEquals(setVertex1.toString(), setVertex.toString());
+		deserialize(plain, setVertex);
+		assertFalse(setVertex.isCompressed());
+		assertEquals(setVertex1.toString(), setVertex.toString());
+		
+		// Labeled derivants keep the format of the opposites.
+		LabeledAdjSetVertex labeled1=new LabeledAdjSetVertex();
+		labeled1.setId("v");
+		labeled1.setOpposites(setVertex1.getOpposites());
+		labeled1.setCompressed(true);
+		labeled1.setLabel("name", new Text("value"));
+		LabeledAdjSetVertex labeled2=new LabeledAdjSetVertex();
+		deserialize(serialize(labeled1), labeled2);
+		assertEquals(labeled1.toString(), labeled2.toString());
+	}
+	
+	static byte[] serialize(Writable writable) throws IOException {
+		ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+		writable.write(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+	
+	static void deserialize(byte[] bytes, Writable writable) throws IOException {
+		writable.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+	
 	static class Edge4Test extends Edge implements Writable, Cloneable {
 		private String addInfo;
 		
@@ -0,0 +1,525 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.vertex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.LabeledEdge;
+import org.sf.xrime.model.edge.WeightOfEdge;
+
+
+/**
+ * Vertex with the opposite ends of its incidental edges stored in primitive arrays,
+ * in the way of a row of a CSR (compressed sparse row) matrix. The UTF-8 encoded
+ * ids of all neighbors are packed into one byte array, with an offset array telling
+ * where each of them starts. Optionally, each neighbor has a weight.
+ * <p>
+ * Compared with AdjVertex and AdjSetVertex, there is no object per edge, and
+ * readFields reuses the arrays of this object, so the same instance could be used
+ * to read records of any degree without allocating per record. Iterate neighbors
+ * with getNeighborCount() and getNeighbor(int, Text) to avoid allocation. 
+ * getIncidentElements() is only provided for compatibility, and creates an
+ * AdjVertexEdge per neighbor.
+ * <p>
+ * Use the from* and to* methods to convert from and to AdjVertex/AdjSetVertex.
+ */
+public class CompactAdjVertex extends Vertex implements Cloneable {
+	/**
+	 * Label key of the WeightOfEdge of a LabeledEdge, used when converting from
+	 * and to AdjVertex.
+	 */
+	static final public String weightKey = "xrime.edge.weight";
+	
+	private static final byte[] EMPTY_BYTES = new byte[0];
+	private static final double[] EMPTY_WEIGHTS = new double[0];
+	
+	/**
+	 * Packed UTF-8 ids of neighbors. Only the first offsets[size] bytes are valid.
+	 */
+	protected byte[] neighbors = EMPTY_BYTES;
+	/**
+	 * Start of the i-th neighbor in neighbors. offsets[size] is the end of the last one.
+	 */
+	protected int[] offsets = new int[1];
+	/**
+	 * Weights of neighbors, only valid when weighted.
+	 */
+	protected double[] weights = EMPTY_WEIGHTS;
+	/**
+	 * Number of neighbors.
+	 */
+	protected int size = 0;
+	/**
+	 * Whether neighbors have weights.
+	 */
+	protected boolean weighted = false;
+
+	static {
+		// Register writable factory of this class.
+		WritableFactories.setFactory(CompactAdjVertex.class, new WritableFactory() {
+			public Writable newInstance() {
+				return new CompactAdjVertex();
+			}
+		});
+	}
+	
+	/**
+	 * Default constructor.
+	 */
+	public CompactAdjVertex() {
+		super();
+	}
+	
+	/**
+	 * Normal constructor.
+	 * @param id
+	 */
+	public CompactAdjVertex(String id) {
+		super(id);
+	}
+	
+	/**
+	 * Copy constructor. Arrays are trimmed to the actual size.
+	 * @param vertex
+	 */
+	public CompactAdjVertex(CompactAdjVertex vertex) {
+		super(vertex.getId());
+		size = vertex.size;
+		weighted = vertex.weighted;
+		int length = vertex.offsets[size];
+		neighbors = new byte[length];
+		System.arraycopy(vertex.neighbors, 0, neighbors, 0, length);
+		offsets = new int[size + 1];
+		System.arraycopy(vertex.offsets, 0, offsets, 0, size + 1);
+		if (weighted) {
+			weights = new double[size];
+			System.arraycopy(vertex.weights, 0, weights, 0, size);
+		}
+	}
+	
+	/**
+	 * Initialize this object with the to ends of outgoing incidental edges of the
+	 * specified AdjVertex.
+	 * @see AdjSetVertex#fromAdjVertexTos(AdjVertex)
+	 * @param vertex
+	 */
+	public void fromAdjVertexTos(AdjVertex vertex) {
+		id = vertex.getId();
+		clearNeighbors();
+		weighted = hasWeights(vertex);
+		for (Edge edge : vertex.getEdges()) {
+			addNeighbor(edge.getTo(), getWeight(edge));
+		}
+	}
+	
+	/**
+	 * Initialize this object with the from ends of incoming incidental edges of the
+	 * specified AdjVertex.
+	 * @see AdjSetVertex#fromAdjVertexFroms(AdjVertex)
+	 * @param vertex
+	 */
+	public void fromAdjVertexFroms(AdjVertex vertex) {
+		id = vertex.getId();
+		clearNeighbors();
+		weighted = hasWeights(vertex);
+		for (Edge edge : vertex.getEdges()) {
+			addNeighbor(edge.getFrom(), getWeight(edge));
+		}
+	}
+	
+	/**
+	 * Initialize this object with the opposite ends of all incidental edges of the
+	 * specified AdjVertex. This vertex itself is only recorded for loops.
+	 * @see AdjSetVertex#fromAdjVertexBoth(AdjVertex)
+	 * @param vertex
+	 */
+	public void fromAdjVertexBoth(AdjVertex vertex) {
+		id = vertex.getId();
+		clearNeighbors();
+		weighted = hasWeights(vertex);
+		for (Edge edge : vertex.getEdges()) {
+			if (edge.getFrom().compareTo(id) != 0) {
+				addNeighbor(edge.getFrom(), getWeight(edge));
+			} else {
+				// The to end, which is this vertex itself for a loop.
+				addNeighbor(edge.getTo(), getWeight(edge));
+			}
+		}
+	}
+	
+	/**
+	 * Initialize this object with the opposites of the specified AdjSetVertex, in
+	 * the iteration order of the set.
+	 * @param vertex
+	 */
+	public void fromAdjSetVertex(AdjSetVertex vertex) {
+		id = vertex.getId();
+		clearNeighbors();
+		weighted = false;
+		for (AdjVertexEdge opposite : vertex.getOpposites()) {
+			addNeighbor(opposite.getOpposite());
+		}
+	}
+	
+	/**
+	 * Convert to an AdjVertex with outgoing edges to all neighbors. Weights are
+	 * kept as WeightOfEdge labels of LabeledEdges.
+	 * @return
+	 */
+	public AdjVertex toAdjVertex() {
+		AdjVertex ret = new AdjVertex(id);
+		for (int i = 0; i < size; i++) {
+			if (weighted) {
+				LabeledEdge edge = new LabeledEdge(id, getNeighbor(i));
+				edge.setLabel(weightKey, new WeightOfEdge(weights[i]));
+				ret.addEdge(edge);
+			} else {
+				ret.addEdge(new Edge(id, getNeighbor(i)));
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Convert to an AdjSetVertex. Weights and duplicated neighbors are dropped.
+	 * @return
+	 */
+	public AdjSetVertex toAdjSetVertex() {
+		AdjSetVertex ret = new AdjSetVertex(id);
+		for (int i = 0; i < size; i++) {
+			ret.addOpposite(new AdjVertexEdge(getNeighbor(i)));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Number of neighbors.
+	 * @return
+	 */
+	public int getNeighborCount() {
+		return size;
+	}
+	
+	/**
+	 * Whether neighbors have weights.
+	 * @return
+	 */
+	public boolean isWeighted() {
+		return weighted;
+	}
+	
+	/**
+	 * Get the id of the i-th neighbor. This creates a new String, use
+	 * getNeighbor(int, Text) in loops.
+	 * @param i
+	 * @return
+	 */
+	public String getNeighbor(int i) {
+		checkIndex(i);
+		try {
+			return Text.decode(neighbors, offsets[i], offsets[i + 1] - offsets[i]);
+		} catch (IOException e) {
+			// Bytes are always encoded by this class.
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Copy the id of the i-th neighbor into the specified Text, which could be reused
+	 * across calls.
+	 * @param i
+	 * @param reuse
+	 * @return reuse
+	 */
+	public Text getNeighbor(int i, Text reuse) {
+		checkIndex(i);
+		reuse.set(neighbors, offsets[i], offsets[i + 1] - offsets[i]);
+		return reuse;
+	}
+	
+	/**
+	 * Get the weight of the i-th neighbor, 1 for unweighted vertexes.
+	 * @param i
+	 * @return
+	 */
+	public double getWeight(int i) {
+		checkIndex(i);
+		return weighted ? weights[i] : 1;
+	}
+	
+	/**
+	 * The packed UTF-8 ids of neighbors. Neighbor i spans from getNeighborStart(i)
+	 * to getNeighborStart(i+1). Do not modify.
+	 * @return
+	 */
+	public byte[] getNeighborBytes() {
+		return neighbors;
+	}
+	
+	/**
+	 * Start of the i-th neighbor in getNeighborBytes(). i could be
+	 * getNeighborCount(), for the end of the last neighbor.
+	 * @param i
+	 * @return
+	 */
+	public int getNeighborStart(int i) {
+		if (i < 0 || i > size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		return offsets[i];
+	}
+	
+	/**
+	 * Append a neighbor, with weight 1 if this vertex is weighted.
+	 * @param neighbor
+	 */
+	public void addNeighbor(String neighbor) {
+		addNeighbor(neighbor, 1);
+	}
+	
+	/**
+	 * Append a neighbor with weight. The weight is ignored if this vertex is not
+	 * weighted, see setWeighted(boolean).
+	 * @param neighbor
+	 * @param weight
+	 */
+	public void addNeighbor(String neighbor, double weight) {
+		ByteBuffer encoded;
+		try {
+			encoded = Text.encode(neighbor);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		int length = encoded.limit();
+		ensureCapacity(size + 1, offsets[size] + length);
+		System.arraycopy(encoded.array(), 0, neighbors, offsets[size], length);
+		if (weighted) {
+			weights[size] = weight;
+		}
+		offsets[size + 1] = offsets[size] + length;
+		size++;
+	}
+	
+	/**
+	 * Switch between weighted and unweighted neighbors. Existing neighbors get
+	 * weight 1 when switched to weighted.
+	 * @param weighted
+	 */
+	public void setWeighted(boolean weighted) {
+		if (weighted && !this.weighted) {
+			if (weights.length < offsets.length - 1) {
+				weights = new double[offsets.length - 1];
+			}
+			for (int i = 0; i < size; i++) {
+				weights[i] = 1;
+			}
+		}
+		this.weighted = weighted;
+	}
+	
+	/**
+	 * Remove all neighbors, keeping the allocated arrays.
+	 */
+	public void clearNeighbors() {
+		size = 0;
+		offsets[0] = 0;
+	}
+	
+	/**
+	 * Whether any edge of the vertex carries a weight.
+	 */
+	private static boolean hasWeights(AdjVertex vertex) {
+		for (Edge edge : vertex.getEdges()) {
+			if (edge instanceof LabeledEdge
+					&& ((LabeledEdge) edge).getLabel(weightKey) instanceof WeightOfEdge) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static double getWeight(Edge edge) {
+		if (edge instanceof LabeledEdge) {
+			Writable weight = ((LabeledEdge) edge).getLabel(weightKey);
+			if (weight instanceof WeightOfEdge) {
+				return ((WeightOfEdge) weight).getWeight();
+			}
+		}
+		return 1;
+	}
+	
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+	}
+	
+	/**
+	 * Grow the arrays, if necessary, to hold the specified number of neighbors and bytes.
+	 * Existing content is kept.
+	 */
+	private void ensureCapacity(int count, int bytes) {
+		if (offsets.length < count + 1) {
+			int[] newOffsets = new int[Math.max(count + 1, offsets.length * 2)];
+			System.arraycopy(offsets, 0, newOffsets, 0, size + 1);
+			offsets = newOffsets;
+		}
+		if (weighted && weights.length < count) {
+			double[] newWeights = new double[Math.max(count, weights.length * 2)];
+			System.arraycopy(weights, 0, newWeights, 0, size);
+			weights = newWeights;
+		}
+		if (neighbors.length < bytes) {
+			byte[] newNeighbors = new byte[Math.max(bytes, neighbors.length * 2)];
+			System.arraycopy(neighbors, 0, newNeighbors, 0, offsets[size]);
+			neighbors = newNeighbors;
+		}
+	}
+
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		ret.append("<").append(id).append(", <");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				ret.append(", ");
+			}
+			if (weighted) {
+				ret.append("<").append(getNeighbor(i)).append(", ").append(weights[i]).append(">");
+			} else {
+				ret.append(getNeighbor(i));
+			}
+		}
+		ret.append(">>");
+		return ret.toString();
+	}
+	
+	@Override
+	public void fromString(String encoding) {
+		// Clean.
+		clearNeighbors();
+		int pointerA = 0, pointerB = 0;
+		pointerB = encoding.indexOf(", <", pointerA);
+		id = encoding.substring(pointerA + 1, pointerB);
+		
+		String opps_str = encoding.substring(pointerB + 3, encoding.length() - 2);
+		// Weighted neighbors are written as pairs.
+		weighted = opps_str.startsWith("<");
+		if (opps_str.length() == 0) return;
+		String delim = weighted ? ">, <" : ", ";
+		pointerA = 0;
+		while (true) {
+			pointerB = opps_str.indexOf(delim, pointerA);
+			String opp_str;
+			if (pointerB == -1) {
+				opp_str = opps_str.substring(pointerA, opps_str.length());
+			} else {
+				opp_str = opps_str.substring(pointerA, weighted ? pointerB + 1 : pointerB);
+			}
+			if (weighted) {
+				int kv_delim_index = opp_str.lastIndexOf(", ");
+				addNeighbor(opp_str.substring(1, kv_delim_index),
+						Double.parseDouble(opp_str.substring(kv_delim_index + 2, opp_str.length() - 1)));
+			} else {
+				addNeighbor(opp_str);
+			}
+			if (pointerB == -1) return;
+			pointerA = pointerB + (weighted ? 3 : 2);
+		}
+	}
+
+	public Object clone() {
+		return new CompactAdjVertex(this);
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		super.readFields(in);
+		clearNeighbors();
+		int count = WritableUtils.readVInt(in);
+		weighted = in.readBoolean();
+		int bytes = WritableUtils.readVInt(in);
+		// Reuse the arrays whenever they are large enough.
+		ensureCapacity(count, bytes);
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + WritableUtils.readVInt(in);
+		}
+		in.readFully(neighbors, 0, bytes);
+		if (weighted) {
+			for (int i = 0; i < count; i++) {
+				weights[i] = in.readDouble();
+			}
+		}
+		size = count;
+	}
+
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		WritableUtils.writeVInt(out, size);
+		out.writeBoolean(weighted);
+		WritableUtils.writeVInt(out, offsets[size]);
+		for (int i = 0; i < size; i++) {
+			WritableUtils.writeVInt(out, offsets[i + 1] - offsets[i]);
+		}
+		out.write(neighbors, 0, offsets[size]);
+		if (weighted) {
+			for (int i = 0; i < size; i++) {
+				out.writeDouble(weights[i]);
+			}
+		}
+	}
+
+	/**
+	 * Neighbors are regenerated as AdjVertexEdges. Only for compatibility with code
+	 * working on Elements.
+	 * @see org.sf.xrime.model.Element#getIncidentElements()
+	 */
+	@Override
+	public Iterator<AbstractEdge> getIncidentElements() {
+		return new Iterator<AbstractEdge>() {
+			private int next = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public AbstractEdge next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				return new AdjVertexEdge(getNeighbor(next++));
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("This is a read-only iterator");
+			}
+		};
+	}
+}
@@ -0,0 +1,89 @@
+package org.sf.xrime.model.vertex;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.LabeledEdge;
+import org.sf.xrime.model.edge.WeightOfEdge;
+
+public class CompactAdjVertexTest {
+	@Test
+	public void testReadWrite() throws IOException {
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(strOutputStream);
+		
+		CompactAdjVertex vertex1=new CompactAdjVertex("v1");
+		vertex1.addNeighbor("v2");
+		vertex1.addNeighbor("\u4e2d\u6587");
+		vertex1.addNeighbor("v300");
+		vertex1.write(out);
+		
+		CompactAdjVertex vertex2=new CompactAdjVertex("w");
+		vertex2.setWeighted(true);
+		vertex2.addNeighbor("a", 0.5);
+		vertex2.write(out);
+		
+		ByteArrayInputStream  strInputStream=new ByteArrayInputStream(strOutputStream.toByteArray());
+		DataInputStream in = new DataInputStream(strInputStream);
+		
+		// The same object is reused for both records.
+		CompactAdjVertex vertex=new CompactAdjVertex();
+		vertex.readFields(in);
+		assertEquals(vertex.toString(), "<v1, <v2, \u4e2d\u6587, v300>>");
+		byte[] buffer=vertex.getNeighborBytes();
+		
+		vertex.readFields(in);
+		assertTrue(vertex.getNeighborBytes()==buffer);
+		assertTrue(vertex.isWeighted());
+		assertEquals(vertex.getNeighborCount(), 1);
+		assertEquals(vertex.getNeighbor(0, new Text()).toString(), "a");
+		assertTrue(vertex.getWeight(0)==0.5);
+		assertEquals(vertex.toString(), "<w, <<a, 0.5>>>");
+		
+		CompactAdjVertex vertex3=new CompactAdjVertex();
+		vertex3.fromString(vertex.toString());
+		assertEquals(vertex3.toString(), vertex.toString());
+		vertex3.fromString(vertex1.toString());
+		assertEquals(vertex3.toString(), vertex1.toString());
+	}
+	
+	@Test
+	public void testConversion() {
+		AdjVertex adjVertex=new AdjVertex("v1");
+		adjVertex.addEdge(new Edge("v1", "v2"));
+		adjVertex.addEdge(new Edge("v3", "v1"));
+		
+		CompactAdjVertex vertex=new CompactAdjVertex();
+		vertex.fromAdjVertexTos(adjVertex);
+		assertEquals(vertex.toString(), "<v1, <v2, v1>>");
+		vertex.fromAdjVertexBoth(adjVertex);
+		assertEquals(vertex.toString(), "<v1, <v2, v3>>");
+		assertFalse(vertex.isWeighted());
+		assertEquals(vertex.toAdjVertex().toString(), "<v1, <<v1, v2>, <v1, v3>>>");
+		assertEquals(vertex.toAdjSetVertex().toString(), "<v1, <v2, v3>>");
+		
+		AdjSetVertex setVertex=new AdjSetVertex("s");
+		setVertex.addOpposite(new AdjVertexEdge("x"));
+		vertex.fromAdjSetVertex(setVertex);
+		assertEquals(vertex.toString(), "<s, <x>>");
+		
+		LabeledEdge edge=new LabeledEdge("v1", "v2");
+		edge.setLabel(CompactAdjVertex.weightKey, new WeightOfEdge(2.5));
+		adjVertex.clearEdges();
+		adjVertex.addEdge(edge);
+		vertex.fromAdjVertexTos(adjVertex);
+		assertTrue(vertex.isWeighted());
+		assertTrue(vertex.getWeight(0)==2.5);
+		LabeledEdge back=(LabeledEdge) vertex.toAdjVertex().getEdges().get(0);
+		assertTrue(((WeightOfEdge) back.getLabel(CompactAdjVertex.weightKey)).getWeight()==2.5);
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.vertex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.IdEdge;
+
+
+/**
+ * The dictionary encoded counterpart of AdjSetVertex. Only the ids of the other
+ * ends (opposites) of incidental edges are recorded, in a sorted array of longs
+ * without duplicates.
+ * <p>
+ * Opposites may be added in any order, the array is sorted lazily before it is
+ * read. In compressed mode, opposites are written as the gaps between consecutive
+ * ids, which are small for neighbors of a vertex. Both formats are readable, and a
+ * vertex read in compressed format is written back in compressed format.
+ * <p>
+ * This is the storage format of dictionary encoded graphs, built by
+ * IdAdjVertex2IdAdjSetVertexTransformer and decoded by IdDecodeTransformer. Degree
+ * statistics, i.e., AverageVertexDegree and LargestVertexDegree, run on it directly,
+ * while the other algorithms still take graphs keyed by vertex names.
+ * @see AdjSetVertex
+ */
+public class IdAdjSetVertex extends IdVertex implements Cloneable {
+	private static final long[] NO_OPPOSITES = new long[0];
+	/**
+	 * The ids of the opposites of incidental edges, only the first size ones are used.
+	 */
+	protected long[] opposites = NO_OPPOSITES;
+	/**
+	 * Number of opposites.
+	 */
+	protected int size = 0;
+	/**
+	 * Whether the opposites are sorted and without duplicates.
+	 */
+	protected boolean sorted = true;
+	/**
+	 * Written in place of the container size to mark the compressed format.
+	 */
+	protected static final int COMPRESSED_MARKER = -1;
+	/**
+	 * Whether opposites are written in compressed format.
+	 */
+	protected boolean compressed = false;
+
+	static {
+		// Register writable factory for this class.
+		WritableFactories.setFactory(IdAdjSetVertex.class, new WritableFactory() {
+			public Writable newInstance() {
+				return new IdAdjSetVertex();
+			}
+		});
+	}
+
+	/**
+	 * Default constructor.
+	 */
+	public IdAdjSetVertex() {
+		super();
+	}
+
+	/**
+	 * Normal constructor.
+	 * @param id
+	 */
+	public IdAdjSetVertex(long id) {
+		super(id);
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param vertex
+	 */
+	public IdAdjSetVertex(IdAdjSetVertex vertex) {
+		super(vertex);
+		compressed = vertex.isCompressed();
+		vertex.sort();
+		opposites = Arrays.copyOf(vertex.opposites, vertex.size);
+		size = vertex.size;
+	}
+
+	/**
+	 * Initialize this object with the to ends of outgoing incidental edges of
+	 * specified IdAdjVertex.
+	 * @param vertex
+	 */
+	public void fromIdAdjVertexTos(IdAdjVertex vertex) {
+		id = vertex.getId();
+		clearOpposites();
+		for (IdEdge edge : vertex.getEdges()) {
+			addOpposite(edge.getTo());
+		}
+	}
+
+	/**
+	 * Initialize this object with the from ends of incoming incidental edges of
+	 * specified IdAdjVertex.
+	 * @param vertex
+	 */
+	public void fromIdAdjVertexFroms(IdAdjVertex vertex) {
+		id = vertex.getId();
+		clearOpposites();
+		for (IdEdge edge : vertex.getEdges()) {
+			addOpposite(edge.getFrom());
+		}
+	}
+
+	/**
+	 * Initialize this object with both the from ends of incoming incidental edges
+	 * and the to ends of outgoing incidental edges of specified IdAdjVertex. This
+	 * vertex itself is only reserved when there exists a loop.
+	 * @param vertex
+	 */
+	public void fromIdAdjVertexBoth(IdAdjVertex vertex) {
+		id = vertex.getId();
+		clearOpposites();
+		for (IdEdge edge : vertex.getEdges()) {
+			if (edge.getFrom() != id) {
+				addOpposite(edge.getFrom());
+			} else {
+				// Either an outgoing edge, or a loop.
+				addOpposite(edge.getTo());
+			}
+		}
+	}
+
+	/**
+	 * Get the ids of opposite vertexes of incidental edges of this vertex.
+	 * @return a sorted copy.
+	 */
+	public long[] getOpposites() {
+		sort();
+		return Arrays.copyOf(opposites, size);
+	}
+
+	/**
+	 * Replace the opposite vertexes with specified ones.
+	 * @param opposites ids in any order, duplicates are dropped.
+	 */
+	public void setOpposites(long[] opposites) {
+		this.opposites = Arrays.copyOf(opposites, opposites.length);
+		size = opposites.length;
+		sorted = false;
+	}
+
+	/**
+	 * Get the number of opposites.
+	 * @return
+	 */
+	public int getOppositeCount() {
+		sort();
+		return size;
+	}
+
+	/**
+	 * Get an opposite.
+	 * @param index index in ascending order of ids.
+	 * @return
+	 */
+	public long getOpposite(int index) {
+		sort();
+		if (index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return opposites[index];
+	}
+
+	/**
+	 * Check whether a vertex is an opposite of this vertex, by binary search.
+	 * @param opposite
+	 * @return
+	 */
+	public boolean hasOpposite(long opposite) {
+		sort();
+		return Arrays.binarySearch(opposites, 0, size, opposite) >= 0;
+	}
+
+	/**
+	 * Add an opposite (the other end of an incidental edge) to this vertex.
+	 * @param opposite
+	 */
+	public void addOpposite(long opposite) {
+		if (size > 0 && opposites[size - 1] >= opposite) {
+			if (opposites[size - 1] == opposite) {
+				return;
+			}
+			sorted = false;
+		}
+		if (size == opposites.length) {
+			opposites = Arrays.copyOf(opposites, Math.max(4, size * 2));
+		}
+		opposites[size++] = opposite;
+	}
+
+	/**
+	 * Clear all opposites.
+	 */
+	public void clearOpposites() {
+		size = 0;
+		sorted = true;
+	}
+
+	/**
+	 * Check whether opposites are written in compressed format.
+	 * @return
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * Set whether opposites are written in compressed format.
+	 * @param compressed
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Remove loop on this vertex.
+	 */
+	public void removeLoop() {
+		sort();
+		int index = Arrays.binarySearch(opposites, 0, size, id);
+		if (index >= 0) {
+			System.arraycopy(opposites, index + 1, opposites, index, size - index - 1);
+			size--;
+		}
+	}
+
+	/**
+	 * Sort the opposites and drop duplicates, if not done yet.
+	 */
+	protected void sort() {
+		if (sorted) {
+			return;
+		}
+		Arrays.sort(opposites, 0, size);
+		int unique = 0;
+		for (int ii = 0; ii < size; ii++) {
+			if (unique == 0 || opposites[unique - 1] != opposites[ii]) {
+				opposites[unique++] = opposites[ii];
+			}
+		}
+		size = unique;
+		sorted = true;
+	}
+
+	public String toString() {
+		sort();
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("<").append(id).append(", <");
+		for (int ii = 0; ii < size; ii++) {
+			if (ii > 0) {
+				buffer.append(", ");
+			}
+			buffer.append(opposites[ii]);
+		}
+		buffer.append(">>");
+		return buffer.toString();
+	}
+
+	@Override
+	public void fromString(String encoding) {
+		// Clean.
+		clearOpposites();
+
+		// Get vertex id.
+		int pointerB = encoding.indexOf(", <");
+		id = Long.parseLong(encoding.substring(1, pointerB));
+
+		// Get opposite vertexes.
+		String opps_str = encoding.substring(pointerB + 3, encoding.length() - 2);
+		// None neighbors.
+		if (opps_str.length() == 0) return;
+		for (String opp : opps_str.split(", ")) {
+			addOpposite(Long.parseLong(opp));
+		}
+	}
+
+	public Object clone() {
+		return new IdAdjSetVertex(this);
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		super.readFields(in);
+		// Clear the container.
+		clearOpposites();
+		// Determine container size.
+		int count = WritableUtils.readVInt(in);
+		compressed = (count == COMPRESSED_MARKER);
+		if (compressed) {
+			count = WritableUtils.readVInt(in);
+		}
+		if (opposites.length < count) {
+			opposites = new long[count];
+		}
+		long opposite = 0;
+		for (int ii = 0; ii < count; ii++) {
+			if (compressed) {
+				opposite += WritableUtils.readVLong(in);
+			} else {
+				opposite = WritableUtils.readVLong(in);
+			}
+			addOpposite(opposite);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		sort();
+
+		if (compressed && size > 0) {
+			WritableUtils.writeVInt(out, COMPRESSED_MARKER);
+			WritableUtils.writeVInt(out, size);
+			// The first gap is the first id itself.
+			long previous = 0;
+			for (int ii = 0; ii < size; ii++) {
+				WritableUtils.writeVLong(out, opposites[ii] - previous);
+				previous = opposites[ii];
+			}
+			return;
+		}
+		// Size of the container.
+		WritableUtils.writeVInt(out, size);
+		for (int ii = 0; ii < size; ii++) {
+			WritableUtils.writeVLong(out, opposites[ii]);
+		}
+	}
+
+	/**
+	 * Incidental edges are regenerated as IdEdges going out from this vertex.
+	 * @see org.sf.xrime.model.Element#getIncidentElements()
+	 */
+	@Override
+	public Iterator<AbstractEdge> getIncidentElements() {
+		sort();
+		List<AbstractEdge> ret = new ArrayList<AbstractEdge>(size);
+		for (int ii = 0; ii < size; ii++) {
+			ret.add(new IdEdge(id, opposites[ii]));
+		}
+		return Collections.unmodifiableList(ret).iterator();
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.vertex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+import org.sf.xrime.model.edge.AbstractEdge;
+import org.sf.xrime.model.edge.IdEdge;
+
+
+/**
+ * The dictionary encoded counterpart of AdjVertex. Incidental edges could be
+ * incoming, outgoing, or both, and are specified with both ends.
+ * @see AdjVertex
+ */
+public class IdAdjVertex extends IdVertex implements Cloneable {
+	/**
+	 * Incidental edges of this vertex.
+	 */
+	protected List<IdEdge> edges;
+
+	static {
+		// Register writable factory of this class.
+		WritableFactories.setFactory(IdAdjVertex.class, new WritableFactory() {
+			public Writable newInstance() {
+				return new IdAdjVertex();
+			}
+		});
+	}
+
+	/**
+	 * Default constructor.
+	 */
+	public IdAdjVertex() {
+		super();
+		edges = new ArrayList<IdEdge>();
+	}
+
+	/**
+	 * Normal constructor.
+	 * @param id
+	 */
+	public IdAdjVertex(long id) {
+		super(id);
+		edges = new ArrayList<IdEdge>();
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param adjVertex
+	 */
+	public IdAdjVertex(IdAdjVertex adjVertex) {
+		super(adjVertex.getId());
+		edges = new ArrayList<IdEdge>(adjVertex.getEdges().size());
+		for (IdEdge edge : adjVertex.getEdges()) {
+			edges.add((IdEdge) edge.clone());
+		}
+	}
+
+	/**
+	 * Get the list of incidental edges for this vertex.
+	 * @return
+	 */
+	public List<IdEdge> getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Replace the incidental edges of this vertex with specified list.
+	 * @param edges
+	 */
+	public void setEdges(List<IdEdge> edges) {
+		this.edges = edges;
+	}
+
+	/**
+	 * Add an incidental edge to this vertex.
+	 * @param edge
+	 */
+	public void addEdge(IdEdge edge) {
+		if (edge.getFrom() != id && edge.getTo() != id) {
+			// This edge has nothing to do with this vertex.
+			return;
+		}
+		edges.add(edge);
+	}
+
+	/**
+	 * Clear all incidental edges.
+	 */
+	public void clearEdges() {
+		edges.clear();
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("<").append(id).append(", <");
+		for (int i = 0; i < edges.size(); i++) {
+			if (i > 0) {
+				buffer.append(", ");
+			}
+			buffer.append(edges.get(i).toString());
+		}
+		buffer.append(">>");
+		return buffer.toString();
+	}
+
+	@Override
+	public void fromString(String encoding) {
+		// Clean.
+		edges.clear();
+
+		int pointerA = encoding.indexOf(", ");
+		id = Long.parseLong(encoding.substring(1, pointerA));
+		// Edges part.
+		String edges_str = encoding.substring(pointerA + 3, encoding.length() - 2);
+		// A corner case.
+		if (edges_str.length() == 0) return;
+		pointerA = 0;
+		while (true) {
+			int pointerB = edges_str.indexOf(">, <", pointerA);
+			String edge_str = pointerB == -1 ? edges_str.substring(pointerA)
+					: edges_str.substring(pointerA, pointerB + 1);
+			IdEdge edge = new IdEdge();
+			edge.fromString(edge_str);
+			edges.add(edge);
+			if (pointerB == -1) return;
+			// Move forward the pointer.
+			pointerA = pointerB + 3;
+		}
+	}
+
+	public Object clone() {
+		return new IdAdjVertex(this);
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		super.readFields(in);
+		// Clear the container.
+		edges.clear();
+		// Determine the size.
+		int size = WritableUtils.readVInt(in);
+		for (int ii = 0; ii < size; ii++) {
+			IdEdge edge = new IdEdge();
+			edge.readFields(in);
+			edges.add(edge);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+
+		if (edges == null) {
+			WritableUtils.writeVInt(out, 0);
+			return;
+		}
+		// Number of incidental edges.
+		WritableUtils.writeVInt(out, edges.size());
+		for (IdEdge edge : edges) {
+			edge.write(out);
+		}
+	}
+
+	@Override
+	public Iterator<AbstractEdge> getIncidentElements() {
+		if (edges == null) {
+			return Collections.<AbstractEdge>emptyList().iterator();
+		}
+		return Collections.<AbstractEdge>unmodifiableList(edges).iterator();
+	}
+}
@@ -0,0 +1,114 @@
+package org.sf.xrime.model.vertex;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.sf.xrime.model.edge.IdEdge;
+
+
+public class IdAdjVertexTest {
+	@Test
+	public void testIdAdjVertexReadWrite() throws IOException {
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(strOutputStream);
+		
+		IdAdjVertex adjVertex1=new IdAdjVertex(1);
+		adjVertex1.addEdge(new IdEdge(1, 300));
+		adjVertex1.addEdge(new IdEdge(2, 1));
+		// Has nothing to do with this vertex.
+		adjVertex1.addEdge(new IdEdge(2, 3));
+		
+		adjVertex1.write(out);
+
+		ByteArrayInputStream  strInputStream=new ByteArrayInputStream(strOutputStream.toByteArray());
+		DataInputStream in = new DataInputStream(strInputStream);
+		
+		IdAdjVertex adjVertex=new IdAdjVertex();
+		adjVertex.readFields(in);
+		
+		assertEquals(adjVertex.getId(), 1L);
+		assertEquals(adjVertex.getEdges().size(), 2);
+		assertEquals(adjVertex.getEdges().get(0), new IdEdge(1, 300));
+		assertEquals(adjVertex.getEdges().get(1), new IdEdge(2, 1));
+		
+		IdAdjVertex adjVertex2=new IdAdjVertex();
+		adjVertex2.fromString(adjVertex1.toString());
+		assertEquals(adjVertex2.toString(), "<1, <<1, 300>, <2, 1>>>");
+	}
+	
+	@Test
+	public void testIdAdjSetVertex() throws IOException {
+		IdAdjVertex adjVertex=new IdAdjVertex(5);
+		adjVertex.addEdge(new IdEdge(5, 9));
+		adjVertex.addEdge(new IdEdge(7, 5));
+		adjVertex.addEdge(new IdEdge(5, 5));
+		
+		IdAdjSetVertex setVertex1=new IdAdjSetVertex();
+		setVertex1.fromIdAdjVertexBoth(adjVertex);
+		assertEquals(setVertex1.toString(), "<5, <5, 7, 9>>");
+		setVertex1.removeLoop();
+		assertEquals(setVertex1.toString(), "<5, <7, 9>>");
+		
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(strOutputStream);
+		LabeledIdAdjSetVertex labeled1=new LabeledIdAdjSetVertex(setVertex1);
+		labeled1.setLabel("name", new org.apache.hadoop.io.Text("value"));
+		labeled1.write(out);
+		
+		ByteArrayInputStream  strInputStream=new ByteArrayInputStream(strOutputStream.toByteArray());
+		DataInputStream in = new DataInputStream(strInputStream);
+		LabeledIdAdjSetVertex labeled2=new LabeledIdAdjSetVertex();
+		labeled2.readFields(in);
+		assertEquals(labeled2.toString(), "<5, <7, 9>, <<name, value>>>");
+		
+		LabeledIdAdjSetVertex labeled3=new LabeledIdAdjSetVertex();
+		labeled3.fromString(labeled2.toString());
+		assertEquals(labeled3.toString(), labeled2.toString());
+	}
+	
+	@Test
+	public void testIdAdjSetVertexUnordered() {
+		IdAdjSetVertex setVertex=new IdAdjSetVertex(4);
+		long[] adds={9, 2, 7, 2, 4, 9, 1};
+		for(long add : adds){
+			setVertex.addOpposite(add);
+		}
+		assertEquals(setVertex.getOppositeCount(), 5);
+		assertEquals(setVertex.toString(), "<4, <1, 2, 4, 7, 9>>");
+		assertTrue(setVertex.hasOpposite(7));
+		assertFalse(setVertex.hasOpposite(3));
+		setVertex.removeLoop();
+		assertEquals(setVertex.getOpposite(2), 7L);
+		assertEquals(new IdAdjSetVertex(setVertex).toString(), "<4, <1, 2, 7, 9>>");
+		setVertex.setOpposites(new long[]{3, 3, 1});
+		assertEquals(setVertex.getOpposites().length, 2);
+	}
+	
+	@Test
+	public void testIdAdjSetVertexCompressed() throws IOException {
+		IdAdjSetVertex setVertex1=new IdAdjSetVertex(1L<<40);
+		for(long ii=0; ii<100; ii++){
+			setVertex1.addOpposite((1L<<40)+ii*3);
+		}
+		ByteArrayOutputStream plain=new ByteArrayOutputStream();
+		setVertex1.write(new DataOutputStream(plain));
+		setVertex1.setCompressed(true);
+		ByteArrayOutputStream compressed=new ByteArrayOutputStream();
+		setVertex1.write(new DataOutputStream(compressed));
+		assertTrue(compressed.size()*4<plain.size());
+		
+		IdAdjSetVertex setVertex2=new IdAdjSetVertex();
+		setVertex2.readFields(new DataInputStream(new ByteArrayInputStream(compressed.toByteArray())));
+		assertTrue(setVertex2.isCompressed());
+		assertEquals(setVertex1.toString(), setVertex2.toString());
+		setVertex2.readFields(new DataInputStream(new ByteArrayInputStream(plain.toByteArray())));
+		assertFalse(setVertex2.isCompressed());
+		assertEquals(setVertex1.toString(), setVertex2.toString());
+	}
+}
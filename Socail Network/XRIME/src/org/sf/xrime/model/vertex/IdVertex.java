@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.vertex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
+import org.sf.xrime.model.Element;
+import org.sf.xrime.model.edge.AbstractEdge;
+
+
+/**
+ * Base class for vertexes identified by dictionary encoded ids. In contrast to
+ * Vertex, the id is a dense long integer assigned by VertexDictionaryTransformer,
+ * and is serialized as a variable-length integer instead of a UTF-8 string.
+ * @see org.sf.xrime.preprocessing.dictionary.VertexDictionaryTransformer
+ */
+public class IdVertex implements Element, Cloneable {
+	/**
+	 * Each vertex is identified with a long id.
+	 */
+	protected long id = -1;
+
+	static {
+		// Register the writable factory for this class.
+		WritableFactories.setFactory(IdVertex.class, new WritableFactory() {
+			public Writable newInstance() {
+				return new IdVertex();
+			}
+		});
+	}
+
+	/**
+	 * Default constructor.
+	 */
+	public IdVertex() {
+	}
+
+	/**
+	 * Normal constructor.
+	 * @param id
+	 */
+	public IdVertex(long id) {
+		this.id = id;
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param vertex
+	 */
+	public IdVertex(IdVertex vertex) {
+		this.id = vertex.getId();
+	}
+
+	/**
+	 * Get the id of this vertex.
+	 * @return
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Set the id of this vertex.
+	 * @param id
+	 */
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String toString() {
+		return Long.toString(id);
+	}
+
+	@Override
+	public void fromString(String encoding) {
+		this.id = Long.parseLong(encoding);
+	}
+
+	public Object clone() {
+		return new IdVertex(this);
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		this.id = WritableUtils.readVLong(in);
+	}
+
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, id);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof IdVertex) {
+			return id == ((IdVertex) obj).getId();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (id ^ (id >>> 32));
+	}
+
+	/*
+	 * Since we do not really own any incident element, so hasNext() is always return false.
+	 * @see org.sf.xrime.model.Element#getIncidentElements()
+	 */
+	@Override
+	public Iterator<AbstractEdge> getIncidentElements() {
+		/**
+		 * Use an internal class to implement customized iterator logic.
+		 */
+		class Itr implements Iterator<AbstractEdge> {
+			@Override
+			public boolean hasNext() {
+				return false;
+			}
+
+			@Override
+			public AbstractEdge next() {
+				return null;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("This is a read-only iterator");
+			}
+		}
+
+		return new Itr();
+	}
+}
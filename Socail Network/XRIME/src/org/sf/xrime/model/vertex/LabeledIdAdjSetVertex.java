@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.model.vertex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableFactories;
+import org.apache.hadoop.io.WritableFactory;
+import org.sf.xrime.model.label.Labelable;
+import org.sf.xrime.model.label.Labels;
+
+
+/**
+ * The dictionary encoded counterpart of LabeledAdjSetVertex.
+ * @see LabeledAdjSetVertex
+ */
+public class LabeledIdAdjSetVertex extends IdAdjSetVertex implements Labelable {
+	/**
+	 * Labels of this vertex.
+	 */
+	private Labels _labels = null;
+
+	static {
+		WritableFactories.setFactory(LabeledIdAdjSetVertex.class,
+				new WritableFactory() {
+					public Writable newInstance() {
+						return new LabeledIdAdjSetVertex();
+					}
+				});
+	}
+
+	/**
+	 * Default constructor.
+	 */
+	public LabeledIdAdjSetVertex() {
+		super();
+		_labels = new Labels();
+	}
+
+	/**
+	 * Another constructor.
+	 * @param id
+	 */
+	public LabeledIdAdjSetVertex(long id) {
+		super(id);
+		_labels = new Labels();
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param adj
+	 */
+	public LabeledIdAdjSetVertex(LabeledIdAdjSetVertex adj) {
+		super(adj);
+		_labels = new Labels(adj._labels);
+	}
+
+	/**
+	 * Another constructor.
+	 * @param adj
+	 */
+	public LabeledIdAdjSetVertex(IdAdjSetVertex adj) {
+		super(adj);
+		_labels = new Labels();
+	}
+
+	@Override
+	public Object clone() {
+		return new LabeledIdAdjSetVertex(this);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		// Deal with fields of super.
+		super.readFields(in);
+		_labels.readFields(in);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		// Deal with fields of super.
+		super.write(out);
+		_labels.write(out);
+	}
+
+	@Override
+	public String toString() {
+		String super_str = super.toString();
+		return super_str.substring(0, super_str.length() - 1) + ", "
+				+ _labels.toString() + ">";
+	}
+
+	@Override
+	public void fromString(String encoding) {
+		// Find the delimiter of IdAdjSetVertex string and labels string.
+		int pointerA = encoding.indexOf(">, <") + 1;
+		super.fromString(encoding.substring(0, pointerA) + ">");
+		_labels.fromString(encoding.substring(pointerA + 2, encoding.length() - 1));
+	}
+
+	@Override
+	public Writable getLabel(String name) {
+		return _labels.getLabel(name);
+	}
+
+	@Override
+	public void setLabel(String name, Writable value) {
+		_labels.setLabel(name, value);
+	}
+
+	@Override
+	public void removeLabel(String name) {
+		_labels.removeLabel(name);
+	}
+
+	@Override
+	public void clearLabels() {
+		_labels.clearLabels();
+	}
+
+	/**
+	 * Get all labels of this vertex.
+	 * @return
+	 */
+	public Labels getLabels() {
+		return _labels;
+	}
+}
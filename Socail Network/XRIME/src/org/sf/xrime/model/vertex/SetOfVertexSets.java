@@ -29,7 +29,8 @@ import org.apache.hadoop.io.WritableFactory;
 import org.sf.xrime.model.Element;
 
 /**
- * Set of VertexSets.
+ * Set of VertexSets. VertexSets are equal if they hold the same vertexes, so a VertexSet
+ * equal to one already in the set is not added again.
  * @author xue
  */
 public class SetOfVertexSets implements Element, Cloneable  {
@@ -16,12 +16,13 @@
 package org.sf.xrime.model.vertex;
 
 import java.util.Iterator;
-import java.util.TreeSet;
 
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
 import org.sf.xrime.model.Element;
+import org.sf.xrime.utils.SortedArraySet;
 
 
 /**
@@ -29,6 +30,11 @@ import org.sf.xrime.model.Element;
  * @author xue
  */
 public class SortedVertexSet extends VertexSet {
+	/**
+	 * Shared by all sorted vertex sets, so that they are known to have the same order.
+	 */
+	private static final VertexComparator vertexComparator = new VertexComparator();
+	
 	static {
 	  // Register the writable factory for this class.
 		WritableFactories.setFactory(SortedVertexSet.class, new WritableFactory() {
@@ -36,13 +42,15 @@ public class SortedVertexSet extends VertexSet {
 				return new SortedVertexSet();
 			}
 		});
+		// Same serialization as VertexSet.
+		WritableComparator.define(SortedVertexSet.class, new VertexSet.Comparator());
 	}
 
 	/**
 	 * Basic constructor.
 	 */
 	public SortedVertexSet() {
-		_vertexes = new TreeSet<Vertex>(new VertexComparator());
+		_vertexes = new SortedArraySet<Vertex>(vertexComparator);
 	}
 
 	/**
@@ -51,7 +59,7 @@ public class SortedVertexSet extends VertexSet {
 	 * @param set
 	 */
 	public SortedVertexSet(SortedVertexSet set) {
-		_vertexes = new TreeSet<Vertex>(new VertexComparator());
+		_vertexes = new SortedArraySet<Vertex>(vertexComparator);
 		for (Vertex vertex : set._vertexes) {
 			_vertexes.add(new Vertex(vertex));
 		}
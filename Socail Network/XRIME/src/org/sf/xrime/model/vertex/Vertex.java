@@ -22,8 +22,11 @@ import java.util.Iterator;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.Element;
 import org.sf.xrime.model.edge.AbstractEdge;
 
@@ -32,7 +35,7 @@ import org.sf.xrime.model.edge.AbstractEdge;
  * Base class for vertexes in a graph.
  * @author xue
  */
-public class Vertex implements Element, Cloneable {
+public class Vertex implements Element, WritableComparable<Vertex>, Cloneable {
   /**
    * Each vertex is identified with a string id.
    */
@@ -45,6 +48,8 @@ public class Vertex implements Element, Cloneable {
 				return new Vertex();
 			}
 		});
+		// Register the raw comparator, so that sorting never deserializes vertexes.
+		WritableComparator.define(Vertex.class, new Comparator());
 	}
 	/**
 	 * Default constructor.
@@ -115,6 +120,38 @@ public class Vertex implements Element, Cloneable {
 		return id.hashCode();
 	}
 
+	/**
+	 * Vertexes are ordered by their ids.
+	 */
+	@Override
+	public int compareTo(Vertex o) {
+		return id.compareTo(o.getId());
+	}
+
+	/**
+	 * Compare serialized vertexes by the bytes of their ids, like Text.Comparator.
+	 * Only the leading id is read, so this also works for derivants of Vertex.
+	 * <p>
+	 * NOTE: UTF-8 byte order is the same as String.compareTo() except for characters
+	 * outside the BMP, as with Text keys.
+	 */
+	public static class Comparator extends WritableComparator {
+		public Comparator() {
+			super(Vertex.class);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			try {
+				int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+				int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+				return compareBytes(b1, s1 + n1, readVInt(b1, s1), b2, s2 + n2, readVInt(b2, s2));
+			} catch (IOException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+	}
+
 	/* 
 	 * Since we do not really own any incident element, so hasNext() is always return false.
 	 * @see org.sf.xrime.model.Element#getIncidentElements()
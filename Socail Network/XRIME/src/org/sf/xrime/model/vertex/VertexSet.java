@@ -15,25 +15,36 @@
  */
 package org.sf.xrime.model.vertex;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableFactories;
 import org.apache.hadoop.io.WritableFactory;
+import org.apache.hadoop.io.WritableUtils;
 import org.sf.xrime.model.Element;
+import org.sf.xrime.utils.SortedArraySet;
 
 
 /**
  * A set of vertexes.
  * @author xue
  */
-public class VertexSet implements Element, Cloneable {
+public class VertexSet implements Element, WritableComparable<VertexSet>, Cloneable {
   /**
    * Internal set. All its elements should have the same type.
    */
@@ -46,6 +57,8 @@ public class VertexSet implements Element, Cloneable {
 				return new VertexSet();
 			}
 		});
+		// Register the raw comparator.
+		WritableComparator.define(VertexSet.class, new Comparator());
 	}
 
 	/**
@@ -177,14 +190,128 @@ public class VertexSet implements Element, Cloneable {
 		} else {
 		  // Write the number of vertexes in this set.
 			out.writeInt(_vertexes.size());
+			// Always in the order of ids, so that equal sets are serialized the same.
+			Collection<Vertex> ordered = sorted();
 			// All the vertexes should have the same type.
-			Text.writeString(out, _vertexes.toArray()[0].getClass().getName());
-			for (Vertex vertex : _vertexes) {
+			Text.writeString(out, ordered.iterator().next().getClass().getName());
+			for (Vertex vertex : ordered) {
 				vertex.write(out);
 			}
 		}
 	}
 
+	/**
+	 * Get vertexes in the order of their ids.
+	 * @return
+	 */
+	private Collection<Vertex> sorted() {
+		if (_vertexes instanceof SortedArraySet || _vertexes instanceof SortedSet) {
+			// Sorted by id already.
+			return _vertexes;
+		}
+		List<Vertex> ret = new ArrayList<Vertex>(_vertexes);
+		Collections.sort(ret);
+		return ret;
+	}
+
+	/**
+	 * Vertex sets are equal if they hold the same vertexes, whatever the order, which is
+	 * consistent with compareTo, and with the raw comparator used when they are keys.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof VertexSet) {
+			return _vertexes.equals(((VertexSet) obj).getVertexes());
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return _vertexes.hashCode();
+	}
+
+	/**
+	 * Vertex sets are ordered by comparing their vertexes one by one in the order of
+	 * ids. A set which is the prefix of another one is the smaller one.
+	 */
+	@Override
+	public int compareTo(VertexSet o) {
+		Iterator<Vertex> itr1 = sorted().iterator();
+		Iterator<Vertex> itr2 = o.sorted().iterator();
+		while (itr1.hasNext() && itr2.hasNext()) {
+			int cmp = itr1.next().compareTo(itr2.next());
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return itr1.hasNext() ? 1 : (itr2.hasNext() ? -1 : 0);
+	}
+
+	/**
+	 * Compare serialized vertex sets without deserializing them, when their elements
+	 * are plain Vertexes. Sets of derivants of Vertex are deserialized and compared
+	 * with compareTo().
+	 */
+	public static class Comparator extends WritableComparator {
+		/**
+		 * The serialized class name of Vertex.
+		 */
+		private static final byte[] vertexClassName;
+
+		static {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				Text.writeString(new DataOutputStream(bytes), Vertex.class.getName());
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			vertexClassName = bytes.toByteArray();
+		}
+
+		public Comparator() {
+			super(VertexSet.class, true);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			int size1 = readInt(b1, s1);
+			int size2 = readInt(b2, s2);
+			if (size1 == 0 || size2 == 0) {
+				return size1 == 0 ? (size2 == 0 ? 0 : -1) : 1;
+			}
+			s1 += 4;
+			s2 += 4;
+			if (!isVertexClass(b1, s1, l1 - 4) || !isVertexClass(b2, s2, l2 - 4)) {
+				return super.compare(b1, s1 - 4, l1, b2, s2 - 4, l2);
+			}
+			s1 += vertexClassName.length;
+			s2 += vertexClassName.length;
+			try {
+				for (int i = 0; i < size1 && i < size2; i++) {
+					int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+					int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+					int len1 = readVInt(b1, s1);
+					int len2 = readVInt(b2, s2);
+					int cmp = compareBytes(b1, s1 + n1, len1, b2, s2 + n2, len2);
+					if (cmp != 0) {
+						return cmp;
+					}
+					s1 += n1 + len1;
+					s2 += n2 + len2;
+				}
+			} catch (IOException e) {
+				throw new IllegalArgumentException(e);
+			}
+			return size1 < size2 ? -1 : (size1 == size2 ? 0 : 1);
+		}
+
+		private static boolean isVertexClass(byte[] b, int s, int l) {
+			return l >= vertexClassName.length
+					&& compareBytes(b, s, vertexClassName.length, vertexClassName, 0, vertexClassName.length) == 0;
+		}
+	}
+
 	/* 
 	 * Since we do not really own any incident element, so hasNext() is always return false.
 	 * @see org.sf.xrime.model.Element#getIncidentElements()
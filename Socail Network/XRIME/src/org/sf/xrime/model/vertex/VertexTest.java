@@ -8,6 +8,8 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
 import org.junit.Test;
 import org.sf.xrime.model.vertex.Vertex;
 
@@ -35,4 +37,62 @@ public class VertexTest {
 		vertex.readFields(in);
 		assertTrue(vertex2.getId().compareTo(vertex.getId())==0);	
 	}
+	
+	@Test
+	public void testRawComparators() throws IOException {
+		String[] ids={"", "a", "ab", "b", "vertex10", "vertex2", "\u4e2d"};
+		WritableComparator comparator=WritableComparator.get(Vertex.class);
+		for(String id1 : ids) {
+			for(String id2 : ids) {
+				Vertex vertex1=new Vertex(id1);
+				Vertex vertex2=new Vertex(id2);
+				byte[] b1=serialize(vertex1);
+				byte[] b2=serialize(vertex2);
+				assertEquals(Integer.signum(vertex1.compareTo(vertex2)), 
+						Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+			}
+		}
+		
+		VertexSet set1=new VertexSet();
+		set1.addVertex(new Vertex("b"));
+		set1.addVertex(new Vertex("a"));
+		SortedVertexSet set2=new SortedVertexSet();
+		set2.addVertex(new Vertex("a"));
+		set2.addVertex(new Vertex("b"));
+		VertexSet set3=new VertexSet();
+		set3.addVertex(new Vertex("a"));
+		set3.addVertex(new Vertex("c"));
+		VertexSet set4=new VertexSet();
+		set4.addVertex(new Vertex("a"));
+		VertexSet[] sets={set1, set2, set3, set4, new VertexSet()};
+		comparator=WritableComparator.get(VertexSet.class);
+		for(VertexSet s1 : sets) {
+			for(VertexSet s2 : sets) {
+				byte[] b1=serialize(s1);
+				byte[] b2=serialize(s2);
+				assertEquals(Integer.signum(s1.compareTo(s2)), 
+						Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+			}
+		}
+		assertEquals(set1, set2);
+		assertEquals(set1.hashCode(), set2.hashCode());
+		SetOfVertexSets sets2=new SetOfVertexSets();
+		sets2.addVertexSet(set1);
+		sets2.addVertexSet(set2);
+		assertEquals(sets2.getVertexSets().size(), 1);
+		assertTrue(set4.compareTo(set1)<0);
+		
+		// Derivants of Vertex fall back to deserialization.
+		VertexSet set5=new VertexSet();
+		set5.addVertex(new AdjVertex("a"));
+		byte[] b1=serialize(set5);
+		byte[] b2=serialize(set3);
+		assertTrue(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)<0);
+	}
+	
+	private static byte[] serialize(Writable writable) throws IOException {
+		ByteArrayOutputStream  strOutputStream=new ByteArrayOutputStream();
+		writable.write(new DataOutputStream(strOutputStream));
+		return strOutputStream.toByteArray();
+	}
 }
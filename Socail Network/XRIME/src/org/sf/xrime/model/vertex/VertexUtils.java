@@ -15,6 +15,12 @@
  */
 package org.sf.xrime.model.vertex;
 
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.IdEdge;
+
 /**
  * Utility class which provide utility methods for casting objects of different types.
  */
@@ -49,4 +55,26 @@ public class VertexUtils {
 		
 		return vertex;
 	}
+	
+	/**
+	 * Get the number of incidental edges of a vertex, which is either keyed by its name
+	 * or dictionary encoded.
+	 * @param vertex an AdjVertex, IdAdjVertex or IdAdjSetVertex.
+	 * @return the degree.
+	 */
+	static public int getDegree(Writable vertex) {
+		if(vertex instanceof AdjVertex) {
+			List<Edge> edges=((AdjVertex)vertex).getEdges();
+			return edges==null ? 0 : edges.size();
+		}
+		if(vertex instanceof IdAdjVertex) {
+			List<IdEdge> edges=((IdAdjVertex)vertex).getEdges();
+			return edges==null ? 0 : edges.size();
+		}
+		if(vertex instanceof IdAdjSetVertex) {
+			return ((IdAdjSetVertex)vertex).getOppositeCount();
+		}
+		throw new IllegalArgumentException("Unsupported vertex type: " + 
+				vertex.getClass().getName());
+	}
 }
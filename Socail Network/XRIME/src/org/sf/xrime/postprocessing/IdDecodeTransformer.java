@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.postprocessing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.MultipleInputs;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.utils.EdgeSecondarySort;
+import org.sf.xrime.model.edge.Edge;
+
+
+/**
+ * Decode results keyed by dictionary ids, such as dictionary encoded graphs or the output
+ * of jobs run on them, i.e., replace the LongWritable vertex id keys with the original
+ * vertex names, using the dictionary built by VertexDictionaryTransformer. The values are
+ * kept untouched, the output is a sequence file of &lt;Text, value class of the input&gt;
+ * pairs, which could be further transformed by SequenceFileToTextFileTransformer.
+ * <p>
+ * The join is keyed by Edge(id, tag) and sorted with EdgeSecondarySort, so that the name
+ * arrives first and the results of an id are streamed.
+ * @see org.sf.xrime.preprocessing.dictionary.VertexDictionaryTransformer
+ */
+public class IdDecodeTransformer extends Transformer {
+  /**
+   * Path of the dictionary.
+   */
+  private Path dictPath;
+  
+  /**
+   * Default constructor.
+   */
+  public IdDecodeTransformer(){
+    super();
+  }
+  
+  /**
+   * Constructor.
+   * @param src
+   * @param dest
+   * @param dict
+   */
+  public IdDecodeTransformer(Path src, Path dest, Path dict){
+    super(src, dest);
+    dictPath = dict;
+  }
+  
+  public Path getDictPath() {
+    return dictPath;
+  }
+
+  public void setDictPath(Path dictPath) {
+    this.dictPath = dictPath;
+  }
+  
+  /** Sorted before results, so that the name arrives first. */
+  private static final String NAME_TAG = "0";
+  /** Tag of results. */
+  private static final String RESULT_TAG = "1";
+  
+  /**
+   * Vertex name from the dictionary, distinguished from Text results.
+   */
+  public static class VertexName extends Text {
+    public VertexName() {
+      super();
+    }
+  }
+  
+  /**
+   * Swap dictionary entries, so that they are keyed by ids.
+   */
+  public static class DictionaryMapper extends MapReduceBase
+    implements Mapper<Text, LongWritable, Edge, ObjectWritable> {
+    
+    private ObjectWritable outputValue = new ObjectWritable();
+    private VertexName name = new VertexName();
+    
+    public void map(Text key, LongWritable value, 
+        OutputCollector<Edge, ObjectWritable> output, 
+        Reporter reporter) throws IOException {
+      name.set(key);
+      outputValue.set(name);
+      output.collect(new Edge(Long.toString(value.get()), NAME_TAG), outputValue);
+    }
+  }
+  
+  /**
+   * Wrap the results.
+   */
+  public static class ResultMapper extends MapReduceBase
+    implements Mapper<LongWritable, Writable, Edge, ObjectWritable> {
+    
+    private ObjectWritable outputValue = new ObjectWritable();
+    
+    public void map(LongWritable key, Writable value, 
+        OutputCollector<Edge, ObjectWritable> output, 
+        Reporter reporter) throws IOException {
+      outputValue.set(value);
+      output.collect(new Edge(Long.toString(key.get()), RESULT_TAG), outputValue);
+    }
+  }
+  
+  /**
+   * Re-key the results with vertex names.
+   */
+  public static class DecodeReducer extends MapReduceBase
+    implements Reducer<Edge, ObjectWritable, Text, Writable> {
+    
+    private Text name = new Text();
+    
+    public void reduce(Edge key, Iterator<ObjectWritable> values,
+        OutputCollector<Text, Writable> output, 
+        Reporter reporter) throws IOException {
+      // The dictionary entry is sorted first, results without it are dropped.
+      Object value = values.next().get();
+      if(!(value instanceof VertexName)){
+        return;
+      }
+      name.set((Text) value);
+      while(values.hasNext()){
+        output.collect(name, (Writable) values.next().get());
+      }
+    }
+  }
+  
+  /**
+   * Determine the value class of results from the header of one of the sequence files.
+   * @param jobConf
+   * @return
+   * @throws IOException
+   */
+  private Class<?> getResultValueClass(JobConf jobConf) throws IOException {
+    FileSystem fs = srcPath.getFileSystem(jobConf);
+    for(FileStatus status : fs.listStatus(srcPath)){
+      String name = status.getPath().getName();
+      if(status.isDir() || name.startsWith("_") || name.startsWith(".")){
+        continue;
+      }
+      SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), jobConf);
+      try {
+        return reader.getValueClass();
+      } finally {
+        reader.close();
+      }
+    }
+    throw new IOException("No result file found in " + srcPath);
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    for(int i=0; i < params.length; ++i) {
+      try {
+        if ("-dict".equals(params[i])) {
+          setDictPath(new Path(params[++i]));
+        } else {
+          other_args.add(params[i]);
+        }
+      } catch (ArrayIndexOutOfBoundsException except) {
+        throw new ProcessorExecutionException(except);
+      }
+    }
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          other_args.size() + " instead of 2.");
+    }
+    if (dictPath == null) {
+      throw new ProcessorExecutionException("You need to specify the dictionary with -dict.");
+    }
+    
+    setSrcPath(new Path(other_args.get(0)));
+    setDestPath(new Path(other_args.get(1)));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    JobConf jobConf = new JobConf(conf, IdDecodeTransformer.class);
+    jobConf.setJobName("IdDecodeTransformer");
+    
+    try {
+      MultipleInputs.addInputPath(jobConf, srcPath, SequenceFileInputFormat.class, 
+          ResultMapper.class);
+      MultipleInputs.addInputPath(jobConf, dictPath, SequenceFileInputFormat.class, 
+          DictionaryMapper.class);
+      jobConf.setMapOutputKeyClass(Edge.class);
+      jobConf.setMapOutputValueClass(ObjectWritable.class);
+      jobConf.setPartitionerClass(EdgeSecondarySort.FromPartitioner.class);
+      jobConf.setOutputValueGroupingComparator(EdgeSecondarySort.FromComparator.class);
+      jobConf.setReducerClass(DecodeReducer.class);
+      jobConf.setOutputKeyClass(Text.class);
+      jobConf.setOutputValueClass(getResultValueClass(jobConf));
+      jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+      FileOutputFormat.setOutputPath(jobConf, destPath);
+      jobConf.setNumMapTasks(mapperNum);
+      jobConf.setNumReduceTasks(reducerNum);
+      
+      this.runningJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new IdDecodeTransformer(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.postprocessing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.model.csr.CSRGraph;
+import org.sf.xrime.model.csr.CSRGraphWriter;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.CompactAdjVertex;
+import org.sf.xrime.utils.SequenceFiles;
+
+
+/**
+ * This class is used to convert a graph in form of sequence files of AdjVertex,
+ * AdjSetVertex or CompactAdjVertex (or their sub classes) into a CSR graph snapshot
+ * in a local directory, which could be opened with CSRGraph for analysis on a single
+ * machine. The records are read twice, without a MapReduce job: once for the keys,
+ * which are taken as vertex ids, then for the adjacency lists.
+ * <p>
+ * Rows of AdjVertex hold the opposite ends of the edges, so both outgoing and
+ * incoming adjacency lists work. Weights are only taken from AdjVertex, when the
+ * snapshot is weighted, see CompactAdjVertex.weightKey.
+ * @see CSRGraph
+ */
+public class SequenceFileToCSRTransformer extends Transformer {
+  /**
+   * Whether to write the weights of edges.
+   */
+  private boolean weighted = false;
+  
+  /**
+   * Default constructor.
+   */
+  public SequenceFileToCSRTransformer() {
+    super();
+  }
+  
+  /**
+   * Constructor.
+   * @param src sequence files.
+   * @param dest local directory of the snapshot.
+   */
+  public SequenceFileToCSRTransformer(Path src, Path dest) {
+    super(src, dest);
+  }
+  
+  public boolean isWeighted() {
+    return weighted;
+  }
+
+  public void setWeighted(boolean weighted) {
+    this.weighted = weighted;
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    for (int i = 0; i < params.length; i++) {
+      if ("-weighted".equals(params[i])) {
+        weighted = true;
+      } else if (params[i] != null) {
+        other_args.add(params[i]);
+      }
+    }
+    super.setArguments(other_args.toArray(new String[other_args.size()]));
+  }
+
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    try {
+      FileSystem fs = srcPath.getFileSystem(conf);
+      Path[] files = SequenceFiles.listDataFiles(fs, srcPath);
+      CSRGraphWriter writer = new CSRGraphWriter(new File(destPath.toUri().getPath()), weighted);
+      try {
+        // Number the vertexes with adjacency lists first, in the order of rows.
+        for (Path file : files) {
+          SequenceFile.Reader reader = new SequenceFile.Reader(fs, file, conf);
+          try {
+            Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+            while (reader.next(key)) {
+              writer.getIndex(key.toString());
+            }
+          } finally {
+            reader.close();
+          }
+        }
+        
+        CompactAdjVertex row = new CompactAdjVertex();
+        int[] nbrs = new int[16];
+        double[] wts = new double[16];
+        for (Path file : files) {
+          SequenceFile.Reader reader = new SequenceFile.Reader(fs, file, conf);
+          try {
+            Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+            Writable value = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), conf);
+            while (reader.next(key, value)) {
+              toRow(value, row);
+              int count = row.getNeighborCount();
+              if (count > nbrs.length) {
+                nbrs = new int[Math.max(count, nbrs.length * 2)];
+                wts = new double[nbrs.length];
+              }
+              for (int i = 0; i < count; i++) {
+                nbrs[i] = writer.getIndex(row.getNeighbor(i));
+                wts[i] = row.getWeight(i);
+              }
+              writer.addVertex(key.toString(), nbrs, wts, count);
+            }
+          } finally {
+            reader.close();
+          }
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    } catch (IllegalStateException e) {
+      throw new ProcessorExecutionException(e);
+    }
+  }
+  
+  /**
+   * Convert a vertex into a row.
+   * @param value the vertex.
+   * @param row the row.
+   * @throws ProcessorExecutionException if the vertex class is not supported.
+   */
+  private void toRow(Writable value, CompactAdjVertex row) throws ProcessorExecutionException {
+    if (value instanceof CompactAdjVertex) {
+      CompactAdjVertex vertex = (CompactAdjVertex) value;
+      row.clearNeighbors();
+      row.setWeighted(vertex.isWeighted());
+      for (int i = 0; i < vertex.getNeighborCount(); i++) {
+        row.addNeighbor(vertex.getNeighbor(i), vertex.getWeight(i));
+      }
+    } else if (value instanceof AdjVertex) {
+      row.fromAdjVertexBoth((AdjVertex) value);
+    } else if (value instanceof AdjSetVertex) {
+      row.fromAdjSetVertex((AdjSetVertex) value);
+    } else {
+      throw new ProcessorExecutionException("Can not convert " + 
+          value.getClass().getName() + " into CSR format");
+    }
+  }
+  
+  public static void main(String[] args) {
+    try {
+      int res = ToolRunner.run(new SequenceFileToCSRTransformer(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
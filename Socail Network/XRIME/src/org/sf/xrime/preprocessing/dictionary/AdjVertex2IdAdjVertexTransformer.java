@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.preprocessing.dictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.MultipleInputs;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.utils.EdgeSecondarySort;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.edge.IdEdge;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.IdAdjVertex;
+
+
+/**
+ * Encode AdjVertex lists into IdAdjVertex lists with a dictionary built by
+ * VertexDictionaryTransformer. The output keys are the ids of vertexes (LongWritable).
+ * <p>Two jobs are used. The first one joins each occurrence of a vertex name with the
+ * dictionary. The second one groups the resolved ids by owner vertex and rebuilds the
+ * adjacency lists, with edges in their original order.</p>
+ * <p>Both joins are keyed by Edge(name, tag) and sorted with EdgeSecondarySort, so that
+ * the dictionary entry (or the owner vertex) arrives first and the other references
+ * are streamed, however often a name occurs.</p>
+ */
+public class AdjVertex2IdAdjVertexTransformer extends Transformer {
+  /**
+   * Counter group and name for the occurrences not found in the dictionary.
+   */
+  static final public String unresolvedCounter = "Unresolved Vertex Names";
+  
+  /** Sorted before other references, so that the dictionary entry or owner arrives first. */
+  private static final String FIRST_TAG = "0";
+  /** Tag of other references. */
+  private static final String REST_TAG = "1";
+  
+  /**
+   * Path of the dictionary.
+   */
+  private Path dictPath;
+  
+  /**
+   * Default constructor.
+   */
+  public AdjVertex2IdAdjVertexTransformer(){
+    super();
+  }
+  
+  /**
+   * Normal constructor.
+   * @param src
+   * @param dest
+   * @param dict
+   */
+  public AdjVertex2IdAdjVertexTransformer(Path src, Path dest, Path dict){
+    super(src, dest);
+    dictPath = dict;
+  }
+  
+  public Path getDictPath() {
+    return dictPath;
+  }
+
+  public void setDictPath(Path dictPath) {
+    this.dictPath = dictPath;
+  }
+
+  /**
+   * Emit dictionary entries as references.
+   */
+  public static class DictionaryMapper extends MapReduceBase
+    implements Mapper<Text, LongWritable, Edge, IdReference> {
+    
+    private IdReference ref = new IdReference();
+    
+    public void map(Text key, LongWritable value, 
+        OutputCollector<Edge, IdReference> output, 
+        Reporter reporter) throws IOException {
+      ref.setType(IdReference.DICTIONARY);
+      ref.setId(value.get());
+      output.collect(new Edge(key.toString(), FIRST_TAG), ref);
+    }
+  }
+  
+  /**
+   * Emit an occurrence for the vertex itself, and for each end of its edges which is not
+   * the vertex itself.
+   */
+  public static class GraphMapper extends MapReduceBase
+    implements Mapper<Text, AdjVertex, Edge, IdReference> {
+    
+    public void map(Text key, AdjVertex value, 
+        OutputCollector<Edge, IdReference> output, 
+        Reporter reporter) throws IOException {
+      String owner = value.getId();
+      List<Edge> edges = value.getEdges();
+      
+      output.collect(new Edge(owner, REST_TAG), 
+          new IdReference(IdReference.OWNER, owner, edges.size(), -1));
+      
+      for(int i = 0; i < edges.size(); i++){
+        Edge edge = edges.get(i);
+        if(!owner.equals(edge.getFrom())){
+          output.collect(new Edge(edge.getFrom(), REST_TAG), 
+              new IdReference(IdReference.FROM_END, owner, i, -1));
+        }
+        if(!owner.equals(edge.getTo())){
+          output.collect(new Edge(edge.getTo(), REST_TAG), 
+              new IdReference(IdReference.TO_END, owner, i, -1));
+        }
+      }
+    }
+  }
+  
+  /**
+   * Resolve all occurrences of a name, and send them back to their owners.
+   */
+  public static class ResolveReducer extends MapReduceBase
+    implements Reducer<Edge, IdReference, Text, IdReference> {
+    
+    private Text owner = new Text();
+    
+    public void reduce(Edge key, Iterator<IdReference> values,
+        OutputCollector<Text, IdReference> output, 
+        Reporter reporter) throws IOException {
+      long id = -1;
+      long unresolved = 0;
+      // The dictionary entry, if any, is sorted first.
+      while(values.hasNext()){
+        IdReference ref = values.next();
+        if(ref.getType()==IdReference.DICTIONARY){
+          id = ref.getId();
+          continue;
+        }
+        if(id<0){
+          unresolved++;
+        }
+        owner.set(ref.getOwner());
+        ref.setOwner(null);
+        ref.setId(id);
+        output.collect(owner, ref);
+      }
+      
+      if(unresolved>0){
+        reporter.incrCounter(unresolvedCounter, unresolvedCounter, unresolved);
+      }
+    }
+  }
+  
+  /**
+   * Key resolved references by their owners, with the owner vertex itself sorted first.
+   */
+  public static class RebuildMapper extends MapReduceBase
+    implements Mapper<Text, IdReference, Edge, IdReference> {
+    
+    public void map(Text key, IdReference value, 
+        OutputCollector<Edge, IdReference> output, 
+        Reporter reporter) throws IOException {
+      String tag = value.getType()==IdReference.OWNER ? FIRST_TAG : REST_TAG;
+      output.collect(new Edge(key.toString(), tag), value);
+    }
+  }
+  
+  /**
+   * Rebuild the adjacency list of a vertex with resolved ids.
+   */
+  public static class RebuildReducer extends MapReduceBase
+    implements Reducer<Edge, IdReference, LongWritable, IdAdjVertex> {
+    
+    private LongWritable outputKey = new LongWritable();
+    
+    public void reduce(Edge key, Iterator<IdReference> values,
+        OutputCollector<LongWritable, IdAdjVertex> output, 
+        Reporter reporter) throws IOException {
+      // The owner vertex itself is sorted first.
+      IdReference owner = values.next();
+      if(owner.getType()!=IdReference.OWNER || owner.getId()<0){
+        // The vertex itself is not in the dictionary.
+        return;
+      }
+      long id = owner.getId();
+      int size = owner.getIndex();
+      
+      // Ends which have not been emitted are the vertex itself.
+      long[] froms = new long[size];
+      long[] tos = new long[size];
+      boolean[] broken = new boolean[size];
+      for(int i = 0; i < size; i++){
+        froms[i] = id;
+        tos[i] = id;
+      }
+      while(values.hasNext()){
+        IdReference ref = values.next();
+        if(ref.getId()<0){
+          broken[ref.getIndex()] = true;
+        }else if(ref.getType()==IdReference.FROM_END){
+          froms[ref.getIndex()] = ref.getId();
+        }else{
+          tos[ref.getIndex()] = ref.getId();
+        }
+      }
+      
+      IdAdjVertex vertex = new IdAdjVertex(id);
+      for(int i = 0; i < size; i++){
+        if(!broken[i]){
+          vertex.addEdge(new IdEdge(froms[i], tos[i]));
+        }
+      }
+      outputKey.set(id);
+      output.collect(outputKey, vertex);
+    }
+  }
+  
+  @Override
+  public void setArguments(String[] params) throws ProcessorExecutionException {
+    List<String> other_args = new ArrayList<String>();
+    for(int i=0; i < params.length; ++i) {
+      try {
+        if ("-dict".equals(params[i])) {
+          setDictPath(new Path(params[++i]));
+        } else {
+          other_args.add(params[i]);
+        }
+      } catch (ArrayIndexOutOfBoundsException except) {
+        throw new ProcessorExecutionException(except);
+      }
+    }
+    // Make sure there are exactly 2 parameters left.
+    if (other_args.size() != 2) {
+      throw new ProcessorExecutionException("Wrong number of parameters: " +
+          other_args.size() + " instead of 2.");
+    }
+    if (dictPath == null) {
+      throw new ProcessorExecutionException("You need to specify the dictionary with -dict.");
+    }
+    
+    setSrcPath(new Path(other_args.get(0)));
+    setDestPath(new Path(other_args.get(1)));
+  }
+  
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    Path refsPath = new Path(destPath.toString() + "_refs");
+    
+    // {{ resolve names.
+    JobConf jobConf = new JobConf(conf, AdjVertex2IdAdjVertexTransformer.class);
+    jobConf.setJobName("AdjVertex2IdAdjVertex - Resolve");
+    
+    MultipleInputs.addInputPath(jobConf, srcPath, SequenceFileInputFormat.class, 
+        GraphMapper.class);
+    MultipleInputs.addInputPath(jobConf, dictPath, SequenceFileInputFormat.class, 
+        DictionaryMapper.class);
+    jobConf.setReducerClass(ResolveReducer.class);
+    jobConf.setMapOutputKeyClass(Edge.class);
+    jobConf.setMapOutputValueClass(IdReference.class);
+    jobConf.setPartitionerClass(EdgeSecondarySort.FromPartitioner.class);
+    jobConf.setOutputValueGroupingComparator(EdgeSecondarySort.FromComparator.class);
+    jobConf.setOutputKeyClass(Text.class);
+    jobConf.setOutputValueClass(IdReference.class);
+    jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+    FileOutputFormat.setOutputPath(jobConf, refsPath);
+    jobConf.setNumMapTasks(mapperNum);
+    jobConf.setNumReduceTasks(reducerNum);
+    
+    try {
+      JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    // }} resolve names.
+    
+    // {{ rebuild adjacency lists.
+    jobConf = new JobConf(conf, AdjVertex2IdAdjVertexTransformer.class);
+    jobConf.setJobName("AdjVertex2IdAdjVertex - Rebuild");
+    
+    jobConf.setMapperClass(RebuildMapper.class);
+    jobConf.setReducerClass(RebuildReducer.class);
+    jobConf.setMapOutputKeyClass(Edge.class);
+    jobConf.setMapOutputValueClass(IdReference.class);
+    jobConf.setPartitionerClass(EdgeSecondarySort.FromPartitioner.class);
+    jobConf.setOutputValueGroupingComparator(EdgeSecondarySort.FromComparator.class);
+    jobConf.setOutputKeyClass(LongWritable.class);
+    jobConf.setOutputValueClass(IdAdjVertex.class);
+    jobConf.setInputFormat(SequenceFileInputFormat.class);
+    jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+    FileInputFormat.setInputPaths(jobConf, refsPath);
+    FileOutputFormat.setOutputPath(jobConf, destPath);
+    jobConf.setNumMapTasks(mapperNum);
+    jobConf.setNumReduceTasks(reducerNum);
+    
+    try {
+      this.runningJob = JobClient.runJob(jobConf);
+      FileSystem.get(jobConf).delete(refsPath, true);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    // }} rebuild adjacency lists.
+  }
+  
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new AdjVertex2IdAdjVertexTransformer(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
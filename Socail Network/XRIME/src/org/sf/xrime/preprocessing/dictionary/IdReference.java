@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.preprocessing.dictionary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Intermediate value used to join vertex names with the dictionary. A reference
+ * records where a vertex name occurs in the graph (the owner vertex, the index of
+ * the edge, and which end of the edge), and carries the id once it is resolved.
+ */
+public class IdReference implements Writable {
+  /** An entry of the dictionary. */
+  static final public byte DICTIONARY = 0;
+  /** The name is the id of the owner vertex itself. */
+  static final public byte OWNER = 1;
+  /** The name is the from end of an edge of the owner vertex. */
+  static final public byte FROM_END = 2;
+  /** The name is the to end of an edge of the owner vertex. */
+  static final public byte TO_END = 3;
+  
+  private byte type;
+  /** The name of the owner vertex, null once resolved. */
+  private String owner;
+  /** The index of the edge. For OWNER references, the number of edges. */
+  private int index;
+  /** The resolved id, -1 if unresolved. */
+  private long id = -1;
+  
+  public IdReference() {
+  }
+  
+  public IdReference(byte type, String owner, int index, long id) {
+    this.type = type;
+    this.owner = owner;
+    this.index = index;
+    this.id = id;
+  }
+  
+  public IdReference(IdReference ref) {
+    this(ref.type, ref.owner, ref.index, ref.id);
+  }
+  
+  public byte getType() {
+    return type;
+  }
+
+  public void setType(byte type) {
+    this.type = type;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+  
+  public String toString() {
+    return "<" + type + ", " + owner + ", " + index + ", " + id + ">";
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    type = in.readByte();
+    owner = in.readBoolean() ? Text.readString(in) : null;
+    index = WritableUtils.readVInt(in);
+    id = WritableUtils.readVLong(in);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeByte(type);
+    out.writeBoolean(owner != null);
+    if (owner != null) {
+      Text.writeString(out, owner);
+    }
+    WritableUtils.writeVInt(out, index);
+    WritableUtils.writeVLong(out, id);
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.preprocessing.dictionary;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.RunningJob;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.sf.xrime.ProcessorExecutionException;
+import org.sf.xrime.Transformer;
+import org.sf.xrime.model.edge.AdjVertexEdge;
+import org.sf.xrime.model.edge.Edge;
+import org.sf.xrime.model.vertex.AdjSetVertex;
+import org.sf.xrime.model.vertex.AdjVertex;
+import org.sf.xrime.model.vertex.Vertex;
+import org.sf.xrime.utils.MRConsoleReader;
+
+
+/**
+ * Build a dictionary which maps each vertex id (string) of the input graph to a dense
+ * long id in [0, n). The input should be AdjVertex or AdjSetVertex lists, the output
+ * is a sequence file of &lt;Text name, LongWritable id&gt; pairs, which is used by
+ * AdjVertex2IdAdjVertexTransformer to encode the graph, and by IdDecodeTransformer to
+ * decode the results.
+ * <p>Two jobs are used. The first one collects distinct names into reducer partitions
+ * and counts the size of each partition with counters. The second one is map only,
+ * each mapper numbers one partition, starting from the sum of the sizes of preceding
+ * partitions.</p>
+ */
+public class VertexDictionaryTransformer extends Transformer {
+  /**
+   * Counter group used to record the size of each partition of distinct names.
+   */
+  static final public String partitionSizeGroup = "Dictionary Partition Size";
+  
+  /**
+   * Key prefix in JobConf for the starting id of each partition.
+   */
+  static final public String partitionOffsetKey = "xrime.dictionary.offset.";
+  
+  /**
+   * Number of entries in the dictionary built by last execution.
+   */
+  private long vertexNum = 0;
+  
+  /**
+   * Default constructor.
+   */
+  public VertexDictionaryTransformer(){
+    super();
+  }
+  
+  /**
+   * Normal constructor.
+   * @param src
+   * @param dest
+   */
+  public VertexDictionaryTransformer(Path src, Path dest){
+    super(src, dest);
+  }
+  
+  /**
+   * Get the number of vertexes found by last execution, which is also the upper bound
+   * (exclusive) of the assigned ids.
+   * @return
+   */
+  public long getVertexNum() {
+    return vertexNum;
+  }
+  
+  /**
+   * Emit the id of the vertex and the ids of all its opposites.
+   */
+  public static class NameMapper extends MapReduceBase
+    implements Mapper<Text, Vertex, Text, NullWritable> {
+    
+    private Text name = new Text();
+    
+    public void map(Text key, Vertex value, 
+        OutputCollector<Text, NullWritable> output, 
+        Reporter reporter) throws IOException {
+      name.set(value.getId());
+      output.collect(name, NullWritable.get());
+      
+      if(value instanceof AdjVertex){
+        for(Edge edge : ((AdjVertex) value).getEdges()){
+          if(edge.getFrom()!=null){
+            name.set(edge.getFrom());
+            output.collect(name, NullWritable.get());
+          }
+          if(edge.getTo()!=null){
+            name.set(edge.getTo());
+            output.collect(name, NullWritable.get());
+          }
+        }
+      }else if(value instanceof AdjSetVertex){
+        for(AdjVertexEdge edge : ((AdjSetVertex) value).getOpposites()){
+          name.set(edge.getOpposite());
+          output.collect(name, NullWritable.get());
+        }
+      }
+    }
+  }
+  
+  /**
+   * Remove redundant names on the map side.
+   */
+  public static class NameCombiner extends MapReduceBase
+    implements Reducer<Text, NullWritable, Text, NullWritable> {
+    
+    public void reduce(Text key, Iterator<NullWritable> values,
+        OutputCollector<Text, NullWritable> output, 
+        Reporter reporter) throws IOException {
+      output.collect(key, NullWritable.get());
+    }
+  }
+  
+  /**
+   * Remove redundant names, and count the distinct names of this partition.
+   */
+  public static class NameReducer extends MapReduceBase
+    implements Reducer<Text, NullWritable, Text, NullWritable> {
+    
+    private String partition;
+    
+    public void reduce(Text key, Iterator<NullWritable> values,
+        OutputCollector<Text, NullWritable> output, 
+        Reporter reporter) throws IOException {
+      output.collect(key, NullWritable.get());
+      reporter.incrCounter(partitionSizeGroup, partition, 1);
+    }
+    
+    public void configure(JobConf job){
+      partition = Integer.toString(job.getInt("mapred.task.partition", 0));
+    }
+  }
+  
+  /**
+   * Number the names of one partition, starting from the offset of the partition.
+   */
+  public static class IdAssignMapper extends MapReduceBase
+    implements Mapper<Text, NullWritable, Text, LongWritable> {
+    
+    private LongWritable id = new LongWritable();
+    private long nextId = 0;
+    
+    public void map(Text key, NullWritable value, 
+        OutputCollector<Text, LongWritable> output, 
+        Reporter reporter) throws IOException {
+      id.set(nextId++);
+      output.collect(key, id);
+    }
+    
+    public void configure(JobConf job){
+      // The input file is named after the partition, e.g., part-00003.
+      String file = new Path(job.get("map.input.file")).getName();
+      int partition = Integer.parseInt(file.substring(file.lastIndexOf('-')+1));
+      nextId = job.getLong(partitionOffsetKey + partition, 0);
+    }
+  }
+  
+  /**
+   * Each partition should be numbered by exactly one mapper, so never split the files.
+   */
+  public static class NonSplitableSequenceFileInputFormat 
+    extends SequenceFileInputFormat<Text, NullWritable> {
+    
+    @Override
+    protected boolean isSplitable(FileSystem fs, Path filename) {
+      return false;
+    }
+  }
+  
+  @Override
+  public void execute() throws ProcessorExecutionException {
+    Path namesPath = new Path(destPath.toString() + "_names");
+    
+    // {{ collect distinct names.
+    JobConf jobConf = new JobConf(conf, VertexDictionaryTransformer.class);
+    jobConf.setJobName("VertexDictionary - Names");
+    
+    jobConf.setMapperClass(NameMapper.class);
+    jobConf.setCombinerClass(NameCombiner.class);
+    jobConf.setReducerClass(NameReducer.class);
+    jobConf.setOutputKeyClass(Text.class);
+    jobConf.setOutputValueClass(NullWritable.class);
+    jobConf.setInputFormat(SequenceFileInputFormat.class);
+    jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+    FileInputFormat.setInputPaths(jobConf, srcPath);
+    FileOutputFormat.setOutputPath(jobConf, namesPath);
+    jobConf.setNumMapTasks(mapperNum);
+    jobConf.setNumReduceTasks(reducerNum);
+    
+    RunningJob namesJob;
+    try {
+      namesJob = JobClient.runJob(jobConf);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    // }} collect distinct names.
+    
+    // {{ assign ids.
+    jobConf = new JobConf(conf, VertexDictionaryTransformer.class);
+    jobConf.setJobName("VertexDictionary - Ids");
+    
+    vertexNum = 0;
+    for(int partition = 0; partition < reducerNum; partition++){
+      jobConf.setLong(partitionOffsetKey + partition, vertexNum);
+      long size = MRConsoleReader.getRecordNum(namesJob, partitionSizeGroup, 
+          Integer.toString(partition));
+      if(size > 0){
+        vertexNum += size;
+      }
+    }
+    
+    jobConf.setMapperClass(IdAssignMapper.class);
+    jobConf.setNumReduceTasks(0);
+    jobConf.setOutputKeyClass(Text.class);
+    jobConf.setOutputValueClass(LongWritable.class);
+    jobConf.setInputFormat(NonSplitableSequenceFileInputFormat.class);
+    jobConf.setOutputFormat(SequenceFileOutputFormat.class);
+    FileInputFormat.setInputPaths(jobConf, namesPath);
+    FileOutputFormat.setOutputPath(jobConf, destPath);
+    
+    try {
+      this.runningJob = JobClient.runJob(jobConf);
+      FileSystem.get(jobConf).delete(namesPath, true);
+    } catch (IOException e) {
+      throw new ProcessorExecutionException(e);
+    }
+    // }} assign ids.
+  }
+  
+  public static void main(String[] args){
+    try {
+      int res = ToolRunner.run(new VertexDictionaryTransformer(), args);
+      System.exit(res);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -38,6 +38,8 @@ import org.apache.hadoop.mapred.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 import org.sf.xrime.ProcessorExecutionException;
 import org.sf.xrime.Transformer;
+import org.sf.xrime.algorithms.GraphAlgorithmContext;
+import org.sf.xrime.model.Graph;
 import org.sf.xrime.model.edge.Edge;
 import org.sf.xrime.model.vertex.AdjVertex;
 
@@ -133,6 +135,16 @@ public class Raw2SortedOutAdjVertexTransformer extends Transformer{
   public static class ReduceClass extends MapReduceBase
     implements Reducer<Text, AdjVertex, Text, AdjVertex> {
     
+    /**
+     * Whether to write the sorted lists in compressed format, also used when this class
+     * works as the combiner.
+     */
+    private boolean compressed = false;
+    
+    public void configure(JobConf job) {
+      compressed = job.getBoolean(Graph.compressedAdjacencyKey, false);
+    }
+    
     public void reduce(Text key, Iterator<AdjVertex> values,
                        OutputCollector<Text, AdjVertex> output, 
                        Reporter reporter) throws IOException {
@@ -153,6 +165,7 @@ public class Raw2SortedOutAdjVertexTransformer extends Transformer{
       
       // Create the AdjVertex instance.
       AdjVertex adj = new AdjVertex();
+      adj.setCompressed(compressed);
       String friend_name = key.toString();
       // Set the vertex.
       adj.setId(friend_name);
@@ -179,6 +192,8 @@ public class Raw2SortedOutAdjVertexTransformer extends Transformer{
     jobConf.setOutputKeyClass(Text.class);
     // the values are adjacent vertexes (Writable)
     jobConf.setOutputValueClass(AdjVertex.class);
+    // the sorted lists could be written in compressed format.
+    jobConf.setBoolean(Graph.compressedAdjacencyKey, GraphAlgorithmContext.isCompressedAdjacency(conf));
     
     jobConf.setMapperClass(MapClass.class);        
     jobConf.setCombinerClass(ReduceClass.class);
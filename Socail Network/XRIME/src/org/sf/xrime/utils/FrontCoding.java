@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Front coding of a sequence of strings, the string counterpart of gap encoding
+ * sorted numbers. Each string is written as the length of the prefix it shares
+ * with the previous string, followed by the rest of its UTF-8 bytes. Both lengths
+ * are packed into one variable-length integer, with the length of the rest in the
+ * lowest 4 bits, or 15 there and the excess as another variable-length integer.
+ * Any sequence could be coded, but only sorted ones share long prefixes, e.g.,
+ * sorted numeric ids of the same magnitude.
+ * <p>
+ * An instance keeps the previous string of the sequence, so the same instance (or
+ * one in the same state) must be used to read the sequence back. Not thread safe.
+ */
+public class FrontCoding {
+	private static final int LENGTH_BITS = 4;
+	private static final int LENGTH_MASK = (1 << LENGTH_BITS) - 1;
+	
+	private Text previous = new Text();
+	private Text current = new Text();
+	private byte[] suffix = new byte[16];
+
+	/**
+	 * Start a new sequence.
+	 */
+	public void reset() {
+		previous.clear();
+	}
+
+	/**
+	 * Write the next string of the sequence.
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	public void write(DataOutput out, String value) throws IOException {
+		current.set(value);
+		byte[] prev = previous.getBytes();
+		byte[] cur = current.getBytes();
+		int limit = Math.min(previous.getLength(), current.getLength());
+		int shared = 0;
+		while (shared < limit && prev[shared] == cur[shared]) {
+			shared++;
+		}
+		int length = current.getLength() - shared;
+		WritableUtils.writeVInt(out, (shared << LENGTH_BITS) | Math.min(length, LENGTH_MASK));
+		if (length >= LENGTH_MASK) {
+			WritableUtils.writeVInt(out, length - LENGTH_MASK);
+		}
+		out.write(cur, shared, length);
+		swap();
+	}
+
+	/**
+	 * Read the next string of the sequence.
+	 * @param in
+	 * @return the string.
+	 * @throws IOException
+	 */
+	public String read(DataInput in) throws IOException {
+		int lengths = WritableUtils.readVInt(in);
+		int shared = lengths >>> LENGTH_BITS;
+		int length = lengths & LENGTH_MASK;
+		if (length == LENGTH_MASK) {
+			length += WritableUtils.readVInt(in);
+		}
+		if (shared < 0 || shared > previous.getLength() || length < 0) {
+			throw new IOException("Corrupt front coded string: " + shared + "/"
+					+ length + " after " + previous.getLength() + " bytes");
+		}
+		if (suffix.length < length) {
+			suffix = new byte[Math.max(length, suffix.length * 2)];
+		}
+		in.readFully(suffix, 0, length);
+		current.set(previous.getBytes(), 0, shared);
+		current.append(suffix, 0, length);
+		swap();
+		return Text.decode(previous.getBytes(), 0, previous.getLength());
+	}
+
+	private void swap() {
+		Text temp = previous;
+		previous = current;
+		current = temp;
+	}
+}
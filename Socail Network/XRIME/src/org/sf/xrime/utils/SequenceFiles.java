@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Helpers to read the output of jobs outside of MapReduce.
+ */
+public class SequenceFiles {
+  /**
+   * List the data files of the specified path, sorted by name. Files whose names
+   * start with "_" or ".", such as _logs and checksum files, are skipped.
+   * @param fs
+   * @param path a file, or a directory of files.
+   * @return
+   * @throws IOException
+   */
+  public static Path[] listDataFiles(FileSystem fs, Path path) throws IOException {
+    if (!fs.getFileStatus(path).isDir()) {
+      return new Path[] {path};
+    }
+    List<Path> files = new ArrayList<Path>();
+    for (FileStatus status : fs.listStatus(path)) {
+      String name = status.getPath().getName();
+      if (!status.isDir() && !name.startsWith("_") && !name.startsWith(".")) {
+        files.add(status.getPath());
+      }
+    }
+    Path[] ret = files.toArray(new Path[files.size()]);
+    Arrays.sort(ret);
+    return ret;
+  }
+}
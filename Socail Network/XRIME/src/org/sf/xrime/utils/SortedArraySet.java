@@ -0,0 +1,604 @@
+/*
+ * Copyright (C) IBM Corp. 2009.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.sf.xrime.utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set backed by a sorted array, as a compact replacement of TreeSet for sets of
+ * neighbors. Elements are ordered by the specified comparator, or by their natural
+ * order if the comparator is null, and two elements are equal if they compare as 0.
+ * <p>
+ * Besides binary search contains/remove, intersection of two sets with the same
+ * comparator is done by merging their arrays, or by galloping through the larger
+ * one if their sizes differ a lot. Appending elements in ascending order, as when
+ * deserializing a set written in order, costs O(1) each. Other elements are
+ * buffered unsorted and merged in batches, and addAll sorts all new elements at once.
+ * <p>
+ * Not thread safe.
+ * @param <E> element type.
+ */
+public class SortedArraySet<E> extends AbstractSet<E> implements Cloneable {
+	/**
+	 * Size ratio above which intersection gallops through the larger set instead of
+	 * merging.
+	 */
+	private static final int GALLOP_RATIO = 8;
+	/**
+	 * Minimum number of unsorted elements buffered before merging.
+	 */
+	private static final int MIN_PENDING = 16;
+	private static final Object[] EMPTY = new Object[0];
+
+	private final Comparator<? super E> comparator;
+	/**
+	 * elements[0, sortedSize) are sorted, elements[sortedSize, size) are pending
+	 * elements not yet merged. Elements are unique across both parts.
+	 */
+	private Object[] elements = EMPTY;
+	private int size = 0;
+	private int sortedSize = 0;
+	private int modCount = 0;
+
+	/**
+	 * Set ordered by natural order of elements.
+	 */
+	public SortedArraySet() {
+		this((Comparator<? super E>) null);
+	}
+
+	/**
+	 * Set ordered by the specified comparator.
+	 * @param comparator
+	 */
+	public SortedArraySet(Comparator<? super E> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Copy constructor. Elements are shared, not cloned.
+	 * @param set
+	 */
+	public SortedArraySet(SortedArraySet<E> set) {
+		this.comparator = set.comparator;
+		set.ensureSorted();
+		elements = Arrays.copyOf(set.elements, set.size);
+		size = set.size;
+		sortedSize = set.size;
+	}
+
+	/**
+	 * Bulk construction from strictly ascending input, in O(n).
+	 * @param comparator the comparator, or null for natural order.
+	 * @param sorted the elements in strictly ascending order.
+	 * @param length number of elements to use from sorted.
+	 * @return
+	 * @throws IllegalArgumentException if input is not strictly ascending.
+	 */
+	public static <E> SortedArraySet<E> fromSorted(Comparator<? super E> comparator, E[] sorted, int length) {
+		SortedArraySet<E> ret = new SortedArraySet<E>(comparator);
+		ret.elements = Arrays.copyOf(sorted, length, Object[].class);
+		for (int i = 1; i < length; i++) {
+			if (ret.compare(ret.elements[i - 1], ret.elements[i]) >= 0) {
+				throw new IllegalArgumentException("Input is not strictly ascending at " + i);
+			}
+		}
+		ret.size = length;
+		ret.sortedSize = length;
+		return ret;
+	}
+
+	/**
+	 * The comparator, null for natural order.
+	 * @return
+	 */
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		ensureSorted();
+		try {
+			return search(o) >= 0;
+		} catch (ClassCastException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (size == sortedSize && (size == 0 || compare(elements[size - 1], e) < 0)) {
+			// Appending in order, which keeps the array sorted.
+			grow(size + 1);
+			elements[size++] = e;
+			sortedSize = size;
+			modCount++;
+			return true;
+		}
+		if (search(e) >= 0) {
+			return false;
+		}
+		for (int i = sortedSize; i < size; i++) {
+			if (compare(elements[i], e) == 0) {
+				return false;
+			}
+		}
+		grow(size + 1);
+		elements[size++] = e;
+		modCount++;
+		// Merging costs O(size), so let the buffer grow with the set.
+		if (size - sortedSize > Math.max(MIN_PENDING, (int) Math.sqrt(sortedSize))) {
+			ensureSorted();
+		}
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean addAll(Collection<? extends E> c) {
+		if (c.isEmpty()) {
+			return false;
+		}
+		int oldSize = size;
+		if (c instanceof SortedArraySet && sameOrder((SortedArraySet<?>) c)) {
+			SortedArraySet<E> other = (SortedArraySet<E>) c;
+			other.ensureSorted();
+			ensureSorted();
+			// Union by merging.
+			Object[] merged = new Object[size + other.size];
+			int n = merge(elements, size, other.elements, other.size, merged);
+			Arrays.fill(merged, n, merged.length, null);
+			elements = merged;
+			size = n;
+			sortedSize = n;
+		} else {
+			// Append everything, and sort once.
+			grow(size + c.size());
+			for (E e : c) {
+				elements[size++] = e;
+			}
+			ensureSorted();
+		}
+		if (size != oldSize) {
+			modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		ensureSorted();
+		int index;
+		try {
+			index = search(o);
+		} catch (ClassCastException e) {
+			return false;
+		}
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		if (c instanceof SortedArraySet && sameOrder((SortedArraySet<?>) c)) {
+			SortedArraySet<?> other = (SortedArraySet<?>) c;
+			if (other.size > size) {
+				return false;
+			}
+			return intersect(other, false) == other.size;
+		}
+		return super.containsAll(c);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		ensureSorted();
+		int oldSize = size;
+		if (c instanceof SortedArraySet && sameOrder((SortedArraySet<?>) c)) {
+			intersect((SortedArraySet<?>) c, true);
+		} else {
+			// Compact in place, instead of removing one by one.
+			int w = 0;
+			for (int i = 0; i < size; i++) {
+				if (c.contains(elements[i])) {
+					elements[w++] = elements[i];
+				}
+			}
+			truncate(w);
+		}
+		if (size != oldSize) {
+			modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		ensureSorted();
+		int w = 0;
+		for (int i = 0; i < size; i++) {
+			if (!c.contains(elements[i])) {
+				elements[w++] = elements[i];
+			}
+		}
+		if (w != size) {
+			truncate(w);
+			modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Number of elements in both this set and the specified one, without creating
+	 * a new set.
+	 * @param other a set with the same order as this one.
+	 * @return
+	 */
+	public int intersectionSize(SortedArraySet<?> other) {
+		checkSameOrder(other);
+		return intersect(other, false);
+	}
+
+	/**
+	 * A new set containing elements in both this set and the specified one.
+	 * @param other a set with the same order as this one.
+	 * @return
+	 */
+	public SortedArraySet<E> intersection(SortedArraySet<?> other) {
+		checkSameOrder(other);
+		SortedArraySet<E> ret = new SortedArraySet<E>(this);
+		ret.intersect(other, true);
+		return ret;
+	}
+
+	/**
+	 * Get the i-th smallest element.
+	 * @param i
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		ensureSorted();
+		return (E) elements[i];
+	}
+
+	/**
+	 * The smallest element.
+	 * @return
+	 */
+	public E first() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return get(0);
+	}
+
+	/**
+	 * The largest element.
+	 * @return
+	 */
+	public E last() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return get(size - 1);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(elements, 0, size, null);
+		size = 0;
+		sortedSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Release unused capacity.
+	 */
+	public void trimToSize() {
+		if (elements.length > size) {
+			elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+		}
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		ensureSorted();
+		return new Itr();
+	}
+
+	@Override
+	public Object[] toArray() {
+		ensureSorted();
+		return Arrays.copyOf(elements, size);
+	}
+
+	@Override
+	public Object clone() {
+		return new SortedArraySet<E>(this);
+	}
+
+	/**
+	 * Iterator in ascending order, supporting remove.
+	 */
+	private class Itr implements Iterator<E> {
+		private int cursor = 0;
+		private int lastRet = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			lastRet = cursor++;
+			return (E) elements[lastRet];
+		}
+
+		@Override
+		public void remove() {
+			if (lastRet < 0) {
+				throw new IllegalStateException();
+			}
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(lastRet);
+			cursor = lastRet;
+			lastRet = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(Object a, Object b) {
+		if (comparator == null) {
+			return ((Comparable<Object>) a).compareTo(b);
+		}
+		return comparator.compare((E) a, (E) b);
+	}
+
+	private boolean sameOrder(SortedArraySet<?> other) {
+		return comparator == other.comparator
+				|| (comparator != null && comparator.equals(other.comparator));
+	}
+
+	private void checkSameOrder(SortedArraySet<?> other) {
+		if (!sameOrder(other)) {
+			throw new IllegalArgumentException("Sets are not ordered by the same comparator");
+		}
+	}
+
+	/**
+	 * Binary search within the sorted part.
+	 * @return index of the element, or -(insertion point)-1.
+	 */
+	private int search(Object o) {
+		int lo = 0;
+		int hi = sortedSize - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int cmp = compare(elements[mid], o);
+			if (cmp < 0) {
+				lo = mid + 1;
+			} else if (cmp > 0) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(lo + 1);
+	}
+
+	/**
+	 * Index of the first element in a[from, to) not less than key, found by doubling
+	 * the step from "from" and then binary search. Costs O(log(distance)).
+	 */
+	private int gallop(Object[] a, int from, int to, Object key) {
+		if (from >= to || compare(a[from], key) >= 0) {
+			return from;
+		}
+		// a[lo] < key holds in the loop.
+		int lo = from;
+		int step = 1;
+		int hi = from + 1;
+		while (hi < to && compare(a[hi], key) < 0) {
+			lo = hi;
+			step <<= 1;
+			hi = from + step;
+		}
+		if (hi > to) {
+			hi = to;
+		}
+		lo++;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(a[mid], key) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Intersect with the other set, optionally keeping only common elements in this set.
+	 * @return number of common elements.
+	 */
+	private int intersect(SortedArraySet<?> other, boolean retain) {
+		ensureSorted();
+		other.ensureSorted();
+		Object[] a = elements;
+		Object[] b = other.elements;
+		// Common elements are compacted to the front of this array when retaining.
+		int n = 0;
+		if ((long) size * GALLOP_RATIO < other.size) {
+			// Gallop through the larger other set.
+			int j = 0;
+			for (int i = 0; i < size && j < other.size; i++) {
+				j = gallop(b, j, other.size, a[i]);
+				if (j < other.size && compare(b[j], a[i]) == 0) {
+					keep(retain, n++, i);
+					j++;
+				}
+			}
+		} else if ((long) other.size * GALLOP_RATIO < size) {
+			// Gallop through this larger set.
+			int i = 0;
+			for (int j = 0; j < other.size && i < size; j++) {
+				i = gallop(a, i, size, b[j]);
+				if (i < size && compare(a[i], b[j]) == 0) {
+					keep(retain, n++, i);
+					i++;
+				}
+			}
+		} else {
+			int i = 0, j = 0;
+			while (i < size && j < other.size) {
+				int cmp = compare(a[i], b[j]);
+				if (cmp < 0) {
+					i++;
+				} else if (cmp > 0) {
+					j++;
+				} else {
+					keep(retain, n++, i);
+					i++;
+					j++;
+				}
+			}
+		}
+		if (retain) {
+			truncate(n);
+		}
+		return n;
+	}
+
+	/**
+	 * Move the common element at index i to index n when retaining. n never passes i,
+	 * so elements not yet visited are never overwritten.
+	 */
+	private void keep(boolean retain, int n, int i) {
+		if (retain) {
+			elements[n] = elements[i];
+		}
+	}
+
+	/**
+	 * Union of two sorted arrays into dest, dropping duplicates.
+	 * @return number of elements written.
+	 */
+	private int merge(Object[] a, int aSize, Object[] b, int bSize, Object[] dest) {
+		int i = 0, j = 0, n = 0;
+		while (i < aSize && j < bSize) {
+			int cmp = compare(a[i], b[j]);
+			if (cmp < 0) {
+				dest[n++] = a[i++];
+			} else if (cmp > 0) {
+				dest[n++] = b[j++];
+			} else {
+				// Keep the existing element.
+				dest[n++] = a[i++];
+				j++;
+			}
+		}
+		while (i < aSize) {
+			dest[n++] = a[i++];
+		}
+		while (j < bSize) {
+			dest[n++] = b[j++];
+		}
+		return n;
+	}
+
+	/**
+	 * Sort pending elements and merge them into the sorted part, dropping duplicates.
+	 */
+	private void ensureSorted() {
+		if (sortedSize == size) {
+			return;
+		}
+		Comparator<Object> order = new Comparator<Object>() {
+			@Override
+			public int compare(Object a, Object b) {
+				return SortedArraySet.this.compare(a, b);
+			}
+		};
+		Arrays.sort(elements, sortedSize, size, order);
+		// Drop duplicates among pending elements.
+		int pending = sortedSize;
+		for (int i = sortedSize; i < size; i++) {
+			if (pending == sortedSize || compare(elements[pending - 1], elements[i]) != 0) {
+				elements[pending++] = elements[i];
+			}
+		}
+		Object[] tail = Arrays.copyOfRange(elements, sortedSize, pending);
+		Object[] merged = new Object[Math.max(elements.length, pending)];
+		int n = merge(elements, sortedSize, tail, tail.length, merged);
+		elements = merged;
+		size = n;
+		sortedSize = n;
+	}
+
+	private void removeAt(int index) {
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		elements[--size] = null;
+		sortedSize = size;
+		modCount++;
+	}
+
+	private void truncate(int newSize) {
+		Arrays.fill(elements, newSize, size, null);
+		size = newSize;
+		sortedSize = newSize;
+	}
+
+	private void grow(int capacity) {
+		if (elements.length < capacity) {
+			elements = Arrays.copyOf(elements, Math.max(capacity, elements.length + (elements.length >> 1) + 4));
+		}
+	}
+}
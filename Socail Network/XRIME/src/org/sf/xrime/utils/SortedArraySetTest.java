@@ -0,0 +1,105 @@
+package org.sf.xrime.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class SortedArraySetTest {
+	@Test
+	public void testAgainstTreeSet() {
+		Random random=new Random(17);
+		SortedArraySet<Integer> set=new SortedArraySet<Integer>();
+		TreeSet<Integer> expected=new TreeSet<Integer>();
+		
+		for(int ii=0; ii<5000; ii++) {
+			Integer value=random.nextInt(1000);
+			switch(random.nextInt(4)) {
+			case 0:
+			case 1:
+				assertEquals(expected.add(value), set.add(value));
+				break;
+			case 2:
+				assertEquals(expected.remove(value), set.remove(value));
+				break;
+			default:
+				assertEquals(expected.contains(value), set.contains(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(set));
+		assertEquals(expected.first(), set.first());
+		assertEquals(expected.last(), set.last());
+		assertTrue(set.equals(expected));
+		
+		// Removal through iterator.
+		for(Iterator<Integer> itr=set.iterator(); itr.hasNext();) {
+			if(itr.next()%2==0) {
+				itr.remove();
+			}
+		}
+		for(Iterator<Integer> itr=expected.iterator(); itr.hasNext();) {
+			if(itr.next()%2==0) {
+				itr.remove();
+			}
+		}
+		assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(set));
+	}
+	
+	@Test
+	public void testIntersection() {
+		SortedArraySet<String> small=new SortedArraySet<String>();
+		small.add("b");
+		small.add("x");
+		small.add("d");
+		
+		List<String> values=new ArrayList<String>();
+		for(char c='a'; c<='z'; c++) {
+			values.add(String.valueOf(c));
+			values.add(c+"1");
+		}
+		SortedArraySet<String> large=new SortedArraySet<String>();
+		assertTrue(large.addAll(values));
+		assertFalse(large.addAll(values));
+		assertEquals(large.size(), 52);
+		
+		// Galloping in both directions.
+		assertEquals(small.intersectionSize(large), 3);
+		assertEquals(large.intersectionSize(small), 3);
+		assertTrue(large.containsAll(small));
+		small.add("zz");
+		assertFalse(large.containsAll(small));
+		assertEquals(large.intersection(small).toString(), "[b, d, x]");
+		assertTrue(small.retainAll(large));
+		assertEquals(small.toString(), "[b, d, x]");
+		
+		// Merging sets of similar size.
+		SortedArraySet<String> other=new SortedArraySet<String>();
+		for(String value : values) {
+			if(value.length()==1) {
+				other.add(value);
+			}
+		}
+		assertEquals(large.intersectionSize(other), 26);
+		assertTrue(large.retainAll(other));
+		assertEquals(large, other);
+	}
+	
+	@Test
+	public void testFromSorted() {
+		String[] sorted={"a", "b", "c"};
+		SortedArraySet<String> set=SortedArraySet.fromSorted(null, sorted, 2);
+		assertEquals(set.toString(), "[a, b]");
+		try {
+			SortedArraySet.fromSorted(null, new String[]{"b", "a"}, 2);
+			fail();
+		} catch(IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+}